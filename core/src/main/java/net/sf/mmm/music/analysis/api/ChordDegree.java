@@ -0,0 +1,341 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.ChordExtension;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * A {@link ChordDegree} is a {@link Chord} normalized relative to the {@link MusicalKey#getTonika() tonika} of a
+ * {@link MusicalKey}. It consists of the {@link #getStep() step} (number of semitones above the tonika), the
+ * {@link #getTonalSystem() tonal system} and the {@link #getExtensionMask() extensions}. Hence the same progression
+ * has the same {@link ChordDegree}s in any key. E.g. "Dm7 G7 C" in C major and "Am7 D7 G" in G major are both
+ * "ii7 V7 I" in Roman numeral notation. A {@link ChordDegree} can also be {@link #getPacked() packed} into an
+ * {@code int} for compact storage and fast comparison.
+ *
+ * @author hohwille
+ */
+public final class ChordDegree {
+
+  /** The number of bits of the {@link #getPacked() packed} value before the {@link #getExtensionMask() extensions}. */
+  public static final int EXTENSION_SHIFT = 8;
+
+  /**
+   * The mask for the {@link #getPacked() packed} value with only {@link #getStep() step} and {@link #getTonalSystem()
+   * tonal system}.
+   */
+  public static final int CORE_MASK = (1 << EXTENSION_SHIFT) - 1;
+
+  private static final String[] NUMERALS = { "I", "II", "III", "IV", "V", "VI", "VII" };
+
+  private static final int[] NUMERAL_STEPS = { 0, 2, 4, 5, 7, 9, 11 };
+
+  private static final int[] STEP_NUMERALS = { 0, 1, 1, 2, 2, 3, 3, 4, 5, 5, 6, 6 };
+
+  private static final String[] STEP_ACCIDENTALS = { "", "b", "", "b", "", "", "#", "", "b", "", "b", "" };
+
+  private static final TonalSystem[] SYSTEMS = TonalSystem.values();
+
+  private static final ChordExtension[] EXTENSIONS = ChordExtension.values();
+
+  private final int step;
+
+  private final TonalSystem tonalSystem;
+
+  private final int extensionMask;
+
+  /**
+   * The constructor.
+   *
+   * @param step - see {@link #getStep()}.
+   * @param tonalSystem - see {@link #getTonalSystem()}.
+   * @param extensionMask - see {@link #getExtensionMask()}.
+   */
+  public ChordDegree(int step, TonalSystem tonalSystem, int extensionMask) {
+
+    super();
+    if ((step < 0) || (step >= 12)) {
+      throw new IllegalArgumentException(Integer.toString(step));
+    }
+    this.step = step;
+    this.tonalSystem = tonalSystem;
+    this.extensionMask = extensionMask;
+  }
+
+  /**
+   * @return the number of semitones from the {@link MusicalKey#getTonika() tonika} to the
+   *         {@link Chord#getFundamentalTone() fundamental tone} in the range from {@code 0} to {@code 11}.
+   */
+  public int getStep() {
+
+    return this.step;
+  }
+
+  /**
+   * @return the {@link Chord#getTonalSystem() tonal system} of the {@link Chord}. May be {@code null}.
+   */
+  public TonalSystem getTonalSystem() {
+
+    return this.tonalSystem;
+  }
+
+  /**
+   * @return the bitmask of the {@link Chord#getExtensions() extensions} with the bit {@code 1 << ordinal} set for each
+   *         contained {@link ChordExtension}.
+   */
+  public int getExtensionMask() {
+
+    return this.extensionMask;
+  }
+
+  /**
+   * @param extension the {@link ChordExtension}.
+   * @return {@code true} if the given {@link ChordExtension} is contained, {@code false} otherwise.
+   */
+  public boolean hasExtension(ChordExtension extension) {
+
+    return (this.extensionMask & (1 << extension.ordinal())) != 0;
+  }
+
+  /**
+   * @return the {@link List} of {@link ChordExtension}s from the {@link #getExtensionMask() extension mask}.
+   */
+  public List<ChordExtension> getExtensions() {
+
+    if (this.extensionMask == 0) {
+      return Collections.emptyList();
+    }
+    List<ChordExtension> extensions = new ArrayList<>();
+    for (ChordExtension extension : EXTENSIONS) {
+      if (hasExtension(extension)) {
+        extensions.add(extension);
+      }
+    }
+    return extensions;
+  }
+
+  /**
+   * @return this {@link ChordDegree} packed as {@code int}.
+   * @see #pack(Chord, MusicalKey)
+   */
+  public int getPacked() {
+
+    return (this.extensionMask << EXTENSION_SHIFT) | (getSystemCode(this.tonalSystem) << 4) | this.step;
+  }
+
+  /**
+   * @param key the {@link MusicalKey} to apply.
+   * @return the {@link Chord} of this degree in the given {@link MusicalKey}.
+   */
+  public Chord toChord(MusicalKey key) {
+
+    TonePitch fundamental = key.getTonika().transposeChromatic(this.step, key);
+    List<ChordExtension> extensions = getExtensions();
+    return new Chord(fundamental, this.tonalSystem, extensions.toArray(new ChordExtension[extensions.size()]));
+  }
+
+  /**
+   * @param chord the {@link Chord}.
+   * @param key the {@link MusicalKey}.
+   * @return the {@link ChordDegree} of the given {@link Chord} relative to the given {@link MusicalKey}.
+   */
+  public static ChordDegree of(Chord chord, MusicalKey key) {
+
+    return new ChordDegree(getStep(chord, key), chord.getTonalSystem(), getExtensionMask(chord.getExtensions()));
+  }
+
+  /**
+   * Same as {@link #of(Chord, MusicalKey)}.{@link #getPacked() getPacked()} but without creating an object.
+   *
+   * @param chord the {@link Chord}.
+   * @param key the {@link MusicalKey}.
+   * @return the {@link #getPacked() packed} {@link ChordDegree}.
+   */
+  public static int pack(Chord chord, MusicalKey key) {
+
+    return (getExtensionMask(chord.getExtensions()) << EXTENSION_SHIFT) | (getSystemCode(chord.getTonalSystem()) << 4)
+        | getStep(chord, key);
+  }
+
+  /**
+   * @param packed the {@link #getPacked() packed} {@link ChordDegree}.
+   * @return the unpacked {@link ChordDegree}.
+   */
+  public static ChordDegree unpack(int packed) {
+
+    int code = (packed >> 4) & 0x0F;
+    TonalSystem system = null;
+    if (code > 0) {
+      system = SYSTEMS[code - 1];
+    }
+    return new ChordDegree(packed & 0x0F, system, packed >>> EXTENSION_SHIFT);
+  }
+
+  private static int getStep(Chord chord, MusicalKey key) {
+
+    return Math.floorMod(chord.getFundamentalTone().getStep() - key.getTonika().getStep(), 12);
+  }
+
+  private static int getSystemCode(TonalSystem system) {
+
+    if (system == null) {
+      return 0;
+    }
+    return system.ordinal() + 1;
+  }
+
+  /**
+   * @param extensions the {@link Collection} of {@link ChordExtension}s.
+   * @return the according {@link #getExtensionMask() extension mask}.
+   */
+  public static int getExtensionMask(Collection<ChordExtension> extensions) {
+
+    int mask = 0;
+    for (ChordExtension extension : extensions) {
+      mask = mask | (1 << extension.ordinal());
+    }
+    return mask;
+  }
+
+  /**
+   * @param numeral the Roman numeral such as "V7", "ii", "bVII", "vii°" or "IVmaj7". Upper case numerals are
+   *        {@link TonalSystem#MAJOR major}, lower case are {@link TonalSystem#MINOR minor}. A leading "b" or "#"
+   *        lowers or raises the degree by a semitone.
+   * @return the parsed {@link ChordDegree}.
+   */
+  public static ChordDegree parse(String numeral) {
+
+    String string = numeral.trim();
+    int length = string.length();
+    int index = 0;
+    int accidental = 0;
+    while (index < length) {
+      char c = string.charAt(index);
+      if ((c == 'b') || (c == '\u266D')) {
+        accidental--;
+      } else if ((c == '#') || (c == '\u266F')) {
+        accidental++;
+      } else {
+        break;
+      }
+      index++;
+    }
+    int start = index;
+    while ((index < length) && ("IViv".indexOf(string.charAt(index)) >= 0)) {
+      index++;
+    }
+    String roman = string.substring(start, index);
+    int degree = -1;
+    for (int i = 0; i < NUMERALS.length; i++) {
+      if (NUMERALS[i].equalsIgnoreCase(roman)) {
+        degree = i;
+        break;
+      }
+    }
+    if (degree < 0) {
+      throw new IllegalArgumentException(numeral);
+    }
+    TonalSystem system;
+    if (roman.equals(roman.toLowerCase())) {
+      system = TonalSystem.MINOR;
+    } else if (roman.equals(roman.toUpperCase())) {
+      system = TonalSystem.MAJOR;
+    } else {
+      throw new IllegalArgumentException(numeral);
+    }
+    int mask = 0;
+    String rest = string.substring(index);
+    while (!rest.isEmpty()) {
+      char c = rest.charAt(0);
+      if ((c == '-') || (c == ' ') || (c == '_')) {
+        rest = rest.substring(1);
+        continue;
+      }
+      String prefix = ChordExtension.getExtensionPrefix(rest);
+      ChordExtension extension = ChordExtension.fromString(prefix);
+      if (extension == null) {
+        throw new IllegalArgumentException(numeral);
+      }
+      mask = mask | (1 << extension.ordinal());
+      if (extension.isRemoveThird()) {
+        system = null;
+      }
+      rest = rest.substring(prefix.length());
+    }
+    int step = Math.floorMod(NUMERAL_STEPS[degree] + accidental, 12);
+    return new ChordDegree(step, system, mask);
+  }
+
+  /**
+   * @param progression the progression of {@link #parse(String) Roman numerals} separated by whitespaces, commas or
+   *        dashes such as "ii-V-I" or "I V vi IV".
+   * @return the {@link List} of the parsed {@link ChordDegree}s.
+   */
+  public static List<ChordDegree> parseProgression(String progression) {
+
+    List<ChordDegree> degrees = new ArrayList<>();
+    for (String numeral : progression.trim().split("[\\s,\\-\u2013\u2014]+")) {
+      if (!numeral.isEmpty()) {
+        degrees.add(parse(numeral));
+      }
+    }
+    return degrees;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return getPacked();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    ChordDegree other = (ChordDegree) obj;
+    return (this.step == other.step) && (this.tonalSystem == other.tonalSystem)
+        && (this.extensionMask == other.extensionMask);
+  }
+
+  /**
+   * @return this {@link ChordDegree} in Roman numeral notation (e.g. "V7", "ii", "bVII" or "vii°").
+   */
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder(8);
+    sb.append(STEP_ACCIDENTALS[this.step]);
+    String numeral = NUMERALS[STEP_NUMERALS[this.step]];
+    boolean diminished = hasExtension(ChordExtension.DIM);
+    if ((this.tonalSystem == TonalSystem.MINOR) || diminished) {
+      numeral = numeral.toLowerCase();
+    }
+    sb.append(numeral);
+    if (diminished) {
+      sb.append(ChordExtension.DIM.getSymbol());
+    }
+    if (hasExtension(ChordExtension.AUG)) {
+      sb.append(ChordExtension.AUG.getAltName());
+    }
+    for (ChordExtension extension : EXTENSIONS) {
+      if ((extension != ChordExtension.DIM) && (extension != ChordExtension.AUG) && hasExtension(extension)) {
+        sb.append(extension.getName());
+      }
+    }
+    return sb.toString();
+  }
+
+}
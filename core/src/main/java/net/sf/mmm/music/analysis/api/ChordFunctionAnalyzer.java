@@ -0,0 +1,267 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.ChordExtension;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * Converts {@link Chord}s into functional labels relative to a {@link MusicalKey} and back. Supported are
+ * {@link ChordNotation#ROMAN Roman numerals} (e.g. "I", "ii7", "V7/V" or "bVII") and the {@link ChordNotation#NASHVILLE
+ * Nashville number system} (e.g. "1 4 5m"). As for {@link ChordDegree} the degrees are relative to the major scale of
+ * the {@link MusicalKey#getTonika() tonika} so in minor keys the third, sixth and seventh degree are flat (e.g. "i
+ * bVII bVI"). A major {@link Chord} that is not diatonic but the dominant of a diatonic degree is labeled as secondary
+ * dominant in {@link ChordNotation#ROMAN Roman notation}. The {@link Chord#getBaseTone() base tone} is not part of the
+ * label.
+ *
+ * All labels are precomputed per {@link MusicalKey} so {@link #appendLabel(Chord, ChordNotation, StringBuilder)}
+ * only performs table lookups and creates no garbage. The instances are immutable and shared via
+ * {@link #of(MusicalKey)}.
+ *
+ * @author hohwille
+ */
+public final class ChordFunctionAnalyzer {
+
+  private static final String[] ROMAN_UPPER = { "I", "bII", "II", "bIII", "III", "IV", "#IV", "V", "bVI", "VI", "bVII",
+  "VII" };
+
+  private static final String[] ROMAN_LOWER = { "i", "bii", "ii", "biii", "iii", "iv", "#iv", "v", "bvi", "vi", "bvii",
+  "vii" };
+
+  private static final String[] NASHVILLE = { "1", "b2", "2", "b3", "3", "4", "#4", "5", "b6", "6", "b7", "7" };
+
+  private static final String[] NUMERALS = { "I", "II", "III", "IV", "V", "VI", "VII" };
+
+  private static final int DOMINANT = 7;
+
+  private static final ChordFunctionAnalyzer[] ANALYZERS;
+
+  static {
+    MusicalKey[] keys = MusicalKey.values();
+    ANALYZERS = new ChordFunctionAnalyzer[keys.length];
+    for (MusicalKey key : keys) {
+      ANALYZERS[key.ordinal()] = new ChordFunctionAnalyzer(key);
+    }
+  }
+
+  private final MusicalKey key;
+
+  private final int tonika;
+
+  /** The {@link TonePitch} of each step (from the {@link MusicalKey#getChromaticScale() chromatic scale}). */
+  private final TonePitch[] pitches;
+
+  /** The label of the target of a secondary dominant for each step (e.g. "/V") or {@code null}. */
+  private final String[] secondaryTargets;
+
+  private ChordFunctionAnalyzer(MusicalKey key) {
+
+    super();
+    this.key = key;
+    this.tonika = key.getTonika().getStep();
+    this.pitches = key.getChromaticScale().toArray(new TonePitch[12]);
+    // quality of the diatonic triad for each step: 0 = not diatonic, 1 = major, 2 = minor, 3 = diminished
+    int[] qualities = new int[12];
+    List<TonePitch> scale = key.getDiatonicScale();
+    for (int degree = 0; degree < 7; degree++) {
+      int root = scale.get(degree).getStep();
+      int third = Math.floorMod(scale.get((degree + 2) % 7).getStep() - root, 12);
+      int fifth = Math.floorMod(scale.get((degree + 4) % 7).getStep() - root, 12);
+      int quality;
+      if (fifth == 6) {
+        quality = 3;
+      } else if (third == 4) {
+        quality = 1;
+      } else {
+        quality = 2;
+      }
+      qualities[Math.floorMod(root - this.tonika, 12)] = quality;
+    }
+    // the major dominant of the harmonic minor scale
+    qualities[DOMINANT] = 1;
+    this.secondaryTargets = new String[12];
+    for (int step = 0; step < 12; step++) {
+      int target = (step + 12 - DOMINANT) % 12;
+      int targetQuality = qualities[target];
+      if ((qualities[step] != 1) && (target != 0) && ((targetQuality == 1) || (targetQuality == 2))) {
+        if (targetQuality == 1) {
+          this.secondaryTargets[step] = "/" + ROMAN_UPPER[target];
+        } else {
+          this.secondaryTargets[step] = "/" + ROMAN_LOWER[target];
+        }
+      }
+    }
+  }
+
+  /**
+   * @param key the {@link MusicalKey}.
+   * @return the {@link ChordFunctionAnalyzer} for the given {@link MusicalKey}.
+   */
+  public static ChordFunctionAnalyzer of(MusicalKey key) {
+
+    return ANALYZERS[key.ordinal()];
+  }
+
+  /**
+   * @return the {@link MusicalKey} of this analyzer.
+   */
+  public MusicalKey getKey() {
+
+    return this.key;
+  }
+
+  /**
+   * @param chord the {@link Chord} to label.
+   * @param notation the {@link ChordNotation}.
+   * @param buffer the {@link StringBuilder} where to append the label.
+   * @return the given {@link StringBuilder}.
+   */
+  public StringBuilder appendLabel(Chord chord, ChordNotation notation, StringBuilder buffer) {
+
+    int step = Math.floorMod(chord.getFundamentalTone().getStep() - this.tonika, 12);
+    TonalSystem system = chord.getTonalSystem();
+    List<ChordExtension> extensions = chord.getExtensions();
+    int size = extensions.size();
+    boolean diminished = false;
+    boolean augmented = false;
+    for (int i = 0; i < size; i++) {
+      ChordExtension extension = extensions.get(i);
+      if (extension == ChordExtension.DIM) {
+        diminished = true;
+      } else if (extension == ChordExtension.AUG) {
+        augmented = true;
+      }
+    }
+    String secondaryTarget = null;
+    if (notation == ChordNotation.NASHVILLE) {
+      buffer.append(NASHVILLE[step]);
+      if (system == TonalSystem.MINOR) {
+        buffer.append('m');
+      }
+    } else {
+      if (system == TonalSystem.MAJOR) {
+        secondaryTarget = this.secondaryTargets[step];
+      }
+      if (secondaryTarget != null) {
+        buffer.append(ROMAN_UPPER[DOMINANT]);
+      } else if ((system == TonalSystem.MINOR) || diminished) {
+        buffer.append(ROMAN_LOWER[step]);
+      } else {
+        buffer.append(ROMAN_UPPER[step]);
+      }
+    }
+    if (diminished) {
+      buffer.append(ChordExtension.DIM.getSymbol());
+    }
+    if (augmented) {
+      buffer.append(ChordExtension.AUG.getAltName());
+    }
+    for (int i = 0; i < size; i++) {
+      ChordExtension extension = extensions.get(i);
+      if ((extension != ChordExtension.DIM) && (extension != ChordExtension.AUG)) {
+        buffer.append(extension.getName());
+      }
+    }
+    if (secondaryTarget != null) {
+      buffer.append(secondaryTarget);
+    }
+    return buffer;
+  }
+
+  /**
+   * @param chord the {@link Chord} to label.
+   * @param notation the {@link ChordNotation}.
+   * @return the functional label of the given {@link Chord}.
+   * @see #appendLabel(Chord, ChordNotation, StringBuilder)
+   */
+  public String getLabel(Chord chord, ChordNotation notation) {
+
+    return appendLabel(chord, notation, new StringBuilder(8)).toString();
+  }
+
+  /**
+   * @param chords the {@link List} of {@link Chord}s to label.
+   * @param notation the {@link ChordNotation}.
+   * @return the functional labels of the given {@link Chord}s separated by a space (e.g. "I IV V7 I" or "1 4 5m").
+   */
+  public String getLabels(List<Chord> chords, ChordNotation notation) {
+
+    int size = chords.size();
+    StringBuilder buffer = new StringBuilder(size * 4);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        buffer.append(' ');
+      }
+      appendLabel(chords.get(i), notation, buffer);
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * @param label the functional label in {@link ChordNotation#ROMAN Roman} (e.g. "ii7", "bVII" or "V7/V") or
+   *        {@link ChordNotation#NASHVILLE Nashville} notation (e.g. "5m" or "b7"). The notation is detected
+   *        automatically.
+   * @return the according {@link Chord} in the {@link #getKey() key} of this analyzer.
+   */
+  public Chord parseLabel(String label) {
+
+    String string = label.trim();
+    ChordDegree degree;
+    int step;
+    int slashIndex = string.indexOf('/');
+    if (slashIndex > 0) {
+      degree = parseDegree(string.substring(0, slashIndex));
+      ChordDegree target = parseDegree(string.substring(slashIndex + 1));
+      step = (degree.getStep() + target.getStep()) % 12;
+    } else {
+      degree = parseDegree(string);
+      step = degree.getStep();
+    }
+    List<ChordExtension> extensions = degree.getExtensions();
+    return new Chord(this.pitches[step], degree.getTonalSystem(),
+        extensions.toArray(new ChordExtension[extensions.size()]));
+  }
+
+  /**
+   * @param labels the functional labels separated by whitespaces, commas or dashes (e.g. "I-IV-V7-I" or "1 4 5m").
+   * @return the {@link List} of the according {@link Chord}s.
+   * @see #parseLabel(String)
+   */
+  public List<Chord> parseLabels(String labels) {
+
+    List<Chord> chords = new ArrayList<>();
+    for (String label : labels.trim().split("[\\s,\\-\u2013\u2014]+")) {
+      if (!label.isEmpty()) {
+        chords.add(parseLabel(label));
+      }
+    }
+    return chords;
+  }
+
+  private static ChordDegree parseDegree(String label) {
+
+    int length = label.length();
+    int index = 0;
+    while ((index < length) && ("b#\u266D\u266F".indexOf(label.charAt(index)) >= 0)) {
+      index++;
+    }
+    if ((index < length) && (label.charAt(index) >= '1') && (label.charAt(index) <= '7')) {
+      // Nashville number: convert to Roman numeral
+      String numeral = NUMERALS[label.charAt(index) - '1'];
+      String rest = label.substring(index + 1);
+      if (rest.startsWith("m") && !rest.startsWith("maj")) {
+        numeral = numeral.toLowerCase();
+        rest = rest.substring(1);
+      }
+      return ChordDegree.parse(label.substring(0, index) + numeral + rest);
+    }
+    return ChordDegree.parse(label);
+  }
+
+}
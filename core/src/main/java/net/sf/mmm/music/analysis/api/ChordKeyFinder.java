@@ -0,0 +1,224 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * Infers the {@link MusicalKey} of a progression of {@link Chord}s (e.g. for chord-only sheets). Each {@link Chord}
+ * is scored against all {@link MusicalKey}s by table lookups: the fit of its {@link Chord#getPitchClassMask() pitch
+ * classes} with the {@link MusicalKey#getDiatonicScale() diatonic scale} of the key (precomputed for all 4096 masks)
+ * plus a bonus for the harmonic function of its root (tonic, dominant, subdominant). The first and last chord get
+ * additional weight for the tonic as most songs start and end there. The key is chosen in a single pass over the
+ * progression; on equal score the key with fewer signs wins.
+ *
+ * This class is not thread-safe but cheap to create and {@link #reset() reusable}.
+ *
+ * @see KeyFinder
+ *
+ * @author hohwille
+ */
+public class ChordKeyFinder {
+
+  private static final MusicalKey[] KEYS = MusicalKey.values();
+
+  private static final int KEY_COUNT = KEYS.length;
+
+  private static final int IN_SCALE = 2;
+
+  private static final int OUT_OF_SCALE = -3;
+
+  private static final int TONIC = 4;
+
+  private static final int DOMINANT = 2;
+
+  private static final int SUBDOMINANT = 1;
+
+  private static final int FIRST_TONIC = 2;
+
+  private static final int LAST_TONIC = 6;
+
+  /** The score of each pitch class mask for each key (index {@code mask * 30 + key}). */
+  private static final byte[] MASK_SCORES;
+
+  /** The bonus of each root step and quality for each key (index {@code (step * 3 + quality) * 30 + key}). */
+  private static final byte[] ROOT_SCORES;
+
+  /** The tonic bonus of each root step and quality for each key (index as {@link #ROOT_SCORES}). */
+  private static final byte[] TONIC_SCORES;
+
+  static {
+    int[] diatonic = new int[KEY_COUNT];
+    for (MusicalKey key : KEYS) {
+      for (TonePitch pitch : key.getDiatonicScale()) {
+        diatonic[key.ordinal()] |= 1 << pitch.getStep();
+      }
+    }
+    MASK_SCORES = new byte[4096 * KEY_COUNT];
+    for (int mask = 0; mask < 4096; mask++) {
+      for (int key = 0; key < KEY_COUNT; key++) {
+        int in = Integer.bitCount(mask & diatonic[key]);
+        int out = Integer.bitCount(mask & ~diatonic[key]);
+        MASK_SCORES[mask * KEY_COUNT + key] = (byte) (in * IN_SCALE + out * OUT_OF_SCALE);
+      }
+    }
+    ROOT_SCORES = new byte[12 * 3 * KEY_COUNT];
+    TONIC_SCORES = new byte[12 * 3 * KEY_COUNT];
+    for (MusicalKey key : KEYS) {
+      int tonika = key.getTonika().getStep();
+      int tonicQuality = getQuality(key.getTonalSystem());
+      for (int step = 0; step < 12; step++) {
+        int degree = Math.floorMod(step - tonika, 12);
+        for (int quality = 0; quality < 3; quality++) {
+          int index = (step * 3 + quality) * KEY_COUNT + key.ordinal();
+          if (degree == 0) {
+            if (quality == tonicQuality) {
+              ROOT_SCORES[index] = TONIC;
+              TONIC_SCORES[index] = 1;
+            }
+          } else if (degree == 7) {
+            // major dominant is common in minor keys (harmonic minor) as well
+            if (quality == 1) {
+              ROOT_SCORES[index] = DOMINANT;
+            }
+          } else if ((degree == 5) && (quality == tonicQuality)) {
+            ROOT_SCORES[index] = SUBDOMINANT;
+          }
+        }
+      }
+    }
+  }
+
+  private final int[] scores;
+
+  private int count;
+
+  private int firstRoot;
+
+  private int lastRoot;
+
+  /**
+   * The constructor.
+   */
+  public ChordKeyFinder() {
+
+    super();
+    this.scores = new int[KEY_COUNT];
+  }
+
+  /**
+   * @return the offset of the given {@link Chord} in the tables indexed by root and quality.
+   */
+  private static int getRoot(Chord chord) {
+
+    return (chord.getFundamentalTone().getStep() * 3 + getQuality(chord.getTonalSystem())) * KEY_COUNT;
+  }
+
+  private static int getQuality(TonalSystem system) {
+
+    if (system == TonalSystem.MAJOR) {
+      return 1;
+    } else if (system == TonalSystem.MINOR) {
+      return 2;
+    }
+    return 0;
+  }
+
+  /**
+   * @param chord the next {@link Chord} of the progression.
+   * @return this.
+   */
+  public ChordKeyFinder add(Chord chord) {
+
+    addScores(chord, this.scores, 0);
+    int root = getRoot(chord);
+    if (this.count == 0) {
+      this.firstRoot = root;
+    }
+    this.lastRoot = root;
+    this.count++;
+    return this;
+  }
+
+  /**
+   * Adds the score of a single {@link Chord} for all {@link MusicalKey}s without the bonus for first and last chord.
+   *
+   * @param chord the {@link Chord} to score.
+   * @param target the array where to add the scores.
+   * @param offset the index in the given array for the first {@link MusicalKey}.
+   */
+  static void addScores(Chord chord, int[] target, int offset) {
+
+    int maskOffset = chord.getPitchClassMask() * KEY_COUNT;
+    int root = getRoot(chord);
+    for (int key = 0; key < KEY_COUNT; key++) {
+      target[offset + key] += MASK_SCORES[maskOffset + key] + ROOT_SCORES[root + key];
+    }
+  }
+
+  /**
+   * @param key the {@link MusicalKey}.
+   * @return the score of the given {@link MusicalKey} for the {@link #add(Chord) added} {@link Chord}s. A higher score
+   *         indicates a better fit.
+   */
+  public int getScore(MusicalKey key) {
+
+    int index = key.ordinal();
+    int score = this.scores[index];
+    if (this.count > 0) {
+      score = score + TONIC_SCORES[this.firstRoot + index] * FIRST_TONIC
+          + TONIC_SCORES[this.lastRoot + index] * LAST_TONIC;
+    }
+    return score;
+  }
+
+  /**
+   * @return the {@link MusicalKey} with the highest {@link #getScore(MusicalKey) score} or {@code null} if no
+   *         {@link Chord} has been {@link #add(Chord) added}.
+   */
+  public MusicalKey getKey() {
+
+    if (this.count == 0) {
+      return null;
+    }
+    MusicalKey best = null;
+    int bestScore = Integer.MIN_VALUE;
+    for (MusicalKey key : KeyFinder.PREFERRED_KEYS) {
+      int score = getScore(key);
+      if (score > bestScore) {
+        bestScore = score;
+        best = key;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Removes all {@link Chord}s.
+   */
+  public void reset() {
+
+    Arrays.fill(this.scores, 0);
+    this.count = 0;
+  }
+
+  /**
+   * @param chords the {@link Chord}s of a song.
+   * @return the inferred {@link MusicalKey} or {@code null} if the given {@link List} is empty.
+   */
+  public static MusicalKey findKey(List<Chord> chords) {
+
+    ChordKeyFinder finder = new ChordKeyFinder();
+    for (Chord chord : chords) {
+      finder.add(chord);
+    }
+    return finder.getKey();
+  }
+
+}
@@ -0,0 +1,21 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+/**
+ * The notation of the functional labels created by the {@link ChordFunctionAnalyzer}.
+ *
+ * @author hohwille
+ */
+public enum ChordNotation {
+
+  /**
+   * Roman numeral notation with upper case for major and lower case for minor chords as well as secondary dominants
+   * (e.g. "I vi ii7 V7/V V").
+   */
+  ROMAN,
+
+  /** Nashville number system with an "m" suffix for minor chords (e.g. "1 6m 2m7 2 5"). */
+  NASHVILLE
+
+}
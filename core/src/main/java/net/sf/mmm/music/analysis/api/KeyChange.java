@@ -0,0 +1,75 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.Objects;
+
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+/**
+ * A {@link KeyChange} is the start of a region of a piece in a new {@link #getKey() key} as detected by the
+ * {@link ModulationDetector}.
+ *
+ * @author hohwille
+ */
+public final class KeyChange {
+
+  private final int position;
+
+  private final MusicalKey key;
+
+  /**
+   * The constructor.
+   *
+   * @param position - see {@link #getPosition()}.
+   * @param key - see {@link #getKey()}.
+   */
+  public KeyChange(int position, MusicalKey key) {
+
+    super();
+    this.position = position;
+    this.key = key;
+  }
+
+  /**
+   * @return the index of the first item (note or chord) in the new {@link #getKey() key}.
+   */
+  public int getPosition() {
+
+    return this.position;
+  }
+
+  /**
+   * @return the {@link MusicalKey} starting at the {@link #getPosition() position}.
+   */
+  public MusicalKey getKey() {
+
+    return this.key;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Objects.hash(Integer.valueOf(this.position), this.key);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    KeyChange other = (KeyChange) obj;
+    return (this.position == other.position) && (this.key == other.key);
+  }
+
+  @Override
+  public String toString() {
+
+    return this.position + ":" + this.key;
+  }
+
+}
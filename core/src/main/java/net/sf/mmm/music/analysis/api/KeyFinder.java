@@ -0,0 +1,234 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Detects the {@link MusicalKey} of a stream of {@link ToneItem}s by correlating the pitch class distribution with a
+ * {@link KeyProfile} for all {@link MusicalKey}s. Each tone is weighted by its {@link MusicalValue#getDuration()
+ * duration}. The correlations are updated incrementally using the precomputed {@link KeyProfile#getWeight(int,
+ * MusicalKey) profile weights} so {@link #add(int, double) adding} a tone has constant cost and {@link #getKey()} only
+ * compares the 30 keys. In sliding window mode only the latest tones are considered. If enharmonically equivalent
+ * keys (e.g. Fis and Ges major) have the same correlation, the key with fewer signs wins.
+ *
+ * <pre>
+ * KeyFinder finder = new KeyFinder();
+ * for (MusicalItem item : items) {
+ *   finder.add(item);
+ * }
+ * MusicalKey key = finder.getKey();
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author hohwille
+ */
+public class KeyFinder {
+
+  private static final MusicalKey[] KEYS = MusicalKey.values();
+
+  /** The {@link MusicalKey}s ordered by the number of signs so the first one wins on equal correlation. */
+  static final MusicalKey[] PREFERRED_KEYS = KEYS.clone();
+
+  static {
+    Arrays.sort(PREFERRED_KEYS, Comparator.comparingInt(key -> key.getChromaticSignTones().size()));
+  }
+
+  private final double[] weights;
+
+  private final double[] histogram;
+
+  private final double[] products;
+
+  private final int[] windowSteps;
+
+  private final double[] windowWeights;
+
+  private int windowStart;
+
+  private int windowCount;
+
+  private int removals;
+
+  private double sum;
+
+  private double sumOfSquares;
+
+  /**
+   * The constructor for the {@link KeyProfile#KRUMHANSL_KESSLER default profile} considering all tones.
+   */
+  public KeyFinder() {
+
+    this(KeyProfile.KRUMHANSL_KESSLER, 0);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param profile the {@link KeyProfile} to use.
+   * @param windowSize the maximum number of most recent tones to consider (sliding window) or {@code 0} to consider
+   *        all tones.
+   */
+  public KeyFinder(KeyProfile profile, int windowSize) {
+
+    super();
+    if (windowSize < 0) {
+      throw new IllegalArgumentException(Integer.toString(windowSize));
+    }
+    this.weights = profile.getWeights();
+    this.histogram = new double[12];
+    this.products = new double[KEYS.length];
+    if (windowSize > 0) {
+      this.windowSteps = new int[windowSize];
+      this.windowWeights = new double[windowSize];
+    } else {
+      this.windowSteps = null;
+      this.windowWeights = null;
+    }
+  }
+
+  /**
+   * @param item the {@link MusicalItem} to add. {@link MusicalItem#isRest() Rests} are ignored.
+   * @return this.
+   */
+  public KeyFinder add(MusicalItem item) {
+
+    Tone tone = item.getTone();
+    if (tone != null) {
+      add(tone.getPitch().getStep(), item.getValue().getDuration());
+    }
+    return this;
+  }
+
+  /**
+   * @param step the {@link net.sf.mmm.music.datatype.api.TonePitch#getStep() step} of the pitch class.
+   * @param weight the weight (typically the {@link MusicalValue#getDuration() duration}) of the tone.
+   * @return this.
+   */
+  public KeyFinder add(int step, double weight) {
+
+    if (this.windowSteps != null) {
+      int capacity = this.windowSteps.length;
+      if (this.windowCount == capacity) {
+        update(this.windowSteps[this.windowStart], -this.windowWeights[this.windowStart]);
+        this.windowStart = (this.windowStart + 1) % capacity;
+        this.windowCount--;
+        this.removals++;
+        if (this.removals == capacity) {
+          this.removals = 0;
+          recompute();
+        }
+      }
+      int end = (this.windowStart + this.windowCount) % capacity;
+      this.windowSteps[end] = step;
+      this.windowWeights[end] = weight;
+      this.windowCount++;
+    }
+    update(step, weight);
+    return this;
+  }
+
+  private void update(int step, double weight) {
+
+    double old = this.histogram[step];
+    this.histogram[step] = old + weight;
+    this.sum = this.sum + weight;
+    this.sumOfSquares = this.sumOfSquares + (2 * old + weight) * weight;
+    int offset = step * KEYS.length;
+    for (int key = 0; key < KEYS.length; key++) {
+      this.products[key] = this.products[key] + weight * this.weights[offset + key];
+    }
+  }
+
+  /**
+   * Recomputes the sums from the histogram to avoid accumulation of rounding errors by removals.
+   */
+  private void recompute() {
+
+    Arrays.fill(this.products, 0);
+    this.sum = 0;
+    this.sumOfSquares = 0;
+    for (int step = 0; step < 12; step++) {
+      double value = this.histogram[step];
+      this.sum = this.sum + value;
+      this.sumOfSquares = this.sumOfSquares + value * value;
+      int offset = step * KEYS.length;
+      for (int key = 0; key < KEYS.length; key++) {
+        this.products[key] = this.products[key] + value * this.weights[offset + key];
+      }
+    }
+  }
+
+  /**
+   * Removes all tones.
+   */
+  public void reset() {
+
+    Arrays.fill(this.histogram, 0);
+    Arrays.fill(this.products, 0);
+    this.sum = 0;
+    this.sumOfSquares = 0;
+    this.windowStart = 0;
+    this.windowCount = 0;
+    this.removals = 0;
+  }
+
+  /**
+   * @param key the {@link MusicalKey}.
+   * @return the correlation of the current pitch class distribution with the {@link KeyProfile} of the given
+   *         {@link MusicalKey} in the range from {@code -1} to {@code 1}.
+   */
+  public double getCorrelation(MusicalKey key) {
+
+    double variance = this.sumOfSquares - (this.sum * this.sum) / 12;
+    if (variance <= 0) {
+      return 0;
+    }
+    return this.products[key.ordinal()] / Math.sqrt(variance);
+  }
+
+  /**
+   * @return the {@link MusicalKey} with the highest {@link #getCorrelation(MusicalKey) correlation} or {@code null} if
+   *         no tone has been {@link #add(int, double) added}.
+   */
+  public MusicalKey getKey() {
+
+    if (this.sum <= 0) {
+      return null;
+    }
+    MusicalKey best = null;
+    double bestProduct = Double.NEGATIVE_INFINITY;
+    // as the denominator is the same for all keys it is sufficient to compare the products
+    for (MusicalKey key : PREFERRED_KEYS) {
+      double product = this.products[key.ordinal()];
+      if (product > bestProduct) {
+        bestProduct = product;
+        best = key;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s of a song.
+   * @return the detected {@link MusicalKey} or {@code null} if there is no tone.
+   */
+  public static MusicalKey findKey(List<? extends MusicalItem> items) {
+
+    KeyFinder finder = new KeyFinder();
+    for (MusicalItem item : items) {
+      finder.add(item);
+    }
+    return finder.getKey();
+  }
+
+}
@@ -0,0 +1,83 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+
+/**
+ * A {@link KeyProfile} defines the expected weight of each pitch class (relative to the {@link MusicalKey#getTonika()
+ * tonika}) in {@link TonalSystem#MAJOR major} and {@link TonalSystem#MINOR minor} keys. The correlation of an actual
+ * pitch class distribution with these profiles is used to detect the {@link MusicalKey}. For fast detection the
+ * profiles are precomputed for all {@link MusicalKey}s as {@link #getWeight(int, MusicalKey) centered and normalized
+ * weights}.
+ *
+ * @see KeyFinder
+ *
+ * @author hohwille
+ */
+public enum KeyProfile {
+
+  /** The probe tone profiles from Krumhansl and Kessler (1982). */
+  KRUMHANSL_KESSLER(new double[] { 6.35, 2.23, 3.48, 2.33, 4.38, 4.09, 2.52, 5.19, 2.39, 3.66, 2.29, 2.88 },
+      new double[] { 6.33, 2.68, 3.52, 5.38, 2.60, 3.53, 2.54, 4.75, 3.98, 2.69, 3.34, 3.17 }),
+
+  /** The profiles from Temperley (2007) derived from the Kostka-Payne corpus. */
+  TEMPERLEY(new double[] { 0.748, 0.060, 0.488, 0.082, 0.670, 0.460, 0.096, 0.715, 0.104, 0.366, 0.057, 0.400 },
+      new double[] { 0.712, 0.084, 0.474, 0.618, 0.049, 0.460, 0.105, 0.747, 0.404, 0.067, 0.133, 0.330 });
+
+  private final double[] weights;
+
+  private final int keyCount;
+
+  private KeyProfile(double[] major, double[] minor) {
+
+    MusicalKey[] keys = MusicalKey.values();
+    this.keyCount = keys.length;
+    this.weights = new double[12 * this.keyCount];
+    for (MusicalKey key : keys) {
+      double[] profile;
+      if (key.getTonalSystem() == TonalSystem.MINOR) {
+        profile = minor;
+      } else {
+        profile = major;
+      }
+      double mean = 0;
+      for (double value : profile) {
+        mean = mean + value;
+      }
+      mean = mean / 12;
+      double norm = 0;
+      for (double value : profile) {
+        norm = norm + (value - mean) * (value - mean);
+      }
+      norm = Math.sqrt(norm);
+      int tonika = key.getTonika().getStep();
+      for (int step = 0; step < 12; step++) {
+        int degree = Math.floorMod(step - tonika, 12);
+        this.weights[step * this.keyCount + key.ordinal()] = (profile[degree] - mean) / norm;
+      }
+    }
+  }
+
+  /**
+   * @param step the {@link net.sf.mmm.music.datatype.api.TonePitch#getStep() step} of the pitch class.
+   * @param key the {@link MusicalKey}.
+   * @return the centered weight of the given pitch class in the given {@link MusicalKey} normalized so the weights of
+   *         each {@link MusicalKey} have a mean of {@code 0} and a length of {@code 1}.
+   */
+  public double getWeight(int step, MusicalKey key) {
+
+    return this.weights[step * this.keyCount + key.ordinal()];
+  }
+
+  /**
+   * @return the {@link #getWeight(int, MusicalKey) weights} as matrix with the index {@code step * 30 + key.ordinal()}.
+   *         Must not be modified.
+   */
+  double[] getWeights() {
+
+    return this.weights;
+  }
+
+}
@@ -0,0 +1,330 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * Segments an entire piece into regions of the same {@link MusicalKey} (modulation detection). Unlike the sliding
+ * window of {@link KeyFinder} this does not flicker as it finds the globally best sequence of keys with the Viterbi
+ * algorithm over a hidden Markov model with the 30 {@link MusicalKey}s as states. The piece is split into frames (a
+ * chord or a fixed duration of notes) that are scored for every key (emission) by the {@link KeyProfile} correlation
+ * or the {@link ChordKeyFinder} tables. Every key change costs a {@link #getChangeCost() fixed amount} plus a
+ * {@link #getDistanceCost() cost per step} on the circle of fifths (changing between relative major and minor is one
+ * step). The decoding is linear in the number of frames and only uses primitive arrays.
+ *
+ * <pre>
+ * List&lt;KeyChange&gt; changes = new ModulationDetector().detectChords(chords);
+ * </pre>
+ *
+ * @author hohwille
+ */
+public class ModulationDetector {
+
+  /** The default {@link #getChangeCost() change cost}. */
+  public static final double DEFAULT_CHANGE_COST = 12;
+
+  /** The default {@link #getDistanceCost() distance cost}. */
+  public static final double DEFAULT_DISTANCE_COST = 2;
+
+  /** The default {@link #detectNotes(List, KeyProfile, double) frame duration} of a 4/4 measure. */
+  public static final double DEFAULT_FRAME_DURATION = 1;
+
+  /** The factor for the {@link KeyProfile} correlation to be comparable with the {@link ChordKeyFinder} scores. */
+  private static final double CORRELATION_SCALE = 10;
+
+  private static final MusicalKey[] KEYS = MusicalKey.values();
+
+  private static final int KEY_COUNT = KEYS.length;
+
+  private final double changeCost;
+
+  private final double distanceCost;
+
+  private final double[] transitionCosts;
+
+  /**
+   * The constructor using {@link #DEFAULT_CHANGE_COST} and {@link #DEFAULT_DISTANCE_COST}.
+   */
+  public ModulationDetector() {
+
+    this(DEFAULT_CHANGE_COST, DEFAULT_DISTANCE_COST);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param changeCost - see {@link #getChangeCost()}.
+   * @param distanceCost - see {@link #getDistanceCost()}.
+   */
+  public ModulationDetector(double changeCost, double distanceCost) {
+
+    super();
+    if ((changeCost < 0) || (distanceCost < 0)) {
+      throw new IllegalArgumentException(changeCost + "/" + distanceCost);
+    }
+    this.changeCost = changeCost;
+    this.distanceCost = distanceCost;
+    this.transitionCosts = new double[KEY_COUNT * KEY_COUNT];
+    for (MusicalKey from : KEYS) {
+      for (MusicalKey to : KEYS) {
+        if (from != to) {
+          this.transitionCosts[from.ordinal() * KEY_COUNT + to.ordinal()] = changeCost
+              + distanceCost * getDistance(from, to);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the penalty for every key change. The higher, the fewer (and longer) key regions are detected.
+   */
+  public double getChangeCost() {
+
+    return this.changeCost;
+  }
+
+  /**
+   * @return the additional penalty of a key change per step on the circle of fifths.
+   */
+  public double getDistanceCost() {
+
+    return this.distanceCost;
+  }
+
+  /**
+   * @param from the first {@link MusicalKey}.
+   * @param to the second {@link MusicalKey}.
+   * @return the number of steps on the circle of fifths between the given {@link MusicalKey}s plus one if the
+   *         {@link MusicalKey#getTonalSystem() tonal systems} differ. E.g. {@code 0} for Fis and Ges major, {@code 1}
+   *         for C major and G major or a minor, {@code 4} for C major and c minor.
+   */
+  public static int getDistance(MusicalKey from, MusicalKey to) {
+
+    int delta = Math.floorMod(getFifths(from) - getFifths(to), 12);
+    int distance = Math.min(delta, 12 - delta);
+    if (from.getTonalSystem() != to.getTonalSystem()) {
+      distance++;
+    }
+    return distance;
+  }
+
+  /**
+   * @return the position on the circle of fifths of the key signature (of the relative major key).
+   */
+  private static int getFifths(MusicalKey key) {
+
+    int step = key.getTonika().getStep();
+    if (key.getTonalSystem() == TonalSystem.MINOR) {
+      step = step + 3;
+    }
+    return (step * 7) % 12;
+  }
+
+  /**
+   * Detects the key regions of a chord progression where every {@link Chord} is a frame.
+   *
+   * @param chords the {@link Chord}s of the piece.
+   * @return the {@link KeyChange}s with the {@link KeyChange#getPosition() position} as index in the given
+   *         {@link List}. The first {@link KeyChange} is the initial key at position {@code 0}. Empty if the given
+   *         {@link List} is empty.
+   */
+  public List<KeyChange> detectChords(List<Chord> chords) {
+
+    int size = chords.size();
+    int[] chordScores = new int[size * KEY_COUNT];
+    for (int i = 0; i < size; i++) {
+      ChordKeyFinder.addScores(chords.get(i), chordScores, i * KEY_COUNT);
+    }
+    double[] scores = new double[chordScores.length];
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = chordScores[i];
+    }
+    return decode(scores);
+  }
+
+  /**
+   * Detects the key regions of a melody or voice using the {@link KeyProfile#KRUMHANSL_KESSLER default profile} and
+   * {@link #DEFAULT_FRAME_DURATION}.
+   *
+   * @param items the {@link MusicalItem}s of the piece.
+   * @return the {@link KeyChange}s.
+   * @see #detectNotes(List, KeyProfile, double)
+   */
+  public List<KeyChange> detectNotes(List<? extends MusicalItem> items) {
+
+    return detectNotes(items, KeyProfile.KRUMHANSL_KESSLER, DEFAULT_FRAME_DURATION);
+  }
+
+  /**
+   * Detects the key regions of a melody or voice. The {@link MusicalItem}s are split into frames of the given
+   * duration and each frame is scored by the correlation of its pitch classes with the {@link KeyProfile}.
+   *
+   * @param items the {@link MusicalItem}s of the piece.
+   * @param profile the {@link KeyProfile} to use.
+   * @param frameDuration the {@link net.sf.mmm.music.datatype.api.MusicalValue#getDuration() duration} of a frame
+   *        (e.g. {@code 1} for a 4/4 measure).
+   * @return the {@link KeyChange}s with the {@link KeyChange#getPosition() position} as index of the first
+   *         {@link MusicalItem} of the frame in the given {@link List}. The first {@link KeyChange} is the initial key
+   *         at position {@code 0}. Empty if there are no tones.
+   */
+  public List<KeyChange> detectNotes(List<? extends MusicalItem> items, KeyProfile profile, double frameDuration) {
+
+    if (frameDuration <= 0) {
+      throw new IllegalArgumentException(Double.toString(frameDuration));
+    }
+    double[] weights = profile.getWeights();
+    int size = items.size();
+    // there can not be more frames than items
+    double[] scores = new double[size * KEY_COUNT];
+    int[] starts = new int[size];
+    double[] histogram = new double[12];
+    int frameCount = 0;
+    double frameEnd = frameDuration;
+    double time = 0;
+    int frameStart = 0;
+    for (int i = 0; i <= size; i++) {
+      if ((i == size) || (time >= frameEnd)) {
+        if (addFrame(histogram, weights, scores, frameCount * KEY_COUNT)) {
+          starts[frameCount++] = frameStart;
+        }
+        frameStart = i;
+        while (frameEnd <= time) {
+          frameEnd = frameEnd + frameDuration;
+        }
+        if (i == size) {
+          break;
+        }
+      }
+      MusicalItem item = items.get(i);
+      double duration = item.getValue().getDuration();
+      Tone tone = item.getTone();
+      if (tone != null) {
+        histogram[tone.getPitch().getStep()] += duration;
+      }
+      time = time + duration;
+    }
+    List<KeyChange> changes = decode(scores, frameCount);
+    for (int i = 0; i < changes.size(); i++) {
+      KeyChange change = changes.get(i);
+      changes.set(i, new KeyChange(starts[change.getPosition()], change.getKey()));
+    }
+    return changes;
+  }
+
+  /**
+   * Computes the correlation of the histogram with the profile of all keys and clears the histogram.
+   *
+   * @return {@code true} if a frame has been added, {@code false} if the histogram was empty.
+   */
+  private static boolean addFrame(double[] histogram, double[] weights, double[] scores, int offset) {
+
+    double sum = 0;
+    double sumOfSquares = 0;
+    for (double value : histogram) {
+      sum = sum + value;
+      sumOfSquares = sumOfSquares + value * value;
+    }
+    if (sum <= 0) {
+      return false;
+    }
+    double variance = sumOfSquares - (sum * sum) / 12;
+    // a uniform histogram has no variance and fits all keys equally
+    double factor = 0;
+    if (variance > 0) {
+      factor = CORRELATION_SCALE / Math.sqrt(variance);
+    }
+    for (int step = 0; step < 12; step++) {
+      double value = histogram[step] * factor;
+      if (value != 0) {
+        int weightOffset = step * KEY_COUNT;
+        for (int key = 0; key < KEY_COUNT; key++) {
+          scores[offset + key] += value * weights[weightOffset + key];
+        }
+      }
+      histogram[step] = 0;
+    }
+    return true;
+  }
+
+  /**
+   * @param scores the emission scores of all frames for all keys with the index {@code frame * 30 + key.ordinal()}.
+   *        A higher score indicates a better fit of the frame with the key.
+   * @return the {@link KeyChange}s with the {@link KeyChange#getPosition() position} as frame index.
+   */
+  public List<KeyChange> decode(double[] scores) {
+
+    if ((scores.length % KEY_COUNT) != 0) {
+      throw new IllegalArgumentException(Integer.toString(scores.length));
+    }
+    return decode(scores, scores.length / KEY_COUNT);
+  }
+
+  private List<KeyChange> decode(double[] scores, int frameCount) {
+
+    List<KeyChange> changes = new ArrayList<>();
+    if (frameCount == 0) {
+      return changes;
+    }
+    byte[] backPointers = new byte[frameCount * KEY_COUNT];
+    double[] previous = new double[KEY_COUNT];
+    double[] current = new double[KEY_COUNT];
+    System.arraycopy(scores, 0, previous, 0, KEY_COUNT);
+    for (int frame = 1; frame < frameCount; frame++) {
+      int offset = frame * KEY_COUNT;
+      double max = Double.NEGATIVE_INFINITY;
+      for (double score : previous) {
+        max = Math.max(max, score);
+      }
+      // a key change can only win if the current key is behind by more than the change cost
+      double threshold = max - this.changeCost;
+      for (int key = 0; key < KEY_COUNT; key++) {
+        // staying in the same key wins on equal score
+        double best = previous[key];
+        int bestKey = key;
+        if (best < threshold) {
+          for (int from = 0; from < KEY_COUNT; from++) {
+            double score = previous[from] - this.transitionCosts[from * KEY_COUNT + key];
+            if (score > best) {
+              best = score;
+              bestKey = from;
+            }
+          }
+        }
+        current[key] = best + scores[offset + key];
+        backPointers[offset + key] = (byte) bestKey;
+      }
+      double[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    int key = -1;
+    double best = Double.NEGATIVE_INFINITY;
+    for (MusicalKey preferred : KeyFinder.PREFERRED_KEYS) {
+      double score = previous[preferred.ordinal()];
+      if (score > best) {
+        best = score;
+        key = preferred.ordinal();
+      }
+    }
+    for (int frame = frameCount - 1; frame > 0; frame--) {
+      int from = backPointers[frame * KEY_COUNT + key];
+      if (from != key) {
+        changes.add(new KeyChange(frame, KEYS[key]));
+        key = from;
+      }
+    }
+    changes.add(new KeyChange(0, KEYS[key]));
+    Collections.reverse(changes);
+    return changes;
+  }
+
+}
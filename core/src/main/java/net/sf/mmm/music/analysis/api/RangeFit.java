@@ -0,0 +1,101 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.Objects;
+
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+/**
+ * A {@link RangeFit} is the transposition of a melody into the range of a singer as found by the
+ * {@link VocalRangeFitter}.
+ *
+ * @author hohwille
+ */
+public final class RangeFit {
+
+  private final int transposition;
+
+  private final MusicalKey key;
+
+  private final boolean fitting;
+
+  /**
+   * The constructor.
+   *
+   * @param transposition - see {@link #getTransposition()}.
+   * @param key - see {@link #getKey()}.
+   * @param fitting - see {@link #isFitting()}.
+   */
+  public RangeFit(int transposition, MusicalKey key, boolean fitting) {
+
+    super();
+    this.transposition = transposition;
+    this.key = key;
+    this.fitting = fitting;
+  }
+
+  /**
+   * @return the number of semitones to transpose the melody. A positive value transposes towards a higher pitch.
+   */
+  public int getTransposition() {
+
+    return this.transposition;
+  }
+
+  /**
+   * @return the {@link MusicalKey} of the transposed melody or {@code null} if the original key is unknown.
+   */
+  public MusicalKey getKey() {
+
+    return this.key;
+  }
+
+  /**
+   * @return {@code true} if all tones of the transposed melody are within the range, {@code false} if the ambitus of
+   *         the melody exceeds the range and the transposition is only the best compromise (equal overflow at both
+   *         ends).
+   */
+  public boolean isFitting() {
+
+    return this.fitting;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Objects.hash(Integer.valueOf(this.transposition), this.key, Boolean.valueOf(this.fitting));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    RangeFit other = (RangeFit) obj;
+    return (this.transposition == other.transposition) && (this.key == other.key) && (this.fitting == other.fitting);
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder();
+    if (this.transposition >= 0) {
+      sb.append('+');
+    }
+    sb.append(this.transposition);
+    if (this.key != null) {
+      sb.append(':');
+      sb.append(this.key);
+    }
+    if (!this.fitting) {
+      sb.append('!');
+    }
+    return sb.toString();
+  }
+
+}
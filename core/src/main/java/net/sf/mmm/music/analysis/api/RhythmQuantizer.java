@@ -0,0 +1,461 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Beat;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.MusicalValue.Variation;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Quantizes the performed timing of a monophonic stream of notes (e.g. recorded MIDI or detected from audio) to
+ * {@link MusicalValue}s including {@link Variation#PUNCTURED punctured} values and {@link Variation#TRIPLET
+ * triplets}. Every beat of the {@link Beat} (a quarter in 4/4 or 3/4, a half in 2/2 or a punctured quarter in 6/8)
+ * is divided into 1, 2, 4, 8, 3 or 6 parts where the onsets of the notes are snapped to the nearest subdivision. The
+ * subdivision of each beat is chosen with the Viterbi algorithm over all beats minimizing the squared timing errors
+ * plus a penalty for the complexity of the subdivision, for onsets snapped to the same position and for switching
+ * between binary and ternary subdivisions. The decisions are final after a
+ * {@link #getLookahead() lookahead} of a few beats so the quantizer works incrementally on arbitrary long streams with
+ * bounded memory and latency:
+ *
+ * <pre>
+ * RhythmQuantizer quantizer = new RhythmQuantizer(120, Beat._4_4);
+ * for each note: items.addAll(quantizer.add(onset, duration, tone));
+ * items.addAll(quantizer.finish());
+ * </pre>
+ *
+ * Time {@code 0} is the start of the first bar. A note lasts until the next onset unless the gap after its performed
+ * end is at least a third of the interval to the next onset, what becomes a {@link RestItem}. Overlapping notes are
+ * shortened to the next onset.<br>
+ * This class is not thread-safe.
+ *
+ * @author hohwille
+ */
+public class RhythmQuantizer {
+
+  /** The default {@link #getLookahead() lookahead}. */
+  public static final int DEFAULT_LOOKAHEAD = 4;
+
+  /** The candidate subdivisions of a beat. */
+  private static final int[] SUBDIVISIONS = { 1, 2, 4, 8, 3, 6 };
+
+  /** The penalty for each of the {@link #SUBDIVISIONS}. */
+  private static final double[] COMPLEXITY = { 0, 0.5, 1, 2, 1.5, 2.5 };
+
+  /** The number of ticks per beat divisible by all {@link #SUBDIVISIONS}. */
+  private static final int TICKS = 24;
+
+  /** The timing error in beats that costs as much as one unit of penalty. */
+  private static final double TOLERANCE = 0.05;
+
+  /** The part of a subdivision added to the end of a note as it is typically released early. */
+  private static final double RELEASE = 0.25;
+
+  /** The minimum gap between two notes relative to their onset interval that is notated as rest. */
+  private static final double REST_GAP = 1.0 / 3;
+
+  /** The penalty for two onsets snapped to the same position. */
+  private static final double COLLISION = 100;
+
+  /** The penalty for switching between binary and ternary subdivisions. */
+  private static final double SWITCH = 1;
+
+  private static final int STATES = SUBDIVISIONS.length;
+
+  private final double tempo;
+
+  private final Beat beat;
+
+  private final int lookahead;
+
+  private final double beatDuration;
+
+  private final int ticksPerWhole;
+
+  private final ArrayDeque<Note> notes;
+
+  private final double[] costs;
+
+  private double[] delta;
+
+  private double[] next;
+
+  private final int[] pointers;
+
+  private final int[] path;
+
+  private int beatCount;
+
+  private int decided;
+
+  private int ticks;
+
+  private double lastOnset;
+
+  /**
+   * The constructor using the {@link #DEFAULT_LOOKAHEAD}.
+   *
+   * @param tempo - see {@link #getTempo()}.
+   * @param beat - see {@link #getBeat()}.
+   */
+  public RhythmQuantizer(double tempo, Beat beat) {
+
+    this(tempo, beat, DEFAULT_LOOKAHEAD);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param tempo - see {@link #getTempo()}.
+   * @param beat - see {@link #getBeat()}.
+   * @param lookahead - see {@link #getLookahead()}.
+   */
+  public RhythmQuantizer(double tempo, Beat beat, int lookahead) {
+
+    super();
+    if (!(tempo > 0) || (lookahead < 1)) {
+      throw new IllegalArgumentException(tempo + "/" + lookahead);
+    }
+    this.tempo = tempo;
+    this.beat = beat;
+    this.lookahead = lookahead;
+    // compound meters like 6/8 have punctured beats
+    int unitBeats = 1;
+    if ((beat.getFaction() >= 8) && (beat.getBeats() % 3 == 0) && (beat.getBeats() > 3)) {
+      unitBeats = 3;
+    }
+    this.beatDuration = (4.0 * unitBeats / beat.getFaction()) * 60 / tempo;
+    this.ticksPerWhole = TICKS * beat.getFaction() / unitBeats;
+    this.notes = new ArrayDeque<>();
+    this.costs = new double[STATES];
+    this.delta = new double[STATES];
+    this.next = new double[STATES];
+    this.pointers = new int[2 * lookahead * STATES];
+    this.path = new int[2 * lookahead];
+  }
+
+  /**
+   * @return the tempo in quarter beats per minute.
+   */
+  public double getTempo() {
+
+    return this.tempo;
+  }
+
+  /**
+   * @return the {@link Beat} (time signature).
+   */
+  public Beat getBeat() {
+
+    return this.beat;
+  }
+
+  /**
+   * @return the number of beats after which the subdivision of a beat is final. Higher values consider more context
+   *         but increase the latency.
+   */
+  public int getLookahead() {
+
+    return this.lookahead;
+  }
+
+  /**
+   * Quantizes an entire sequence of notes.
+   *
+   * @param onsets the onsets of the notes in seconds in ascending order.
+   * @param durations the performed durations of the notes in seconds.
+   * @param tones the {@link Tone}s of the notes.
+   * @return the quantized {@link MusicalItem}s.
+   */
+  public List<MusicalItem> quantize(double[] onsets, double[] durations, List<Tone> tones) {
+
+    List<MusicalItem> items = new ArrayList<>();
+    for (int i = 0; i < onsets.length; i++) {
+      items.addAll(add(onsets[i], durations[i], tones.get(i)));
+    }
+    items.addAll(finish());
+    return items;
+  }
+
+  /**
+   * @param onset the onset of the note in seconds. Has to be greater or equal to the onset of the previous note (and
+   *        {@code 0}).
+   * @param duration the performed duration of the note in seconds.
+   * @param tone the {@link Tone} of the note.
+   * @return the {@link MusicalItem}s that have become final. Typically empty or a few items lagging the
+   *         {@link #getLookahead() lookahead} behind the given note.
+   */
+  public List<MusicalItem> add(double onset, double duration, Tone tone) {
+
+    if (onset < this.lastOnset) {
+      throw new IllegalArgumentException(onset + "<" + this.lastOnset);
+    }
+    this.lastOnset = onset;
+    // no later onset can fall into the beats before this one
+    int complete = (int) Math.floor(onset / this.beatDuration);
+    while (this.beatCount < complete) {
+      addBeat();
+    }
+    this.notes.add(new Note(onset, onset + Math.max(0, duration), tone));
+    return emit(false);
+  }
+
+  /**
+   * Completes the stream.
+   *
+   * @return the remaining {@link MusicalItem}s.
+   */
+  public List<MusicalItem> finish() {
+
+    double end = 0;
+    for (Note note : this.notes) {
+      end = Math.max(end, note.end);
+    }
+    int complete = (int) Math.floor(end / this.beatDuration) + 1;
+    while (this.beatCount < complete) {
+      addBeat();
+    }
+    decide(this.beatCount - this.decided);
+    return emit(true);
+  }
+
+  /**
+   * Adds the costs of the next beat to the Viterbi decoding.
+   */
+  private void addBeat() {
+
+    int index = this.beatCount;
+    double start = index * this.beatDuration;
+    for (int state = 0; state < STATES; state++) {
+      int subdivision = SUBDIVISIONS[state];
+      double cost = COMPLEXITY[state];
+      int lastPosition = -1;
+      for (Note note : this.notes) {
+        if (getBeat(note.onset) == index) {
+          double position = (note.onset - start) / this.beatDuration * subdivision;
+          int snapped = (int) Math.round(position);
+          double error = (position - snapped) / subdivision / TOLERANCE;
+          cost = cost + error * error;
+          if (snapped == lastPosition) {
+            cost = cost + COLLISION;
+          }
+          lastPosition = snapped;
+        }
+      }
+      this.costs[state] = cost;
+    }
+    int offset = (index % this.path.length) * STATES;
+    if (index == 0) {
+      for (int state = 0; state < STATES; state++) {
+        this.delta[state] = this.costs[state];
+        this.pointers[offset + state] = state;
+      }
+    } else {
+      double min = Double.POSITIVE_INFINITY;
+      for (int state = 0; state < STATES; state++) {
+        int from = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int previous = 0; previous < STATES; previous++) {
+          double value = this.delta[previous];
+          if (isSwitch(previous, state)) {
+            value = value + SWITCH;
+          }
+          if (value < best) {
+            best = value;
+            from = previous;
+          }
+        }
+        double value = best + this.costs[state];
+        this.next[state] = value;
+        this.pointers[offset + state] = from;
+        min = Math.min(min, value);
+      }
+      // keep the values small for arbitrary long streams
+      for (int state = 0; state < STATES; state++) {
+        this.next[state] = this.next[state] - min;
+      }
+      double[] swap = this.delta;
+      this.delta = this.next;
+      this.next = swap;
+    }
+    this.beatCount++;
+    if (this.beatCount - this.decided >= this.path.length) {
+      decide(this.lookahead);
+    }
+  }
+
+  private int getBeat(double time) {
+
+    return (int) Math.floor(time / this.beatDuration);
+  }
+
+  private static boolean isSwitch(int from, int to) {
+
+    int a = SUBDIVISIONS[from];
+    int b = SUBDIVISIONS[to];
+    return (a > 1) && (b > 1) && ((a % 3 == 0) != (b % 3 == 0));
+  }
+
+  /**
+   * Traces back the best path and snaps the notes in the given number of the oldest undecided beats.
+   */
+  private void decide(int count) {
+
+    int state = 0;
+    for (int i = 1; i < STATES; i++) {
+      if (this.delta[i] < this.delta[state]) {
+        state = i;
+      }
+    }
+    for (int index = this.beatCount - 1; index >= this.decided; index--) {
+      this.path[index - this.decided] = state;
+      state = this.pointers[(index % this.path.length) * STATES + state];
+    }
+    for (int i = 0; i < count; i++) {
+      int index = this.decided + i;
+      int subdivision = SUBDIVISIONS[this.path[i]];
+      for (Note note : this.notes) {
+        if (getBeat(note.onset) == index) {
+          note.onsetTick = snap(note.onset, index, subdivision);
+          note.step = TICKS / subdivision;
+        }
+        if (getBeat(note.end) == index) {
+          double position = note.end / this.beatDuration - index;
+          note.endTick = index * TICKS + (int) Math.round(position * subdivision + RELEASE) * (TICKS / subdivision);
+        }
+      }
+    }
+    this.decided = this.decided + count;
+  }
+
+  private int snap(double time, int index, int subdivision) {
+
+    double position = time / this.beatDuration - index;
+    return index * TICKS + (int) Math.round(position * subdivision) * (TICKS / subdivision);
+  }
+
+  /**
+   * Converts the notes with final ticks to {@link MusicalItem}s.
+   */
+  private List<MusicalItem> emit(boolean end) {
+
+    List<MusicalItem> items = Collections.emptyList();
+    while (!this.notes.isEmpty()) {
+      Iterator<Note> iterator = this.notes.iterator();
+      Note note = iterator.next();
+      if ((note.onsetTick < 0) || (note.endTick < 0)) {
+        break;
+      }
+      int endTick = note.endTick;
+      if (endTick <= note.onsetTick) {
+        endTick = note.onsetTick + note.step;
+      }
+      if (iterator.hasNext()) {
+        Note following = iterator.next();
+        if (following.onsetTick < 0) {
+          break;
+        }
+        double interval = following.onset - note.onset;
+        if ((endTick > following.onsetTick) || (following.onset - note.end < REST_GAP * interval)) {
+          // legato or detached without a notable rest
+          endTick = following.onsetTick;
+        }
+      } else if (!end) {
+        break;
+      }
+      this.notes.removeFirst();
+      if (endTick <= note.onsetTick) {
+        // a chord or grace note can not be represented in a monophonic sequence
+        continue;
+      }
+      if (items.isEmpty()) {
+        items = new ArrayList<>();
+      }
+      if (note.onsetTick > this.ticks) {
+        items.add(new RestItem(getValue(note.onsetTick - this.ticks)));
+      }
+      items.add(new ToneItem(getValue(endTick - note.onsetTick), note.tone));
+      this.ticks = endTick;
+    }
+    return items;
+  }
+
+  /**
+   * @param duration the duration in ticks.
+   * @return the {@link MusicalValue}.
+   */
+  MusicalValue getValue(int duration) {
+
+    int gcd = gcd(duration, this.ticksPerWhole);
+    int beats = duration / gcd;
+    int fraction = this.ticksPerWhole / gcd;
+    Variation variation = Variation.NONE;
+    if (fraction % 3 == 0) {
+      // e.g. 1/12 is a triplet quaver (1/8 * 2/3)
+      variation = Variation.TRIPLET;
+      fraction = fraction / 3 * 2;
+    } else if ((beats == 3) && (fraction >= 4)) {
+      // e.g. 3/8 is a punctured quarter (1/4 * 3/2)
+      variation = Variation.PUNCTURED;
+      beats = 1;
+      fraction = fraction / 2;
+    }
+    // avoid relative values and use quarters like MusicalValue.MINIM or SEMIBREVE
+    while (fraction < 4) {
+      beats = beats * 2;
+      fraction = fraction * 2;
+    }
+    return new MusicalValue(beats, fraction, variation);
+  }
+
+  private static int gcd(int a, int b) {
+
+    int x = a;
+    int y = b;
+    while (y != 0) {
+      int remainder = x % y;
+      x = y;
+      y = remainder;
+    }
+    return x;
+  }
+
+  /**
+   * A performed note and its quantized ticks.
+   */
+  private static final class Note {
+
+    private final double onset;
+
+    private final double end;
+
+    private final Tone tone;
+
+    private int onsetTick;
+
+    private int endTick;
+
+    private int step;
+
+    private Note(double onset, double end, Tone tone) {
+
+      super();
+      this.onset = onset;
+      this.end = end;
+      this.tone = tone;
+      this.onsetTick = -1;
+      this.endTick = -1;
+    }
+
+  }
+
+}
@@ -0,0 +1,193 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * Finds the transposition that fits a melody into the range of a singer. The lowest and highest tone of the melody
+ * are determined in a single pass (over {@link PackedTone packed tones} without any allocation). Then all
+ * transpositions that keep the melody within the range are evaluated by table lookups independent of the length of
+ * the melody: the key with the fewest {@link MusicalKey#getChromaticSignTones() signs} wins and on equal signs the
+ * smallest transposition. If the ambitus of the melody exceeds the range, the melody is centered within the range.
+ *
+ * This class is immutable and thread-safe.
+ *
+ * @author hohwille
+ */
+public class VocalRangeFitter {
+
+  /** The {@link MusicalKey} with the fewest signs for each tonika step ({@code 0-11} major, {@code 12-23} minor). */
+  private static final MusicalKey[] SIMPLEST_KEYS = new MusicalKey[24];
+
+  /** The number of signs of the {@link #SIMPLEST_KEYS}. */
+  private static final int[] SIGNS = new int[24];
+
+  static {
+    for (MusicalKey key : KeyFinder.PREFERRED_KEYS) {
+      int index = getIndex(key.getTonalSystem(), key.getTonika().getStep());
+      if (SIMPLEST_KEYS[index] == null) {
+        SIMPLEST_KEYS[index] = key;
+        SIGNS[index] = key.getChromaticSignTones().size();
+      }
+    }
+  }
+
+  private final Tone low;
+
+  private final Tone high;
+
+  private final int lowNumber;
+
+  private final int highNumber;
+
+  /**
+   * The constructor.
+   *
+   * @param low - see {@link #getLow()}.
+   * @param high - see {@link #getHigh()}.
+   */
+  public VocalRangeFitter(Tone low, Tone high) {
+
+    super();
+    this.low = low;
+    this.high = high;
+    this.lowNumber = PackedTone.getChromaticNumber(low);
+    this.highNumber = PackedTone.getChromaticNumber(high);
+    if (this.lowNumber > this.highNumber) {
+      throw new IllegalArgumentException(low + ">" + high);
+    }
+  }
+
+  private static int getIndex(TonalSystem system, int step) {
+
+    if (system == TonalSystem.MINOR) {
+      return step + 12;
+    }
+    return step;
+  }
+
+  /**
+   * @return the lowest {@link Tone} the singer can sing.
+   */
+  public Tone getLow() {
+
+    return this.low;
+  }
+
+  /**
+   * @return the highest {@link Tone} the singer can sing.
+   */
+  public Tone getHigh() {
+
+    return this.high;
+  }
+
+  /**
+   * @param melody the {@link MusicalItem}s of the melody. {@link MusicalItem#isRest() Rests} are ignored.
+   * @param key the {@link MusicalKey} of the melody or {@code null} to {@link KeyFinder#findKey(List) detect} it.
+   * @return the {@link RangeFit} or {@code null} if the melody has no tones.
+   */
+  public RangeFit fit(List<? extends MusicalItem> melody, MusicalKey key) {
+
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (MusicalItem item : melody) {
+      Tone tone = item.getTone();
+      if (tone != null) {
+        int number = PackedTone.getChromaticNumber(tone);
+        min = Math.min(min, number);
+        max = Math.max(max, number);
+      }
+    }
+    if (min > max) {
+      return null;
+    }
+    if (key == null) {
+      key = KeyFinder.findKey(melody);
+    }
+    return fit(min, max, key);
+  }
+
+  /**
+   * @param packedTones the {@link PackedTone packed tones} of the melody. Only the lower 16 bits are considered so
+   *        {@link net.sf.mmm.music.corpus.api.PackedNote packed notes} can be passed as well and rests ({@code 0xFFFF})
+   *        are ignored.
+   * @param length the number of values in the given array to consider.
+   * @param key the {@link MusicalKey} of the melody or {@code null} if unknown.
+   * @return the {@link RangeFit} or {@code null} if the melody has no tones.
+   */
+  public RangeFit fit(int[] packedTones, int length, MusicalKey key) {
+
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < length; i++) {
+      int packed = packedTones[i] & 0xFFFF;
+      if (packed != 0xFFFF) {
+        int number = PackedTone.getChromaticNumber(packed);
+        min = Math.min(min, number);
+        max = Math.max(max, number);
+      }
+    }
+    if (min > max) {
+      return null;
+    }
+    return fit(min, max, key);
+  }
+
+  /**
+   * @param min the lowest {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the melody.
+   * @param max the highest {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the melody.
+   * @param key the {@link MusicalKey} of the melody or {@code null} if unknown.
+   * @return the {@link RangeFit}.
+   */
+  public RangeFit fit(int min, int max, MusicalKey key) {
+
+    int from = this.lowNumber - min;
+    int to = this.highNumber - max;
+    if (from > to) {
+      // ambitus exceeds the range so center the melody
+      int transposition = Math.floorDiv(from + to, 2);
+      return new RangeFit(transposition, getKey(key, transposition), false);
+    }
+    int best = closestToZero(from, to);
+    if (key != null) {
+      int tonika = key.getTonika().getStep();
+      int bestSigns = Integer.MAX_VALUE;
+      // bounded by the size of the range and independent of the melody
+      for (int transposition = from; transposition <= to; transposition++) {
+        int signs = SIGNS[getIndex(key.getTonalSystem(), Math.floorMod(tonika + transposition, 12))];
+        if ((signs < bestSigns) || ((signs == bestSigns) && (Math.abs(transposition) < Math.abs(best)))) {
+          bestSigns = signs;
+          best = transposition;
+        }
+      }
+    }
+    return new RangeFit(best, getKey(key, best), true);
+  }
+
+  private static int closestToZero(int from, int to) {
+
+    if (from > 0) {
+      return from;
+    } else if (to < 0) {
+      return to;
+    }
+    return 0;
+  }
+
+  private static MusicalKey getKey(MusicalKey key, int transposition) {
+
+    if (key == null) {
+      return null;
+    }
+    return SIMPLEST_KEYS[getIndex(key.getTonalSystem(), Math.floorMod(key.getTonika().getStep() + transposition, 12))];
+  }
+
+}
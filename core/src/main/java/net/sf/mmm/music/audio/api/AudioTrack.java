@@ -0,0 +1,140 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+
+/**
+ * An {@link AudioTrack} is a part of a score (e.g. the staff of a single instrument) to be rendered by the
+ * {@link ScoreRenderer}. It consists of one or more {@link #getLines() lines} of {@link MusicalItem}s played in
+ * parallel (e.g. the voices of a piano staff) with the same sound ({@link Waveform} or {@link SoundFontPreset},
+ * {@link Envelope} and {@link #getGain() gain}).
+ *
+ * @author hohwille
+ */
+public final class AudioTrack {
+
+  /** The default {@link #getGain() gain}. */
+  public static final double DEFAULT_GAIN = 0.25;
+
+  private final List<List<? extends MusicalItem>> lines;
+
+  private final Waveform waveform;
+
+  private final SoundFontPreset preset;
+
+  private final Envelope envelope;
+
+  private final double gain;
+
+  /**
+   * The constructor for a single line with a {@link Waveform#TRIANGLE triangle} wave and the {@link Envelope#DEFAULT
+   * default envelope}.
+   *
+   * @param items the {@link MusicalItem}s of the single {@link #getLines() line}.
+   */
+  public AudioTrack(List<? extends MusicalItem> items) {
+
+    this(Waveform.TRIANGLE, Envelope.DEFAULT, DEFAULT_GAIN, Collections.singletonList(items));
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param waveform - see {@link #getWaveform()}.
+   * @param envelope - see {@link #getEnvelope()}.
+   * @param gain - see {@link #getGain()}.
+   * @param lines - see {@link #getLines()}.
+   */
+  public AudioTrack(Waveform waveform, Envelope envelope, double gain,
+      List<? extends List<? extends MusicalItem>> lines) {
+
+    this(waveform, null, envelope, gain, lines);
+  }
+
+  /**
+   * The constructor for a track played with the samples of a {@link SoundFont}.
+   *
+   * @param preset - see {@link #getPreset()}.
+   * @param envelope - see {@link #getEnvelope()}.
+   * @param gain - see {@link #getGain()}.
+   * @param lines - see {@link #getLines()}.
+   */
+  public AudioTrack(SoundFontPreset preset, Envelope envelope, double gain,
+      List<? extends List<? extends MusicalItem>> lines) {
+
+    this(null, preset, envelope, gain, lines);
+  }
+
+  private AudioTrack(Waveform waveform, SoundFontPreset preset, Envelope envelope, double gain,
+      List<? extends List<? extends MusicalItem>> lines) {
+
+    super();
+    if ((waveform == null) == (preset == null)) {
+      throw new IllegalArgumentException(waveform + "/" + preset);
+    }
+    this.waveform = waveform;
+    this.preset = preset;
+    this.envelope = envelope;
+    this.gain = gain;
+    this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+  }
+
+  /**
+   * @return the lines of {@link MusicalItem}s that all start at the beginning and are played in parallel.
+   */
+  public List<List<? extends MusicalItem>> getLines() {
+
+    return this.lines;
+  }
+
+  /**
+   * @return the {@link Waveform} of the oscillators or {@code null} if played with a {@link #getPreset() preset}.
+   */
+  public Waveform getWaveform() {
+
+    return this.waveform;
+  }
+
+  /**
+   * @return the {@link SoundFontPreset} playing the tones or {@code null} if played with a {@link #getWaveform()
+   *         waveform}.
+   */
+  public SoundFontPreset getPreset() {
+
+    return this.preset;
+  }
+
+  /**
+   * @return the {@link Envelope} of each tone.
+   */
+  public Envelope getEnvelope() {
+
+    return this.envelope;
+  }
+
+  /**
+   * @return the peak amplitude of a single tone. The sum of all tracks should stay below {@code 1} to avoid clipping.
+   */
+  public double getGain() {
+
+    return this.gain;
+  }
+
+  /**
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @return a new {@link Voice} playing the sound of this track.
+   */
+  Voice createVoice(int sampleRate) {
+
+    if (this.preset != null) {
+      return new SampleVoice(this.preset, this.envelope, sampleRate, (float) this.gain);
+    }
+    return new WavetableVoice(this.waveform, this.envelope, sampleRate, (float) this.gain);
+  }
+
+}
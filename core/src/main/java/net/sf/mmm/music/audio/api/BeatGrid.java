@@ -0,0 +1,96 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.Locale;
+
+import net.sf.mmm.music.datatype.api.Beat;
+
+/**
+ * The result of a {@link BeatTracker}: the times of the beats of a recording together with the estimated
+ * {@link #getTempo() tempo} and {@link #getBeat() time signature}.
+ *
+ * @author hohwille
+ */
+public final class BeatGrid {
+
+  private final double[] beats;
+
+  private final int beatCount;
+
+  private final Beat beat;
+
+  private final int firstDownbeat;
+
+  /**
+   * The constructor.
+   *
+   * @param beats the times of the beats. Only the first {@code beatCount} values are used.
+   * @param beatCount - see {@link #getBeatCount()}.
+   * @param beat - see {@link #getBeat()}.
+   * @param firstDownbeat - see {@link #getFirstDownbeat()}.
+   */
+  BeatGrid(double[] beats, int beatCount, Beat beat, int firstDownbeat) {
+
+    super();
+    this.beats = beats;
+    this.beatCount = beatCount;
+    this.beat = beat;
+    this.firstDownbeat = firstDownbeat;
+  }
+
+  /**
+   * @return the number of beats.
+   */
+  public int getBeatCount() {
+
+    return this.beatCount;
+  }
+
+  /**
+   * @param index the index of the beat from {@code 0} to {@link #getBeatCount() beat count} - 1.
+   * @return the time of the beat in seconds from the beginning of the recording.
+   */
+  public double getBeatTime(int index) {
+
+    if ((index < 0) || (index >= this.beatCount)) {
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+    return this.beats[index];
+  }
+
+  /**
+   * @return the average tempo in beats per minute or {@code 0} if there are less than two beats.
+   */
+  public double getTempo() {
+
+    if (this.beatCount < 2) {
+      return 0;
+    }
+    return 60 * (this.beatCount - 1) / (this.beats[this.beatCount - 1] - this.beats[0]);
+  }
+
+  /**
+   * @return the estimated time signature. Its {@link Beat#getBeats() beats} are the number of beats per bar.
+   */
+  public Beat getBeat() {
+
+    return this.beat;
+  }
+
+  /**
+   * @return the index of the first beat that starts a bar (less than the {@link Beat#getBeats() beats per bar}).
+   */
+  public int getFirstDownbeat() {
+
+    return this.firstDownbeat;
+  }
+
+  @Override
+  public String toString() {
+
+    return String.format(Locale.US, "%.1f BPM %s (%d beats)", Double.valueOf(getTempo()), this.beat,
+        Integer.valueOf(this.beatCount));
+  }
+
+}
@@ -0,0 +1,374 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import net.sf.mmm.music.datatype.api.Beat;
+
+/**
+ * Tracks the beats of a recording from a WAV file in a single streaming pass:
+ * <ol>
+ * <li>The onset strength of overlapping frames of about 23 milliseconds is computed as {@link SpectralFlux} minus
+ * its moving average.</li>
+ * <li>The tempo is estimated from the autocorrelation of the onset strength for the periods from
+ * {@link #MIN_TEMPO} to {@link #MAX_TEMPO} weighted with a log-normal prior around the
+ * {@link #getPreferredTempo() preferred tempo} (to avoid octave errors). The autocorrelation decays exponentially
+ * so the tempo follows slow changes.</li>
+ * <li>The phase of the first beat is found by a comb filter over the first seconds. Then every beat is predicted one
+ * period after the previous one and placed at the strongest onset near the prediction. Beats without any onset
+ * before the start or after the end of the music are omitted.</li>
+ * <li>The {@link Beat time signature} (3/4 or 4/4) and the first downbeat are estimated from the periodicity of the
+ * onset strength at the beats (accents).</li>
+ * </ol>
+ * Only a ring buffer of the recent onset strength of about 12 seconds is kept so the memory does not depend on the
+ * length of the recording (except for the resulting {@link BeatGrid}). An hour of audio is processed in a few
+ * seconds.
+ *
+ * This class is immutable and thread-safe.
+ *
+ * @author hohwille
+ */
+public class BeatTracker {
+
+  /** The default {@link #getPreferredTempo() preferred tempo}. */
+  public static final double DEFAULT_TEMPO = 120;
+
+  /** The lowest detected tempo in beats per minute. */
+  public static final double MIN_TEMPO = 40;
+
+  /** The highest detected tempo in beats per minute. */
+  public static final double MAX_TEMPO = 240;
+
+  /** The number of onset strength frames in the ring buffer. */
+  private static final int RING = 1024;
+
+  private static final int MASK = RING - 1;
+
+  /** The number of frames to collect before the first beat is placed. */
+  private static final int WARM_UP = RING / 2;
+
+  /** The width of the tempo prior in octaves. */
+  private static final double PRIOR_WIDTH = 1;
+
+  /** The time constant of the decay of the autocorrelation in seconds. */
+  private static final double MEMORY = 20;
+
+  /** The time constant of the moving average subtracted from the flux in seconds. */
+  private static final double AVERAGE = 0.5;
+
+  /** The maximum distance of a beat from its prediction relative to the period. */
+  private static final double TOLERANCE = 0.2;
+
+  private final double preferredTempo;
+
+  /**
+   * The constructor using the {@link #DEFAULT_TEMPO}.
+   */
+  public BeatTracker() {
+
+    this(DEFAULT_TEMPO);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param preferredTempo - see {@link #getPreferredTempo()}.
+   */
+  public BeatTracker(double preferredTempo) {
+
+    super();
+    if (!(preferredTempo >= MIN_TEMPO) || !(preferredTempo <= MAX_TEMPO)) {
+      throw new IllegalArgumentException(Double.toString(preferredTempo));
+    }
+    this.preferredTempo = preferredTempo;
+  }
+
+  /**
+   * @return the most likely tempo in beats per minute. If the onsets fit multiple tempos (e.g. 60, 120 and 240) the
+   *         one nearest to this tempo is chosen.
+   */
+  public double getPreferredTempo() {
+
+    return this.preferredTempo;
+  }
+
+  /**
+   * @param file the {@link Path} of the WAV file to analyze.
+   * @return the {@link BeatGrid}.
+   * @throws IOException if reading failed.
+   */
+  public BeatGrid track(Path file) throws IOException {
+
+    try (WavReader reader = new WavReader(file)) {
+      int sampleRate = reader.getFormat().getSampleRate();
+      int windowSize = Math.max(256, Integer.highestOneBit(sampleRate / 40));
+      int hopSize = windowSize / 2;
+      SpectralFlux spectralFlux = new SpectralFlux(windowSize);
+      Tracker tracker = new Tracker((double) sampleRate / hopSize, (windowSize / 2.0) / sampleRate);
+      // two frames are processed at once
+      float[] samples = new float[windowSize + hopSize];
+      double[] flux = new double[2];
+      int keep = windowSize - hopSize;
+      int filled = read(reader, samples, 0);
+      while (filled >= windowSize) {
+        spectralFlux.compute(samples, 0, hopSize, flux);
+        tracker.add(flux[0]);
+        if (filled < samples.length) {
+          break;
+        }
+        tracker.add(flux[1]);
+        System.arraycopy(samples, 2 * hopSize, samples, 0, keep);
+        filled = keep + read(reader, samples, keep);
+      }
+      return tracker.finish();
+    }
+  }
+
+  private static int read(WavReader reader, float[] samples, int offset) throws IOException {
+
+    int index = offset;
+    while (index < samples.length) {
+      int count = reader.read(samples, index, samples.length - index);
+      if (count < 0) {
+        break;
+      }
+      index = index + count;
+    }
+    return index - offset;
+  }
+
+  /**
+   * The streaming state for a single recording.
+   */
+  private final class Tracker {
+
+    private final double frameRate;
+
+    private final double frameOffset;
+
+    private final int minLag;
+
+    private final double[] prior;
+
+    private final double[] correlation;
+
+    private final double decay;
+
+    private final double averageRate;
+
+    private final float[] onsets;
+
+    private int frameCount;
+
+    private double average;
+
+    private boolean started;
+
+    private double period;
+
+    private double nextBeat;
+
+    private double[] beats;
+
+    private int beatCount;
+
+    private int accentedCount;
+
+    private final double[] accents;
+
+    private final double[] meterCorrelation;
+
+    private final double[] phases;
+
+    private Tracker(double frameRate, double frameOffset) {
+
+      super();
+      this.frameRate = frameRate;
+      this.frameOffset = frameOffset;
+      this.minLag = (int) Math.floor(frameRate * 60 / MAX_TEMPO);
+      int maxLag = (int) Math.ceil(frameRate * 60 / MIN_TEMPO);
+      this.prior = new double[maxLag - this.minLag + 1];
+      double preferredLag = frameRate * 60 / BeatTracker.this.preferredTempo;
+      for (int i = 0; i < this.prior.length; i++) {
+        double octaves = Math.log((this.minLag + i) / preferredLag) / Math.log(2) / PRIOR_WIDTH;
+        this.prior[i] = Math.exp(-0.5 * octaves * octaves);
+      }
+      this.correlation = new double[this.prior.length];
+      this.decay = Math.exp(-1 / (MEMORY * frameRate));
+      this.averageRate = 1 / (AVERAGE * frameRate);
+      this.onsets = new float[RING];
+      this.beats = new double[256];
+      // the last 4 accents and the correlation at the lags of 3 and 4 beats
+      this.accents = new double[4];
+      this.meterCorrelation = new double[2];
+      // the sum of the accents per phase of a 3/4 (index 0-2) and 4/4 (index 3-6) bar
+      this.phases = new double[7];
+    }
+
+    private void add(double flux) {
+
+      this.average = this.average + (flux - this.average) * this.averageRate;
+      float onset = (float) Math.max(0, flux - this.average);
+      int frame = this.frameCount;
+      this.onsets[frame & MASK] = onset;
+      for (int i = 0; i < this.correlation.length; i++) {
+        int lag = this.minLag + i;
+        double product = 0;
+        if (lag <= frame) {
+          product = onset * this.onsets[(frame - lag) & MASK];
+        }
+        this.correlation[i] = this.correlation[i] * this.decay + product;
+      }
+      this.frameCount++;
+      if (this.started) {
+        track(false);
+      } else if (this.frameCount >= WARM_UP) {
+        start();
+      }
+    }
+
+    private double getPeriod() {
+
+      int best = -1;
+      double max = 0;
+      for (int i = 0; i < this.correlation.length; i++) {
+        double value = this.correlation[i] * this.prior[i];
+        if (value > max) {
+          max = value;
+          best = i;
+        }
+      }
+      if (best < 0) {
+        return this.frameRate * 60 / BeatTracker.this.preferredTempo;
+      }
+      double lag = this.minLag + best;
+      if ((best > 0) && (best + 1 < this.correlation.length)) {
+        lag = lag + interpolate(this.correlation[best - 1] * this.prior[best - 1], max,
+            this.correlation[best + 1] * this.prior[best + 1]);
+      }
+      return lag;
+    }
+
+    /**
+     * Places the first beat at the phase where a comb filter with the current period collects the most onsets.
+     */
+    private void start() {
+
+      this.started = true;
+      this.period = getPeriod();
+      int phaseCount = (int) Math.ceil(this.period);
+      double best = -1;
+      for (int phase = 0; phase < phaseCount; phase++) {
+        double sum = 0;
+        for (double position = phase; position < this.frameCount; position = position + this.period) {
+          sum = sum + this.onsets[(int) Math.round(position) & MASK];
+        }
+        if (sum > best) {
+          best = sum;
+          this.nextBeat = phase;
+        }
+      }
+      track(false);
+    }
+
+    /**
+     * Places all predicted beats where the onsets around the prediction are available.
+     */
+    private void track(boolean end) {
+
+      while (true) {
+        int predicted = (int) Math.round(this.nextBeat);
+        int tolerance = (int) Math.ceil(this.period * TOLERANCE);
+        int last = predicted + tolerance;
+        if (last >= this.frameCount) {
+          if (!end || (predicted >= this.frameCount)) {
+            return;
+          }
+          last = this.frameCount - 1;
+        }
+        int first = Math.max(0, predicted - tolerance);
+        int frame = predicted;
+        double max = 0;
+        double sigma = this.period * TOLERANCE / 2;
+        for (int i = first; i <= last; i++) {
+          double distance = (i - this.nextBeat) / sigma;
+          double value = this.onsets[i & MASK] * Math.exp(-0.5 * distance * distance);
+          if (value > max) {
+            max = value;
+            frame = i;
+          }
+        }
+        double position = frame;
+        if ((frame > 0) && (frame + 1 < this.frameCount) && (this.onsets[frame & MASK] > 0)) {
+          position = frame + interpolate(this.onsets[(frame - 1) & MASK], this.onsets[frame & MASK],
+              this.onsets[(frame + 1) & MASK]);
+        }
+        addBeat(position, this.onsets[frame & MASK]);
+        this.period = getPeriod();
+        this.nextBeat = position + this.period;
+      }
+    }
+
+    private void addBeat(double position, double accent) {
+
+      if (accent > 0) {
+        this.accentedCount = this.beatCount + 1;
+      } else if (this.beatCount == 0) {
+        // the music has not started yet
+        return;
+      }
+      if (this.beatCount == this.beats.length) {
+        this.beats = Arrays.copyOf(this.beats, this.beatCount * 2);
+      }
+      int index = this.beatCount++;
+      this.beats[index] = position / this.frameRate + this.frameOffset;
+      this.meterCorrelation[0] = this.meterCorrelation[0] + accent * this.accents[(index - 3) & 3];
+      this.meterCorrelation[1] = this.meterCorrelation[1] + accent * this.accents[index & 3];
+      this.accents[index & 3] = accent;
+      this.phases[index % 3] = this.phases[index % 3] + accent;
+      this.phases[3 + (index & 3)] = this.phases[3 + (index & 3)] + accent;
+    }
+
+    private BeatGrid finish() {
+
+      if (!this.started && (this.frameCount > 0)) {
+        start();
+      }
+      track(true);
+      Beat beat = Beat._4_4;
+      int offset = 3;
+      int length = 4;
+      if (this.meterCorrelation[0] > this.meterCorrelation[1]) {
+        beat = Beat._3_4;
+        offset = 0;
+        length = 3;
+      }
+      int downbeat = 0;
+      for (int i = 1; i < length; i++) {
+        if (this.phases[offset + i] > this.phases[offset + downbeat]) {
+          downbeat = i;
+        }
+      }
+      // omit the beats after the music has ended
+      return new BeatGrid(this.beats, this.accentedCount, beat, downbeat);
+    }
+
+  }
+
+  /**
+   * @return the offset of the vertex of the parabola through the given values from the middle value in the range from
+   *         {@code -0.5} to {@code 0.5}.
+   */
+  private static double interpolate(double previous, double current, double next) {
+
+    double denominator = previous - 2 * current + next;
+    if (denominator >= 0) {
+      return 0;
+    }
+    return Math.max(-0.5, Math.min(0.5, (previous - next) / (2 * denominator)));
+  }
+
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import net.sf.mmm.music.datatype.api.Chord;
+
+/**
+ * A {@link ChordChange} is the start of a region of a recording with a new {@link #getChord() chord} as recognized by
+ * the {@link ChordRecognizer}.
+ *
+ * @author hohwille
+ */
+public final class ChordChange {
+
+  private final double time;
+
+  private final Chord chord;
+
+  /**
+   * The constructor.
+   *
+   * @param time - see {@link #getTime()}.
+   * @param chord - see {@link #getChord()}.
+   */
+  public ChordChange(double time, Chord chord) {
+
+    super();
+    this.time = time;
+    this.chord = chord;
+  }
+
+  /**
+   * @return the start of the region in seconds from the beginning of the recording.
+   */
+  public double getTime() {
+
+    return this.time;
+  }
+
+  /**
+   * @return the {@link Chord} starting at the {@link #getTime() time} or {@code null} if there is no chord (e.g.
+   *         silence or noise).
+   */
+  public Chord getChord() {
+
+    return this.chord;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Objects.hash(Double.valueOf(this.time), this.chord);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    ChordChange other = (ChordChange) obj;
+    return (this.time == other.time) && Objects.equals(this.chord, other.chord);
+  }
+
+  @Override
+  public String toString() {
+
+    String name = "N";
+    if (this.chord != null) {
+      name = this.chord.toString();
+    }
+    return String.format(Locale.US, "%.2f:%s", Double.valueOf(this.time), name);
+  }
+
+}
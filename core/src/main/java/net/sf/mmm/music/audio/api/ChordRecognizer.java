@@ -0,0 +1,360 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.EnharmonicStyle;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * Recognizes the {@link Chord}s of a polyphonic recording from a WAV file. Overlapping frames of about 200
+ * milliseconds are reduced to chroma vectors (the energy of the 12 pitch classes) that are scored against a template
+ * for every {@link Chord} of the {@link #getVocabulary() vocabulary} derived from its
+ * {@link Chord#getPitchClassMask() pitch classes} (cosine similarity). An additional state for "no chord" (e.g.
+ * silence, noise or drums) scores by the similarity with a uniform template. The sequence of chords is then smoothed
+ * with the Viterbi algorithm over a hidden Markov model with these states where every change costs a
+ * {@link #getChangeCost() fixed amount}.<br>
+ * The recording is streamed with a fixed amount of memory: the samples are shifted through a small buffer and the
+ * Viterbi decoding keeps only the back pointers of a fixed number of recent frames. Decisions older than this lag are
+ * emitted by tracing back from the currently best state what does not change the result for any reasonable change
+ * cost. To use all cores many files are processed in parallel via {@link #recognizeAll(Collection)}.
+ *
+ * <pre>
+ * List&lt;ChordChange&gt; changes = new ChordRecognizer().recognize(file);
+ * </pre>
+ *
+ * This class is immutable and thread-safe.
+ *
+ * @author hohwille
+ */
+public class ChordRecognizer {
+
+  /** The default {@link #getChangeCost() change cost}. */
+  public static final double DEFAULT_CHANGE_COST = 1;
+
+  /** The factor of the similarity with the uniform template for the "no chord" state. */
+  private static final double NO_CHORD_FACTOR = 0.8;
+
+  /** The number of frames to look ahead before the decision for a frame is final. */
+  private static final int LAG = 64;
+
+  private static final int HISTORY = 2 * LAG;
+
+  private final List<Chord> vocabulary;
+
+  private final double changeCost;
+
+  private final double[] templates;
+
+  /**
+   * The constructor using the {@link #getTriads() major and minor triads} and the {@link #DEFAULT_CHANGE_COST}.
+   */
+  public ChordRecognizer() {
+
+    this(getTriads(), DEFAULT_CHANGE_COST);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param vocabulary - see {@link #getVocabulary()}.
+   * @param changeCost - see {@link #getChangeCost()}.
+   */
+  public ChordRecognizer(Collection<Chord> vocabulary, double changeCost) {
+
+    super();
+    if (vocabulary.isEmpty() || (changeCost < 0)) {
+      throw new IllegalArgumentException(vocabulary + "/" + changeCost);
+    }
+    this.vocabulary = Collections.unmodifiableList(new ArrayList<>(vocabulary));
+    this.changeCost = changeCost;
+    int size = this.vocabulary.size();
+    this.templates = new double[size * Chromagram.SIZE];
+    for (int i = 0; i < size; i++) {
+      int mask = this.vocabulary.get(i).getPitchClassMask();
+      double value = 1 / Math.sqrt(Integer.bitCount(mask));
+      for (int step = 0; step < Chromagram.SIZE; step++) {
+        if ((mask & (1 << step)) != 0) {
+          this.templates[i * Chromagram.SIZE + step] = value;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the 24 major and minor triads.
+   */
+  public static List<Chord> getTriads() {
+
+    List<Chord> triads = new ArrayList<>(24);
+    for (TonalSystem system : new TonalSystem[] { TonalSystem.MAJOR, TonalSystem.MINOR }) {
+      for (int step = 0; step < Chromagram.SIZE; step++) {
+        triads.add(new Chord(TonePitch.C.transposeChromatic(step, EnharmonicStyle.NORMAL), system));
+      }
+    }
+    return triads;
+  }
+
+  /**
+   * @return the {@link Chord}s that can be recognized.
+   */
+  public List<Chord> getVocabulary() {
+
+    return this.vocabulary;
+  }
+
+  /**
+   * @return the penalty for every chord change compared to a similarity between {@code 0} and {@code 1} per frame.
+   *         The higher, the fewer (and longer) chords are recognized.
+   */
+  public double getChangeCost() {
+
+    return this.changeCost;
+  }
+
+  /**
+   * @param file the {@link Path} of the WAV file to analyze.
+   * @return the recognized {@link ChordChange}s. The first {@link ChordChange} is at time {@code 0}. Empty if the
+   *         recording is shorter than a single frame.
+   * @throws IOException if reading failed.
+   */
+  public List<ChordChange> recognize(Path file) throws IOException {
+
+    try (WavReader reader = new WavReader(file)) {
+      int sampleRate = reader.getFormat().getSampleRate();
+      int windowSize = Math.max(1024, Integer.highestOneBit(sampleRate / 5));
+      int hopSize = windowSize / 2;
+      Chromagram chromagram = new Chromagram(sampleRate, windowSize);
+      Decoder decoder = new Decoder((double) hopSize / sampleRate, ((windowSize - hopSize) / 2.0) / sampleRate);
+      // two frames are processed at once
+      float[] samples = new float[windowSize + hopSize];
+      double[] first = new double[Chromagram.SIZE];
+      double[] second = new double[Chromagram.SIZE];
+      int keep = windowSize - hopSize;
+      int filled = read(reader, samples, 0);
+      while (filled >= windowSize) {
+        chromagram.compute(samples, 0, hopSize, first, second);
+        decoder.add(first);
+        if (filled < samples.length) {
+          break;
+        }
+        decoder.add(second);
+        System.arraycopy(samples, 2 * hopSize, samples, 0, keep);
+        filled = keep + read(reader, samples, keep);
+      }
+      return decoder.finish();
+    }
+  }
+
+  private static int read(WavReader reader, float[] samples, int offset) throws IOException {
+
+    int index = offset;
+    while (index < samples.length) {
+      int count = reader.read(samples, index, samples.length - index);
+      if (count < 0) {
+        // clear stale samples of the partial frame
+        for (int i = index; i < samples.length; i++) {
+          samples[i] = 0;
+        }
+        break;
+      }
+      index = index + count;
+    }
+    return index - offset;
+  }
+
+  /**
+   * Recognizes the chords of many files in parallel.
+   *
+   * @param files the {@link Path}s of the WAV files to analyze.
+   * @return a {@link Map} with the {@link #recognize(Path) recognized} {@link ChordChange}s for each of the given
+   *         files in the same order.
+   * @throws IOException if reading of any file failed.
+   */
+  public Map<Path, List<ChordChange>> recognizeAll(Collection<Path> files) throws IOException {
+
+    List<Path> paths = new ArrayList<>(files);
+    List<List<ChordChange>> results;
+    try {
+      results = paths.parallelStream().map(file -> {
+        try {
+          return recognize(file);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).collect(Collectors.toCollection(ArrayList::new));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    Map<Path, List<ChordChange>> map = new LinkedHashMap<>();
+    for (int i = 0; i < paths.size(); i++) {
+      map.put(paths.get(i), results.get(i));
+    }
+    return map;
+  }
+
+  /**
+   * The streaming Viterbi decoder with a fixed lag. The last state is "no chord".
+   */
+  private final class Decoder {
+
+    private final double frameDuration;
+
+    private final double frameOffset;
+
+    private final int stateCount;
+
+    private final double[] scores;
+
+    private double[] delta;
+
+    private double[] next;
+
+    private final int[] pointers;
+
+    private final int[] path;
+
+    private final List<ChordChange> changes;
+
+    private int frameCount;
+
+    private int decided;
+
+    private int lastState;
+
+    private Decoder(double frameDuration, double frameOffset) {
+
+      super();
+      this.frameDuration = frameDuration;
+      this.frameOffset = frameOffset;
+      this.stateCount = ChordRecognizer.this.vocabulary.size() + 1;
+      this.scores = new double[this.stateCount];
+      this.delta = new double[this.stateCount];
+      this.next = new double[this.stateCount];
+      this.pointers = new int[HISTORY * this.stateCount];
+      this.path = new int[HISTORY];
+      this.changes = new ArrayList<>();
+      this.lastState = -1;
+    }
+
+    private void add(double[] chroma) {
+
+      int chords = this.stateCount - 1;
+      double sum = 0;
+      for (int step = 0; step < Chromagram.SIZE; step++) {
+        sum = sum + chroma[step];
+      }
+      if (sum == 0) {
+        for (int state = 0; state < chords; state++) {
+          this.scores[state] = 0;
+        }
+        this.scores[chords] = 1;
+      } else {
+        double[] templates = ChordRecognizer.this.templates;
+        for (int state = 0; state < chords; state++) {
+          double score = 0;
+          int offset = state * Chromagram.SIZE;
+          for (int step = 0; step < Chromagram.SIZE; step++) {
+            score = score + chroma[step] * templates[offset + step];
+          }
+          this.scores[state] = score;
+        }
+        this.scores[chords] = NO_CHORD_FACTOR * sum / Math.sqrt(Chromagram.SIZE);
+      }
+      int offset = (this.frameCount % HISTORY) * this.stateCount;
+      if (this.frameCount == 0) {
+        for (int state = 0; state < this.stateCount; state++) {
+          this.delta[state] = this.scores[state];
+          this.pointers[offset + state] = state;
+        }
+      } else {
+        int best = getBest();
+        double change = this.delta[best] - ChordRecognizer.this.changeCost;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int state = 0; state < this.stateCount; state++) {
+          double stay = this.delta[state];
+          int from = state;
+          if (change > stay) {
+            stay = change;
+            from = best;
+          }
+          double value = stay + this.scores[state];
+          this.next[state] = value;
+          this.pointers[offset + state] = from;
+          max = Math.max(max, value);
+        }
+        // keep the values small for arbitrary long recordings
+        for (int state = 0; state < this.stateCount; state++) {
+          this.next[state] = this.next[state] - max;
+        }
+        double[] swap = this.delta;
+        this.delta = this.next;
+        this.next = swap;
+      }
+      this.frameCount++;
+      if (this.frameCount - this.decided >= HISTORY) {
+        decide(LAG);
+      }
+    }
+
+    private int getBest() {
+
+      int best = 0;
+      for (int state = 1; state < this.stateCount; state++) {
+        if (this.delta[state] > this.delta[best]) {
+          best = state;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Traces back the best path and emits the decisions for the given number of the oldest undecided frames.
+     */
+    private void decide(int count) {
+
+      int state = getBest();
+      for (int frame = this.frameCount - 1; frame >= this.decided; frame--) {
+        this.path[frame - this.decided] = state;
+        state = this.pointers[(frame % HISTORY) * this.stateCount + state];
+      }
+      for (int i = 0; i < count; i++) {
+        state = this.path[i];
+        if (state != this.lastState) {
+          int frame = this.decided + i;
+          double time = 0;
+          if (frame > 0) {
+            time = this.frameOffset + frame * this.frameDuration;
+          }
+          Chord chord = null;
+          if (state < this.stateCount - 1) {
+            chord = ChordRecognizer.this.vocabulary.get(state);
+          }
+          this.changes.add(new ChordChange(time, chord));
+          this.lastState = state;
+        }
+      }
+      this.decided = this.decided + count;
+    }
+
+    private List<ChordChange> finish() {
+
+      decide(this.frameCount - this.decided);
+      return this.changes;
+    }
+
+  }
+
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+
+/**
+ * Computes chroma vectors (the energy of the 12 pitch classes) of windows of samples. The spectrum is computed via
+ * {@link Fft} of {@link #getWindowSize() Hann windowed} frames where two real frames are packed into a single complex
+ * transformation. Each frequency bin from {@link #MIN_FREQUENCY} to {@link #MAX_FREQUENCY} is mapped to the pitch
+ * class of the nearest tone via a precomputed table. All buffers are allocated once so
+ * {@link #compute(float[], int, int, double[], double[])} never allocates.
+ *
+ * This class is not thread-safe. Use one instance per thread.
+ *
+ * @author hohwille
+ */
+final class Chromagram {
+
+  /** The number of pitch classes. */
+  static final int SIZE = 12;
+
+  /** The lowest frequency in Hertz that contributes to the chroma. */
+  static final double MIN_FREQUENCY = 100;
+
+  /** The highest frequency in Hertz that contributes to the chroma. */
+  static final double MAX_FREQUENCY = 5000;
+
+  /** The magnitude relative to the {@link #getWindowSize() window size} below which a frame is silent. */
+  private static final double SILENCE = 1e-3;
+
+  private final int windowSize;
+
+  private final Fft fft;
+
+  private final double[] window;
+
+  private final int[] pitchClasses;
+
+  private final int minBin;
+
+  private final int maxBin;
+
+  private final double[] real;
+
+  private final double[] imaginary;
+
+  /**
+   * The constructor.
+   *
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @param windowSize - see {@link #getWindowSize()}.
+   */
+  Chromagram(int sampleRate, int windowSize) {
+
+    super();
+    this.windowSize = windowSize;
+    this.fft = new Fft(windowSize);
+    this.window = new double[windowSize];
+    for (int i = 0; i < windowSize; i++) {
+      this.window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / windowSize);
+    }
+    double resolution = (double) sampleRate / windowSize;
+    this.minBin = Math.max(1, (int) Math.ceil(MIN_FREQUENCY / resolution));
+    this.maxBin = Math.min(windowSize / 2 - 1, (int) (MAX_FREQUENCY / resolution));
+    this.pitchClasses = new int[windowSize / 2];
+    for (int k = this.minBin; k <= this.maxBin; k++) {
+      int number = FrequencyTable.STANDARD.getNearestChromaticNumber(k * resolution);
+      this.pitchClasses[k] = Math.floorMod(number, SIZE);
+    }
+    this.real = new double[windowSize];
+    this.imaginary = new double[windowSize];
+  }
+
+  /**
+   * @return the number of samples per frame. Always a power of two.
+   */
+  int getWindowSize() {
+
+    return this.windowSize;
+  }
+
+  /**
+   * Computes the chroma vectors of two frames at once. Each vector is normalized to a length of {@code 1} or all
+   * {@code 0} if the frame is silent.
+   *
+   * @param samples the samples.
+   * @param first the index of the first sample of the first frame.
+   * @param second the index of the first sample of the second frame.
+   * @param firstChroma the array of {@link #SIZE} to store the chroma of the first frame.
+   * @param secondChroma the array of {@link #SIZE} to store the chroma of the second frame.
+   */
+  void compute(float[] samples, int first, int second, double[] firstChroma, double[] secondChroma) {
+
+    int size = this.windowSize;
+    double[] re = this.real;
+    double[] im = this.imaginary;
+    for (int i = 0; i < size; i++) {
+      re[i] = samples[first + i] * this.window[i];
+      im[i] = samples[second + i] * this.window[i];
+    }
+    this.fft.transform(re, im);
+    for (int i = 0; i < SIZE; i++) {
+      firstChroma[i] = 0;
+      secondChroma[i] = 0;
+    }
+    for (int k = this.minBin; k <= this.maxBin; k++) {
+      int m = size - k;
+      // separate the spectra of both real frames
+      double xr = (re[k] + re[m]) / 2;
+      double xi = (im[k] - im[m]) / 2;
+      double yr = (im[k] + im[m]) / 2;
+      double yi = (re[m] - re[k]) / 2;
+      int pitchClass = this.pitchClasses[k];
+      firstChroma[pitchClass] = firstChroma[pitchClass] + Math.sqrt(xr * xr + xi * xi);
+      secondChroma[pitchClass] = secondChroma[pitchClass] + Math.sqrt(yr * yr + yi * yi);
+    }
+    normalize(firstChroma);
+    normalize(secondChroma);
+  }
+
+  private void normalize(double[] chroma) {
+
+    double sum = 0;
+    for (int i = 0; i < SIZE; i++) {
+      sum = sum + chroma[i] * chroma[i];
+    }
+    double length = Math.sqrt(sum);
+    double scale = 0;
+    if (length >= SILENCE * this.windowSize) {
+      scale = 1 / length;
+    }
+    for (int i = 0; i < SIZE; i++) {
+      chroma[i] = chroma[i] * scale;
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * A simple ADSR {@link Envelope} for the volume of a tone: it rises linearly to full volume during the
+ * {@link #getAttack() attack}, falls to the {@link #getSustain() sustain} level during the {@link #getDecay() decay},
+ * holds this level until the tone ends and finally fades out during the {@link #getRelease() release}.
+ *
+ * @author hohwille
+ */
+public final class Envelope {
+
+  /** The default {@link Envelope} suitable for a melody preview. */
+  public static final Envelope DEFAULT = new Envelope(0.01, 0.1, 0.7, 0.05);
+
+  /** An {@link Envelope} of a plucked or struck instrument without sustain. */
+  public static final Envelope PLUCKED = new Envelope(0.005, 1.0, 0, 0.05);
+
+  private final double attack;
+
+  private final double decay;
+
+  private final double sustain;
+
+  private final double release;
+
+  /**
+   * The constructor.
+   *
+   * @param attack - see {@link #getAttack()}.
+   * @param decay - see {@link #getDecay()}.
+   * @param sustain - see {@link #getSustain()}.
+   * @param release - see {@link #getRelease()}.
+   */
+  public Envelope(double attack, double decay, double sustain, double release) {
+
+    super();
+    if ((attack < 0) || (decay < 0) || (sustain < 0) || (sustain > 1) || (release < 0)) {
+      throw new IllegalArgumentException(attack + "," + decay + "," + sustain + "," + release);
+    }
+    this.attack = attack;
+    this.decay = decay;
+    this.sustain = sustain;
+    this.release = release;
+  }
+
+  /**
+   * @return the duration in seconds to rise from silence to full volume.
+   */
+  public double getAttack() {
+
+    return this.attack;
+  }
+
+  /**
+   * @return the duration in seconds to fall from full volume to the {@link #getSustain() sustain} level.
+   */
+  public double getDecay() {
+
+    return this.decay;
+  }
+
+  /**
+   * @return the volume level from {@code 0} to {@code 1} held after the {@link #getDecay() decay} until the tone ends.
+   */
+  public double getSustain() {
+
+    return this.sustain;
+  }
+
+  /**
+   * @return the duration in seconds to fade out after the tone has ended.
+   */
+  public double getRelease() {
+
+    return this.release;
+  }
+
+  @Override
+  public String toString() {
+
+    return "ADSR(" + this.attack + "," + this.decay + "," + this.sustain + "," + this.release + ")";
+  }
+
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * An in-place radix-2 fast fourier transformation of complex values for a fixed {@link #getSize() size}. The
+ * bit-reversal permutation and the twiddle factors are precomputed so a {@link Fft} is reused for many frames without
+ * any allocation. It is immutable and can be shared by multiple threads as long as each thread uses its own arrays.
+ *
+ * @author hohwille
+ */
+final class Fft {
+
+  private final int size;
+
+  private final int[] reversed;
+
+  private final double[] cos;
+
+  private final double[] sin;
+
+  /**
+   * The constructor.
+   *
+   * @param size - see {@link #getSize()}.
+   */
+  Fft(int size) {
+
+    super();
+    if ((size < 2) || (Integer.bitCount(size) != 1)) {
+      throw new IllegalArgumentException(Integer.toString(size));
+    }
+    this.size = size;
+    int bits = Integer.numberOfTrailingZeros(size);
+    this.reversed = new int[size];
+    for (int i = 0; i < size; i++) {
+      this.reversed[i] = Integer.reverse(i) >>> (32 - bits);
+    }
+    int half = size / 2;
+    this.cos = new double[half];
+    this.sin = new double[half];
+    for (int i = 0; i < half; i++) {
+      double angle = 2 * Math.PI * i / size;
+      this.cos[i] = Math.cos(angle);
+      this.sin[i] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * @return the number of complex values to transform. Always a power of two.
+   */
+  int getSize() {
+
+    return this.size;
+  }
+
+  /**
+   * Computes the forward transformation in place.
+   *
+   * @param real the real parts.
+   * @param imaginary the imaginary parts.
+   */
+  void transform(double[] real, double[] imaginary) {
+
+    transform(real, imaginary, -1);
+  }
+
+  /**
+   * Computes the inverse transformation in place including the scaling by {@code 1/size}.
+   *
+   * @param real the real parts.
+   * @param imaginary the imaginary parts.
+   */
+  void inverse(double[] real, double[] imaginary) {
+
+    transform(real, imaginary, 1);
+    double scale = 1.0 / this.size;
+    for (int i = 0; i < this.size; i++) {
+      real[i] = real[i] * scale;
+      imaginary[i] = imaginary[i] * scale;
+    }
+  }
+
+  private void transform(double[] real, double[] imaginary, int sign) {
+
+    int n = this.size;
+    for (int i = 0; i < n; i++) {
+      int j = this.reversed[i];
+      if (i < j) {
+        double swap = real[i];
+        real[i] = real[j];
+        real[j] = swap;
+        swap = imaginary[i];
+        imaginary[i] = imaginary[j];
+        imaginary[j] = swap;
+      }
+    }
+    for (int length = 2; length <= n; length = length * 2) {
+      int half = length / 2;
+      int step = n / length;
+      for (int i = 0; i < n; i = i + length) {
+        for (int j = 0, k = 0; j < half; j++, k = k + step) {
+          double wr = this.cos[k];
+          double wi = sign * this.sin[k];
+          int a = i + j;
+          int b = a + half;
+          double tr = real[b] * wr - imaginary[b] * wi;
+          double ti = real[b] * wi + imaginary[b] * wr;
+          real[b] = real[a] - tr;
+          imaginary[b] = imaginary[a] - ti;
+          real[a] = real[a] + tr;
+          imaginary[a] = imaginary[a] + ti;
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,192 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * Renders a melody of {@link MusicalItem}s (e.g. {@link net.sf.mmm.music.datatype.api.ToneItem}s and
+ * {@link net.sf.mmm.music.datatype.api.RestItem}s) to PCM audio for a quick preview without an external synthesizer.
+ * The tones are played one after the other with a wavetable oscillator ({@link Waveform}) and an {@link Envelope} at
+ * the given {@link #getTempo() tempo}. The audio is streamed in blocks to a {@link WavWriter} reusing the same buffers
+ * so there is no allocation per sample or tone. The release of a tone overlaps with the start of the next one.
+ *
+ * This class is immutable and thread-safe. The rendering state is local to each {@link #render(List, WavWriter)
+ * render} call.
+ *
+ * @author hohwille
+ */
+public class MelodyRenderer {
+
+  /** The default {@link #getTempo() tempo}. */
+  public static final double DEFAULT_TEMPO = 120;
+
+  /** The number of samples rendered per block. */
+  static final int BLOCK_SIZE = 4096;
+
+  private static final float GAIN = 0.5f;
+
+  private final PcmFormat format;
+
+  private final double tempo;
+
+  private final Waveform waveform;
+
+  private final Envelope envelope;
+
+  private final FrequencyTable frequencyTable;
+
+  /**
+   * The constructor using a {@link Waveform#TRIANGLE triangle} wave with the {@link Envelope#DEFAULT default envelope}
+   * and the {@link FrequencyTable#STANDARD standard tuning}.
+   *
+   * @param format - see {@link #getFormat()}.
+   * @param tempo - see {@link #getTempo()}.
+   */
+  public MelodyRenderer(PcmFormat format, double tempo) {
+
+    this(format, tempo, Waveform.TRIANGLE, Envelope.DEFAULT, FrequencyTable.STANDARD);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param format - see {@link #getFormat()}.
+   * @param tempo - see {@link #getTempo()}.
+   * @param waveform the {@link Waveform} of the oscillator.
+   * @param envelope the {@link Envelope} of each tone.
+   * @param frequencyTable the {@link FrequencyTable} with the reference pitch and temperament.
+   */
+  public MelodyRenderer(PcmFormat format, double tempo, Waveform waveform, Envelope envelope,
+      FrequencyTable frequencyTable) {
+
+    super();
+    if (!(tempo > 0)) {
+      throw new IllegalArgumentException(Double.toString(tempo));
+    }
+    this.format = format;
+    this.tempo = tempo;
+    this.waveform = waveform;
+    this.envelope = envelope;
+    this.frequencyTable = frequencyTable;
+  }
+
+  /**
+   * @return the {@link PcmFormat} of the rendered audio.
+   */
+  public PcmFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the tempo in quarter beats per minute.
+   */
+  public double getTempo() {
+
+    return this.tempo;
+  }
+
+  /**
+   * @param format the {@link PcmFormat}.
+   * @param tempo the tempo in quarter beats per minute.
+   * @return the number of samples of a whole note.
+   */
+  static double getSamplesPerWhole(PcmFormat format, double tempo) {
+
+    return format.getSampleRate() * 60 * 4 / tempo;
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s.
+   * @param samplesPerWhole the number of samples of a whole note.
+   * @return the start of each item and the end of the last item in samples (the array is one longer than the given
+   *         {@link List}). The positions are rounded from the exact time so there is no drift.
+   */
+  static long[] getPositions(List<? extends MusicalItem> items, double samplesPerWhole) {
+
+    long[] positions = new long[items.size() + 1];
+    double time = 0;
+    for (int i = 0; i < items.size(); i++) {
+      MusicalValue value = items.get(i).getValue();
+      if (value != null) {
+        time = time + value.getDuration();
+      }
+      positions[i + 1] = Math.round(time * samplesPerWhole);
+    }
+    return positions;
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s of the melody.
+   * @param file the {@link Path} of the WAV file to write.
+   * @return the number of rendered samples.
+   * @throws IOException if writing failed.
+   */
+  public long render(List<? extends MusicalItem> items, Path file) throws IOException {
+
+    try (WavWriter writer = new WavWriter(file, this.format)) {
+      return render(items, writer);
+    }
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s of the melody. Items without {@link MusicalItem#getTone() tone} are silent.
+   * @param writer the {@link WavWriter} to write to. Has to use the same {@link #getFormat() format}.
+   * @return the number of rendered samples including the release of the last tone.
+   * @throws IOException if writing failed.
+   */
+  public long render(List<? extends MusicalItem> items, WavWriter writer) throws IOException {
+
+    if (!this.format.equals(writer.getFormat())) {
+      throw new IllegalArgumentException(writer.getFormat().toString());
+    }
+    int sampleRate = this.format.getSampleRate();
+    // two voices so the release of a tone can overlap with the next tone
+    Voice[] voices = { new WavetableVoice(this.waveform, this.envelope, sampleRate, GAIN),
+    new WavetableVoice(this.waveform, this.envelope, sampleRate, GAIN) };
+    int voiceIndex = 0;
+    long[] positions = getPositions(items, getSamplesPerWhole(this.format, this.tempo));
+    int size = items.size();
+    long total = positions[size] + (long) (this.envelope.getRelease() * sampleRate) + 1;
+    float[] block = new float[BLOCK_SIZE];
+    int itemIndex = 0;
+    long position = 0;
+    while (position < total) {
+      int length = (int) Math.min(BLOCK_SIZE, total - position);
+      Arrays.fill(block, 0, length, 0);
+      int offset = 0;
+      while (offset < length) {
+        int end = length;
+        if ((itemIndex < size) && (positions[itemIndex] < position + length)) {
+          end = (int) (positions[itemIndex] - position);
+        }
+        for (Voice voice : voices) {
+          voice.render(block, offset, end);
+        }
+        offset = end;
+        if (offset < length) {
+          Tone tone = items.get(itemIndex).getTone();
+          if (tone != null) {
+            int gate = (int) (positions[itemIndex + 1] - positions[itemIndex]);
+            voices[voiceIndex].start(tone, this.frequencyTable.getFrequency(tone), gate);
+            voiceIndex = 1 - voiceIndex;
+          }
+          itemIndex++;
+        }
+      }
+      writer.write(block, 0, length);
+      position = position + length;
+    }
+    return total;
+  }
+
+}
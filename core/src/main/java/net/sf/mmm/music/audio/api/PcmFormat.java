@@ -0,0 +1,96 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * The {@link PcmFormat} of mono PCM audio data with a {@link #getSampleRate() sample rate} and
+ * {@link #getBitsPerSample() bit depth} of 16 or 24 bit (signed, little endian).
+ *
+ * @author hohwille
+ */
+public final class PcmFormat {
+
+  /** CD quality with 44.1kHz and 16 bit. */
+  public static final PcmFormat CD = new PcmFormat(44100, 16);
+
+  /** Studio quality with 48kHz and 24 bit. */
+  public static final PcmFormat STUDIO = new PcmFormat(48000, 24);
+
+  private final int sampleRate;
+
+  private final int bitsPerSample;
+
+  /**
+   * The constructor.
+   *
+   * @param sampleRate - see {@link #getSampleRate()}.
+   * @param bitsPerSample - see {@link #getBitsPerSample()}.
+   */
+  public PcmFormat(int sampleRate, int bitsPerSample) {
+
+    super();
+    if ((sampleRate <= 0) || ((bitsPerSample != 16) && (bitsPerSample != 24))) {
+      throw new IllegalArgumentException(sampleRate + "Hz/" + bitsPerSample + "bit");
+    }
+    this.sampleRate = sampleRate;
+    this.bitsPerSample = bitsPerSample;
+  }
+
+  /**
+   * @return the number of samples per second (e.g. {@code 44100}).
+   */
+  public int getSampleRate() {
+
+    return this.sampleRate;
+  }
+
+  /**
+   * @return the number of bits per sample ({@code 16} or {@code 24}).
+   */
+  public int getBitsPerSample() {
+
+    return this.bitsPerSample;
+  }
+
+  /**
+   * @return the number of bytes per sample ({@code 2} or {@code 3}).
+   */
+  public int getBytesPerSample() {
+
+    return this.bitsPerSample / 8;
+  }
+
+  /**
+   * @return the number of bytes per second.
+   */
+  public int getByteRate() {
+
+    return this.sampleRate * getBytesPerSample();
+  }
+
+  @Override
+  public int hashCode() {
+
+    return this.sampleRate * 31 + this.bitsPerSample;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    PcmFormat other = (PcmFormat) obj;
+    return (this.sampleRate == other.sampleRate) && (this.bitsPerSample == other.bitsPerSample);
+  }
+
+  @Override
+  public String toString() {
+
+    return this.sampleRate + "Hz/" + this.bitsPerSample + "bit";
+  }
+
+}
@@ -0,0 +1,227 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * Detects the fundamental frequency of a monophonic signal with the YIN algorithm. The difference function is derived
+ * from the autocorrelation that is computed via {@link Fft} in {@code O(n log n)}: both real input sequences are
+ * packed into a single complex transformation of the window size (as only lags up to half the window are needed the
+ * circular correlation never wraps around). All buffers are allocated once so {@link #detect(float[], int)} never
+ * allocates.
+ *
+ * This class is not thread-safe. Use one instance per thread.
+ *
+ * @author hohwille
+ */
+public final class PitchDetector {
+
+  /** The default {@link #getThreshold() threshold}. */
+  public static final double DEFAULT_THRESHOLD = 0.15;
+
+  /** The highest detected frequency in Hertz. */
+  public static final double MAX_FREQUENCY = 2500;
+
+  /** The mean square of a window below which it is considered as silence. */
+  private static final double SILENCE = 1e-5;
+
+  private final int sampleRate;
+
+  private final int windowSize;
+
+  private final double threshold;
+
+  private final int minLag;
+
+  private final Fft fft;
+
+  private final double[] real;
+
+  private final double[] imaginary;
+
+  private final double[] energy;
+
+  private final double[] difference;
+
+  private double periodicity;
+
+  private double power;
+
+  /**
+   * The constructor with the {@link #DEFAULT_THRESHOLD}.
+   *
+   * @param sampleRate - see {@link #getSampleRate()}.
+   * @param windowSize - see {@link #getWindowSize()}.
+   */
+  public PitchDetector(int sampleRate, int windowSize) {
+
+    this(sampleRate, windowSize, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param sampleRate - see {@link #getSampleRate()}.
+   * @param windowSize - see {@link #getWindowSize()}.
+   * @param threshold - see {@link #getThreshold()}.
+   */
+  public PitchDetector(int sampleRate, int windowSize, double threshold) {
+
+    super();
+    if ((sampleRate <= 0) || (windowSize < 64) || (Integer.bitCount(windowSize) != 1)) {
+      throw new IllegalArgumentException(sampleRate + "/" + windowSize);
+    }
+    this.sampleRate = sampleRate;
+    this.windowSize = windowSize;
+    this.threshold = threshold;
+    this.minLag = Math.max(2, (int) (sampleRate / MAX_FREQUENCY));
+    this.fft = new Fft(windowSize);
+    this.real = new double[windowSize];
+    this.imaginary = new double[windowSize];
+    this.energy = new double[windowSize + 1];
+    this.difference = new double[windowSize / 2];
+  }
+
+  /**
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @return the recommended {@link #getWindowSize() window size} of about 25 to 50 milliseconds.
+   */
+  public static int getWindowSize(int sampleRate) {
+
+    return Math.max(256, Integer.highestOneBit(sampleRate / 20));
+  }
+
+  /**
+   * @return the {@link PcmFormat#getSampleRate() sample rate} of the analyzed samples.
+   */
+  public int getSampleRate() {
+
+    return this.sampleRate;
+  }
+
+  /**
+   * @return the number of samples analyzed per {@link #detect(float[], int) detection}. The lowest detectable
+   *         frequency has a period of half this size.
+   */
+  public int getWindowSize() {
+
+    return this.windowSize;
+  }
+
+  /**
+   * @return the lowest detectable frequency in Hertz.
+   */
+  public double getMinFrequency() {
+
+    return (2.0 * this.sampleRate) / this.windowSize;
+  }
+
+  /**
+   * @return the threshold of the cumulative mean normalized difference below which a period is accepted. Lower values
+   *         reject more noisy or unvoiced frames.
+   */
+  public double getThreshold() {
+
+    return this.threshold;
+  }
+
+  /**
+   * @return the periodicity of the last {@link #detect(float[], int) detection} from {@code 0} (noise or silence) to
+   *         {@code 1} (perfectly periodic).
+   */
+  public double getPeriodicity() {
+
+    return this.periodicity;
+  }
+
+  /**
+   * @return the power (mean square of the samples) of the last {@link #detect(float[], int) detected} window.
+   */
+  public double getPower() {
+
+    return this.power;
+  }
+
+  /**
+   * @param samples the samples.
+   * @param offset the index of the first sample of the window. There have to be at least {@link #getWindowSize()
+   *        window size} samples starting from here.
+   * @return the detected fundamental frequency in Hertz or {@code 0} if the window is silent or has no clear pitch.
+   */
+  public double detect(float[] samples, int offset) {
+
+    int size = this.windowSize;
+    int half = size / 2;
+    double[] re = this.real;
+    double[] im = this.imaginary;
+    double[] sum = this.energy;
+    sum[0] = 0;
+    for (int i = 0; i < size; i++) {
+      double sample = samples[offset + i];
+      sum[i + 1] = sum[i] + sample * sample;
+      re[i] = sample;
+      im[i] = (i < half) ? sample : 0;
+    }
+    this.periodicity = 0;
+    this.power = sum[size] / size;
+    if (this.power < SILENCE) {
+      return 0;
+    }
+    // one complex FFT of the window (real part) and its first half (imaginary part)
+    this.fft.transform(re, im);
+    for (int k = 0; k <= half; k++) {
+      int m = (size - k) & (size - 1);
+      double zr = re[k];
+      double zi = im[k];
+      double yr = re[m];
+      double yi = im[m];
+      double ar = (zr + yr) / 2;
+      double ai = (zi - yi) / 2;
+      double br = (zi + yi) / 2;
+      double bi = (yr - zr) / 2;
+      // cross correlation of the half with the window
+      double cr = ar * br + ai * bi;
+      double ci = ai * br - ar * bi;
+      re[k] = cr;
+      im[k] = ci;
+      re[m] = cr;
+      im[m] = -ci;
+    }
+    this.fft.inverse(re, im);
+    double[] cmnd = this.difference;
+    cmnd[0] = 1;
+    double total = 0;
+    for (int lag = 1; lag < half; lag++) {
+      double d = getDifference(lag);
+      total = total + d;
+      cmnd[lag] = (total > 0) ? (d * lag / total) : 1;
+    }
+    for (int lag = this.minLag; lag < half; lag++) {
+      if (cmnd[lag] < this.threshold) {
+        while ((lag + 1 < half) && (cmnd[lag + 1] < cmnd[lag])) {
+          lag++;
+        }
+        double period = lag;
+        if (lag + 1 < half) {
+          // parabolic interpolation of the raw difference function
+          double previous = getDifference(lag - 1);
+          double current = getDifference(lag);
+          double next = getDifference(lag + 1);
+          double denominator = previous - 2 * current + next;
+          if (denominator > 0) {
+            period = lag + (previous - next) / (2 * denominator);
+          }
+        }
+        this.periodicity = Math.max(0, 1 - cmnd[lag]);
+        return this.sampleRate / period;
+      }
+    }
+    return 0;
+  }
+
+  private double getDifference(int lag) {
+
+    int half = this.windowSize / 2;
+    return this.energy[half] + (this.energy[lag + half] - this.energy[lag]) - 2 * this.real[lag];
+  }
+
+}
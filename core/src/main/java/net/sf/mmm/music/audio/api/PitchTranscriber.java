@@ -0,0 +1,296 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.EnharmonicStyle;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Transcribes a monophonic recording (e.g. a voice or a single instrument) from a WAV file into {@link ToneItem}s and
+ * {@link RestItem}s. The transcription works in three steps:
+ * <ol>
+ * <li>The fundamental frequency of overlapping frames is detected by a {@link PitchDetector}. The frames are split
+ * into chunks processed in parallel where each chunk opens its own {@link WavReader} and additionally reads the
+ * overlap into the next chunk, so the stitched result is identical to a sequential run.</li>
+ * <li>Each frequency is mapped to the nearest tone of the {@link FrequencyTable}. Frames deviating more than the
+ * {@link #getCentsTolerance() cents tolerance} (e.g. glides), without pitch or with a power decayed to a tenth of
+ * the peak of the current tone (e.g. a release) count as silence. Runs of the same tone are segmented into notes
+ * where runs shorter than half the {@link #getGrid() grid} are merged into the previous note.</li>
+ * <li>The note boundaries are quantized to the {@link #getGrid() grid} at the given {@link #getTempo() tempo} to
+ * derive the {@link MusicalValue}s without drift.</li>
+ * </ol>
+ *
+ * This class is immutable and thread-safe.
+ *
+ * @author hohwille
+ */
+public class PitchTranscriber {
+
+  /** The default {@link #getCentsTolerance() cents tolerance}. */
+  public static final double DEFAULT_CENTS_TOLERANCE = 35;
+
+  /** The number of frames per chunk processed in parallel. */
+  private static final int CHUNK_FRAMES = 256;
+
+  /** The fraction of the peak power of a tone below which the tone is considered as ended. */
+  private static final double DECAY = 0.1;
+
+  private static final int NONE = Integer.MIN_VALUE;
+
+  private final double tempo;
+
+  private final FrequencyTable frequencyTable;
+
+  private final double centsTolerance;
+
+  private final MusicalValue grid;
+
+  /**
+   * The constructor with the {@link FrequencyTable#STANDARD standard tuning}, the {@link #DEFAULT_CENTS_TOLERANCE}
+   * and a {@link MusicalValue#SEMIQUAVER semiquaver} {@link #getGrid() grid}.
+   *
+   * @param tempo - see {@link #getTempo()}.
+   */
+  public PitchTranscriber(double tempo) {
+
+    this(tempo, FrequencyTable.STANDARD, DEFAULT_CENTS_TOLERANCE, MusicalValue.SEMIQUAVER);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param tempo - see {@link #getTempo()}.
+   * @param frequencyTable the {@link FrequencyTable} with the reference pitch and temperament.
+   * @param centsTolerance - see {@link #getCentsTolerance()}.
+   * @param grid - see {@link #getGrid()}.
+   */
+  public PitchTranscriber(double tempo, FrequencyTable frequencyTable, double centsTolerance, MusicalValue grid) {
+
+    super();
+    if (!(tempo > 0) || !(centsTolerance > 0) || !(grid.getDuration() > 0)) {
+      throw new IllegalArgumentException(tempo + "/" + centsTolerance + "/" + grid);
+    }
+    this.tempo = tempo;
+    this.frequencyTable = frequencyTable;
+    this.centsTolerance = centsTolerance;
+    this.grid = grid.toNormalizedValue();
+  }
+
+  /**
+   * @return the tempo in quarter beats per minute.
+   */
+  public double getTempo() {
+
+    return this.tempo;
+  }
+
+  /**
+   * @return the maximum deviation in cents (1/100 of a semitone) of a detected frequency from the nearest tone. Up to
+   *         {@code 50} to accept every frequency.
+   */
+  public double getCentsTolerance() {
+
+    return this.centsTolerance;
+  }
+
+  /**
+   * @return the shortest {@link MusicalValue} and the grid all notes are quantized to.
+   */
+  public MusicalValue getGrid() {
+
+    return this.grid;
+  }
+
+  /**
+   * @param file the {@link Path} of the WAV file to transcribe.
+   * @return the transcribed {@link MusicalItem}s. A leading silence is represented as {@link RestItem}, a trailing
+   *         silence is omitted.
+   * @throws IOException if reading failed.
+   */
+  public List<MusicalItem> transcribe(Path file) throws IOException {
+
+    int sampleRate;
+    long sampleCount;
+    try (WavReader reader = new WavReader(file)) {
+      sampleRate = reader.getFormat().getSampleRate();
+      sampleCount = reader.getSampleCount();
+    }
+    int windowSize = PitchDetector.getWindowSize(sampleRate);
+    int hopSize = windowSize / 2;
+    long frameCount = 0;
+    if (sampleCount >= windowSize) {
+      frameCount = (sampleCount - windowSize) / hopSize + 1;
+    }
+    if (frameCount > Integer.MAX_VALUE) {
+      throw new IOException("Recording too long: " + file);
+    }
+    float[] frequencies = new float[(int) frameCount];
+    float[] powers = new float[(int) frameCount];
+    detect(file, sampleRate, windowSize, hopSize, frequencies, powers);
+    return transcribe(frequencies, powers, (double) hopSize / sampleRate, (windowSize / 2.0) / sampleRate);
+  }
+
+  /**
+   * @param file the {@link Path} of the WAV file.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @param windowSize the {@link PitchDetector#getWindowSize() window size}.
+   * @param hopSize the number of samples between the start of two frames.
+   * @param frequencies the array to store the detected frequency of each frame or {@code 0} for frames without pitch.
+   * @param powers the array to store the {@link PitchDetector#getPower() power} of each frame.
+   * @throws IOException if reading failed.
+   */
+  static void detect(Path file, int sampleRate, int windowSize, int hopSize, float[] frequencies, float[] powers)
+      throws IOException {
+
+    int chunks = (frequencies.length + CHUNK_FRAMES - 1) / CHUNK_FRAMES;
+    try {
+      IntStream.range(0, chunks).parallel().forEach(chunk -> {
+        int first = chunk * CHUNK_FRAMES;
+        int count = Math.min(CHUNK_FRAMES, frequencies.length - first);
+        // read the overlap with the next chunk so the last frames are complete
+        float[] samples = new float[(count - 1) * hopSize + windowSize];
+        try (WavReader reader = new WavReader(file)) {
+          reader.seek((long) first * hopSize);
+          int offset = 0;
+          while (offset < samples.length) {
+            int read = reader.read(samples, offset, samples.length - offset);
+            if (read < 0) {
+              throw new IOException("Unexpected end of " + file);
+            }
+            offset = offset + read;
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        PitchDetector detector = new PitchDetector(sampleRate, windowSize);
+        for (int i = 0; i < count; i++) {
+          frequencies[first + i] = (float) detector.detect(samples, i * hopSize);
+          powers[first + i] = (float) detector.getPower();
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @param frequencies the detected frequency of each frame or {@code 0} for frames without pitch.
+   * @param powers the {@link PitchDetector#getPower() power} of each frame.
+   * @param frameDuration the time between two frames in seconds.
+   * @param frameOffset the time of the center of the first frame in seconds.
+   * @return the transcribed {@link MusicalItem}s.
+   */
+  List<MusicalItem> transcribe(float[] frequencies, float[] powers, double frameDuration, double frameOffset) {
+
+    double gridDuration = this.grid.getDuration() * 240 / this.tempo;
+    int minFrames = (int) Math.max(1, Math.round(gridDuration / 2 / frameDuration));
+    // segment runs of {tone, first frame, frame count}
+    List<int[]> runs = new ArrayList<>();
+    int[] last = null;
+    int tone = NONE;
+    float peak = 0;
+    for (int i = 0; i < frequencies.length; i++) {
+      int number = getChromaticNumber(frequencies[i]);
+      if (number != NONE) {
+        if (number != tone) {
+          tone = number;
+          peak = 0;
+        }
+        peak = Math.max(peak, powers[i]);
+        if (powers[i] < peak * DECAY) {
+          number = NONE;
+        }
+      }
+      if ((last != null) && (last[0] == number)) {
+        last[2]++;
+      } else {
+        last = new int[] { number, i, 1 };
+        runs.add(last);
+      }
+    }
+    List<int[]> notes = new ArrayList<>();
+    last = null;
+    for (int[] run : runs) {
+      if ((last != null) && ((run[2] < minFrames) || (run[0] == last[0]))) {
+        last[2] = last[2] + run[2];
+      } else {
+        last = run;
+        notes.add(run);
+      }
+    }
+    List<MusicalItem> items = new ArrayList<>(notes.size());
+    long start = 0;
+    for (int[] note : notes) {
+      // the boundary between two frames is in the middle of their centers
+      double endTime = frameOffset + (note[1] + note[2] - 0.5) * frameDuration;
+      long end = Math.round(endTime / gridDuration);
+      if (end > start) {
+        MusicalValue value = getValue(end - start);
+        if (note[0] == NONE) {
+          items.add(new RestItem(value));
+        } else {
+          items.add(new ToneItem(value, PackedTone.toTone(
+              PackedTone.transposeChromatic(PackedTone.pack(TonePitch.C, 0), note[0], EnharmonicStyle.NORMAL))));
+        }
+        start = end;
+      }
+    }
+    int size = items.size();
+    if ((size > 0) && items.get(size - 1).isRest()) {
+      items.remove(size - 1);
+    }
+    return items;
+  }
+
+  private int getChromaticNumber(double frequency) {
+
+    if (frequency <= 0) {
+      return NONE;
+    }
+    if (Math.abs(this.frequencyTable.getCents(frequency)) > this.centsTolerance) {
+      return NONE;
+    }
+    return this.frequencyTable.getNearestChromaticNumber(frequency);
+  }
+
+  private MusicalValue getValue(long gridSteps) {
+
+    long beats = gridSteps * this.grid.getBeats();
+    long fraction = this.grid.getFaction();
+    long gcd = gcd(beats, fraction);
+    beats = beats / gcd;
+    fraction = fraction / gcd;
+    // avoid relative values and use quarters like MusicalValue.MINIM or SEMIBREVE
+    while (fraction < 4) {
+      beats = beats * 2;
+      fraction = fraction * 2;
+    }
+    return new MusicalValue((int) beats, (int) fraction);
+  }
+
+  private static long gcd(long a, long b) {
+
+    long x = a;
+    long y = b;
+    while (y != 0) {
+      long remainder = x % y;
+      x = y;
+      y = remainder;
+    }
+    return x;
+  }
+
+}
@@ -0,0 +1,127 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free ring buffer of {@code float} samples for exactly one producer thread (e.g. the capture callback of an
+ * audio device) and one consumer thread (e.g. the detector of a {@link Tuner}). Each side only advances its own
+ * position with an ordered write and reads the position of the other side so neither side ever blocks, waits or
+ * allocates. If the buffer is full, the producer drops the samples that do not fit instead of waiting.
+ *
+ * @author hohwille
+ */
+public final class SampleRingBuffer {
+
+  private final float[] buffer;
+
+  private final int mask;
+
+  private final AtomicLong writePosition;
+
+  private final AtomicLong readPosition;
+
+  /**
+   * The constructor.
+   *
+   * @param capacity - see {@link #getCapacity()}.
+   */
+  public SampleRingBuffer(int capacity) {
+
+    super();
+    if ((capacity < 2) || (Integer.bitCount(capacity) != 1)) {
+      throw new IllegalArgumentException(Integer.toString(capacity));
+    }
+    this.buffer = new float[capacity];
+    this.mask = capacity - 1;
+    this.writePosition = new AtomicLong();
+    this.readPosition = new AtomicLong();
+  }
+
+  /**
+   * @return the maximum number of samples that can be buffered. Always a power of two.
+   */
+  public int getCapacity() {
+
+    return this.buffer.length;
+  }
+
+  /**
+   * @return the number of samples that can currently be {@link #read(float[], int, int) read}.
+   */
+  public int available() {
+
+    return (int) (this.writePosition.get() - this.readPosition.get());
+  }
+
+  /**
+   * Adds samples to the buffer. May only be called by the producer thread.
+   *
+   * @param samples the samples to add.
+   * @param offset the index in the array of the first sample to add.
+   * @param length the number of samples to add.
+   * @return the number of samples actually added. Less than {@code length} if the buffer is full.
+   */
+  public int write(float[] samples, int offset, int length) {
+
+    long write = this.writePosition.get();
+    int free = this.buffer.length - (int) (write - this.readPosition.get());
+    int count = Math.min(length, free);
+    if (count > 0) {
+      copy(samples, offset, (int) write & this.mask, count, true);
+      this.writePosition.lazySet(write + count);
+    }
+    return count;
+  }
+
+  /**
+   * Removes samples from the buffer. May only be called by the consumer thread.
+   *
+   * @param samples the array to read the samples into.
+   * @param offset the index in the array of the first sample to read.
+   * @param length the maximum number of samples to read.
+   * @return the number of samples actually read. Less than {@code length} if less samples are
+   *         {@link #available() available}.
+   */
+  public int read(float[] samples, int offset, int length) {
+
+    long read = this.readPosition.get();
+    int count = Math.min(length, (int) (this.writePosition.get() - read));
+    if (count > 0) {
+      copy(samples, offset, (int) read & this.mask, count, false);
+      this.readPosition.lazySet(read + count);
+    }
+    return count;
+  }
+
+  /**
+   * Removes samples from the buffer without reading them (e.g. to catch up with the producer). May only be called by
+   * the consumer thread.
+   *
+   * @param length the maximum number of samples to skip.
+   * @return the number of samples actually skipped.
+   */
+  public int skip(int length) {
+
+    long read = this.readPosition.get();
+    int count = Math.min(length, (int) (this.writePosition.get() - read));
+    if (count > 0) {
+      this.readPosition.lazySet(read + count);
+    }
+    return count;
+  }
+
+  private void copy(float[] samples, int offset, int index, int count, boolean write) {
+
+    int first = Math.min(count, this.buffer.length - index);
+    if (write) {
+      System.arraycopy(samples, offset, this.buffer, index, first);
+      System.arraycopy(samples, offset + first, this.buffer, 0, count - first);
+    } else {
+      System.arraycopy(this.buffer, index, samples, offset, first);
+      System.arraycopy(this.buffer, 0, samples, offset + first, count - first);
+    }
+  }
+
+}
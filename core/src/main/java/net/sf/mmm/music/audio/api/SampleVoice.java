@@ -0,0 +1,93 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.nio.ShortBuffer;
+
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * A {@link Voice} playing the samples of a {@link SoundFontPreset}. The sample is resampled with linear interpolation
+ * directly from the memory mapped data of the {@link SoundFont}.
+ *
+ * @author hohwille
+ */
+final class SampleVoice extends Voice {
+
+  private static final float SCALE = 1f / 32768;
+
+  private final SoundFontPreset preset;
+
+  private ShortBuffer samples;
+
+  private double position;
+
+  private double increment;
+
+  private int last;
+
+  private int loopStart;
+
+  private int loopEnd;
+
+  private boolean looping;
+
+  private float volume;
+
+  /**
+   * The constructor.
+   *
+   * @param preset the {@link SoundFontPreset} to play.
+   * @param envelope the {@link Envelope}.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @param gain the peak amplitude.
+   */
+  SampleVoice(SoundFontPreset preset, Envelope envelope, int sampleRate, float gain) {
+
+    super(envelope, sampleRate, gain);
+    this.preset = preset;
+  }
+
+  @Override
+  boolean startSound(Tone tone, double frequency) {
+
+    SoundFontZone zone = this.preset.getZone(tone);
+    if (zone == null) {
+      return false;
+    }
+    this.samples = zone.getSamples();
+    this.position = zone.getStart();
+    this.increment = frequency / zone.getRootFrequency() * zone.getSampleRate() / getSampleRate();
+    // the last index that still has a successor to interpolate with
+    this.last = zone.getEnd() - 1;
+    this.looping = zone.isLooping();
+    this.loopStart = zone.getLoopStart();
+    this.loopEnd = zone.getLoopEnd();
+    this.volume = (float) Math.pow(10, -zone.getAttenuation() / 200.0) * SCALE;
+    return true;
+  }
+
+  @Override
+  float nextSample() {
+
+    int index = (int) this.position;
+    int next = index + 1;
+    if (this.looping) {
+      if (next >= this.loopEnd) {
+        next = this.loopStart;
+      }
+    } else if (index >= this.last) {
+      return 0;
+    }
+    float fraction = (float) (this.position - index);
+    float current = this.samples.get(index);
+    float sample = current + fraction * (this.samples.get(next) - current);
+    this.position = this.position + this.increment;
+    if (this.looping && (this.position >= this.loopEnd)) {
+      // the increment may exceed the length of short loops played high
+      this.position = this.loopStart + (this.position - this.loopStart) % (this.loopEnd - this.loopStart);
+    }
+    return sample * this.volume;
+  }
+
+}
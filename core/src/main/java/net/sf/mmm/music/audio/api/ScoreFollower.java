@@ -0,0 +1,312 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Follows a live or recorded performance of a known score (audio to score alignment). The score is expanded into a
+ * reference sequence of frames at its nominal {@link #getTempo() tempo} where every frame expects the chroma of its
+ * {@link ToneItem} (including the pitch classes of the strongest harmonics) or silence for a rest. Each frame of the
+ * {@link #write(float[], int, int) written} audio is reduced to a chroma vector and aligned with online dynamic time
+ * warping: the performance advances one frame per step while the score may stay or advance by one or two frames
+ * (so the performance may be arbitrarily slower and up to twice as fast as the nominal tempo). All paths to a frame
+ * have the same length so the {@link #getPosition() position} is simply the end of the cheapest path. As only the
+ * chroma is compared, the boundary between repeated tones of the same pitch class is only derived from their
+ * durations.<br>
+ * Only a {@link #getBand() band} of reference frames around the current position is evaluated, so the memory of the
+ * alignment and the cost per frame are constant regardless of the length of the score. The position is updated
+ * every {@link #getHopSize() hop} of about 23 milliseconds, where the evaluation takes only a few microseconds in
+ * addition to the {@link Fft} of the frame.
+ *
+ * This class is not thread-safe. Feed it from a single thread (e.g. the consumer of a {@link SampleRingBuffer}).
+ *
+ * @author hohwille
+ */
+public class ScoreFollower {
+
+  /** The default {@link #getBand() band}. */
+  public static final int DEFAULT_BAND = 512;
+
+  /** The distance of an audible frame from a rest. */
+  private static final double REST_DISTANCE = 0.7;
+
+  /** The weights of the fundamental and the harmonics in semitones above it modulo an octave (3rd and 5th). */
+  private static final double[] HARMONICS = { 1, 0, 0, 0, 0.2, 0, 0, 0.4, 0, 0, 0, 0 };
+
+  private final List<MusicalItem> score;
+
+  private final double tempo;
+
+  private final int band;
+
+  private final int[] references;
+
+  private final double[] templates;
+
+  private final boolean[] rests;
+
+  private final Chromagram chromagram;
+
+  private final int hopSize;
+
+  private final float[] window;
+
+  private final double[] chroma;
+
+  private final double[] unused;
+
+  private double[] previous;
+
+  private double[] current;
+
+  private int filled;
+
+  private int low;
+
+  private int reference;
+
+  private long frameCount;
+
+  /**
+   * The constructor using the {@link #DEFAULT_BAND}.
+   *
+   * @param score - see {@link #getScore()}.
+   * @param tempo - see {@link #getTempo()}.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate} of the {@link #write(float[], int, int)
+   *        written} samples.
+   */
+  public ScoreFollower(List<? extends MusicalItem> score, double tempo, int sampleRate) {
+
+    this(score, tempo, sampleRate, DEFAULT_BAND);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param score - see {@link #getScore()}.
+   * @param tempo - see {@link #getTempo()}.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate} of the {@link #write(float[], int, int)
+   *        written} samples.
+   * @param band - see {@link #getBand()}.
+   */
+  public ScoreFollower(List<? extends MusicalItem> score, double tempo, int sampleRate, int band) {
+
+    super();
+    if (score.isEmpty() || !(tempo > 0) || (band < 4)) {
+      throw new IllegalArgumentException(score.size() + "/" + tempo + "/" + band);
+    }
+    this.score = Collections.unmodifiableList(new ArrayList<>(score));
+    this.tempo = tempo;
+    this.band = band;
+    int windowSize = Math.max(1024, Integer.highestOneBit(sampleRate / 10));
+    this.hopSize = windowSize / 4;
+    this.chromagram = new Chromagram(sampleRate, windowSize);
+    this.window = new float[windowSize];
+    // start with silence so the first frame is complete after one hop
+    this.filled = windowSize - this.hopSize;
+    this.chroma = new double[Chromagram.SIZE];
+    this.unused = new double[Chromagram.SIZE];
+    int size = this.score.size();
+    this.templates = new double[size * Chromagram.SIZE];
+    this.rests = new boolean[size];
+    double frameRate = (double) sampleRate / this.hopSize;
+    int[] frames = new int[size];
+    int total = 0;
+    for (int i = 0; i < size; i++) {
+      MusicalItem item = this.score.get(i);
+      frames[i] = (int) Math.max(1, Math.round(item.getValue().getDuration() * 240 / tempo * frameRate));
+      total = total + frames[i];
+      Tone tone = item.getTone();
+      if (tone == null) {
+        this.rests[i] = true;
+      } else {
+        setTemplate(i * Chromagram.SIZE, tone.getPitch().getStep());
+      }
+    }
+    this.references = new int[total];
+    int index = 0;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < frames[i]; j++) {
+        this.references[index++] = i;
+      }
+    }
+    this.previous = new double[band];
+    this.current = new double[band];
+    Arrays.fill(this.previous, Double.POSITIVE_INFINITY);
+    this.previous[0] = 0;
+  }
+
+  private void setTemplate(int offset, int step) {
+
+    double sum = 0;
+    for (double weight : HARMONICS) {
+      sum = sum + weight * weight;
+    }
+    double scale = 1 / Math.sqrt(sum);
+    for (int i = 0; i < Chromagram.SIZE; i++) {
+      this.templates[offset + (step + i) % Chromagram.SIZE] = HARMONICS[i] * scale;
+    }
+  }
+
+  /**
+   * @return the {@link MusicalItem}s of the expected performance.
+   */
+  public List<MusicalItem> getScore() {
+
+    return this.score;
+  }
+
+  /**
+   * @return the nominal tempo of the {@link #getScore() score} in quarter beats per minute.
+   */
+  public double getTempo() {
+
+    return this.tempo;
+  }
+
+  /**
+   * @return the number of reference frames (about 23 milliseconds each at the nominal {@link #getTempo() tempo})
+   *         evaluated per frame. The performance may not jump further than about three quarters of this band.
+   */
+  public int getBand() {
+
+    return this.band;
+  }
+
+  /**
+   * @return the number of samples after which the {@link #getPosition() position} is updated.
+   */
+  public int getHopSize() {
+
+    return this.hopSize;
+  }
+
+  /**
+   * @return the number of processed frames.
+   */
+  public long getFrameCount() {
+
+    return this.frameCount;
+  }
+
+  /**
+   * @return the index of the {@link MusicalItem} in the {@link #getScore() score} currently played.
+   */
+  public int getPosition() {
+
+    return this.references[this.reference];
+  }
+
+  /**
+   * @return the {@link MusicalItem} in the {@link #getScore() score} currently played.
+   */
+  public MusicalItem getItem() {
+
+    return this.score.get(getPosition());
+  }
+
+  /**
+   * Adds samples of the performance and updates the {@link #getPosition() position} for every complete
+   * {@link #getHopSize() hop}. It never allocates.
+   *
+   * @param samples the mono samples in the range from {@code -1} to {@code 1}.
+   * @param offset the index in the array of the first sample to add.
+   * @param length the number of samples to add.
+   */
+  public void write(float[] samples, int offset, int length) {
+
+    int windowSize = this.window.length;
+    int index = offset;
+    int end = offset + length;
+    while (index < end) {
+      int count = Math.min(end - index, windowSize - this.filled);
+      System.arraycopy(samples, index, this.window, this.filled, count);
+      this.filled = this.filled + count;
+      index = index + count;
+      if (this.filled == windowSize) {
+        processFrame();
+        System.arraycopy(this.window, this.hopSize, this.window, 0, windowSize - this.hopSize);
+        this.filled = windowSize - this.hopSize;
+      }
+    }
+  }
+
+  private void processFrame() {
+
+    this.chromagram.compute(this.window, 0, 0, this.chroma, this.unused);
+    boolean silent = true;
+    for (int step = 0; step < Chromagram.SIZE; step++) {
+      if (this.chroma[step] != 0) {
+        silent = false;
+        break;
+      }
+    }
+    double[] row = this.current;
+    double min = Double.POSITIVE_INFINITY;
+    int best = 0;
+    for (int k = 0; k < this.band; k++) {
+      int j = this.low + k;
+      if (j >= this.references.length) {
+        row[k] = Double.POSITIVE_INFINITY;
+        continue;
+      }
+      // stay on the same reference frame or advance by one or two
+      double cost = this.previous[k];
+      if (k >= 1) {
+        cost = Math.min(cost, this.previous[k - 1]);
+      }
+      if (k >= 2) {
+        cost = Math.min(cost, this.previous[k - 2]);
+      }
+      double value = cost + getDistance(this.references[j], silent);
+      row[k] = value;
+      if (value < min) {
+        min = value;
+        best = k;
+      }
+    }
+    // keep the values small for arbitrary long performances
+    for (int k = 0; k < this.band; k++) {
+      row[k] = row[k] - min;
+    }
+    this.current = this.previous;
+    this.previous = row;
+    this.reference = this.low + best;
+    // move the band so there is more room ahead than behind the position
+    int newLow = Math.min(this.reference - this.band / 4, this.references.length - this.band);
+    if (newLow > this.low) {
+      int shift = newLow - this.low;
+      System.arraycopy(row, shift, row, 0, this.band - shift);
+      for (int k = this.band - shift; k < this.band; k++) {
+        row[k] = Double.POSITIVE_INFINITY;
+      }
+      this.low = newLow;
+    }
+    this.frameCount++;
+  }
+
+  private double getDistance(int item, boolean silent) {
+
+    if (this.rests[item]) {
+      return silent ? 0 : REST_DISTANCE;
+    }
+    if (silent) {
+      return 1;
+    }
+    int offset = item * Chromagram.SIZE;
+    double similarity = 0;
+    for (int step = 0; step < Chromagram.SIZE; step++) {
+      similarity = similarity + this.chroma[step] * this.templates[offset + step];
+    }
+    return 1 - similarity;
+  }
+
+}
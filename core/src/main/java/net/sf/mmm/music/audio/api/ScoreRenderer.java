@@ -0,0 +1,259 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * Renders a whole score given as {@link AudioTrack}s (one per part or staff) offline to PCM audio. The audio is
+ * produced in segments: within a segment every {@link AudioTrack} is rendered in its own fork/join task into its own
+ * {@code float} buffer using a bounded pool of {@link #getMaxVoices() voices} for polyphony (if all voices are busy the
+ * one closest to its end is stolen). Then the buffers are summed per block in parallel where each task owns a disjoint
+ * range of the mix so no locks are needed. Finally the mix is streamed to a {@link WavWriter}. As the tracks are
+ * independent the throughput scales with the number of cores for scores with many parts.
+ *
+ * This class is immutable and thread-safe.
+ *
+ * @see MelodyRenderer
+ *
+ * @author hohwille
+ */
+public class ScoreRenderer {
+
+  /** The default {@link #getMaxVoices() maximum number of voices}. */
+  public static final int DEFAULT_MAX_VOICES = 16;
+
+  /** The number of samples of a segment rendered by each track before mixing. */
+  private static final int SEGMENT_SIZE = MelodyRenderer.BLOCK_SIZE * 32;
+
+  private final PcmFormat format;
+
+  private final double tempo;
+
+  private final FrequencyTable frequencyTable;
+
+  private final int maxVoices;
+
+  /**
+   * The constructor with the {@link FrequencyTable#STANDARD standard tuning} and {@link #DEFAULT_MAX_VOICES}.
+   *
+   * @param format - see {@link #getFormat()}.
+   * @param tempo - see {@link #getTempo()}.
+   */
+  public ScoreRenderer(PcmFormat format, double tempo) {
+
+    this(format, tempo, FrequencyTable.STANDARD, DEFAULT_MAX_VOICES);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param format - see {@link #getFormat()}.
+   * @param tempo - see {@link #getTempo()}.
+   * @param frequencyTable the {@link FrequencyTable} with the reference pitch and temperament.
+   * @param maxVoices - see {@link #getMaxVoices()}.
+   */
+  public ScoreRenderer(PcmFormat format, double tempo, FrequencyTable frequencyTable, int maxVoices) {
+
+    super();
+    if (!(tempo > 0) || (maxVoices < 1)) {
+      throw new IllegalArgumentException(tempo + "/" + maxVoices);
+    }
+    this.format = format;
+    this.tempo = tempo;
+    this.frequencyTable = frequencyTable;
+    this.maxVoices = maxVoices;
+  }
+
+  /**
+   * @return the {@link PcmFormat} of the rendered audio.
+   */
+  public PcmFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the tempo in quarter beats per minute.
+   */
+  public double getTempo() {
+
+    return this.tempo;
+  }
+
+  /**
+   * @return the maximum number of tones sounding at the same time per {@link AudioTrack}.
+   */
+  public int getMaxVoices() {
+
+    return this.maxVoices;
+  }
+
+  /**
+   * @param tracks the {@link AudioTrack}s of the score.
+   * @param file the {@link Path} of the WAV file to write.
+   * @return the number of rendered samples.
+   * @throws IOException if writing failed.
+   */
+  public long render(List<AudioTrack> tracks, Path file) throws IOException {
+
+    try (WavWriter writer = new WavWriter(file, this.format)) {
+      return render(tracks, writer);
+    }
+  }
+
+  /**
+   * @param tracks the {@link AudioTrack}s of the score. They all start at the same time.
+   * @param writer the {@link WavWriter} to write to. Has to use the same {@link #getFormat() format}.
+   * @return the number of rendered samples including the release of the last tone.
+   * @throws IOException if writing failed.
+   */
+  public long render(List<AudioTrack> tracks, WavWriter writer) throws IOException {
+
+    if (!this.format.equals(writer.getFormat())) {
+      throw new IllegalArgumentException(writer.getFormat().toString());
+    }
+    int trackCount = tracks.size();
+    TrackRenderer[] renderers = new TrackRenderer[trackCount];
+    long total = 0;
+    for (int i = 0; i < trackCount; i++) {
+      renderers[i] = new TrackRenderer(tracks.get(i));
+      total = Math.max(total, renderers[i].length);
+    }
+    float[][] buffers = new float[trackCount][SEGMENT_SIZE];
+    float[] mix = new float[SEGMENT_SIZE];
+    int blockSize = MelodyRenderer.BLOCK_SIZE;
+    long position = 0;
+    while (position < total) {
+      int length = (int) Math.min(SEGMENT_SIZE, total - position);
+      long start = position;
+      IntStream.range(0, trackCount).parallel().forEach(i -> renderers[i].render(buffers[i], start, length));
+      int blocks = (length + blockSize - 1) / blockSize;
+      IntStream.range(0, blocks).parallel().forEach(block -> {
+        int from = block * blockSize;
+        int to = Math.min(length, from + blockSize);
+        Arrays.fill(mix, from, to, 0);
+        for (float[] buffer : buffers) {
+          for (int i = from; i < to; i++) {
+            mix[i] = mix[i] + buffer[i];
+          }
+        }
+      });
+      writer.write(mix, 0, length);
+      position = position + length;
+    }
+    return total;
+  }
+
+  /**
+   * The rendering state of a single {@link AudioTrack}.
+   */
+  private class TrackRenderer {
+
+    private final List<List<? extends MusicalItem>> lines;
+
+    private final long[][] positions;
+
+    private final int[] indexes;
+
+    private final Voice[] voices;
+
+    private final long length;
+
+    private TrackRenderer(AudioTrack track) {
+
+      super();
+      PcmFormat pcm = ScoreRenderer.this.format;
+      double samplesPerWhole = MelodyRenderer.getSamplesPerWhole(pcm, ScoreRenderer.this.tempo);
+      this.lines = track.getLines();
+      int lineCount = this.lines.size();
+      this.positions = new long[lineCount][];
+      this.indexes = new int[lineCount];
+      long end = 0;
+      for (int line = 0; line < lineCount; line++) {
+        long[] linePositions = MelodyRenderer.getPositions(this.lines.get(line), samplesPerWhole);
+        this.positions[line] = linePositions;
+        end = Math.max(end, linePositions[linePositions.length - 1]);
+      }
+      this.length = end + (long) (track.getEnvelope().getRelease() * pcm.getSampleRate()) + 1;
+      this.voices = new Voice[ScoreRenderer.this.maxVoices];
+      for (int i = 0; i < this.voices.length; i++) {
+        this.voices[i] = track.createVoice(pcm.getSampleRate());
+      }
+    }
+
+    /**
+     * @return the position of the next tone to start in any line or {@link Long#MAX_VALUE} if there is none.
+     */
+    private long getNext() {
+
+      long next = Long.MAX_VALUE;
+      for (int line = 0; line < this.positions.length; line++) {
+        int index = this.indexes[line];
+        if (index < this.lines.get(line).size()) {
+          next = Math.min(next, this.positions[line][index]);
+        }
+      }
+      return next;
+    }
+
+    private void render(float[] buffer, long start, int segmentLength) {
+
+      Arrays.fill(buffer, 0, segmentLength, 0);
+      int offset = 0;
+      while (offset < segmentLength) {
+        long next = getNext();
+        int end = segmentLength;
+        if (next < start + segmentLength) {
+          end = (int) (next - start);
+        }
+        for (Voice voice : this.voices) {
+          voice.render(buffer, offset, end);
+        }
+        offset = end;
+        if (offset < segmentLength) {
+          for (int line = 0; line < this.positions.length; line++) {
+            int index = this.indexes[line];
+            if ((index < this.lines.get(line).size()) && (this.positions[line][index] == next)) {
+              Tone tone = this.lines.get(line).get(index).getTone();
+              if (tone != null) {
+                int gate = (int) (this.positions[line][index + 1] - next);
+                allocate().start(tone, ScoreRenderer.this.frequencyTable.getFrequency(tone), gate);
+              }
+              this.indexes[line] = index + 1;
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * @return a free {@link Voice} or the one closest to its end if all are busy.
+     */
+    private Voice allocate() {
+
+      Voice result = null;
+      int remaining = Integer.MAX_VALUE;
+      for (Voice voice : this.voices) {
+        if (!voice.isActive()) {
+          return voice;
+        }
+        int voiceRemaining = voice.getRemaining();
+        if (voiceRemaining < remaining) {
+          remaining = voiceRemaining;
+          result = voice;
+        }
+      }
+      return result;
+    }
+  }
+
+}
@@ -0,0 +1,483 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link SoundFont} gives access to the samples of a SoundFont 2 file ({@code *.sf2}). The file is mapped into
+ * memory via {@link FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long) FileChannel.map} so opening only
+ * locates the chunks and validates the small index tables of presets and instruments (so a truncated or corrupt bank
+ * is rejected by {@link #open(Path)} and not during playback). This takes milliseconds even for banks of hundreds of
+ * megabytes. The {@link #getPresets() presets} and the zones of the instruments are parsed lazily on first access
+ * and the samples are read directly from the mapped region during playback (see
+ * {@link AudioTrack#AudioTrack(SoundFontPreset, Envelope, double, List)}), so the sample bank is never copied to the
+ * heap.
+ *
+ * Only the features needed for playback of a {@link net.sf.mmm.music.datatype.api.Tone} are supported: key and
+ * velocity ranges, tuning, root key, attenuation, sample offsets and loops. Modulators, filters, the envelopes of the
+ * SoundFont, stereo links and 24 bit samples are ignored. Files are limited to 2GB.
+ *
+ * This class is thread-safe.
+ *
+ * @author hohwille
+ */
+public final class SoundFont {
+
+  /** Generator for the start offset of the sample. */
+  static final int GEN_START_OFFSET = 0;
+
+  /** Generator for the end offset of the sample. */
+  static final int GEN_END_OFFSET = 1;
+
+  /** Generator for the start offset of the loop. */
+  static final int GEN_LOOP_START_OFFSET = 2;
+
+  /** Generator for the end offset of the loop. */
+  static final int GEN_LOOP_END_OFFSET = 3;
+
+  /** Generator for the start offset of the sample in steps of 32768. */
+  static final int GEN_START_COARSE_OFFSET = 4;
+
+  /** Generator for the end offset of the sample in steps of 32768. */
+  static final int GEN_END_COARSE_OFFSET = 12;
+
+  /** Generator for the instrument of a preset zone. */
+  static final int GEN_INSTRUMENT = 41;
+
+  /** Generator for the key range. */
+  static final int GEN_KEY_RANGE = 43;
+
+  /** Generator for the velocity range. */
+  static final int GEN_VELOCITY_RANGE = 44;
+
+  /** Generator for the start offset of the loop in steps of 32768. */
+  static final int GEN_LOOP_START_COARSE_OFFSET = 45;
+
+  /** Generator for the attenuation in centibel. */
+  static final int GEN_ATTENUATION = 48;
+
+  /** Generator for the end offset of the loop in steps of 32768. */
+  static final int GEN_LOOP_END_COARSE_OFFSET = 50;
+
+  /** Generator for the tuning in semitones. */
+  static final int GEN_COARSE_TUNE = 51;
+
+  /** Generator for the tuning in cents. */
+  static final int GEN_FINE_TUNE = 52;
+
+  /** Generator for the sample of an instrument zone. */
+  static final int GEN_SAMPLE = 53;
+
+  /** Generator for the loop mode. */
+  static final int GEN_SAMPLE_MODES = 54;
+
+  /** Generator for the overriding root key. */
+  static final int GEN_ROOT_KEY = 58;
+
+  private static final int PHDR_SIZE = 38;
+
+  private static final int BAG_SIZE = 4;
+
+  private static final int GEN_SIZE = 4;
+
+  private static final int INST_SIZE = 22;
+
+  private static final int SHDR_SIZE = 46;
+
+  private static final int NAME_SIZE = 20;
+
+  /** The IDs of the required chunks of the {@code pdta} list. */
+  private static final String[] CHUNK_IDS = { "phdr", "pbag", "pgen", "inst", "ibag", "igen", "shdr" };
+
+  /** The sizes of the records of the {@link #CHUNK_IDS chunks}. */
+  private static final int[] RECORD_SIZES = { PHDR_SIZE, BAG_SIZE, GEN_SIZE, INST_SIZE, BAG_SIZE, GEN_SIZE, SHDR_SIZE };
+
+  private final ByteBuffer data;
+
+  private final ShortBuffer samples;
+
+  private final String name;
+
+  private final int phdr;
+
+  private final int phdrCount;
+
+  private final int pbag;
+
+  private final int pgen;
+
+  private final int inst;
+
+  private final int ibag;
+
+  private final int igen;
+
+  private final int shdr;
+
+  private final int sampleCount;
+
+  private final AtomicReferenceArray<Zone[]> instruments;
+
+  private volatile List<SoundFontPreset> presets;
+
+  private SoundFont(ByteBuffer data, ShortBuffer samples, String name, int[] chunks) {
+
+    super();
+    this.data = data;
+    this.samples = samples;
+    this.name = name;
+    this.phdr = chunks[0];
+    this.phdrCount = chunks[1] / PHDR_SIZE - 1;
+    this.pbag = chunks[2];
+    this.pgen = chunks[4];
+    this.inst = chunks[6];
+    this.instruments = new AtomicReferenceArray<>(Math.max(0, chunks[7] / INST_SIZE - 1));
+    this.ibag = chunks[8];
+    this.igen = chunks[10];
+    this.shdr = chunks[12];
+    this.sampleCount = Math.max(0, chunks[13] / SHDR_SIZE - 1);
+  }
+
+  /**
+   * @param file the {@link Path} of the SoundFont 2 file.
+   * @return the opened {@link SoundFont}.
+   * @throws IOException if the file could not be read or is no valid SoundFont.
+   */
+  public static SoundFont open(Path file) throws IOException {
+
+    ByteBuffer data;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("SoundFont too large: " + file);
+      }
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if ((data.capacity() < 12) || (data.getInt(0) != fourcc("RIFF")) || (data.getInt(8) != fourcc("sfbk"))) {
+      throw new IOException("Not a SoundFont: " + file);
+    }
+    String name = "";
+    ShortBuffer samples = null;
+    // offset and size of phdr, pbag, pgen, inst, ibag, igen, shdr
+    int[] chunks = new int[14];
+    int[] ids = new int[CHUNK_IDS.length];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = fourcc(CHUNK_IDS[i]);
+    }
+    int end = (int) Math.min(data.capacity(), 8L + (data.getInt(4) & 0xFFFFFFFFL));
+    int position = 12;
+    while (position + 12 <= end) {
+      int chunkSize = data.getInt(position + 4);
+      int chunkEnd = checkChunk(position, chunkSize, end);
+      if (data.getInt(position) == fourcc("LIST")) {
+        int type = data.getInt(position + 8);
+        int sub = position + 12;
+        while (sub + 8 <= chunkEnd) {
+          int id = data.getInt(sub);
+          int subSize = data.getInt(sub + 4);
+          checkChunk(sub, subSize, chunkEnd);
+          if ((type == fourcc("INFO")) && (id == fourcc("INAM"))) {
+            name = readString(data, sub + 8, subSize);
+          } else if ((type == fourcc("sdta")) && (id == fourcc("smpl"))) {
+            ByteBuffer slice = data.duplicate();
+            slice.position(sub + 8).limit(sub + 8 + subSize);
+            samples = slice.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+          } else if (type == fourcc("pdta")) {
+            for (int i = 0; i < ids.length; i++) {
+              if (id == ids[i]) {
+                chunks[2 * i] = sub + 8;
+                chunks[2 * i + 1] = subSize;
+              }
+            }
+          }
+          sub = sub + 8 + subSize + (subSize & 1);
+        }
+      }
+      position = chunkEnd + (chunkSize & 1);
+    }
+    if (samples == null) {
+      throw new IOException("Incomplete SoundFont: " + file);
+    }
+    for (int i = 0; i < CHUNK_IDS.length; i++) {
+      // every table ends with a terminal record
+      int size = chunks[2 * i + 1];
+      if ((chunks[2 * i] == 0) || (size < RECORD_SIZES[i]) || (size % RECORD_SIZES[i] != 0)) {
+        throw new IOException("Missing or corrupt " + CHUNK_IDS[i] + " chunk in SoundFont: " + file);
+      }
+    }
+    // the indexes into the bags and generators are used without further checks
+    checkIndexes(data, chunks, 0, 24, 1);
+    checkIndexes(data, chunks, 1, 0, 2);
+    checkIndexes(data, chunks, 3, NAME_SIZE, 4);
+    checkIndexes(data, chunks, 4, 0, 5);
+    return new SoundFont(data, samples, name, chunks);
+  }
+
+  /**
+   * Checks that the indexes of a table into another table are ascending and within the other table.
+   *
+   * @param data the mapped file.
+   * @param chunks the offsets and sizes of the chunks.
+   * @param table the index of the chunk containing the indexes.
+   * @param field the offset of the 16 bit index in a record of the table.
+   * @param target the index of the referenced chunk.
+   * @throws IOException if an index is invalid.
+   */
+  private static void checkIndexes(ByteBuffer data, int[] chunks, int table, int field, int target)
+      throws IOException {
+
+    int recordSize = RECORD_SIZES[table];
+    int count = chunks[2 * table + 1] / recordSize;
+    int max = chunks[2 * target + 1] / RECORD_SIZES[target] - 1;
+    int previous = 0;
+    for (int i = 0; i < count; i++) {
+      int index = data.getShort(chunks[2 * table] + i * recordSize + field) & 0xFFFF;
+      if ((index < previous) || (index > max)) {
+        throw new IOException("Invalid index " + index + " in record " + i + " of " + CHUNK_IDS[table] + " chunk");
+      }
+      previous = index;
+    }
+  }
+
+  private static int checkChunk(int position, int size, int end) throws IOException {
+
+    if ((size < 0) || (size > end - position - 8)) {
+      throw new IOException("Corrupt chunk at " + position);
+    }
+    return position + 8 + size;
+  }
+
+  private static int fourcc(String id) {
+
+    return id.charAt(0) | (id.charAt(1) << 8) | (id.charAt(2) << 16) | (id.charAt(3) << 24);
+  }
+
+  private static String readString(ByteBuffer buffer, int offset, int maxLength) {
+
+    int length = 0;
+    while ((length < maxLength) && (buffer.get(offset + length) != 0)) {
+      length++;
+    }
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(offset + i);
+    }
+    return new String(bytes, StandardCharsets.US_ASCII).trim();
+  }
+
+  /**
+   * @return the name of the bank.
+   */
+  public String getName() {
+
+    return this.name;
+  }
+
+  /**
+   * @return the {@link SoundFontPreset}s in the order of the file.
+   */
+  public List<SoundFontPreset> getPresets() {
+
+    List<SoundFontPreset> result = this.presets;
+    if (result == null) {
+      List<SoundFontPreset> list = new ArrayList<>(this.phdrCount);
+      for (int i = 0; i < this.phdrCount; i++) {
+        int offset = this.phdr + i * PHDR_SIZE;
+        int bagStart = this.data.getShort(offset + 24) & 0xFFFF;
+        int bagEnd = this.data.getShort(offset + PHDR_SIZE + 24) & 0xFFFF;
+        list.add(new SoundFontPreset(this, readString(this.data, offset, NAME_SIZE),
+            this.data.getShort(offset + 22) & 0xFFFF, this.data.getShort(offset + 20) & 0xFFFF, bagStart, bagEnd));
+      }
+      result = Collections.unmodifiableList(list);
+      this.presets = result;
+    }
+    return result;
+  }
+
+  /**
+   * @param bank the {@link SoundFontPreset#getBank() bank}.
+   * @param program the {@link SoundFontPreset#getProgram() program}.
+   * @return the according {@link SoundFontPreset} or {@code null} if not present.
+   */
+  public SoundFontPreset getPreset(int bank, int program) {
+
+    for (SoundFontPreset preset : getPresets()) {
+      if ((preset.getBank() == bank) && (preset.getProgram() == program)) {
+        return preset;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param bagStart the index of the first preset bag.
+   * @param bagEnd the index after the last preset bag.
+   * @return the zones of the preset.
+   */
+  Zone[] getPresetZones(int bagStart, int bagEnd) {
+
+    return parseZones(this.pbag, this.pgen, bagStart, bagEnd, GEN_INSTRUMENT);
+  }
+
+  /**
+   * @param instrument the index of the instrument.
+   * @return the zones of the instrument or {@code null} if the index is invalid.
+   */
+  Zone[] getInstrumentZones(int instrument) {
+
+    if ((instrument < 0) || (instrument >= this.instruments.length())) {
+      return null;
+    }
+    Zone[] zones = this.instruments.get(instrument);
+    if (zones == null) {
+      int offset = this.inst + instrument * INST_SIZE + NAME_SIZE;
+      int bagStart = this.data.getShort(offset) & 0xFFFF;
+      int bagEnd = this.data.getShort(offset + INST_SIZE) & 0xFFFF;
+      zones = parseZones(this.ibag, this.igen, bagStart, bagEnd, GEN_SAMPLE);
+      this.instruments.set(instrument, zones);
+    }
+    return zones;
+  }
+
+  private Zone[] parseZones(int bags, int generators, int bagStart, int bagEnd, int link) {
+
+    List<Zone> zones = new ArrayList<>(bagEnd - bagStart);
+    Zone global = null;
+    for (int bag = bagStart; bag < bagEnd; bag++) {
+      int genStart = this.data.getShort(bags + bag * BAG_SIZE) & 0xFFFF;
+      int genEnd = this.data.getShort(bags + (bag + 1) * BAG_SIZE) & 0xFFFF;
+      Zone zone = new Zone(global);
+      for (int gen = genStart; gen < genEnd; gen++) {
+        int offset = generators + gen * GEN_SIZE;
+        zone.set(this.data.getShort(offset) & 0xFFFF, this.data.getShort(offset + 2));
+      }
+      if (zone.isSet(link)) {
+        zones.add(zone);
+      } else if ((bag == bagStart) && (global == null)) {
+        global = zone;
+      }
+    }
+    return zones.toArray(new Zone[zones.size()]);
+  }
+
+  /**
+   * @return the number of samples in this {@link SoundFont}.
+   */
+  int getSampleCount() {
+
+    return this.sampleCount;
+  }
+
+  /**
+   * @param sample the index of the sample.
+   * @param field the offset of the field in the sample header.
+   * @return the value of the 32 bit field.
+   */
+  int getSampleHeader(int sample, int field) {
+
+    return this.data.getInt(this.shdr + sample * SHDR_SIZE + field);
+  }
+
+  /**
+   * @param sample the index of the sample.
+   * @param field the offset of the byte field in the sample header.
+   * @return the value of the 8 bit field.
+   */
+  byte getSampleHeaderByte(int sample, int field) {
+
+    return this.data.get(this.shdr + sample * SHDR_SIZE + field);
+  }
+
+  /**
+   * @return the mapped sample data of the {@code smpl} chunk as 16 bit samples.
+   */
+  ShortBuffer getSamples() {
+
+    return this.samples;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.name;
+  }
+
+  /**
+   * A zone of a preset or instrument with its generators including the defaults of the global zone.
+   */
+  static final class Zone {
+
+    private final short[] values;
+
+    private long set;
+
+    private Zone(Zone global) {
+
+      super();
+      if (global == null) {
+        this.values = new short[64];
+      } else {
+        this.values = global.values.clone();
+        this.set = global.set;
+      }
+    }
+
+    private void set(int generator, short value) {
+
+      if (generator < 64) {
+        this.values[generator] = value;
+        this.set = this.set | (1L << generator);
+      }
+    }
+
+    /**
+     * @param generator the generator.
+     * @return {@code true} if the generator is set explicitly or by the global zone.
+     */
+    boolean isSet(int generator) {
+
+      return (this.set & (1L << generator)) != 0;
+    }
+
+    /**
+     * @param generator the generator.
+     * @return the value of the generator or {@code 0} if not {@link #isSet(int) set}.
+     */
+    int get(int generator) {
+
+      return this.values[generator];
+    }
+
+    /**
+     * @param key the MIDI key number.
+     * @param velocity the MIDI velocity.
+     * @return {@code true} if this zone applies to the given key and velocity.
+     */
+    boolean contains(int key, int velocity) {
+
+      return isInRange(GEN_KEY_RANGE, key) && isInRange(GEN_VELOCITY_RANGE, velocity);
+    }
+
+    private boolean isInRange(int generator, int value) {
+
+      if (!isSet(generator)) {
+        return true;
+      }
+      int range = this.values[generator];
+      return (value >= (range & 0xFF)) && (value <= ((range >> 8) & 0xFF));
+    }
+  }
+
+}
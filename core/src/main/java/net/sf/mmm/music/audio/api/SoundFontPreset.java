@@ -0,0 +1,136 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.audio.api.SoundFont.Zone;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * A preset (a playable sound like "Acoustic Grand Piano") of a {@link SoundFont}. Its zones are parsed lazily on the
+ * first {@link #getZone(int, int) lookup}.
+ *
+ * This class is thread-safe.
+ *
+ * @author hohwille
+ */
+public final class SoundFontPreset {
+
+  /** The MIDI key number of middle C ({@link Tone} {@code C0}). */
+  public static final int MIDDLE_C_KEY = 60;
+
+  /** The default MIDI velocity. */
+  public static final int DEFAULT_VELOCITY = 100;
+
+  private final SoundFont soundFont;
+
+  private final String name;
+
+  private final int bank;
+
+  private final int program;
+
+  private final int bagStart;
+
+  private final int bagEnd;
+
+  private volatile Zone[] zones;
+
+  /**
+   * The constructor.
+   *
+   * @param soundFont - see {@link #getSoundFont()}.
+   * @param name - see {@link #getName()}.
+   * @param bank - see {@link #getBank()}.
+   * @param program - see {@link #getProgram()}.
+   * @param bagStart the index of the first preset bag.
+   * @param bagEnd the index after the last preset bag.
+   */
+  SoundFontPreset(SoundFont soundFont, String name, int bank, int program, int bagStart, int bagEnd) {
+
+    super();
+    this.soundFont = soundFont;
+    this.name = name;
+    this.bank = bank;
+    this.program = program;
+    this.bagStart = bagStart;
+    this.bagEnd = bagEnd;
+  }
+
+  /**
+   * @return the {@link SoundFont} owning this preset.
+   */
+  public SoundFont getSoundFont() {
+
+    return this.soundFont;
+  }
+
+  /**
+   * @return the name of this preset.
+   */
+  public String getName() {
+
+    return this.name;
+  }
+
+  /**
+   * @return the MIDI bank number.
+   */
+  public int getBank() {
+
+    return this.bank;
+  }
+
+  /**
+   * @return the MIDI program number.
+   */
+  public int getProgram() {
+
+    return this.program;
+  }
+
+  /**
+   * @param tone the {@link Tone} to play.
+   * @return the {@link SoundFontZone} to play the given {@link Tone} with the {@link #DEFAULT_VELOCITY} or
+   *         {@code null} if this preset has no sample for it.
+   */
+  public SoundFontZone getZone(Tone tone) {
+
+    return getZone(PackedTone.getChromaticNumber(tone) + MIDDLE_C_KEY, DEFAULT_VELOCITY);
+  }
+
+  /**
+   * @param key the MIDI key number.
+   * @param velocity the MIDI velocity.
+   * @return the {@link SoundFontZone} to play the given key or {@code null} if this preset has no sample for it.
+   */
+  public SoundFontZone getZone(int key, int velocity) {
+
+    Zone[] presetZones = this.zones;
+    if (presetZones == null) {
+      presetZones = this.soundFont.getPresetZones(this.bagStart, this.bagEnd);
+      this.zones = presetZones;
+    }
+    for (Zone presetZone : presetZones) {
+      if (presetZone.contains(key, velocity)) {
+        Zone[] instrumentZones = this.soundFont.getInstrumentZones(presetZone.get(SoundFont.GEN_INSTRUMENT) & 0xFFFF);
+        if (instrumentZones != null) {
+          for (Zone instrumentZone : instrumentZones) {
+            int sample = instrumentZone.get(SoundFont.GEN_SAMPLE) & 0xFFFF;
+            if (instrumentZone.contains(key, velocity) && (sample < this.soundFont.getSampleCount())) {
+              return new SoundFontZone(this.soundFont, presetZone, instrumentZone);
+            }
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.bank + ":" + this.program + " " + this.name;
+  }
+
+}
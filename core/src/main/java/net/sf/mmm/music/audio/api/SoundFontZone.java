@@ -0,0 +1,184 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.nio.ShortBuffer;
+
+import net.sf.mmm.music.audio.api.SoundFont.Zone;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+
+/**
+ * The resolved sample region of a {@link SoundFontPreset} to play a specific key. All offsets are indexes of 16 bit
+ * samples in the mapped sample data of the {@link SoundFont} so the sample is played directly from the mapped region.
+ *
+ * @author hohwille
+ */
+public final class SoundFontZone {
+
+  private static final double CENTS_PER_OCTAVE = 1200;
+
+  private final ShortBuffer samples;
+
+  private final int start;
+
+  private final int end;
+
+  private final int loopStart;
+
+  private final int loopEnd;
+
+  private final boolean looping;
+
+  private final int sampleRate;
+
+  private final int rootKey;
+
+  private final int tuning;
+
+  private final int attenuation;
+
+  private final double rootFrequency;
+
+  /**
+   * The constructor.
+   *
+   * @param soundFont the {@link SoundFont}.
+   * @param presetZone the zone of the preset.
+   * @param zone the zone of the instrument.
+   */
+  SoundFontZone(SoundFont soundFont, Zone presetZone, Zone zone) {
+
+    super();
+    this.samples = soundFont.getSamples();
+    int sample = zone.get(SoundFont.GEN_SAMPLE) & 0xFFFF;
+    int size = this.samples.limit();
+    this.start = clamp(soundFont.getSampleHeader(sample, 20) + zone.get(SoundFont.GEN_START_OFFSET)
+        + 32768 * zone.get(SoundFont.GEN_START_COARSE_OFFSET), 0, size);
+    this.end = clamp(soundFont.getSampleHeader(sample, 24) + zone.get(SoundFont.GEN_END_OFFSET)
+        + 32768 * zone.get(SoundFont.GEN_END_COARSE_OFFSET), this.start, size);
+    this.loopStart = clamp(soundFont.getSampleHeader(sample, 28) + zone.get(SoundFont.GEN_LOOP_START_OFFSET)
+        + 32768 * zone.get(SoundFont.GEN_LOOP_START_COARSE_OFFSET), this.start, this.end);
+    this.loopEnd = clamp(soundFont.getSampleHeader(sample, 32) + zone.get(SoundFont.GEN_LOOP_END_OFFSET)
+        + 32768 * zone.get(SoundFont.GEN_LOOP_END_COARSE_OFFSET), this.loopStart, this.end);
+    // sample modes 1 and 3 loop, 0 and 2 play the sample once
+    this.looping = ((zone.get(SoundFont.GEN_SAMPLE_MODES) & 1) != 0) && (this.loopEnd > this.loopStart);
+    this.sampleRate = soundFont.getSampleHeader(sample, 36);
+    int key = zone.get(SoundFont.GEN_ROOT_KEY);
+    if (!zone.isSet(SoundFont.GEN_ROOT_KEY) || (key < 0) || (key > 127)) {
+      key = soundFont.getSampleHeaderByte(sample, 40) & 0xFF;
+      if (key > 127) {
+        key = SoundFontPreset.MIDDLE_C_KEY;
+      }
+    }
+    this.rootKey = key;
+    this.tuning = (zone.get(SoundFont.GEN_COARSE_TUNE) + presetZone.get(SoundFont.GEN_COARSE_TUNE)) * 100
+        + zone.get(SoundFont.GEN_FINE_TUNE) + presetZone.get(SoundFont.GEN_FINE_TUNE)
+        + soundFont.getSampleHeaderByte(sample, 41);
+    this.attenuation = Math.max(0, zone.get(SoundFont.GEN_ATTENUATION) + presetZone.get(SoundFont.GEN_ATTENUATION));
+    this.rootFrequency = FrequencyTable.STANDARD.getChromaticFrequency(key - SoundFontPreset.MIDDLE_C_KEY)
+        * Math.pow(2, -this.tuning / CENTS_PER_OCTAVE);
+  }
+
+  private static int clamp(int value, int min, int max) {
+
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * @return the mapped 16 bit sample data.
+   */
+  ShortBuffer getSamples() {
+
+    return this.samples;
+  }
+
+  /**
+   * @return the index of the first sample.
+   */
+  public int getStart() {
+
+    return this.start;
+  }
+
+  /**
+   * @return the index after the last sample.
+   */
+  public int getEnd() {
+
+    return this.end;
+  }
+
+  /**
+   * @return the index of the first sample of the loop.
+   */
+  public int getLoopStart() {
+
+    return this.loopStart;
+  }
+
+  /**
+   * @return the index after the last sample of the loop.
+   */
+  public int getLoopEnd() {
+
+    return this.loopEnd;
+  }
+
+  /**
+   * @return {@code true} if the loop is repeated while the tone is sounding, {@code false} if the sample is played
+   *         once.
+   */
+  public boolean isLooping() {
+
+    return this.looping;
+  }
+
+  /**
+   * @return the sample rate of the sample in Hertz.
+   */
+  public int getSampleRate() {
+
+    return this.sampleRate;
+  }
+
+  /**
+   * @return the MIDI key number that sounds at the original pitch of the sample.
+   */
+  public int getRootKey() {
+
+    return this.rootKey;
+  }
+
+  /**
+   * @return the tuning in cents (1/100 of a semitone) added to the pitch.
+   */
+  public int getTuning() {
+
+    return this.tuning;
+  }
+
+  /**
+   * @return the attenuation in centibel.
+   */
+  public int getAttenuation() {
+
+    return this.attenuation;
+  }
+
+  /**
+   * @return the frequency in Hertz that is played by the sample at its original {@link #getSampleRate() sample rate}
+   *         including the {@link #getTuning() tuning}. A tone is played by resampling with the ratio of its frequency
+   *         to this frequency.
+   */
+  public double getRootFrequency() {
+
+    return this.rootFrequency;
+  }
+
+  @Override
+  public String toString() {
+
+    return "[" + this.start + "," + this.end + ")@" + this.sampleRate + "Hz root " + this.rootKey;
+  }
+
+}
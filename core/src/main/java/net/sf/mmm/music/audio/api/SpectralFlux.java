@@ -0,0 +1,101 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * Computes the spectral flux (the sum of the increases of the logarithmically compressed magnitudes of all frequency
+ * bins) of consecutive frames as onset detection function. The spectra are computed via {@link Fft} of Hann windowed
+ * frames where two real frames are packed into a single complex transformation. All buffers are allocated once so
+ * {@link #compute(float[], int, int, double[])} never allocates.
+ *
+ * This class is not thread-safe. Use one instance per thread.
+ *
+ * @author hohwille
+ */
+final class SpectralFlux {
+
+  /** The factor applied to the magnitudes before the logarithmic compression. */
+  private static final double COMPRESSION = 100;
+
+  private final int windowSize;
+
+  private final Fft fft;
+
+  private final double[] window;
+
+  private final double scale;
+
+  private final double[] real;
+
+  private final double[] imaginary;
+
+  private final double[] previous;
+
+  /**
+   * The constructor.
+   *
+   * @param windowSize - see {@link #getWindowSize()}.
+   */
+  SpectralFlux(int windowSize) {
+
+    super();
+    this.windowSize = windowSize;
+    this.fft = new Fft(windowSize);
+    this.window = new double[windowSize];
+    for (int i = 0; i < windowSize; i++) {
+      this.window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / windowSize);
+    }
+    // the separated spectra are doubled and the peak of a full scale sine is a quarter of the window size
+    this.scale = COMPRESSION * 2.0 / windowSize;
+    this.real = new double[windowSize];
+    this.imaginary = new double[windowSize];
+    this.previous = new double[windowSize / 2];
+  }
+
+  /**
+   * @return the number of samples per frame. Always a power of two.
+   */
+  int getWindowSize() {
+
+    return this.windowSize;
+  }
+
+  /**
+   * Computes the spectral flux of two consecutive frames at once. The first frame is compared with the second frame
+   * of the previous invocation (or silence).
+   *
+   * @param samples the samples.
+   * @param first the index of the first sample of the first frame.
+   * @param second the index of the first sample of the second frame.
+   * @param flux the array to store the flux of the first and second frame.
+   */
+  void compute(float[] samples, int first, int second, double[] flux) {
+
+    int size = this.windowSize;
+    double[] re = this.real;
+    double[] im = this.imaginary;
+    for (int i = 0; i < size; i++) {
+      re[i] = samples[first + i] * this.window[i];
+      im[i] = samples[second + i] * this.window[i];
+    }
+    this.fft.transform(re, im);
+    double firstFlux = 0;
+    double secondFlux = 0;
+    for (int k = 1; k < size / 2; k++) {
+      int m = size - k;
+      // separate the spectra of both real frames
+      double xr = re[k] + re[m];
+      double xi = im[k] - im[m];
+      double yr = im[k] + im[m];
+      double yi = re[m] - re[k];
+      double x = Math.log1p(Math.sqrt(xr * xr + xi * xi) * this.scale);
+      double y = Math.log1p(Math.sqrt(yr * yr + yi * yi) * this.scale);
+      firstFlux = firstFlux + Math.max(0, x - this.previous[k]);
+      secondFlux = secondFlux + Math.max(0, y - x);
+      this.previous[k] = y;
+    }
+    flux[0] = firstFlux;
+    flux[1] = secondFlux;
+  }
+
+}
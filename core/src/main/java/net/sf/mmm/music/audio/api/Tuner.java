@@ -0,0 +1,226 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.mmm.music.datatype.api.EnharmonicStyle;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * A real-time tuner. The capture callback of an audio device (or any other source like a file or generator)
+ * {@link #write(float[], int, int) writes} mono samples into a lock-free {@link SampleRingBuffer}. A detector thread
+ * ({@link #start() started} on demand) pulls the samples into a sliding window and every {@link #getHopSize() hop}
+ * estimates the pitch of the most recent {@link #getWindowSize() window} with a {@link PitchDetector}. The result is
+ * reported to the {@link TunerListener} as the nearest {@link Tone} and the deviation in cents according to the
+ * {@link FrequencyTable}. If the detector falls behind, old samples are skipped so the latency never grows.<br>
+ * Neither the producer nor the detector allocate any objects or take any locks after construction: the
+ * {@link Tone}s of the MIDI range are cached and all buffers are reused.
+ *
+ * <pre>
+ * try (Tuner tuner = new Tuner(44100, (frequency, tone, cents) -&gt; display(tone, cents))) {
+ *   tuner.start();
+ *   // in the capture callback
+ *   tuner.write(samples, 0, length);
+ * }
+ * </pre>
+ *
+ * @author hohwille
+ */
+public class Tuner implements AutoCloseable {
+
+  /** The cached {@link Tone}s indexed by {@link PackedTone#getChromaticNumber(Tone) chromatic number} plus 60. */
+  private static final Tone[] TONES = new Tone[128];
+
+  static {
+    int c = PackedTone.pack(TonePitch.C, 0);
+    for (int i = 0; i < TONES.length; i++) {
+      TONES[i] = PackedTone.toTone(PackedTone.transposeChromatic(c, i - 60, EnharmonicStyle.NORMAL));
+    }
+  }
+
+  private final int sampleRate;
+
+  private final FrequencyTable frequencyTable;
+
+  private final TunerListener listener;
+
+  private final PitchDetector detector;
+
+  private final SampleRingBuffer ringBuffer;
+
+  private final float[] window;
+
+  private final int hopSize;
+
+  private final long pollNanos;
+
+  private int filled;
+
+  private int fresh;
+
+  private volatile boolean running;
+
+  private Thread thread;
+
+  /**
+   * The constructor using the {@link FrequencyTable#STANDARD standard tuning}.
+   *
+   * @param sampleRate - see {@link #getSampleRate()}.
+   * @param listener the {@link TunerListener} to notify about every reading.
+   */
+  public Tuner(int sampleRate, TunerListener listener) {
+
+    this(sampleRate, FrequencyTable.STANDARD, listener);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param sampleRate - see {@link #getSampleRate()}.
+   * @param frequencyTable the {@link FrequencyTable} with the reference pitch and temperament.
+   * @param listener the {@link TunerListener} to notify about every reading.
+   */
+  public Tuner(int sampleRate, FrequencyTable frequencyTable, TunerListener listener) {
+
+    super();
+    this.sampleRate = sampleRate;
+    this.frequencyTable = frequencyTable;
+    this.listener = listener;
+    int windowSize = PitchDetector.getWindowSize(sampleRate);
+    this.detector = new PitchDetector(sampleRate, windowSize);
+    this.ringBuffer = new SampleRingBuffer(4 * windowSize);
+    this.window = new float[windowSize];
+    this.hopSize = windowSize / 8;
+    this.pollNanos = 250_000_000L * this.hopSize / sampleRate;
+  }
+
+  /**
+   * @return the {@link PcmFormat#getSampleRate() sample rate} of the {@link #write(float[], int, int) written}
+   *         samples.
+   */
+  public int getSampleRate() {
+
+    return this.sampleRate;
+  }
+
+  /**
+   * @return the {@link FrequencyTable} used to find the nearest {@link Tone}.
+   */
+  public FrequencyTable getFrequencyTable() {
+
+    return this.frequencyTable;
+  }
+
+  /**
+   * @return the number of most recent samples analyzed per reading (about 25 to 50 milliseconds).
+   */
+  public int getWindowSize() {
+
+    return this.window.length;
+  }
+
+  /**
+   * @return the number of new samples after which the next reading is reported (about 3 to 6 milliseconds).
+   */
+  public int getHopSize() {
+
+    return this.hopSize;
+  }
+
+  /**
+   * Adds captured samples. May only be called by a single producer thread (e.g. the capture callback). It never
+   * blocks or allocates.
+   *
+   * @param samples the mono samples in the range from {@code -1} to {@code 1}.
+   * @param offset the index in the array of the first sample to add.
+   * @param length the number of samples to add.
+   * @return the number of samples actually added. Less than {@code length} if the detector is too slow and the
+   *         {@link SampleRingBuffer} is full.
+   */
+  public int write(float[] samples, int offset, int length) {
+
+    return this.ringBuffer.write(samples, offset, length);
+  }
+
+  /**
+   * Pulls the {@link #write(float[], int, int) written} samples and reports a reading to the {@link TunerListener} if
+   * at least a {@link #getHopSize() hop} of new samples is available. This is called by the detector thread after
+   * {@link #start()} but can also be called directly by a single consumer thread instead (e.g. for testing).
+   *
+   * @return {@code true} if a reading was reported, {@code false} otherwise.
+   */
+  public boolean process() {
+
+    int windowSize = this.window.length;
+    int available = this.ringBuffer.available();
+    if (available <= 0) {
+      return false;
+    }
+    if (available > windowSize) {
+      // only the most recent samples matter for the current pitch
+      this.ringBuffer.skip(available - windowSize);
+      available = windowSize;
+    }
+    System.arraycopy(this.window, available, this.window, 0, windowSize - available);
+    this.ringBuffer.read(this.window, windowSize - available, available);
+    this.filled = Math.min(windowSize, this.filled + available);
+    this.fresh = this.fresh + available;
+    if ((this.fresh < this.hopSize) || (this.filled < windowSize)) {
+      return false;
+    }
+    this.fresh = 0;
+    double frequency = this.detector.detect(this.window, 0);
+    if (frequency > 0) {
+      int number = this.frequencyTable.getNearestChromaticNumber(frequency);
+      this.listener.onPitch(frequency, TONES[number + 60], this.frequencyTable.getCents(frequency));
+    } else {
+      this.listener.onPitch(0, null, 0);
+    }
+    return true;
+  }
+
+  /**
+   * Starts the detector thread that {@link #process() processes} the samples until {@link #close() closed}.
+   */
+  public synchronized void start() {
+
+    if (this.thread != null) {
+      throw new IllegalStateException("Already started");
+    }
+    this.running = true;
+    this.thread = new Thread(this::run, "Tuner");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  private void run() {
+
+    while (this.running) {
+      if (!process()) {
+        LockSupport.parkNanos(this.pollNanos);
+      }
+    }
+  }
+
+  /**
+   * Stops the detector thread if {@link #start() started} and waits until it has terminated.
+   */
+  @Override
+  public synchronized void close() {
+
+    this.running = false;
+    if (this.thread != null) {
+      try {
+        this.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.thread = null;
+    }
+  }
+
+}
@@ -0,0 +1,24 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * The callback to receive the readings of a {@link Tuner}. It is invoked from the detector thread and should return
+ * quickly without blocking.
+ *
+ * @author hohwille
+ */
+public interface TunerListener {
+
+  /**
+   * @param frequency the detected frequency in Hertz or {@code 0} if there is no clear pitch (e.g. silence).
+   * @param tone the nearest {@link Tone} (see {@link Tone#getPitch()} for the
+   *        {@link net.sf.mmm.music.datatype.api.TonePitch}) or {@code null} if there is no clear pitch.
+   * @param cents the deviation of the frequency from the {@link Tone} in cents (1/100 of a semitone) in the range from
+   *        {@code -50} to {@code 50}. Positive if the frequency is too high.
+   */
+  void onPitch(double frequency, Tone tone, double cents);
+
+}
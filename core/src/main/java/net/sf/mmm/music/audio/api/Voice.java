@@ -0,0 +1,150 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * A single {@link Voice} of a synthesizer playing one tone at a time with an {@link Envelope}. The sound source is
+ * implemented by sub-classes (e.g. {@link WavetableVoice} or {@link SampleVoice}). A {@link Voice} is reused for many
+ * tones and {@link #render(float[], int, int) renders} into a block by adding its samples, so it never allocates.
+ *
+ * @author hohwille
+ */
+abstract class Voice {
+
+  private final float gain;
+
+  private final int attack;
+
+  private final int decay;
+
+  private final float sustain;
+
+  private final int release;
+
+  private final float attackStep;
+
+  private final float decayStep;
+
+  private final double sampleRate;
+
+  private int position;
+
+  private int gate;
+
+  private float level;
+
+  private float releaseStep;
+
+  private boolean active;
+
+  /**
+   * The constructor.
+   *
+   * @param envelope the {@link Envelope}.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @param gain the peak amplitude.
+   */
+  Voice(Envelope envelope, int sampleRate, float gain) {
+
+    super();
+    this.gain = gain;
+    this.sampleRate = sampleRate;
+    this.attack = Math.max(1, (int) (envelope.getAttack() * sampleRate));
+    this.decay = Math.max(1, (int) (envelope.getDecay() * sampleRate));
+    this.sustain = (float) envelope.getSustain();
+    this.release = Math.max(1, (int) (envelope.getRelease() * sampleRate));
+    this.attackStep = 1f / this.attack;
+    this.decayStep = (1f - this.sustain) / this.decay;
+  }
+
+  /**
+   * @return the {@link PcmFormat#getSampleRate() sample rate} of the output.
+   */
+  double getSampleRate() {
+
+    return this.sampleRate;
+  }
+
+  /**
+   * @param tone the {@link Tone} to play.
+   * @param frequency the frequency of the tone in Hertz.
+   * @param gateLength the number of samples until the tone is released.
+   */
+  void start(Tone tone, double frequency, int gateLength) {
+
+    this.position = 0;
+    this.gate = gateLength;
+    this.level = 0;
+    this.active = startSound(tone, frequency);
+  }
+
+  /**
+   * Resets the sound source for the next tone.
+   *
+   * @param tone the {@link Tone} to play.
+   * @param frequency the frequency of the tone in Hertz.
+   * @return {@code true} if the tone can be played, {@code false} if this {@link Voice} stays silent.
+   */
+  abstract boolean startSound(Tone tone, double frequency);
+
+  /**
+   * @return the next sample of the sound source in the range from {@code -1} to {@code 1}.
+   */
+  abstract float nextSample();
+
+  /**
+   * @return {@code true} if this {@link Voice} is still sounding, {@code false} if it is free for the next tone.
+   */
+  boolean isActive() {
+
+    return this.active;
+  }
+
+  /**
+   * @return the number of samples this {@link Voice} is still sounding including the release.
+   */
+  int getRemaining() {
+
+    if (!this.active) {
+      return 0;
+    }
+    return Math.max(0, this.gate - this.position) + this.release;
+  }
+
+  /**
+   * Adds the samples of this {@link Voice} to the given block.
+   *
+   * @param block the block to render into.
+   * @param start the index of the first sample to render.
+   * @param end the index after the last sample to render.
+   */
+  void render(float[] block, int start, int end) {
+
+    if (!this.active) {
+      return;
+    }
+    for (int i = start; i < end; i++) {
+      if (this.position < this.gate) {
+        if (this.position < this.attack) {
+          this.level = this.level + this.attackStep;
+        } else if (this.position < this.attack + this.decay) {
+          this.level = this.level - this.decayStep;
+        }
+      } else {
+        if (this.position == this.gate) {
+          this.releaseStep = this.level / this.release;
+        }
+        this.level = this.level - this.releaseStep;
+        if ((this.level <= 0) || (this.position >= this.gate + this.release)) {
+          this.active = false;
+          return;
+        }
+      }
+      block[i] = block[i] + nextSample() * this.level * this.gain;
+      this.position++;
+    }
+  }
+
+}
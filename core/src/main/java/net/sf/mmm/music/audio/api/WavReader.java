@@ -0,0 +1,222 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads PCM audio from a WAV file as mono {@code float} samples. The samples are streamed through a reused direct
+ * {@link ByteBuffer} so only a small fixed amount of memory is used regardless of the size of the file. Files with
+ * multiple channels (e.g. stereo) are mixed down to mono. Only uncompressed PCM with 16 or 24 bit is supported.
+ *
+ * <pre>
+ * try (WavReader reader = new WavReader(file)) {
+ *   float[] samples = new float[4096];
+ *   int length;
+ *   while ((length = reader.read(samples, 0, samples.length)) > 0) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @see WavWriter
+ *
+ * @author hohwille
+ */
+public class WavReader implements AutoCloseable {
+
+  private static final int BUFFER_FRAMES = 8192;
+
+  private static final float SCALE_16 = 1f / 32768;
+
+  private static final float SCALE_24 = 1f / 0x800000;
+
+  private final FileChannel channel;
+
+  private final PcmFormat format;
+
+  private final int channels;
+
+  private final long dataOffset;
+
+  private final long sampleCount;
+
+  private final ByteBuffer buffer;
+
+  private long position;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} of the WAV file to read.
+   * @throws IOException if the file could not be opened or has an unsupported format.
+   */
+  public WavReader(Path file) throws IOException {
+
+    super();
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(header, 0);
+      if ((header.getInt(0) != 0x46464952) || (header.getInt(8) != 0x45564157)) {
+        throw new IOException("Not a WAV file: " + file);
+      }
+      PcmFormat pcm = null;
+      int channelCount = 0;
+      long dataStart;
+      long count;
+      long offset = 12;
+      long size = this.channel.size();
+      ByteBuffer chunk = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+      while (true) {
+        if (offset + 8 > size) {
+          throw new IOException("No data in WAV file: " + file);
+        }
+        chunk.clear().limit(8);
+        readFully(chunk, offset);
+        int id = chunk.getInt(0);
+        long chunkSize = chunk.getInt(4) & 0xFFFFFFFFL;
+        if (id == 0x20746D66) {
+          // fmt
+          chunk.clear().limit(16);
+          readFully(chunk, offset + 8);
+          int tag = chunk.getShort(0) & 0xFFFF;
+          channelCount = chunk.getShort(2);
+          int bits = chunk.getShort(14);
+          // 1 is PCM, 0xFFFE is the extensible format (assuming PCM)
+          if (((tag != 1) && (tag != 0xFFFE)) || (channelCount < 1) || ((bits != 16) && (bits != 24))) {
+            throw new IOException("Unsupported WAV format " + tag + "/" + channelCount + "/" + bits + ": " + file);
+          }
+          pcm = new PcmFormat(chunk.getInt(4), bits);
+        } else if (id == 0x61746164) {
+          // data
+          if (pcm == null) {
+            throw new IOException("Missing format in WAV file: " + file);
+          }
+          dataStart = offset + 8;
+          long frameSize = (long) channelCount * pcm.getBytesPerSample();
+          count = Math.min(chunkSize, size - dataStart) / frameSize;
+          break;
+        }
+        offset = offset + 8 + chunkSize + (chunkSize & 1);
+      }
+      this.format = pcm;
+      this.channels = channelCount;
+      this.dataOffset = dataStart;
+      this.sampleCount = count;
+      this.buffer = ByteBuffer.allocateDirect(BUFFER_FRAMES * channelCount * pcm.getBytesPerSample())
+          .order(ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  private void readFully(ByteBuffer target, long offset) throws IOException {
+
+    long current = offset;
+    while (target.hasRemaining()) {
+      int count = this.channel.read(target, current);
+      if (count < 0) {
+        throw new IOException("Unexpected end of WAV file");
+      }
+      current = current + count;
+    }
+  }
+
+  /**
+   * @return the {@link PcmFormat} of a single channel.
+   */
+  public PcmFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the number of channels in the file (e.g. {@code 2} for stereo). They are mixed down to mono when
+   *         {@link #read(float[], int, int) read}.
+   */
+  public int getChannels() {
+
+    return this.channels;
+  }
+
+  /**
+   * @return the total number of (mono) samples.
+   */
+  public long getSampleCount() {
+
+    return this.sampleCount;
+  }
+
+  /**
+   * @return the index of the next sample to {@link #read(float[], int, int) read}.
+   */
+  public long getPosition() {
+
+    return this.position;
+  }
+
+  /**
+   * @param samplePosition the index of the next sample to {@link #read(float[], int, int) read}.
+   */
+  public void seek(long samplePosition) {
+
+    if ((samplePosition < 0) || (samplePosition > this.sampleCount)) {
+      throw new IllegalArgumentException(Long.toString(samplePosition));
+    }
+    this.position = samplePosition;
+  }
+
+  /**
+   * @param samples the array to read the samples into. Values are in the range from {@code -1} to {@code 1}.
+   * @param offset the index in the array of the first sample to read.
+   * @param length the maximum number of samples to read.
+   * @return the number of samples actually read. Will be less than {@code length} only at the end of the file and
+   *         {@code -1} if the end of the file has already been reached.
+   * @throws IOException if reading failed.
+   */
+  public int read(float[] samples, int offset, int length) throws IOException {
+
+    int remaining = (int) Math.min(length, this.sampleCount - this.position);
+    if (remaining <= 0) {
+      return (length == 0) ? 0 : -1;
+    }
+    int bytesPerSample = this.format.getBytesPerSample();
+    int frameSize = this.channels * bytesPerSample;
+    float scale = ((bytesPerSample == 2) ? SCALE_16 : SCALE_24) / this.channels;
+    int index = offset;
+    int end = offset + remaining;
+    while (index < end) {
+      int frames = Math.min(BUFFER_FRAMES, end - index);
+      this.buffer.clear().limit(frames * frameSize);
+      readFully(this.buffer, this.dataOffset + this.position * frameSize);
+      this.buffer.flip();
+      for (int i = 0; i < frames; i++) {
+        int sum = 0;
+        for (int c = 0; c < this.channels; c++) {
+          if (bytesPerSample == 2) {
+            sum = sum + this.buffer.getShort();
+          } else {
+            sum = sum + ((this.buffer.get() & 0xFF) | ((this.buffer.get() & 0xFF) << 8) | (this.buffer.get() << 16));
+          }
+        }
+        samples[index++] = sum * scale;
+      }
+      this.position = this.position + frames;
+    }
+    return remaining;
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    this.channel.close();
+  }
+
+}
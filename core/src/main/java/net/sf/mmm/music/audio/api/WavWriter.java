@@ -0,0 +1,167 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes mono PCM audio as WAV file. The samples are {@link #write(float[], int, int) written} in blocks of
+ * {@code float} values that are converted into a reused direct {@link ByteBuffer} and written to a
+ * {@link FileChannel}. The sizes in the WAV header are filled in when the {@link WavWriter} is {@link #close()
+ * closed}.
+ *
+ * <pre>
+ * try (WavWriter writer = new WavWriter(file, PcmFormat.CD)) {
+ *   writer.write(samples, 0, samples.length);
+ * }
+ * </pre>
+ *
+ * @author hohwille
+ */
+public class WavWriter implements AutoCloseable {
+
+  /** The size of the WAV header in bytes. */
+  public static final int HEADER_SIZE = 44;
+
+  private static final int BUFFER_SAMPLES = 8192;
+
+  private static final long MAX_DATA_SIZE = 0xFFFFFFFFL - HEADER_SIZE;
+
+  private final FileChannel channel;
+
+  private final PcmFormat format;
+
+  private final ByteBuffer buffer;
+
+  private long sampleCount;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} of the WAV file to create or overwrite.
+   * @param format the {@link PcmFormat}.
+   * @throws IOException if the file could not be opened.
+   */
+  public WavWriter(Path file, PcmFormat format) throws IOException {
+
+    super();
+    this.format = format;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_SAMPLES * format.getBytesPerSample())
+        .order(ByteOrder.LITTLE_ENDIAN);
+    writeHeader();
+    this.channel.position(HEADER_SIZE);
+  }
+
+  /**
+   * @return the {@link PcmFormat}.
+   */
+  public PcmFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the number of samples written so far.
+   */
+  public long getSampleCount() {
+
+    return this.sampleCount;
+  }
+
+  /**
+   * @param samples the samples in the range from {@code -1} to {@code 1}. Values beyond are clipped.
+   * @param offset the index of the first sample to write.
+   * @param length the number of samples to write.
+   * @throws IOException if writing failed.
+   */
+  public void write(float[] samples, int offset, int length) throws IOException {
+
+    int bytesPerSample = this.format.getBytesPerSample();
+    if ((this.sampleCount + length) * bytesPerSample > MAX_DATA_SIZE) {
+      throw new IOException("WAV file exceeds 4GB");
+    }
+    int end = offset + length;
+    int start = offset;
+    while (start < end) {
+      int blockEnd = Math.min(end, start + BUFFER_SAMPLES);
+      this.buffer.clear();
+      if (bytesPerSample == 2) {
+        for (int i = start; i < blockEnd; i++) {
+          this.buffer.putShort((short) (clip(samples[i]) * Short.MAX_VALUE));
+        }
+      } else {
+        for (int i = start; i < blockEnd; i++) {
+          int value = (int) (clip(samples[i]) * 0x7FFFFF);
+          this.buffer.put((byte) value);
+          this.buffer.put((byte) (value >> 8));
+          this.buffer.put((byte) (value >> 16));
+        }
+      }
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      }
+      start = blockEnd;
+    }
+    this.sampleCount = this.sampleCount + length;
+  }
+
+  private static float clip(float sample) {
+
+    if (sample > 1) {
+      return 1;
+    } else if (sample < -1) {
+      return -1;
+    }
+    return sample;
+  }
+
+  private void writeHeader() throws IOException {
+
+    int dataSize = (int) (this.sampleCount * this.format.getBytesPerSample());
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+    header.putInt(HEADER_SIZE - 8 + dataSize);
+    header.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+    header.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+    header.putInt(16);
+    // PCM
+    header.putShort((short) 1);
+    // mono
+    header.putShort((short) 1);
+    header.putInt(this.format.getSampleRate());
+    header.putInt(this.format.getByteRate());
+    header.putShort((short) this.format.getBytesPerSample());
+    header.putShort((short) this.format.getBitsPerSample());
+    header.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+    header.putInt(dataSize);
+    header.flip();
+    long position = 0;
+    while (header.hasRemaining()) {
+      position = position + this.channel.write(header, position);
+    }
+  }
+
+  /**
+   * Completes the WAV header and closes the file.
+   *
+   * @throws IOException if writing failed.
+   */
+  @Override
+  public void close() throws IOException {
+
+    try {
+      writeHeader();
+    } finally {
+      this.channel.close();
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+/**
+ * The {@link Waveform} of a wavetable oscillator. Each {@link Waveform} is precomputed once as a table of a single
+ * period built from a limited number of harmonics, so the oscillator only needs a table lookup with linear
+ * interpolation per sample and the sound does not contain harsh aliasing.
+ *
+ * @author hohwille
+ */
+public enum Waveform {
+
+  /** A pure sine wave (only the fundamental). */
+  SINE(1, false, 1, false),
+
+  /** A triangle wave (odd harmonics with amplitude {@code 1/n²}). Soft like a flute. */
+  TRIANGLE(15, true, 2, true),
+
+  /** A square wave (odd harmonics with amplitude {@code 1/n}). Hollow like a clarinet. */
+  SQUARE(31, true, 1, false),
+
+  /** A sawtooth wave (all harmonics with amplitude {@code 1/n}). Bright like strings or brass. */
+  SAWTOOTH(32, false, 1, false);
+
+  /** The number of samples of a single period. Has to be a power of two. */
+  static final int TABLE_SIZE = 2048;
+
+  private final float[] table;
+
+  private Waveform(int harmonics, boolean oddOnly, int power, boolean alternating) {
+
+    // one additional sample at the end to interpolate without wrapping
+    double[] values = new double[TABLE_SIZE + 1];
+    int sign = 1;
+    for (int harmonic = 1; harmonic <= harmonics; harmonic++) {
+      if (oddOnly && ((harmonic % 2) == 0)) {
+        continue;
+      }
+      double amplitude = sign / Math.pow(harmonic, power);
+      for (int i = 0; i <= TABLE_SIZE; i++) {
+        values[i] += amplitude * Math.sin(2 * Math.PI * harmonic * i / TABLE_SIZE);
+      }
+      if (alternating) {
+        sign = -sign;
+      }
+    }
+    double peak = 0;
+    for (double value : values) {
+      peak = Math.max(peak, Math.abs(value));
+    }
+    this.table = new float[TABLE_SIZE + 1];
+    for (int i = 0; i <= TABLE_SIZE; i++) {
+      this.table[i] = (float) (values[i] / peak);
+    }
+  }
+
+  /**
+   * @return the table with {@link #TABLE_SIZE} + 1 samples of a single period normalized to a peak of {@code 1}. The
+   *         last sample equals the first one. Must not be modified.
+   */
+  float[] getTable() {
+
+    return this.table;
+  }
+
+}
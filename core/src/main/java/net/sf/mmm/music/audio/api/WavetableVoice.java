@@ -0,0 +1,58 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * A {@link Voice} with a wavetable oscillator for a {@link Waveform}.
+ *
+ * @author hohwille
+ */
+final class WavetableVoice extends Voice {
+
+  private static final int TABLE_MASK = Waveform.TABLE_SIZE - 1;
+
+  private final float[] table;
+
+  private double phase;
+
+  private double increment;
+
+  /**
+   * The constructor.
+   *
+   * @param waveform the {@link Waveform} of the oscillator.
+   * @param envelope the {@link Envelope}.
+   * @param sampleRate the {@link PcmFormat#getSampleRate() sample rate}.
+   * @param gain the peak amplitude.
+   */
+  WavetableVoice(Waveform waveform, Envelope envelope, int sampleRate, float gain) {
+
+    super(envelope, sampleRate, gain);
+    this.table = waveform.getTable();
+  }
+
+  @Override
+  boolean startSound(Tone tone, double frequency) {
+
+    this.phase = 0;
+    this.increment = frequency * Waveform.TABLE_SIZE / getSampleRate();
+    return true;
+  }
+
+  @Override
+  float nextSample() {
+
+    float[] samples = this.table;
+    int index = (int) this.phase;
+    float fraction = (float) (this.phase - index);
+    float sample = samples[index] + fraction * (samples[index + 1] - samples[index]);
+    this.phase = this.phase + this.increment;
+    if (this.phase >= Waveform.TABLE_SIZE) {
+      this.phase = (((int) this.phase) & TABLE_MASK) + (this.phase - (int) this.phase);
+    }
+    return sample;
+  }
+
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of {@link PackedSequences} backed by {@code int} arrays on the heap. Use {@link Builder} to create
+ * an instance.
+ *
+ * @author hohwille
+ */
+public class ArrayPackedSequences implements PackedSequences {
+
+  private final int[] offsets;
+
+  private final int[] data;
+
+  /**
+   * The constructor.
+   *
+   * @param offsets the offsets of the sequences in {@code data} plus the final end offset.
+   * @param data the values of all sequences back-to-back.
+   */
+  public ArrayPackedSequences(int[] offsets, int[] data) {
+
+    super();
+    this.offsets = offsets;
+    this.data = data;
+  }
+
+  @Override
+  public int size() {
+
+    return this.offsets.length - 1;
+  }
+
+  @Override
+  public int getLength(int sequence) {
+
+    return this.offsets[sequence + 1] - this.offsets[sequence];
+  }
+
+  @Override
+  public int get(int sequence, int index) {
+
+    return this.data[this.offsets[sequence] + index];
+  }
+
+  @Override
+  public long getTotalLength() {
+
+    return this.offsets[this.offsets.length - 1];
+  }
+
+  /**
+   * Builder to append sequences value by value.
+   */
+  public static class Builder implements PackedSequencesBuilder {
+
+    private int[] offsets;
+
+    private int[] data;
+
+    private int sequenceCount;
+
+    private int length;
+
+    /**
+     * The constructor.
+     */
+    public Builder() {
+
+      super();
+      this.offsets = new int[64];
+      this.data = new int[1024];
+    }
+
+    @Override
+    public Builder add(int value) {
+
+      if (this.length == this.data.length) {
+        this.data = Arrays.copyOf(this.data, this.data.length * 2);
+      }
+      this.data[this.length++] = value;
+      return this;
+    }
+
+    @Override
+    public int endSequence() {
+
+      int sequence = this.sequenceCount++;
+      if (this.sequenceCount == this.offsets.length) {
+        this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+      }
+      this.offsets[this.sequenceCount] = this.length;
+      return sequence;
+    }
+
+    @Override
+    public ArrayPackedSequences build() {
+
+      int end = this.offsets[this.sequenceCount];
+      return new ArrayPackedSequences(Arrays.copyOf(this.offsets, this.sequenceCount + 1),
+          Arrays.copyOf(this.data, end));
+    }
+
+  }
+
+}
@@ -0,0 +1,69 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Implementation of {@link PackedSequences} backed by {@link IntBuffer}s. These are typically views of a
+ * {@link java.nio.MappedByteBuffer} so the sequences can be used directly from a file without any deserialization.
+ * As a single buffer is limited to 2GB, the data may be split into segments of {@link #SEGMENT_SIZE} values and the
+ * offsets are {@code long} values so the total length is not limited to {@link Integer#MAX_VALUE}.
+ *
+ * @author hohwille
+ */
+public class BufferPackedSequences implements PackedSequences {
+
+  /** The number of bits of the index within a segment. */
+  public static final int SEGMENT_BITS = 28;
+
+  /** The number of values in each data segment except the last one. */
+  public static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private final LongBuffer offsets;
+
+  private final IntBuffer[] segments;
+
+  /**
+   * The constructor.
+   *
+   * @param offsets the offsets of the sequences in the concatenated {@code segments} plus the final end offset.
+   * @param segments the values of all sequences back-to-back split into segments of {@link #SEGMENT_SIZE} values (the
+   *        last segment may be smaller).
+   */
+  public BufferPackedSequences(LongBuffer offsets, IntBuffer... segments) {
+
+    super();
+    this.offsets = offsets;
+    this.segments = segments;
+  }
+
+  @Override
+  public int size() {
+
+    return this.offsets.limit() - 1;
+  }
+
+  @Override
+  public int getLength(int sequence) {
+
+    return (int) (this.offsets.get(sequence + 1) - this.offsets.get(sequence));
+  }
+
+  @Override
+  public int get(int sequence, int index) {
+
+    long position = this.offsets.get(sequence) + index;
+    return this.segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+  }
+
+  @Override
+  public long getTotalLength() {
+
+    return this.offsets.get(this.offsets.limit() - 1);
+  }
+
+}
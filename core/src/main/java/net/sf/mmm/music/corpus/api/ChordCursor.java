@@ -0,0 +1,112 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import net.sf.mmm.music.datatype.api.Chord;
+
+/**
+ * A reusable cursor over the {@link Chord}s of a song in a {@link MusicCorpus}. It reads the chord indexes directly
+ * from the {@link MusicCorpus#getChordSequences() chord sequences} (on- or off-heap) and returns the shared instances
+ * from the {@link MusicCorpus#getChordDictionary() chord dictionary} so iterating a song does not allocate.
+ *
+ * @see NoteCursor
+ *
+ * @author hohwille
+ */
+public class ChordCursor {
+
+  private final InternDictionary<Chord> dictionary;
+
+  private final PackedSequences chords;
+
+  private int song;
+
+  private int length;
+
+  private int index;
+
+  private int chordIndex;
+
+  /**
+   * The constructor.
+   *
+   * @param corpus the {@link MusicCorpus} to iterate.
+   */
+  public ChordCursor(MusicCorpus corpus) {
+
+    super();
+    this.dictionary = corpus.getChordDictionary();
+    this.chords = corpus.getChordSequences();
+    this.song = -1;
+  }
+
+  /**
+   * Positions this cursor before the first chord of the given song so it can be reused for any song.
+   *
+   * @param newSong the index of the song to iterate.
+   * @return this.
+   */
+  public ChordCursor reset(int newSong) {
+
+    this.song = newSong;
+    this.length = this.chords.getLength(newSong);
+    this.index = -1;
+    return this;
+  }
+
+  /**
+   * @return {@code true} if the cursor moved to the next chord, {@code false} if the end of the song has been
+   *         reached.
+   */
+  public boolean next() {
+
+    if (this.index + 1 >= this.length) {
+      this.index = this.length;
+      return false;
+    }
+    this.index++;
+    this.chordIndex = this.chords.get(this.song, this.index);
+    return true;
+  }
+
+  /**
+   * @return the index of the current song.
+   */
+  public int getSong() {
+
+    return this.song;
+  }
+
+  /**
+   * @return the index of the current chord within the song.
+   */
+  public int getIndex() {
+
+    return this.index;
+  }
+
+  /**
+   * @return the number of chords in the current song.
+   */
+  public int getLength() {
+
+    return this.length;
+  }
+
+  /**
+   * @return the index of the current {@link Chord} in the {@link MusicCorpus#getChordDictionary() chord dictionary}.
+   */
+  public int getChordIndex() {
+
+    return this.chordIndex;
+  }
+
+  /**
+   * @return the current {@link Chord}.
+   */
+  public Chord getChord() {
+
+    return this.dictionary.get(this.chordIndex);
+  }
+
+}
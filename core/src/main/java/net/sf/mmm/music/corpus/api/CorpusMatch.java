@@ -0,0 +1,83 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+/**
+ * A match of a search in a {@link MusicCorpus} identified by the index of the song and the position within the
+ * according sequence of that song.
+ *
+ * @see CorpusSearch
+ *
+ * @author hohwille
+ */
+public class CorpusMatch implements Comparable<CorpusMatch> {
+
+  private final int song;
+
+  private final int position;
+
+  /**
+   * The constructor.
+   *
+   * @param song - see {@link #getSong()}.
+   * @param position - see {@link #getPosition()}.
+   */
+  public CorpusMatch(int song, int position) {
+
+    super();
+    this.song = song;
+    this.position = position;
+  }
+
+  /**
+   * @return the index of the matching song.
+   */
+  public int getSong() {
+
+    return this.song;
+  }
+
+  /**
+   * @return the index of the first matching element in the according sequence of the {@link #getSong() song}.
+   */
+  public int getPosition() {
+
+    return this.position;
+  }
+
+  @Override
+  public int compareTo(CorpusMatch other) {
+
+    int delta = Integer.compare(this.song, other.song);
+    if (delta == 0) {
+      delta = Integer.compare(this.position, other.position);
+    }
+    return delta;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return 31 * this.song + this.position;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    CorpusMatch other = (CorpusMatch) obj;
+    return (this.song == other.song) && (this.position == other.position);
+  }
+
+  @Override
+  public String toString() {
+
+    return this.song + ":" + this.position;
+  }
+
+}
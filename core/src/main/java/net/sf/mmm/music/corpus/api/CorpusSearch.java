@@ -0,0 +1,142 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * Brute-force search in a {@link MusicCorpus}. The songs are scanned in parallel directly on the
+ * {@link PackedSequences} so the search works the same for on-heap, off-heap and memory mapped corpora.
+ *
+ * @author hohwille
+ */
+public final class CorpusSearch {
+
+  private CorpusSearch() {
+
+    super();
+  }
+
+  /**
+   * Finds a melody ignoring {@link PackedNote#isRest(int) rests} and {@link net.sf.mmm.music.datatype.api.MusicalValue
+   * durations}. Enharmonic changes are considered equal.
+   *
+   * @param corpus the {@link MusicCorpus} to search.
+   * @param melody the {@link Tone}s of the melody to find.
+   * @param transposed - {@code true} to also find the melody in any transposition (by comparing the intervals),
+   *        {@code false} to only find the exact tones.
+   * @return the sorted {@link List} of {@link CorpusMatch}es with the {@link CorpusMatch#getPosition() position} of
+   *         the first matching note.
+   */
+  public static List<CorpusMatch> findMelody(MusicCorpus corpus, List<Tone> melody, boolean transposed) {
+
+    int length = melody.size();
+    if (length == 0) {
+      return Collections.emptyList();
+    }
+    int[] pattern = new int[length];
+    for (int i = 0; i < length; i++) {
+      pattern[i] = PackedTone.getChromaticNumber(melody.get(i));
+    }
+    PackedSequences notes = corpus.getNoteSequences();
+    return search(notes.size(), song -> findMelody(notes, song, pattern, transposed));
+  }
+
+  private static List<CorpusMatch> findMelody(PackedSequences notes, int song, int[] pattern, boolean transposed) {
+
+    List<CorpusMatch> matches = null;
+    int length = notes.getLength(song);
+    for (int start = 0; start < length; start++) {
+      int note = notes.get(song, start);
+      if (PackedNote.isRest(note)) {
+        continue;
+      }
+      int offset = PackedNote.getChromaticNumber(note) - pattern[0];
+      if (!transposed && (offset != 0)) {
+        continue;
+      }
+      int matched = 1;
+      for (int i = start + 1; (i < length) && (matched < pattern.length); i++) {
+        note = notes.get(song, i);
+        if (!PackedNote.isRest(note)) {
+          if (PackedNote.getChromaticNumber(note) - offset != pattern[matched]) {
+            break;
+          }
+          matched++;
+        }
+      }
+      if (matched == pattern.length) {
+        if (matches == null) {
+          matches = new ArrayList<>();
+        }
+        matches.add(new CorpusMatch(song, start));
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Finds a sequence of {@link Chord}s.
+   *
+   * @param corpus the {@link MusicCorpus} to search.
+   * @param chords the consecutive {@link Chord}s to find.
+   * @return the sorted {@link List} of {@link CorpusMatch}es with the {@link CorpusMatch#getPosition() position} of
+   *         the first matching chord.
+   */
+  public static List<CorpusMatch> findChords(MusicCorpus corpus, List<Chord> chords) {
+
+    int length = chords.size();
+    if (length == 0) {
+      return Collections.emptyList();
+    }
+    int[] pattern = new int[length];
+    for (int i = 0; i < length; i++) {
+      pattern[i] = corpus.getChordDictionary().indexOf(chords.get(i));
+      if (pattern[i] < 0) {
+        // chord never used in corpus
+        return Collections.emptyList();
+      }
+    }
+    PackedSequences sequences = corpus.getChordSequences();
+    return search(sequences.size(), song -> findSequence(sequences, song, pattern));
+  }
+
+  private static List<CorpusMatch> findSequence(PackedSequences sequences, int song, int[] pattern) {
+
+    List<CorpusMatch> matches = null;
+    int end = sequences.getLength(song) - pattern.length;
+    for (int start = 0; start <= end; start++) {
+      int i = 0;
+      while ((i < pattern.length) && (sequences.get(song, start + i) == pattern[i])) {
+        i++;
+      }
+      if (i == pattern.length) {
+        if (matches == null) {
+          matches = new ArrayList<>();
+        }
+        matches.add(new CorpusMatch(song, start));
+      }
+    }
+    return matches;
+  }
+
+  private static List<CorpusMatch> search(int songCount, SongSearch songSearch) {
+
+    return IntStream.range(0, songCount).parallel().mapToObj(songSearch::search).filter(list -> list != null)
+        .flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  private interface SongSearch {
+
+    List<CorpusMatch> search(int song);
+  }
+
+}
@@ -0,0 +1,407 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.io.api.BinaryScoreReader;
+import net.sf.mmm.music.io.api.BinaryScoreWriter;
+import net.sf.mmm.music.io.api.VarInt;
+
+/**
+ * Persistent snapshot of a {@link MusicCorpus} in a single file. The packed sequences are written as raw {@code int}
+ * arrays with {@code long} offsets in native byte order so a {@link #load(Path, long) loaded} corpus directly operates
+ * on the {@link FileChannel#map(MapMode, long, long) memory mapped} file without any deserialization. Only the small
+ * dictionaries are decoded. The header contains a {@link #VERSION version}, a caller defined source stamp (e.g. a hash
+ * or timestamp of the source data the corpus was parsed from) and two {@link CRC32 checksums}: one of the header and
+ * the dictionaries that is always verified and one of the entire file that is only verified on request as it touches
+ * every page. So a stale or corrupt snapshot is detected and can be {@link #loadOrRebuild(Path, long, Supplier)
+ * rebuilt} automatically while a large snapshot is still loaded instantly.
+ *
+ * @author hohwille
+ */
+public final class CorpusSnapshot {
+
+  /** The magic number at the beginning of every snapshot ("MMCP"). */
+  public static final int MAGIC = 0x4D4D4350;
+
+  /** The current version of the snapshot format. Snapshots with a different version are considered stale. */
+  public static final int VERSION = 1;
+
+  private static final int SECTION_DICTIONARY = 0;
+
+  private static final int SECTION_KEYS = 1;
+
+  private static final int SECTION_NOTE_OFFSETS = 2;
+
+  private static final int SECTION_NOTE_DATA = 3;
+
+  private static final int SECTION_CHORD_OFFSETS = 4;
+
+  private static final int SECTION_CHORD_DATA = 5;
+
+  private static final int SECTION_COUNT = 6;
+
+  private static final int META_CHECKSUM_POSITION = 28;
+
+  private static final int SECTION_TABLE_POSITION = 32;
+
+  private static final int HEADER_SIZE = SECTION_TABLE_POSITION + SECTION_COUNT * 16;
+
+  private static final int ALIGNMENT = 8;
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private CorpusSnapshot() {
+
+    super();
+  }
+
+  /**
+   * @param corpus the {@link MusicCorpus} to save.
+   * @param file the {@link Path} of the snapshot file. An existing file is replaced atomically.
+   * @param sourceStamp the stamp identifying the source data of the {@link MusicCorpus}.
+   * @throws IOException if writing failed.
+   */
+  public static void save(MusicCorpus corpus, Path file, long sourceStamp) throws IOException {
+
+    Path absoluteFile = file.toAbsolutePath();
+    Path tempFile = Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        write(corpus, channel, sourceStamp);
+        channel.force(true);
+      }
+      Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void write(MusicCorpus corpus, FileChannel channel, long sourceStamp) throws IOException {
+
+    ByteOrder order = ByteOrder.nativeOrder();
+    CRC32 crc = new CRC32();
+    SectionWriter writer = new SectionWriter(channel, crc, order);
+    long[] sections = new long[SECTION_COUNT * 2];
+    writer.position = HEADER_SIZE;
+    channel.position(HEADER_SIZE);
+
+    byte[] dictionaries = writeDictionaries(corpus);
+    writer.begin(sections, SECTION_DICTIONARY);
+    writer.writeBytes(dictionaries);
+    writer.end(sections, SECTION_DICTIONARY);
+
+    int songCount = corpus.getSongCount();
+    writer.begin(sections, SECTION_KEYS);
+    for (int song = 0; song < songCount; song++) {
+      writer.ensure(1);
+      if (corpus.getKey(song) == null) {
+        writer.chunk.put((byte) -1);
+      } else {
+        writer.chunk.put((byte) corpus.getKey(song).ordinal());
+      }
+    }
+    writer.end(sections, SECTION_KEYS);
+
+    writeSequences(writer, sections, corpus.getNoteSequences(), SECTION_NOTE_OFFSETS, SECTION_NOTE_DATA);
+    writeSequences(writer, sections, corpus.getChordSequences(), SECTION_CHORD_OFFSETS, SECTION_CHORD_DATA);
+    writer.flush();
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putLong(sourceStamp);
+    header.putLong(crc.getValue());
+    header.put((byte) ((order == ByteOrder.LITTLE_ENDIAN) ? 1 : 0));
+    header.position(SECTION_TABLE_POSITION);
+    for (long value : sections) {
+      header.putLong(value);
+    }
+    header.putInt(META_CHECKSUM_POSITION, (int) metaChecksum(header, ByteBuffer.wrap(dictionaries)));
+    header.rewind();
+    channel.write(header, 0);
+  }
+
+  private static byte[] writeDictionaries(MusicCorpus corpus) throws IOException {
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    InternDictionary<MusicalValue> values = corpus.getValueDictionary();
+    int valueCount = values.size();
+    VarInt.write(out, valueCount);
+    for (int i = 0; i < valueCount; i++) {
+      BinaryScoreWriter.writeValue(out, values.get(i));
+    }
+    InternDictionary<Chord> chords = corpus.getChordDictionary();
+    int chordCount = chords.size();
+    VarInt.write(out, chordCount);
+    for (int i = 0; i < chordCount; i++) {
+      BinaryScoreWriter.writeChord(out, chords.get(i));
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void writeSequences(SectionWriter writer, long[] sections, PackedSequences sequences,
+      int offsetSection, int dataSection) throws IOException {
+
+    int count = sequences.size();
+    writer.begin(sections, offsetSection);
+    long offset = 0;
+    writer.ensure(8);
+    writer.chunk.putLong(0);
+    for (int i = 0; i < count; i++) {
+      offset = offset + sequences.getLength(i);
+      writer.ensure(8);
+      writer.chunk.putLong(offset);
+    }
+    writer.end(sections, offsetSection);
+    writer.begin(sections, dataSection);
+    for (int i = 0; i < count; i++) {
+      int length = sequences.getLength(i);
+      for (int j = 0; j < length; j++) {
+        writer.ensure(4);
+        writer.chunk.putInt(sequences.get(i, j));
+      }
+    }
+    writer.end(sections, dataSection);
+  }
+
+  /**
+   * @param file the {@link Path} of the snapshot file.
+   * @param sourceStamp the expected stamp identifying the current source data.
+   * @return the {@link MusicCorpus} operating directly on the memory mapped snapshot or {@code null} if the snapshot
+   *         does not exist or is stale (different {@link #VERSION version} or source stamp, corrupt header or
+   *         dictionaries). The packed sequences are not verified so loading does not depend on the size of the file.
+   * @throws IOException if reading failed.
+   */
+  public static MusicCorpus load(Path file, long sourceStamp) throws IOException {
+
+    return load(file, sourceStamp, false);
+  }
+
+  /**
+   * @param file the {@link Path} of the snapshot file.
+   * @param sourceStamp the expected stamp identifying the current source data.
+   * @param verifyChecksum - {@code true} to additionally verify the checksum of the entire file (what touches all
+   *        pages of the file), {@code false} to only verify the header and the dictionaries.
+   * @return the {@link MusicCorpus} operating directly on the memory mapped snapshot or {@code null} if the snapshot
+   *         does not exist or is stale (different {@link #VERSION version} or source stamp, corrupt checksum).
+   * @throws IOException if reading failed.
+   */
+  public static MusicCorpus load(Path file, long sourceStamp, boolean verifyChecksum) throws IOException {
+
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        return null;
+      }
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if ((header.getInt() != MAGIC) || (header.getInt() != VERSION) || (header.getLong() != sourceStamp)) {
+        return null;
+      }
+      long checksum = header.getLong();
+      ByteOrder order = (header.get() == 1) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+      long[] sections = new long[SECTION_COUNT * 2];
+      header.position(SECTION_TABLE_POSITION);
+      for (int i = 0; i < sections.length; i++) {
+        sections[i] = header.getLong();
+      }
+      long end = sections[sections.length - 2] + sections[sections.length - 1];
+      if ((end > fileSize) || (sections[SECTION_DICTIONARY * 2 + 1] > Integer.MAX_VALUE)) {
+        return null;
+      }
+      ByteBuffer dictionaries = map(channel, sections, SECTION_DICTIONARY);
+      if ((int) metaChecksum(header, dictionaries.duplicate()) != header.getInt(META_CHECKSUM_POSITION)) {
+        return null;
+      }
+      if (verifyChecksum && (checksum(channel, HEADER_SIZE, fileSize - HEADER_SIZE) != checksum)) {
+        return null;
+      }
+      InternDictionary<MusicalValue> values = new InternDictionary<>();
+      int valueCount = VarInt.read(dictionaries);
+      for (int i = 0; i < valueCount; i++) {
+        values.intern(BinaryScoreReader.readValue(dictionaries));
+      }
+      InternDictionary<Chord> chords = new InternDictionary<>();
+      int chordCount = VarInt.read(dictionaries);
+      for (int i = 0; i < chordCount; i++) {
+        chords.intern(BinaryScoreReader.readChord(dictionaries));
+      }
+      if ((values.size() != valueCount) || (chords.size() != chordCount)) {
+        // duplicates would shift the indexes
+        return null;
+      }
+      ByteBuffer keys = map(channel, sections, SECTION_KEYS);
+      PackedSequences notes = mapSequences(channel, sections, SECTION_NOTE_OFFSETS, SECTION_NOTE_DATA, order);
+      PackedSequences chordSequences = mapSequences(channel, sections, SECTION_CHORD_OFFSETS, SECTION_CHORD_DATA,
+          order);
+      return new MusicCorpus(values, chords, keys, notes, chordSequences);
+    }
+  }
+
+  /**
+   * Loads the snapshot or rebuilds and saves it if it does not exist or is stale.
+   *
+   * @param file the {@link Path} of the snapshot file.
+   * @param sourceStamp the stamp identifying the current source data.
+   * @param rebuild the {@link Supplier} to build the {@link MusicCorpus} from the source data (e.g. by parsing).
+   * @return the loaded or rebuilt {@link MusicCorpus}.
+   * @throws IOException if reading or writing failed.
+   */
+  public static MusicCorpus loadOrRebuild(Path file, long sourceStamp, Supplier<MusicCorpus> rebuild)
+      throws IOException {
+
+    MusicCorpus corpus = load(file, sourceStamp);
+    if (corpus == null) {
+      corpus = rebuild.get();
+      save(corpus, file, sourceStamp);
+    }
+    return corpus;
+  }
+
+  private static long checksum(FileChannel channel, long position, long length) throws IOException {
+
+    CRC32 crc = new CRC32();
+    long pos = position;
+    long rest = length;
+    while (rest > 0) {
+      long size = Math.min(rest, Integer.MAX_VALUE);
+      crc.update(channel.map(MapMode.READ_ONLY, pos, size));
+      pos = pos + size;
+      rest = rest - size;
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * @return the {@link CRC32 checksum} of the header (except the field of this checksum) and the dictionaries.
+   */
+  private static long metaChecksum(ByteBuffer header, ByteBuffer dictionaries) {
+
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = header.duplicate();
+    buffer.clear().limit(META_CHECKSUM_POSITION);
+    crc.update(buffer);
+    buffer.limit(HEADER_SIZE).position(SECTION_TABLE_POSITION);
+    crc.update(buffer);
+    crc.update(dictionaries);
+    return crc.getValue();
+  }
+
+  private static ByteBuffer map(FileChannel channel, long[] sections, int section) throws IOException {
+
+    return channel.map(MapMode.READ_ONLY, sections[section * 2], sections[section * 2 + 1]);
+  }
+
+  private static PackedSequences mapSequences(FileChannel channel, long[] sections, int offsetSection,
+      int dataSection, ByteOrder order) throws IOException {
+
+    LongBuffer offsets = map(channel, sections, offsetSection).order(order).asLongBuffer();
+    long position = sections[dataSection * 2];
+    long rest = sections[dataSection * 2 + 1];
+    int segmentCount = (int) ((rest + BufferPackedSequences.SEGMENT_SIZE * 4L - 1)
+        / (BufferPackedSequences.SEGMENT_SIZE * 4L));
+    IntBuffer[] segments = new IntBuffer[Math.max(1, segmentCount)];
+    segments[0] = IntBuffer.allocate(0);
+    for (int i = 0; i < segmentCount; i++) {
+      long size = Math.min(rest, BufferPackedSequences.SEGMENT_SIZE * 4L);
+      segments[i] = channel.map(MapMode.READ_ONLY, position, size).order(order).asIntBuffer();
+      position = position + size;
+      rest = rest - size;
+    }
+    return new BufferPackedSequences(offsets, segments);
+  }
+
+  /**
+   * Writes sections via a reused direct {@link ByteBuffer} and updates the {@link CRC32 checksum}.
+   */
+  private static class SectionWriter {
+
+    private final FileChannel channel;
+
+    private final CRC32 crc;
+
+    private final ByteBuffer chunk;
+
+    private long position;
+
+    private SectionWriter(FileChannel channel, CRC32 crc, ByteOrder order) {
+
+      super();
+      this.channel = channel;
+      this.crc = crc;
+      this.chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(order);
+    }
+
+    private void ensure(int bytes) throws IOException {
+
+      if (this.chunk.remaining() < bytes) {
+        flush();
+      }
+    }
+
+    private void flush() throws IOException {
+
+      this.chunk.flip();
+      this.crc.update(this.chunk.duplicate());
+      while (this.chunk.hasRemaining()) {
+        this.position = this.position + this.channel.write(this.chunk);
+      }
+      this.chunk.clear();
+    }
+
+    private long getPosition() {
+
+      return this.position + this.chunk.position();
+    }
+
+    private void begin(long[] sections, int section) throws IOException {
+
+      while (getPosition() % ALIGNMENT != 0) {
+        ensure(1);
+        this.chunk.put((byte) 0);
+      }
+      sections[section * 2] = getPosition();
+    }
+
+    private void end(long[] sections, int section) {
+
+      sections[section * 2 + 1] = getPosition() - sections[section * 2];
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+
+      int offset = 0;
+      while (offset < bytes.length) {
+        ensure(1);
+        int length = Math.min(this.chunk.remaining(), bytes.length - offset);
+        this.chunk.put(bytes, offset, length);
+        offset = offset + length;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,194 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * Statistics about the songs of a {@link MusicCorpus} such as the number of notes, the ambitus or the usage of
+ * {@link TonePitch pitches} and {@link Chord}s. It is computed directly from the {@link PackedSequences} so it works
+ * the same for on-heap, off-heap and memory mapped corpora. Use {@link #of(MusicCorpus)} to compute the statistics of
+ * an entire corpus in parallel or {@link #addSong(MusicCorpus, int)} for individual songs.
+ *
+ * @author hohwille
+ */
+public class CorpusStatistics {
+
+  private final long[] pitchClassCounts;
+
+  private long[] chordCounts;
+
+  private int songCount;
+
+  private long toneCount;
+
+  private long restCount;
+
+  private long chordCount;
+
+  private int lowest;
+
+  private int highest;
+
+  /**
+   * The constructor.
+   */
+  public CorpusStatistics() {
+
+    super();
+    this.pitchClassCounts = new long[12];
+    this.chordCounts = new long[16];
+    this.lowest = Integer.MAX_VALUE;
+    this.highest = Integer.MIN_VALUE;
+  }
+
+  /**
+   * @param corpus the {@link MusicCorpus}.
+   * @return the {@link CorpusStatistics} of all songs in the given {@link MusicCorpus}.
+   */
+  public static CorpusStatistics of(MusicCorpus corpus) {
+
+    return IntStream.range(0, corpus.getSongCount()).parallel().collect(CorpusStatistics::new,
+        (statistics, song) -> statistics.addSong(corpus, song), CorpusStatistics::add);
+  }
+
+  /**
+   * @param corpus the {@link MusicCorpus}.
+   * @param song the index of the song to add.
+   * @return this.
+   */
+  public CorpusStatistics addSong(MusicCorpus corpus, int song) {
+
+    this.songCount++;
+    PackedSequences notes = corpus.getNoteSequences();
+    int length = notes.getLength(song);
+    for (int i = 0; i < length; i++) {
+      int note = notes.get(song, i);
+      if (PackedNote.isRest(note)) {
+        this.restCount++;
+      } else {
+        this.toneCount++;
+        int chromatic = PackedNote.getChromaticNumber(note);
+        this.pitchClassCounts[Math.floorMod(chromatic, 12)]++;
+        if (chromatic < this.lowest) {
+          this.lowest = chromatic;
+        }
+        if (chromatic > this.highest) {
+          this.highest = chromatic;
+        }
+      }
+    }
+    PackedSequences chords = corpus.getChordSequences();
+    length = chords.getLength(song);
+    this.chordCount += length;
+    for (int i = 0; i < length; i++) {
+      int chord = chords.get(song, i);
+      if (chord >= this.chordCounts.length) {
+        this.chordCounts = Arrays.copyOf(this.chordCounts, Math.max(chord + 1, this.chordCounts.length * 2));
+      }
+      this.chordCounts[chord]++;
+    }
+    return this;
+  }
+
+  /**
+   * @param other the {@link CorpusStatistics} to merge into this one.
+   * @return this.
+   */
+  public CorpusStatistics add(CorpusStatistics other) {
+
+    this.songCount += other.songCount;
+    this.toneCount += other.toneCount;
+    this.restCount += other.restCount;
+    this.chordCount += other.chordCount;
+    this.lowest = Math.min(this.lowest, other.lowest);
+    this.highest = Math.max(this.highest, other.highest);
+    for (int i = 0; i < 12; i++) {
+      this.pitchClassCounts[i] += other.pitchClassCounts[i];
+    }
+    if (other.chordCounts.length > this.chordCounts.length) {
+      this.chordCounts = Arrays.copyOf(this.chordCounts, other.chordCounts.length);
+    }
+    for (int i = 0; i < other.chordCounts.length; i++) {
+      this.chordCounts[i] += other.chordCounts[i];
+    }
+    return this;
+  }
+
+  /**
+   * @return the number of songs.
+   */
+  public int getSongCount() {
+
+    return this.songCount;
+  }
+
+  /**
+   * @return the number of {@link net.sf.mmm.music.datatype.api.MusicalItem#isTone() tones}.
+   */
+  public long getToneCount() {
+
+    return this.toneCount;
+  }
+
+  /**
+   * @return the number of {@link net.sf.mmm.music.datatype.api.MusicalItem#isRest() rests}.
+   */
+  public long getRestCount() {
+
+    return this.restCount;
+  }
+
+  /**
+   * @return the total number of {@link Chord}s.
+   */
+  public long getChordCount() {
+
+    return this.chordCount;
+  }
+
+  /**
+   * @return the {@link net.sf.mmm.music.datatype.api.PackedTone#getChromaticNumber(int) chromatic number} of the
+   *         lowest tone or {@link Integer#MAX_VALUE} if there is no tone at all.
+   */
+  public int getLowest() {
+
+    return this.lowest;
+  }
+
+  /**
+   * @return the {@link net.sf.mmm.music.datatype.api.PackedTone#getChromaticNumber(int) chromatic number} of the
+   *         highest tone or {@link Integer#MIN_VALUE} if there is no tone at all.
+   */
+  public int getHighest() {
+
+    return this.highest;
+  }
+
+  /**
+   * @param step the {@link TonePitch#getStep() step} of the pitch class.
+   * @return the number of tones with the given pitch class (ignoring octave and enharmonic changes).
+   */
+  public long getPitchClassCount(int step) {
+
+    return this.pitchClassCounts[step];
+  }
+
+  /**
+   * @param chordIndex the index of the {@link Chord} in the {@link MusicCorpus#getChordDictionary() chord
+   *        dictionary}.
+   * @return the number of occurrences of the given {@link Chord}.
+   */
+  public long getChordCount(int chordIndex) {
+
+    if (chordIndex >= this.chordCounts.length) {
+      return 0;
+    }
+    return this.chordCounts[chordIndex];
+  }
+
+}
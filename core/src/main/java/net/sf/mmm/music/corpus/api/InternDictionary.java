@@ -0,0 +1,94 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary that interns equal objects (e.g. {@link net.sf.mmm.music.datatype.api.Chord}s or
+ * {@link net.sf.mmm.music.datatype.api.MusicalValue}s) and assigns them a stable {@code int} index. This allows to
+ * store sequences of such objects as packed {@code int} values and to share a single instance per distinct value.
+ * {@link #intern(Object) Interning} is synchronized while {@link #get(int) lookups} are lock-free.
+ *
+ * @param <T> the type of the interned objects.
+ *
+ * @author hohwille
+ */
+public class InternDictionary<T> {
+
+  private final Map<T, Integer> indexMap;
+
+  private volatile Object[] elements;
+
+  private volatile int size;
+
+  /**
+   * The constructor.
+   */
+  public InternDictionary() {
+
+    super();
+    this.indexMap = new HashMap<>();
+    this.elements = new Object[16];
+  }
+
+  /**
+   * @param element the object to intern.
+   * @return the index of the given {@code element}. If an {@link Object#equals(Object) equal} object has already been
+   *         interned, its index is returned, otherwise the given {@code element} is added with a new index.
+   */
+  public synchronized int intern(T element) {
+
+    Integer index = this.indexMap.get(element);
+    if (index != null) {
+      return index.intValue();
+    }
+    int newIndex = this.size;
+    Object[] array = this.elements;
+    if (newIndex >= array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      this.elements = array;
+    }
+    array[newIndex] = element;
+    this.indexMap.put(element, Integer.valueOf(newIndex));
+    this.size = newIndex + 1;
+    return newIndex;
+  }
+
+  /**
+   * @param element the object to look up.
+   * @return the index of the given {@code element} or {@code -1} if it has not been {@link #intern(Object) interned}.
+   */
+  public synchronized int indexOf(T element) {
+
+    Integer index = this.indexMap.get(element);
+    if (index == null) {
+      return -1;
+    }
+    return index.intValue();
+  }
+
+  /**
+   * @param index the index of the requested object.
+   * @return the interned object with the given {@code index}.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+
+    if (index >= this.size) {
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+    return (T) this.elements[index];
+  }
+
+  /**
+   * @return the number of interned objects.
+   */
+  public int size() {
+
+    return this.size;
+  }
+
+}
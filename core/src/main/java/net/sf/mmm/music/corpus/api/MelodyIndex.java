@@ -0,0 +1,405 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * An inverted index over the melodies of a {@link MusicCorpus} to find a melody in any key. Each melody is turned
+ * into the sequence of chromatic intervals between its consecutive {@link Tone}s ({@link MusicalItem#isRest() rests}
+ * are skipped) and optionally the ratios of their {@link MusicalValue#getDuration() durations}. Every n-gram of this
+ * sequence is indexed by a hash key with a compressed posting list (varint delta encoded song and position). A query
+ * only decodes the posting list of its rarest n-gram and verifies the candidates against the corpus so the result is
+ * exact even though the keys are hashed.
+ *
+ * @author hohwille
+ */
+public class MelodyIndex {
+
+  /** The default {@link #getNgramLength() n-gram length}. */
+  public static final int DEFAULT_NGRAM_LENGTH = 4;
+
+  /** The maximum {@link #getNgramLength() n-gram length}. */
+  public static final int MAX_NGRAM_LENGTH = 5;
+
+  private static final int MAX_INTERVAL = 63;
+
+  private static final int MAX_RATIO = 7;
+
+  private final MusicCorpus corpus;
+
+  private final int ngramLength;
+
+  private final boolean durations;
+
+  private final double[] logDurations;
+
+  private final NgramPostings postings;
+
+  private MelodyIndex(MusicCorpus corpus, int ngramLength, boolean durations, double[] logDurations,
+      NgramPostings postings) {
+
+    super();
+    this.corpus = corpus;
+    this.ngramLength = ngramLength;
+    this.durations = durations;
+    this.logDurations = logDurations;
+    this.postings = postings;
+  }
+
+  /**
+   * @return the {@link MusicCorpus} this index was built for.
+   */
+  public MusicCorpus getCorpus() {
+
+    return this.corpus;
+  }
+
+  /**
+   * @return the number of intervals per indexed n-gram.
+   */
+  public int getNgramLength() {
+
+    return this.ngramLength;
+  }
+
+  /**
+   * @return {@code true} if the ratios of the {@link MusicalValue#getDuration() durations} are part of the index,
+   *         {@code false} if only the intervals are indexed.
+   */
+  public boolean isWithDurations() {
+
+    return this.durations;
+  }
+
+  /**
+   * @return the number of distinct n-gram keys.
+   */
+  public int getKeyCount() {
+
+    return this.postings.getKeyCount();
+  }
+
+  /**
+   * @return the size of the compressed posting lists in bytes.
+   */
+  public long getPostingsSize() {
+
+    return this.postings.getPostingsSize();
+  }
+
+  /**
+   * @param corpus the {@link MusicCorpus} to index.
+   * @return the {@link MelodyIndex} for the given {@link MusicCorpus} with {@link #DEFAULT_NGRAM_LENGTH} and without
+   *         {@link #isWithDurations() durations}.
+   */
+  public static MelodyIndex build(MusicCorpus corpus) {
+
+    return build(corpus, DEFAULT_NGRAM_LENGTH, false);
+  }
+
+  /**
+   * Builds the index in parallel for chunks of songs and merges the results.
+   *
+   * @param corpus the {@link MusicCorpus} to index.
+   * @param ngramLength the {@link #getNgramLength() n-gram length}.
+   * @param durations - see {@link #isWithDurations()}.
+   * @return the {@link MelodyIndex} for the given {@link MusicCorpus}.
+   */
+  public static MelodyIndex build(MusicCorpus corpus, int ngramLength, boolean durations) {
+
+    if ((ngramLength < 1) || (ngramLength > MAX_NGRAM_LENGTH)) {
+      throw new IllegalArgumentException(Integer.toString(ngramLength));
+    }
+    InternDictionary<MusicalValue> values = corpus.getValueDictionary();
+    double[] logDurations = new double[values.size()];
+    for (int i = 0; i < logDurations.length; i++) {
+      logDurations[i] = Math.log(values.get(i).getDuration()) / Math.log(2);
+    }
+    double[] ratioDurations = durations ? logDurations : null;
+    NgramPostings postings = NgramPostings.build(0, corpus.getSongCount(),
+        () -> new MelodyExtractor(corpus.getNoteSequences(), ngramLength, ratioDurations));
+    return new MelodyIndex(corpus, ngramLength, durations, logDurations, postings);
+  }
+
+  /**
+   * @param melody the {@link Tone}s of the melody to find. Requires an index {@link #isWithDurations() without
+   *        durations}.
+   * @return the sorted {@link List} of {@link CorpusMatch}es with the {@link CorpusMatch#getPosition() position} of
+   *         the first matching note. The melody is found in any transposition.
+   */
+  public List<CorpusMatch> findTones(List<Tone> melody) {
+
+    if (this.durations) {
+      throw new IllegalStateException("Index requires durations");
+    }
+    int size = melody.size();
+    int[] chromatics = new int[size];
+    for (int i = 0; i < size; i++) {
+      chromatics[i] = PackedTone.getChromaticNumber(melody.get(i));
+    }
+    return find(new Query(chromatics, null));
+  }
+
+  /**
+   * @param melody the {@link MusicalItem}s of the melody to find. {@link MusicalItem#isRest() Rests} are ignored.
+   * @return the sorted {@link List} of {@link CorpusMatch}es with the {@link CorpusMatch#getPosition() position} of
+   *         the first matching note. The melody is found in any transposition and if {@link #isWithDurations()
+   *         durations} are indexed also in any tempo (same ratios of durations).
+   */
+  public List<CorpusMatch> find(List<? extends MusicalItem> melody) {
+
+    int[] chromatics = new int[melody.size()];
+    double[] logValues = null;
+    if (this.durations) {
+      logValues = new double[melody.size()];
+    }
+    int size = 0;
+    for (MusicalItem item : melody) {
+      if (item.isTone()) {
+        chromatics[size] = PackedTone.getChromaticNumber(item.getTone());
+        if (logValues != null) {
+          logValues[size] = Math.log(item.getValue().getDuration()) / Math.log(2);
+        }
+        size++;
+      } else if (!item.isRest()) {
+        throw new IllegalArgumentException(item.getClass().getName());
+      }
+    }
+    chromatics = Arrays.copyOf(chromatics, size);
+    if (logValues != null) {
+      logValues = Arrays.copyOf(logValues, size);
+    }
+    return find(new Query(chromatics, logValues));
+  }
+
+  /**
+   * @param melody the {@link MusicalItem}s of the melody to find.
+   * @return the sorted indexes of the songs containing the melody.
+   * @see #find(List)
+   */
+  public int[] findSongs(List<? extends MusicalItem> melody) {
+
+    return find(melody).stream().mapToInt(CorpusMatch::getSong).distinct().toArray();
+  }
+
+  private List<CorpusMatch> find(Query query) {
+
+    int intervals = query.tokens.length;
+    if (intervals < 1) {
+      throw new IllegalArgumentException("Melody requires at least two tones");
+    }
+    if (intervals < this.ngramLength) {
+      return scan(query);
+    }
+    // pick the n-gram with the shortest posting list
+    int bestGram = -1;
+    int bestKey = -1;
+    int bestCount = Integer.MAX_VALUE;
+    for (int gram = 0; gram + this.ngramLength <= intervals; gram++) {
+      int index = this.postings.indexOf(hash(query.tokens, gram, this.ngramLength));
+      if (index < 0) {
+        return Collections.emptyList();
+      }
+      int count = this.postings.getCount(index);
+      if (count < bestCount) {
+        bestCount = count;
+        bestKey = index;
+        bestGram = gram;
+      }
+    }
+    PackedSequences notes = this.corpus.getNoteSequences();
+    List<CorpusMatch> matches = new ArrayList<>();
+    int gramOffset = bestGram;
+    this.postings.forEach(bestKey, (song, position) -> {
+      int start = skipTonesBackward(notes, song, position, gramOffset);
+      if ((start >= 0) && verify(notes, song, start, query)) {
+        matches.add(new CorpusMatch(song, start));
+      }
+    });
+    return matches;
+  }
+
+  private List<CorpusMatch> scan(Query query) {
+
+    PackedSequences notes = this.corpus.getNoteSequences();
+    return IntStream.range(0, notes.size()).parallel().mapToObj(song -> {
+      List<CorpusMatch> matches = new ArrayList<>();
+      int length = notes.getLength(song);
+      for (int start = 0; start < length; start++) {
+        if (!PackedNote.isRest(notes.get(song, start)) && verify(notes, song, start, query)) {
+          matches.add(new CorpusMatch(song, start));
+        }
+      }
+      return matches;
+    }).flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  private static int skipTonesBackward(PackedSequences notes, int song, int position, int tones) {
+
+    int index = position;
+    int skipped = 0;
+    while (skipped < tones) {
+      index--;
+      if (index < 0) {
+        return -1;
+      }
+      if (!PackedNote.isRest(notes.get(song, index))) {
+        skipped++;
+      }
+    }
+    return index;
+  }
+
+  private boolean verify(PackedSequences notes, int song, int start, Query query) {
+
+    int length = notes.getLength(song);
+    int previous = notes.get(song, start);
+    int matched = 0;
+    for (int i = start + 1; (i < length) && (matched < query.intervals.length); i++) {
+      int note = notes.get(song, i);
+      if (!PackedNote.isRest(note)) {
+        int interval = PackedNote.getChromaticNumber(note) - PackedNote.getChromaticNumber(previous);
+        if (interval != query.intervals[matched]) {
+          return false;
+        }
+        if (this.durations && (ratio(previous, note) != query.ratios[matched])) {
+          return false;
+        }
+        previous = note;
+        matched++;
+      }
+    }
+    return matched == query.intervals.length;
+  }
+
+  private int ratio(int note1, int note2) {
+
+    return ratio(this.logDurations[PackedNote.getValueIndex(note1)],
+        this.logDurations[PackedNote.getValueIndex(note2)]);
+  }
+
+  private static int ratio(double logDuration1, double logDuration2) {
+
+    // quantized to half octaves of the duration ratio
+    long ratio = Math.round(2 * (logDuration2 - logDuration1));
+    return (int) Math.max(-MAX_RATIO, Math.min(MAX_RATIO, ratio));
+  }
+
+  private static int token(int interval, int ratio) {
+
+    int clamped = Math.max(-MAX_INTERVAL, Math.min(MAX_INTERVAL, interval));
+    return ((clamped + MAX_INTERVAL + 1) << 4) | (ratio + MAX_RATIO + 1);
+  }
+
+  private static int hash(int[] tokens, int offset, int length) {
+
+    long packed = 0;
+    for (int i = offset; i < offset + length; i++) {
+      packed = (packed << 11) | tokens[i];
+    }
+    return NgramPostings.hash(packed);
+  }
+
+  /**
+   * A prepared query with the intervals and optional duration ratios of the melody.
+   */
+  private static class Query {
+
+    private final int[] intervals;
+
+    private final int[] ratios;
+
+    private final int[] tokens;
+
+    private Query(int[] chromatics, double[] logDurations) {
+
+      super();
+      int size = Math.max(0, chromatics.length - 1);
+      this.intervals = new int[size];
+      this.tokens = new int[size];
+      if (logDurations == null) {
+        this.ratios = null;
+      } else {
+        this.ratios = new int[size];
+      }
+      for (int i = 0; i < size; i++) {
+        this.intervals[i] = chromatics[i + 1] - chromatics[i];
+        int ratio = 0;
+        if (this.ratios != null) {
+          ratio = ratio(logDurations[i], logDurations[i + 1]);
+          this.ratios[i] = ratio;
+        }
+        this.tokens[i] = token(this.intervals[i], ratio);
+      }
+    }
+  }
+
+  /**
+   * Extracts the interval n-grams of the songs.
+   */
+  private static class MelodyExtractor implements NgramPostings.Extractor {
+
+    private final PackedSequences notes;
+
+    private final int ngramLength;
+
+    private final double[] logDurations;
+
+    private int[] tonePositions;
+
+    private int[] tokens;
+
+    private MelodyExtractor(PackedSequences notes, int ngramLength, double[] logDurations) {
+
+      super();
+      this.notes = notes;
+      this.ngramLength = ngramLength;
+      this.logDurations = logDurations;
+      this.tonePositions = new int[64];
+      this.tokens = new int[64];
+    }
+
+    @Override
+    public void extract(int song, NgramPostings.Sink sink) {
+
+      int length = this.notes.getLength(song);
+      if (length > this.tokens.length) {
+        this.tokens = new int[length];
+        this.tonePositions = new int[length];
+      }
+      int tones = 0;
+      int previous = 0;
+      for (int i = 0; i < length; i++) {
+        int note = this.notes.get(song, i);
+        if (!PackedNote.isRest(note)) {
+          if (tones > 0) {
+            int ratio = 0;
+            if (this.logDurations != null) {
+              ratio = ratio(this.logDurations[PackedNote.getValueIndex(previous)],
+                  this.logDurations[PackedNote.getValueIndex(note)]);
+            }
+            this.tokens[tones - 1] = token(
+                PackedNote.getChromaticNumber(note) - PackedNote.getChromaticNumber(previous), ratio);
+          }
+          this.tonePositions[tones++] = i;
+          previous = note;
+        }
+      }
+      for (int gram = 0; gram + this.ngramLength < tones; gram++) {
+        sink.add(hash(this.tokens, gram, this.ngramLength), this.tonePositions[gram]);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,260 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * A {@link MusicCorpus} is a large collection of songs held in memory in packed form. Each song has an optional
+ * {@link MusicalKey}, a sequence of {@link PackedNote packed notes} and a sequence of {@link Chord}s stored as indexes
+ * into the {@link #getChordDictionary() chord dictionary}. Instead of millions of objects it therefore only holds a
+ * few large arrays or buffers. Use {@link MusicCorpusBuilder} to create a new {@link MusicCorpus} and
+ * {@link CorpusSnapshot} to persist and restore it. Via {@link #toOffHeap()} the data can be moved out of the heap.
+ * All operations such as {@link NoteCursor cursors}, {@link #transposeNotes(int, int, MusicalKey, int[])
+ * transposition}, {@link CorpusStatistics statistics} or {@link CorpusSearch search} work the same on-heap,
+ * off-heap and memory mapped.
+ *
+ * @author hohwille
+ */
+public class MusicCorpus {
+
+  private static final MusicalKey[] KEYS = MusicalKey.values();
+
+  private final InternDictionary<MusicalValue> valueDictionary;
+
+  private final InternDictionary<Chord> chordDictionary;
+
+  private final ByteBuffer keys;
+
+  private final PackedSequences notes;
+
+  private final PackedSequences chords;
+
+  /**
+   * The constructor.
+   *
+   * @param valueDictionary - see {@link #getValueDictionary()}.
+   * @param chordDictionary - see {@link #getChordDictionary()}.
+   * @param keys the {@link ByteBuffer} with the {@link MusicalKey#ordinal() ordinal} of the {@link #getKey(int) key}
+   *        for each song at its absolute index (or {@code -1} if undefined).
+   * @param notes - see {@link #getNoteSequences()}.
+   * @param chords - see {@link #getChordSequences()}.
+   */
+  public MusicCorpus(InternDictionary<MusicalValue> valueDictionary, InternDictionary<Chord> chordDictionary,
+      ByteBuffer keys, PackedSequences notes, PackedSequences chords) {
+
+    super();
+    this.valueDictionary = valueDictionary;
+    this.chordDictionary = chordDictionary;
+    this.keys = keys;
+    this.notes = notes;
+    this.chords = chords;
+    if ((notes.size() != chords.size()) || (keys.limit() != notes.size())) {
+      throw new IllegalArgumentException("Inconsistent number of songs");
+    }
+  }
+
+  /**
+   * @return the number of songs in this corpus.
+   */
+  public int getSongCount() {
+
+    return this.notes.size();
+  }
+
+  /**
+   * @return the {@link InternDictionary} of the {@link MusicalValue}s referenced by the
+   *         {@link PackedNote#getValueIndex(int) value index} of the {@link #getNoteSequences() packed notes}.
+   */
+  public InternDictionary<MusicalValue> getValueDictionary() {
+
+    return this.valueDictionary;
+  }
+
+  /**
+   * @return the {@link InternDictionary} of the {@link Chord}s referenced by the {@link #getChordSequences() chord
+   *         sequences}.
+   */
+  public InternDictionary<Chord> getChordDictionary() {
+
+    return this.chordDictionary;
+  }
+
+  /**
+   * @return the {@link PackedSequences} with one sequence of {@link PackedNote packed notes} per song.
+   */
+  public PackedSequences getNoteSequences() {
+
+    return this.notes;
+  }
+
+  /**
+   * @return the {@link PackedSequences} with one sequence of {@link #getChordDictionary() chord indexes} per song.
+   */
+  public PackedSequences getChordSequences() {
+
+    return this.chords;
+  }
+
+  /**
+   * @param song the index of the song.
+   * @return the {@link MusicalKey} of the song or {@code null} if undefined.
+   */
+  public MusicalKey getKey(int song) {
+
+    int ordinal = this.keys.get(song);
+    if (ordinal < 0) {
+      return null;
+    }
+    return KEYS[ordinal];
+  }
+
+  /**
+   * @param song the index of the song.
+   * @return the notes of the song as {@link MusicalItem}s.
+   */
+  public List<MusicalItem> getNotes(int song) {
+
+    int length = this.notes.getLength(song);
+    List<MusicalItem> result = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      int note = this.notes.get(song, i);
+      MusicalValue value = this.valueDictionary.get(PackedNote.getValueIndex(note));
+      if (PackedNote.isRest(note)) {
+        result.add(new RestItem(value));
+      } else {
+        result.add(new ToneItem(value, PackedTone.toTone(PackedNote.getTone(note))));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param song the index of the song.
+   * @return the {@link Chord}s of the song.
+   */
+  public List<Chord> getChords(int song) {
+
+    int length = this.chords.getLength(song);
+    List<Chord> result = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      result.add(this.chordDictionary.get(this.chords.get(song, i)));
+    }
+    return result;
+  }
+
+  /**
+   * @param song the index of the song.
+   * @return a new {@link NoteCursor} positioned before the first note of the given song.
+   */
+  public NoteCursor newNoteCursor(int song) {
+
+    return new NoteCursor(this).reset(song);
+  }
+
+  /**
+   * @param song the index of the song.
+   * @return a new {@link ChordCursor} positioned before the first chord of the given song.
+   */
+  public ChordCursor newChordCursor(int song) {
+
+    return new ChordCursor(this).reset(song);
+  }
+
+  /**
+   * Transposes the notes of a song without creating objects.
+   *
+   * @see PackedNote#transposeChromatic(int, int, MusicalKey)
+   *
+   * @param song the index of the song.
+   * @param semitoneSteps is the number of semitone steps to transpose.
+   * @param targetKey is the target {@link MusicalKey key} or {@code null} for
+   *        {@link net.sf.mmm.music.datatype.api.EnharmonicStyle#NORMAL normal style}.
+   * @param buffer the array to receive the transposed {@link PackedNote packed notes} or {@code null}. If too small
+   *        a new array is allocated.
+   * @return the array with the transposed {@link PackedNote packed notes} of the song starting at index {@code 0}.
+   */
+  public int[] transposeNotes(int song, int semitoneSteps, MusicalKey targetKey, int[] buffer) {
+
+    int length = this.notes.getLength(song);
+    int[] result = buffer;
+    if ((result == null) || (result.length < length)) {
+      result = new int[length];
+    }
+    for (int i = 0; i < length; i++) {
+      result[i] = PackedNote.transposeChromatic(this.notes.get(song, i), semitoneSteps, targetKey);
+    }
+    return result;
+  }
+
+  /**
+   * Transposes the chords of a song. The {@link #getChordDictionary() chord dictionary} of this corpus is shared (e.g.
+   * with {@link #toOffHeap() off-heap copies} and {@link CorpusSnapshot snapshots}) and therefore never modified by
+   * this query. Instead the transposed {@link Chord}s are interned into the given {@code dictionary} owned by the
+   * caller (that may be reused for many queries).
+   *
+   * @see Chord#transposeChromatic(int, MusicalKey)
+   *
+   * @param song the index of the song.
+   * @param semitoneSteps is the number of semitone steps to transpose.
+   * @param targetKey is the target {@link MusicalKey key} or {@code null} for
+   *        {@link net.sf.mmm.music.datatype.api.EnharmonicStyle#NORMAL normal style}.
+   * @param dictionary the {@link InternDictionary} to receive the transposed {@link Chord}s.
+   * @param buffer the array to receive the indexes of the transposed chords in the given {@code dictionary} or
+   *        {@code null}. If too small a new array is allocated.
+   * @return the array with the chord indexes of the transposed song starting at index {@code 0}.
+   */
+  public int[] transposeChords(int song, int semitoneSteps, MusicalKey targetKey, InternDictionary<Chord> dictionary,
+      int[] buffer) {
+
+    int length = this.chords.getLength(song);
+    int[] result = buffer;
+    if ((result == null) || (result.length < length)) {
+      result = new int[length];
+    }
+    for (int i = 0; i < length; i++) {
+      Chord chord = this.chordDictionary.get(this.chords.get(song, i));
+      result[i] = dictionary.intern(chord.transposeChromatic(semitoneSteps, targetKey));
+    }
+    return result;
+  }
+
+  /**
+   * @return {@code true} if the songs of this corpus are stored outside of the heap (in
+   *         {@link ByteBuffer#isDirect() direct} or memory mapped buffers), {@code false} otherwise.
+   */
+  public boolean isOffHeap() {
+
+    return this.keys.isDirect() && !(this.notes instanceof ArrayPackedSequences)
+        && !(this.chords instanceof ArrayPackedSequences);
+  }
+
+  /**
+   * @return a {@link MusicCorpus} with the same songs stored in {@link OffHeapPackedSequences} so they are out of
+   *         reach of the garbage collector. The dictionaries are shared. If this corpus is already
+   *         {@link #isOffHeap() off-heap} it is returned as is.
+   */
+  public MusicCorpus toOffHeap() {
+
+    if (isOffHeap()) {
+      return this;
+    }
+    ByteBuffer offHeapKeys = ByteBuffer.allocateDirect(this.keys.limit());
+    for (int i = 0; i < this.keys.limit(); i++) {
+      offHeapKeys.put(i, this.keys.get(i));
+    }
+    return new MusicCorpus(this.valueDictionary, this.chordDictionary, offHeapKeys,
+        OffHeapPackedSequences.copyOf(this.notes), OffHeapPackedSequences.copyOf(this.chords));
+  }
+
+}
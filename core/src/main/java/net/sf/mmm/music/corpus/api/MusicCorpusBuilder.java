@@ -0,0 +1,113 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+
+/**
+ * Builder for a {@link MusicCorpus}. {@link #addSong(MusicalKey, List, List) Adding songs} is thread-safe so songs can
+ * be parsed in parallel. The packed sequences are either collected on the heap or
+ * {@link #MusicCorpusBuilder(boolean) directly off-heap} for huge corpora.
+ *
+ * @author hohwille
+ */
+public class MusicCorpusBuilder {
+
+  private final InternDictionary<MusicalValue> valueDictionary;
+
+  private final InternDictionary<Chord> chordDictionary;
+
+  private final ByteArrayOutputStream keys;
+
+  private final PackedSequencesBuilder notes;
+
+  private final PackedSequencesBuilder chords;
+
+  private final boolean offHeap;
+
+  /**
+   * The constructor.
+   */
+  public MusicCorpusBuilder() {
+
+    this(false);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param offHeap - {@code true} to store the packed sequences {@link OffHeapPackedSequences off-heap},
+   *        {@code false} to use {@link ArrayPackedSequences} on the heap.
+   */
+  public MusicCorpusBuilder(boolean offHeap) {
+
+    super();
+    this.valueDictionary = new InternDictionary<>();
+    this.chordDictionary = new InternDictionary<>();
+    this.keys = new ByteArrayOutputStream();
+    this.offHeap = offHeap;
+    if (offHeap) {
+      this.notes = new OffHeapPackedSequences.Builder();
+      this.chords = new OffHeapPackedSequences.Builder();
+    } else {
+      this.notes = new ArrayPackedSequences.Builder();
+      this.chords = new ArrayPackedSequences.Builder();
+    }
+  }
+
+  /**
+   * @param key the {@link MusicalKey} of the song or {@code null} if unknown.
+   * @param songNotes the {@link MusicalItem}s of the song. Only {@link MusicalItem#isTone() tones} and
+   *        {@link MusicalItem#isRest() rests} are supported.
+   * @param songChords the {@link Chord}s of the song.
+   * @return the index of the added song.
+   */
+  public synchronized int addSong(MusicalKey key, List<? extends MusicalItem> songNotes, List<Chord> songChords) {
+
+    for (MusicalItem item : songNotes) {
+      if (!item.isRest() && !item.isTone()) {
+        throw new IllegalArgumentException(item.getClass().getName());
+      }
+    }
+    for (MusicalItem item : songNotes) {
+      int valueIndex = this.valueDictionary.intern(item.getValue());
+      this.notes.add(PackedNote.pack(item, valueIndex));
+    }
+    for (Chord chord : songChords) {
+      this.chords.add(this.chordDictionary.intern(chord));
+    }
+    if (key == null) {
+      this.keys.write(-1);
+    } else {
+      this.keys.write(key.ordinal());
+    }
+    this.chords.endSequence();
+    return this.notes.endSequence();
+  }
+
+  /**
+   * @return the new {@link MusicCorpus} with all {@link #addSong(MusicalKey, List, List) added songs}.
+   */
+  public synchronized MusicCorpus build() {
+
+    byte[] keyArray = this.keys.toByteArray();
+    ByteBuffer keyBuffer;
+    if (this.offHeap) {
+      keyBuffer = ByteBuffer.allocateDirect(keyArray.length);
+      keyBuffer.put(keyArray);
+      keyBuffer.clear();
+    } else {
+      keyBuffer = ByteBuffer.wrap(keyArray);
+    }
+    return new MusicCorpus(this.valueDictionary, this.chordDictionary, keyBuffer, this.notes.build(),
+        this.chords.build());
+  }
+
+}
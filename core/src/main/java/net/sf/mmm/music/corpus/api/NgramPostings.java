@@ -0,0 +1,496 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.io.api.VarInt;
+
+/**
+ * The inverted index shared by {@link MelodyIndex} and {@link ProgressionIndex}. It maps hashed n-gram keys to
+ * compressed posting lists of song and position (varint delta encoded). It is built in parallel for chunks of songs.
+ * Only a bounded batch of chunks is held uncompressed at a time: each batch is merged into compressed postings right
+ * away and the compressed batches are merged at the end, so the peak memory is about twice the size of the final
+ * posting lists instead of the size of all raw n-gram entries. The posting lists are stored in segments of
+ * {@link #SEGMENT_SIZE} bytes addressed by {@code long} offsets, so their total size is not limited to
+ * {@link Integer#MAX_VALUE}. A posting never spans two segments: if it may not fit into the rest of a segment it starts
+ * at the beginning of the next one.
+ *
+ * @author hohwille
+ */
+final class NgramPostings {
+
+  private static final int CHUNK_SONGS = 1024;
+
+  /** The number of chunks held uncompressed before they are merged. */
+  private static final int BATCH_CHUNKS = 4 * Runtime.getRuntime().availableProcessors();
+
+  private static final int SEGMENT_BITS = 26;
+
+  /** The size of a segment of the posting lists in bytes. */
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** The maximum size of a posting (song delta and position). */
+  private static final int POSTING_SIZE = 2 * VarInt.MAX_SIZE;
+
+  private final int[] keys;
+
+  private final int[] counts;
+
+  private final long[] offsets;
+
+  private final byte[][] segments;
+
+  private final long postingsSize;
+
+  private NgramPostings(int[] keys, int[] counts, long[] offsets, byte[][] segments, long postingsSize) {
+
+    super();
+    this.keys = keys;
+    this.counts = counts;
+    this.offsets = offsets;
+    this.segments = segments;
+    this.postingsSize = postingsSize;
+  }
+
+  /**
+   * @return the number of distinct keys.
+   */
+  int getKeyCount() {
+
+    return this.keys.length;
+  }
+
+  /**
+   * @return the size of the compressed posting lists in bytes.
+   */
+  long getPostingsSize() {
+
+    return this.postingsSize;
+  }
+
+  /**
+   * @param key the hashed n-gram key.
+   * @return the index of the key or a negative value if not contained.
+   */
+  int indexOf(int key) {
+
+    return Arrays.binarySearch(this.keys, key);
+  }
+
+  /**
+   * @param keyIndex the {@link #indexOf(int) index of the key}.
+   * @return the number of postings for the key.
+   */
+  int getCount(int keyIndex) {
+
+    return this.counts[keyIndex];
+  }
+
+  /**
+   * @param keyIndex the {@link #indexOf(int) index of the key}.
+   * @param consumer the {@link PostingConsumer} receiving the decoded postings in order of song and position.
+   */
+  void forEach(int keyIndex, PostingConsumer consumer) {
+
+    long pos = this.offsets[keyIndex];
+    long end = this.offsets[keyIndex + 1];
+    int song = 0;
+    int position = 0;
+    while (pos < end) {
+      pos = align(pos);
+      byte[] segment = this.segments[(int) (pos >>> SEGMENT_BITS)];
+      int index = (int) (pos & SEGMENT_MASK);
+      int songDelta = VarInt.read(segment, index);
+      index = VarInt.skip(segment, index);
+      int value = VarInt.read(segment, index);
+      index = VarInt.skip(segment, index);
+      pos = (pos & ~(long) SEGMENT_MASK) + index;
+      if (songDelta == 0) {
+        position = position + value;
+      } else {
+        song = song + songDelta;
+        position = value;
+      }
+      consumer.accept(song, position);
+    }
+  }
+
+  /**
+   * @param pos the offset where the next posting is written or read.
+   * @return the given offset or the beginning of the next segment if a posting may not fit into the current one.
+   */
+  private static long align(long pos) {
+
+    if ((pos & SEGMENT_MASK) > SEGMENT_SIZE - POSTING_SIZE) {
+      return (pos | SEGMENT_MASK) + 1;
+    }
+    return pos;
+  }
+
+  /**
+   * @param packed the n-gram packed into a {@code long}.
+   * @return the hashed key.
+   */
+  static int hash(long packed) {
+
+    long hash = packed * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * @param start the index of the first song to index.
+   * @param end the index of the last song to index plus one.
+   * @param factory the {@link Supplier} of the {@link Extractor} used for a chunk of songs.
+   * @return the new {@link NgramPostings}.
+   */
+  static NgramPostings build(int start, int end, Supplier<? extends Extractor> factory) {
+
+    return build(start, end, factory, BATCH_CHUNKS);
+  }
+
+  /**
+   * @param start the index of the first song to index.
+   * @param end the index of the last song to index plus one.
+   * @param factory the {@link Supplier} of the {@link Extractor} used for a chunk of songs.
+   * @param batchChunks the number of chunks held uncompressed before they are merged.
+   * @return the new {@link NgramPostings}.
+   */
+  static NgramPostings build(int start, int end, Supplier<? extends Extractor> factory, int batchChunks) {
+
+    int chunkCount = (end - start + CHUNK_SONGS - 1) / CHUNK_SONGS;
+    int batchCount = Math.max(1, (int) (((long) chunkCount + batchChunks - 1) / batchChunks));
+    Source[] batches = new Source[batchCount];
+    for (int batch = 0; batch < batchCount; batch++) {
+      int firstChunk = batch * batchChunks;
+      Run[] runs = IntStream.range(firstChunk, Math.min(chunkCount, firstChunk + batchChunks)).parallel()
+          .mapToObj(chunk -> {
+            int chunkStart = start + chunk * CHUNK_SONGS;
+            return new Run(chunkStart, Math.min(end, chunkStart + CHUNK_SONGS), factory.get());
+          }).toArray(Run[]::new);
+      NgramPostings postings = merge(runs);
+      if (batchCount == 1) {
+        return postings;
+      }
+      batches[batch] = new PostingsSource(start + firstChunk * CHUNK_SONGS, postings);
+    }
+    return merge(batches);
+  }
+
+  private static NgramPostings merge(Source[] sources) {
+
+    PriorityQueue<Source> queue = new PriorityQueue<>(Math.max(1, sources.length), (s1, s2) -> {
+      int delta = Integer.compare(s1.getKey(), s2.getKey());
+      if (delta == 0) {
+        delta = Integer.compare(s1.start, s2.start);
+      }
+      return delta;
+    });
+    for (Source source : sources) {
+      if (source.next()) {
+        queue.add(source);
+      }
+    }
+    int[] keys = new int[1024];
+    int[] counts = new int[1024];
+    long[] offsets = new long[1025];
+    byte[][] segments = new byte[1][];
+    segments[0] = new byte[4096];
+    int keyCount = 0;
+    long length = 0;
+    int previousSong = 0;
+    int previousPosition = 0;
+    while (!queue.isEmpty()) {
+      Source run = queue.poll();
+      int key = run.getKey();
+      if ((keyCount == 0) || (keys[keyCount - 1] != key)) {
+        if (keyCount == keys.length) {
+          keys = Arrays.copyOf(keys, keyCount * 2);
+          counts = Arrays.copyOf(counts, keyCount * 2);
+          offsets = Arrays.copyOf(offsets, keyCount * 2 + 1);
+        }
+        offsets[keyCount] = length;
+        keys[keyCount++] = key;
+        previousSong = 0;
+        previousPosition = 0;
+      }
+      do {
+        int song = run.getSong();
+        int position = run.getPosition();
+        length = align(length);
+        int segmentIndex = (int) (length >>> SEGMENT_BITS);
+        int index = (int) (length & SEGMENT_MASK);
+        if (segmentIndex == segments.length) {
+          segments = Arrays.copyOf(segments, segmentIndex * 2);
+        }
+        byte[] segment = segments[segmentIndex];
+        if (segment == null) {
+          segment = new byte[4096];
+          segments[segmentIndex] = segment;
+        } else if (index + POSTING_SIZE > segment.length) {
+          segment = Arrays.copyOf(segment, Math.min(SEGMENT_SIZE, segment.length * 2));
+          segments[segmentIndex] = segment;
+        }
+        int songDelta = song - previousSong;
+        index = VarInt.write(segment, index, songDelta);
+        if (songDelta == 0) {
+          index = VarInt.write(segment, index, position - previousPosition);
+        } else {
+          index = VarInt.write(segment, index, position);
+        }
+        length = ((long) segmentIndex << SEGMENT_BITS) + index;
+        counts[keyCount - 1]++;
+        previousSong = song;
+        previousPosition = position;
+      } while (run.next() && (run.getKey() == key));
+      if (!run.isDone()) {
+        queue.add(run);
+      }
+    }
+    offsets[keyCount] = length;
+    int segmentCount = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+    segments = Arrays.copyOf(segments, segmentCount);
+    if (segmentCount > 0) {
+      int lastSize = (int) (length - ((long) (segmentCount - 1) << SEGMENT_BITS));
+      segments[segmentCount - 1] = Arrays.copyOf(segments[segmentCount - 1], lastSize);
+    }
+    return new NgramPostings(Arrays.copyOf(keys, keyCount), Arrays.copyOf(counts, keyCount),
+        Arrays.copyOf(offsets, keyCount + 1), segments, length);
+  }
+
+  /**
+   * Extracts the n-grams of a song. Each instance is only used by a single thread.
+   */
+  interface Extractor {
+
+    /**
+     * @param song the index of the song.
+     * @param sink the {@link Sink} receiving the n-grams in ascending order of their position.
+     */
+    void extract(int song, Sink sink);
+  }
+
+  /**
+   * Receives the n-grams of a song.
+   */
+  interface Sink {
+
+    /**
+     * @param key the hashed n-gram key.
+     * @param position the position of the n-gram within the song.
+     */
+    void add(int key, int position);
+  }
+
+  /**
+   * Receives decoded postings.
+   */
+  interface PostingConsumer {
+
+    /**
+     * @param song the index of the song.
+     * @param position the position within the song.
+     */
+    void accept(int song, int position);
+  }
+
+  /**
+   * A sequence of postings sorted by key, song and position that covers a range of songs.
+   */
+  private abstract static class Source {
+
+    /** The index of the first song. Sources with the same key are merged in ascending order of their songs. */
+    final int start;
+
+    private Source(int start) {
+
+      super();
+      this.start = start;
+    }
+
+    /**
+     * @return {@code true} if moved to the next posting, {@code false} if done.
+     */
+    abstract boolean next();
+
+    /**
+     * @return {@code true} if all postings have been consumed, {@code false} otherwise.
+     */
+    abstract boolean isDone();
+
+    abstract int getKey();
+
+    abstract int getSong();
+
+    abstract int getPosition();
+  }
+
+  /**
+   * The sorted n-gram entries of a chunk of songs.
+   */
+  private static class Run extends Source implements Sink {
+
+    private int[] entryKeys;
+
+    private int[] songs;
+
+    private int[] positions;
+
+    private int count;
+
+    private int song;
+
+    private long[] sorted;
+
+    private int index;
+
+    private Run(int start, int end, Extractor extractor) {
+
+      super(start);
+      this.entryKeys = new int[1024];
+      this.songs = new int[1024];
+      this.positions = new int[1024];
+      for (this.song = start; this.song < end; this.song++) {
+        extractor.extract(this.song, this);
+      }
+      // sort by key while keeping the order of song and position (entry index is tie breaker)
+      this.sorted = new long[this.count];
+      for (int i = 0; i < this.count; i++) {
+        this.sorted[i] = ((long) this.entryKeys[i] << 32) | i;
+      }
+      Arrays.sort(this.sorted);
+      this.entryKeys = null;
+      this.index = -1;
+    }
+
+    @Override
+    public void add(int key, int position) {
+
+      if (this.count == this.entryKeys.length) {
+        int capacity = this.count * 2;
+        this.entryKeys = Arrays.copyOf(this.entryKeys, capacity);
+        this.songs = Arrays.copyOf(this.songs, capacity);
+        this.positions = Arrays.copyOf(this.positions, capacity);
+      }
+      this.entryKeys[this.count] = key;
+      this.songs[this.count] = this.song;
+      this.positions[this.count] = position;
+      this.count++;
+    }
+
+    @Override
+    boolean next() {
+
+      this.index++;
+      return this.index < this.sorted.length;
+    }
+
+    @Override
+    boolean isDone() {
+
+      return this.index >= this.sorted.length;
+    }
+
+    @Override
+    int getKey() {
+
+      return (int) (this.sorted[this.index] >> 32);
+    }
+
+    @Override
+    int getSong() {
+
+      return this.songs[(int) this.sorted[this.index]];
+    }
+
+    @Override
+    int getPosition() {
+
+      return this.positions[(int) this.sorted[this.index]];
+    }
+  }
+
+  /**
+   * Decodes the postings of an already merged batch of chunks.
+   */
+  private static class PostingsSource extends Source {
+
+    private final NgramPostings postings;
+
+    private int keyIndex;
+
+    private long pos;
+
+    private int song;
+
+    private int position;
+
+    private PostingsSource(int start, NgramPostings postings) {
+
+      super(start);
+      this.postings = postings;
+      this.keyIndex = -1;
+    }
+
+    @Override
+    boolean next() {
+
+      if (isDone()) {
+        return false;
+      }
+      while (this.pos == this.postings.offsets[this.keyIndex + 1]) {
+        this.keyIndex++;
+        this.song = 0;
+        this.position = 0;
+        if (isDone()) {
+          return false;
+        }
+      }
+      this.pos = align(this.pos);
+      byte[] segment = this.postings.segments[(int) (this.pos >>> SEGMENT_BITS)];
+      int index = (int) (this.pos & SEGMENT_MASK);
+      int songDelta = VarInt.read(segment, index);
+      index = VarInt.skip(segment, index);
+      int value = VarInt.read(segment, index);
+      index = VarInt.skip(segment, index);
+      this.pos = (this.pos & ~(long) SEGMENT_MASK) + index;
+      if (songDelta == 0) {
+        this.position = this.position + value;
+      } else {
+        this.song = this.song + songDelta;
+        this.position = value;
+      }
+      return true;
+    }
+
+    @Override
+    boolean isDone() {
+
+      return this.keyIndex >= this.postings.keys.length;
+    }
+
+    @Override
+    int getKey() {
+
+      return this.postings.keys[this.keyIndex];
+    }
+
+    @Override
+    int getSong() {
+
+      return this.song;
+    }
+
+    @Override
+    int getPosition() {
+
+      return this.position;
+    }
+  }
+
+}
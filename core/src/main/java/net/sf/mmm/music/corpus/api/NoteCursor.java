@@ -0,0 +1,163 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * A reusable cursor over the {@link PackedNote packed notes} of a song in a {@link MusicCorpus}. It reads the packed
+ * values directly from the {@link MusicCorpus#getNoteSequences() note sequences} (on- or off-heap) and exposes them as
+ * {@link Tone} and {@link MusicalValue} without creating {@link MusicalItem}s. The returned objects are shared
+ * instances so iterating a song does not allocate.
+ *
+ * <pre>
+ * NoteCursor cursor = corpus.newNoteCursor(song);
+ * while (cursor.next()) {
+ *   if (!cursor.isRest()) {
+ *     Tone tone = cursor.getTone();
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @author hohwille
+ */
+public class NoteCursor {
+
+  private final MusicCorpus corpus;
+
+  private final PackedSequences notes;
+
+  private int song;
+
+  private int length;
+
+  private int index;
+
+  private int note;
+
+  /**
+   * The constructor.
+   *
+   * @param corpus the {@link MusicCorpus} to iterate.
+   */
+  public NoteCursor(MusicCorpus corpus) {
+
+    super();
+    this.corpus = corpus;
+    this.notes = corpus.getNoteSequences();
+    this.song = -1;
+  }
+
+  /**
+   * Positions this cursor before the first note of the given song so it can be reused for any song.
+   *
+   * @param newSong the index of the song to iterate.
+   * @return this.
+   */
+  public NoteCursor reset(int newSong) {
+
+    this.song = newSong;
+    this.length = this.notes.getLength(newSong);
+    this.index = -1;
+    return this;
+  }
+
+  /**
+   * @return {@code true} if the cursor moved to the next note, {@code false} if the end of the song has been reached.
+   */
+  public boolean next() {
+
+    if (this.index + 1 >= this.length) {
+      this.index = this.length;
+      return false;
+    }
+    this.index++;
+    this.note = this.notes.get(this.song, this.index);
+    return true;
+  }
+
+  /**
+   * @return the index of the current song.
+   */
+  public int getSong() {
+
+    return this.song;
+  }
+
+  /**
+   * @return the index of the current note within the song.
+   */
+  public int getIndex() {
+
+    return this.index;
+  }
+
+  /**
+   * @return the number of notes in the current song.
+   */
+  public int getLength() {
+
+    return this.length;
+  }
+
+  /**
+   * @return the current {@link PackedNote packed note}.
+   */
+  public int getPackedNote() {
+
+    return this.note;
+  }
+
+  /**
+   * @return {@code true} if the current note is a {@link MusicalItem#isRest() rest}, {@code false} otherwise.
+   */
+  public boolean isRest() {
+
+    return PackedNote.isRest(this.note);
+  }
+
+  /**
+   * @return the {@link Tone} of the current note or {@code null} if {@link #isRest() rest}.
+   */
+  public Tone getTone() {
+
+    if (isRest()) {
+      return null;
+    }
+    return PackedTone.toTone(PackedNote.getTone(this.note));
+  }
+
+  /**
+   * @return the {@link Tone#getPitch() pitch} of the current note or {@code null} if {@link #isRest() rest}.
+   */
+  public TonePitch getPitch() {
+
+    if (isRest()) {
+      return null;
+    }
+    return PackedTone.getPitch(PackedNote.getTone(this.note));
+  }
+
+  /**
+   * @return the {@link PackedTone#getChromaticNumber(int) chromatic number} of the current note. Must not be a
+   *         {@link #isRest() rest}.
+   */
+  public int getChromaticNumber() {
+
+    return PackedNote.getChromaticNumber(this.note);
+  }
+
+  /**
+   * @return the {@link MusicalValue} of the current note.
+   */
+  public MusicalValue getValue() {
+
+    return this.corpus.getValueDictionary().get(PackedNote.getValueIndex(this.note));
+  }
+
+}
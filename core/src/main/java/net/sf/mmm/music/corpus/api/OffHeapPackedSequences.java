@@ -0,0 +1,155 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link BufferPackedSequences} stored off-heap in {@link ByteBuffer#allocateDirect(int) direct buffers}. The garbage
+ * collector only sees a few buffer objects no matter how many values are stored. Unlike {@link ArrayPackedSequences}
+ * the total length is not limited to {@link Integer#MAX_VALUE}. Use {@link Builder} to fill it directly or
+ * {@link #copyOf(PackedSequences)} to move existing sequences off the heap.
+ *
+ * @author hohwille
+ */
+public class OffHeapPackedSequences extends BufferPackedSequences {
+
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /**
+   * The constructor.
+   *
+   * @param offsets the offsets of the sequences in the concatenated {@code segments} plus the final end offset.
+   * @param segments the values of all sequences back-to-back split into segments of {@link #SEGMENT_SIZE} values
+   *        (the last segment may be smaller).
+   */
+  private OffHeapPackedSequences(LongBuffer offsets, IntBuffer[] segments) {
+
+    super(offsets, segments);
+  }
+
+  /**
+   * @param sequences the {@link PackedSequences} to copy.
+   * @return a new {@link OffHeapPackedSequences} with a copy of the given {@link PackedSequences}.
+   */
+  public static OffHeapPackedSequences copyOf(PackedSequences sequences) {
+
+    if (sequences instanceof OffHeapPackedSequences) {
+      return (OffHeapPackedSequences) sequences;
+    }
+    Builder builder = new Builder();
+    int count = sequences.size();
+    for (int sequence = 0; sequence < count; sequence++) {
+      int length = sequences.getLength(sequence);
+      for (int i = 0; i < length; i++) {
+        builder.add(sequences.get(sequence, i));
+      }
+      builder.endSequence();
+    }
+    return builder.build();
+  }
+
+  private static IntBuffer allocate(int capacity) {
+
+    return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+  private static LongBuffer allocateLong(int capacity) {
+
+    return ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+  }
+
+  /**
+   * Builder to append sequences value by value directly into off-heap memory.
+   */
+  public static class Builder implements PackedSequencesBuilder {
+
+    private LongBuffer offsets;
+
+    private IntBuffer[] segments;
+
+    private IntBuffer segment;
+
+    private int segmentCount;
+
+    private int sequenceCount;
+
+    private long length;
+
+    /**
+     * The constructor.
+     */
+    public Builder() {
+
+      super();
+      this.offsets = allocateLong(64);
+      this.offsets.put(0, 0);
+      this.segments = new IntBuffer[4];
+      this.segment = allocate(1024);
+      this.segments[0] = this.segment;
+      this.segmentCount = 1;
+    }
+
+    @Override
+    public Builder add(int value) {
+
+      int index = (int) (this.length & SEGMENT_MASK);
+      if ((index == 0) && (this.length > 0)) {
+        // current segment is full, start a new one
+        if (this.segmentCount == this.segments.length) {
+          this.segments = Arrays.copyOf(this.segments, this.segmentCount * 2);
+        }
+        this.segment = allocate(1024);
+        this.segments[this.segmentCount++] = this.segment;
+      } else if (index == this.segment.capacity()) {
+        IntBuffer grown = allocate(Math.min(SEGMENT_SIZE, index * 2));
+        this.segment.clear();
+        grown.put(this.segment);
+        this.segment = grown;
+        this.segments[this.segmentCount - 1] = grown;
+      }
+      this.segment.put(index, value);
+      this.length++;
+      return this;
+    }
+
+    @Override
+    public int endSequence() {
+
+      int sequence = this.sequenceCount++;
+      if (this.sequenceCount == this.offsets.capacity()) {
+        LongBuffer grown = allocateLong(this.offsets.capacity() * 2);
+        this.offsets.clear();
+        grown.put(this.offsets);
+        this.offsets = grown;
+      }
+      this.offsets.put(this.sequenceCount, this.length);
+      return sequence;
+    }
+
+    @Override
+    public OffHeapPackedSequences build() {
+
+      IntBuffer[] result = new IntBuffer[this.segmentCount];
+      for (int i = 0; i < this.segmentCount; i++) {
+        IntBuffer buffer = this.segments[i].duplicate();
+        buffer.clear();
+        if (i == this.segmentCount - 1) {
+          long end = this.offsets.get(this.sequenceCount);
+          buffer.limit((int) Math.max(0, end - ((long) i << SEGMENT_BITS)));
+        }
+        result[i] = buffer.slice();
+      }
+      LongBuffer offsetView = this.offsets.duplicate();
+      offsetView.clear();
+      offsetView.limit(this.sequenceCount + 1);
+      return new OffHeapPackedSequences(offsetView.slice(), result);
+    }
+
+  }
+
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import net.sf.mmm.music.datatype.api.EnharmonicStyle;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.PackedTone;
+
+/**
+ * Helper to represent a {@link MusicalItem} as a packed {@code int} value. The lower 16 bits contain the
+ * {@link PackedTone packed tone} or {@link #REST} and the upper 16 bits contain the index of the
+ * {@link MusicalItem#getValue() value} in the {@link MusicCorpus#getValueDictionary() value dictionary}.
+ *
+ * @author hohwille
+ */
+public final class PackedNote {
+
+  /** The value of the lower 16 bits for a {@link MusicalItem#isRest() rest}. */
+  public static final int REST = 0xFFFF;
+
+  /** The maximum number of distinct {@link net.sf.mmm.music.datatype.api.MusicalValue}s. */
+  public static final int MAX_VALUES = 0x10000;
+
+  private static final int TONE_MASK = 0xFFFF;
+
+  private PackedNote() {
+
+    super();
+  }
+
+  /**
+   * @param item the {@link MusicalItem} to pack. Has to be a {@link MusicalItem#isRest() rest} or a
+   *        {@link MusicalItem#isTone() tone}.
+   * @param valueIndex the index of the {@link MusicalItem#getValue() value} in the according dictionary.
+   * @return the packed {@code int} value.
+   */
+  public static int pack(MusicalItem item, int valueIndex) {
+
+    if (item.isRest()) {
+      return pack(REST, valueIndex);
+    }
+    if (!item.isTone()) {
+      throw new IllegalArgumentException(item.getClass().getName());
+    }
+    return pack(PackedTone.pack(item.getTone()), valueIndex);
+  }
+
+  /**
+   * @param packedTone the {@link PackedTone packed tone} or {@link #REST}.
+   * @param valueIndex the index of the {@link MusicalItem#getValue() value} in the according dictionary.
+   * @return the packed {@code int} value.
+   */
+  public static int pack(int packedTone, int valueIndex) {
+
+    if ((valueIndex < 0) || (valueIndex >= MAX_VALUES)) {
+      throw new IllegalArgumentException(Integer.toString(valueIndex));
+    }
+    return (valueIndex << 16) | (packedTone & TONE_MASK);
+  }
+
+  /**
+   * @param packedNote the {@link #pack(MusicalItem, int) packed note}.
+   * @return {@code true} if the packed note is a {@link MusicalItem#isRest() rest}, {@code false} otherwise.
+   */
+  public static boolean isRest(int packedNote) {
+
+    return (packedNote & TONE_MASK) == REST;
+  }
+
+  /**
+   * @param packedNote the {@link #pack(MusicalItem, int) packed note}.
+   * @return the {@link PackedTone packed tone} or {@link #REST}.
+   */
+  public static int getTone(int packedNote) {
+
+    return packedNote & TONE_MASK;
+  }
+
+  /**
+   * @param packedNote the {@link #pack(MusicalItem, int) packed note}.
+   * @return the index of the {@link MusicalItem#getValue() value} in the according dictionary.
+   */
+  public static int getValueIndex(int packedNote) {
+
+    return packedNote >>> 16;
+  }
+
+  /**
+   * @param packedNote the {@link #pack(MusicalItem, int) packed note}. Must not be a {@link #isRest(int) rest}.
+   * @return the {@link PackedTone#getChromaticNumber(int) chromatic number} of the tone.
+   */
+  public static int getChromaticNumber(int packedNote) {
+
+    return PackedTone.getChromaticNumber(packedNote & TONE_MASK);
+  }
+
+  /**
+   * @see PackedTone#transposeChromatic(int, int, MusicalKey)
+   *
+   * @param packedNote the {@link #pack(MusicalItem, int) packed note}.
+   * @param semitoneSteps is the number of semitone steps to transpose.
+   * @param targetKey is the target {@link MusicalKey key} or {@code null} for {@link EnharmonicStyle#NORMAL}.
+   * @return the transposed {@link #pack(MusicalItem, int) packed note}. A {@link #isRest(int) rest} is returned as
+   *         is.
+   */
+  public static int transposeChromatic(int packedNote, int semitoneSteps, MusicalKey targetKey) {
+
+    if (isRest(packedNote)) {
+      return packedNote;
+    }
+    int tone = packedNote & TONE_MASK;
+    int transposed;
+    if (targetKey == null) {
+      transposed = PackedTone.transposeChromatic(tone, semitoneSteps, EnharmonicStyle.NORMAL);
+    } else {
+      transposed = PackedTone.transposeChromatic(tone, semitoneSteps, targetKey);
+    }
+    return (packedNote & ~TONE_MASK) | transposed;
+  }
+
+}
@@ -0,0 +1,40 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+/**
+ * Interface for an immutable store of many {@code int} sequences (e.g. one sequence of {@link PackedNote packed notes}
+ * or {@link InternDictionary chord indexes} per song). All sequences are stored back-to-back so the store only needs
+ * a single offset per sequence and no object per element.
+ *
+ * @see ArrayPackedSequences
+ * @see BufferPackedSequences
+ *
+ * @author hohwille
+ */
+public interface PackedSequences {
+
+  /**
+   * @return the number of sequences.
+   */
+  int size();
+
+  /**
+   * @param sequence the index of the sequence.
+   * @return the number of values in the given sequence.
+   */
+  int getLength(int sequence);
+
+  /**
+   * @param sequence the index of the sequence.
+   * @param index the index of the value within the sequence.
+   * @return the requested value.
+   */
+  int get(int sequence, int index);
+
+  /**
+   * @return the total number of values in all sequences.
+   */
+  long getTotalLength();
+
+}
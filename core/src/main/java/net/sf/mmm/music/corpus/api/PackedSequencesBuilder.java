@@ -0,0 +1,33 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+/**
+ * Interface for a builder of {@link PackedSequences} that appends sequences value by value.
+ *
+ * @see ArrayPackedSequences.Builder
+ * @see OffHeapPackedSequences.Builder
+ *
+ * @author hohwille
+ */
+public interface PackedSequencesBuilder {
+
+  /**
+   * @param value the value to append to the current sequence.
+   * @return this.
+   */
+  PackedSequencesBuilder add(int value);
+
+  /**
+   * Ends the current sequence so subsequent {@link #add(int) values} will be added to a new sequence.
+   *
+   * @return the index of the ended sequence.
+   */
+  int endSequence();
+
+  /**
+   * @return the new {@link PackedSequences} with all {@link #endSequence() ended sequences}.
+   */
+  PackedSequences build();
+
+}
@@ -0,0 +1,319 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.analysis.api.ChordDegree;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+/**
+ * An inverted index over the chord progressions of a {@link MusicCorpus} to find a progression such as "ii-V-I" in
+ * any key. The {@link Chord}s of each song are normalized to {@link ChordDegree}s relative to the
+ * {@link MusicCorpus#getKey(int) key} of the song (songs without key are not indexed) and every n-gram of their
+ * {@link ChordDegree#CORE_MASK degree and tonal system} is indexed with compressed posting lists. The
+ * {@link ChordDegree#getExtensionMask() extensions} are only used to {@link ProgressionMatch#getScore() rank} the
+ * matches. The index is immutable and can be {@link #update(MusicCorpus) updated incrementally} for songs added to
+ * the corpus.
+ *
+ * @author hohwille
+ */
+public class ProgressionIndex {
+
+  /** The default {@link #getNgramLength() n-gram length}. */
+  public static final int DEFAULT_NGRAM_LENGTH = 2;
+
+  /** The maximum {@link #getNgramLength() n-gram length}. */
+  public static final int MAX_NGRAM_LENGTH = 7;
+
+  private static final Comparator<ProgressionMatch> RANKING = (m1, m2) -> {
+    int delta = Integer.compare(m2.getScore(), m1.getScore());
+    if (delta == 0) {
+      delta = m1.compareTo(m2);
+    }
+    return delta;
+  };
+
+  private final MusicCorpus corpus;
+
+  private final int ngramLength;
+
+  private final List<Segment> segments;
+
+  private ProgressionIndex(MusicCorpus corpus, int ngramLength, List<Segment> segments) {
+
+    super();
+    this.corpus = corpus;
+    this.ngramLength = ngramLength;
+    this.segments = segments;
+  }
+
+  /**
+   * @return the {@link MusicCorpus} this index was built for.
+   */
+  public MusicCorpus getCorpus() {
+
+    return this.corpus;
+  }
+
+  /**
+   * @return the number of chords per indexed n-gram.
+   */
+  public int getNgramLength() {
+
+    return this.ngramLength;
+  }
+
+  /**
+   * @return the number of indexed songs.
+   */
+  public int getSongCount() {
+
+    if (this.segments.isEmpty()) {
+      return 0;
+    }
+    return this.segments.get(this.segments.size() - 1).end;
+  }
+
+  /**
+   * @return the number of segments (one per {@link #build(MusicCorpus) build} or {@link #update(MusicCorpus)
+   *         update}).
+   */
+  public int getSegmentCount() {
+
+    return this.segments.size();
+  }
+
+  /**
+   * @param corpus the {@link MusicCorpus} to index.
+   * @return the {@link ProgressionIndex} with {@link #DEFAULT_NGRAM_LENGTH}.
+   */
+  public static ProgressionIndex build(MusicCorpus corpus) {
+
+    return build(corpus, DEFAULT_NGRAM_LENGTH);
+  }
+
+  /**
+   * Builds the index in parallel for chunks of songs.
+   *
+   * @param corpus the {@link MusicCorpus} to index.
+   * @param ngramLength the {@link #getNgramLength() n-gram length}.
+   * @return the {@link ProgressionIndex} for the given {@link MusicCorpus}.
+   */
+  public static ProgressionIndex build(MusicCorpus corpus, int ngramLength) {
+
+    if ((ngramLength < 1) || (ngramLength > MAX_NGRAM_LENGTH)) {
+      throw new IllegalArgumentException(Integer.toString(ngramLength));
+    }
+    return new ProgressionIndex(corpus, ngramLength, Collections.emptyList()).update(corpus);
+  }
+
+  /**
+   * Indexes the songs that have been added to the {@link MusicCorpus} since this index was built. The existing
+   * postings are reused as is.
+   *
+   * @param newCorpus the {@link MusicCorpus} with the same songs as {@link #getCorpus() the current corpus} plus
+   *        additional songs appended.
+   * @return the updated {@link ProgressionIndex} or {@code this} if there are no new songs.
+   */
+  public ProgressionIndex update(MusicCorpus newCorpus) {
+
+    int start = getSongCount();
+    int end = newCorpus.getSongCount();
+    if (end < start) {
+      throw new IllegalArgumentException("Songs have been removed from corpus");
+    } else if ((end == start) && (newCorpus == this.corpus)) {
+      return this;
+    }
+    NgramPostings postings = NgramPostings.build(start, end,
+        () -> new ProgressionExtractor(newCorpus, this.ngramLength));
+    List<Segment> newSegments = new ArrayList<>(this.segments);
+    newSegments.add(new Segment(end, postings));
+    return new ProgressionIndex(newCorpus, this.ngramLength, Collections.unmodifiableList(newSegments));
+  }
+
+  /**
+   * @param progression the progression in Roman numeral notation (e.g. "ii-V-I" or "I V vi IV").
+   * @return the ranked {@link ProgressionMatch}es.
+   * @see ChordDegree#parseProgression(String)
+   * @see #find(List, int)
+   */
+  public List<ProgressionMatch> find(String progression) {
+
+    return find(ChordDegree.parseProgression(progression), Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param progression the {@link List} of {@link ChordDegree}s to find.
+   * @param maxResults the maximum number of matches to return.
+   * @return the {@link ProgressionMatch}es ranked by {@link ProgressionMatch#getScore() score} (descending) and then
+   *         by song and position. The {@link ProgressionMatch#getPosition() position} is the offset of the first
+   *         matching chord.
+   */
+  public List<ProgressionMatch> find(List<ChordDegree> progression, int maxResults) {
+
+    int length = progression.size();
+    if (length == 0) {
+      return Collections.emptyList();
+    }
+    int[] query = new int[length];
+    for (int i = 0; i < length; i++) {
+      query[i] = progression.get(i).getPacked();
+    }
+    List<ProgressionMatch> matches;
+    if (length < this.ngramLength) {
+      matches = scan(query);
+    } else {
+      matches = new ArrayList<>();
+      for (Segment segment : this.segments) {
+        find(segment.postings, query, matches);
+      }
+    }
+    matches.sort(RANKING);
+    if (matches.size() > maxResults) {
+      return new ArrayList<>(matches.subList(0, maxResults));
+    }
+    return matches;
+  }
+
+  private void find(NgramPostings postings, int[] query, List<ProgressionMatch> matches) {
+
+    // pick the n-gram with the shortest posting list
+    int bestGram = -1;
+    int bestKey = -1;
+    int bestCount = Integer.MAX_VALUE;
+    for (int gram = 0; gram + this.ngramLength <= query.length; gram++) {
+      int index = postings.indexOf(hash(query, gram, this.ngramLength));
+      if (index < 0) {
+        return;
+      }
+      int count = postings.getCount(index);
+      if (count < bestCount) {
+        bestCount = count;
+        bestKey = index;
+        bestGram = gram;
+      }
+    }
+    int gramOffset = bestGram;
+    postings.forEach(bestKey, (song, position) -> {
+      int score = score(song, position - gramOffset, query);
+      if (score >= 0) {
+        matches.add(new ProgressionMatch(song, position - gramOffset, score));
+      }
+    });
+  }
+
+  private List<ProgressionMatch> scan(int[] query) {
+
+    PackedSequences chords = this.corpus.getChordSequences();
+    return IntStream.range(0, getSongCount()).parallel().mapToObj(song -> {
+      List<ProgressionMatch> matches = new ArrayList<>();
+      int end = chords.getLength(song) - query.length;
+      for (int start = 0; start <= end; start++) {
+        int score = score(song, start, query);
+        if (score >= 0) {
+          matches.add(new ProgressionMatch(song, start, score));
+        }
+      }
+      return matches;
+    }).flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  /**
+   * @return the number of exactly matching chords or {@code -1} if the progression does not match.
+   */
+  private int score(int song, int start, int[] query) {
+
+    MusicalKey key = this.corpus.getKey(song);
+    PackedSequences chords = this.corpus.getChordSequences();
+    if ((key == null) || (start < 0) || (start + query.length > chords.getLength(song))) {
+      return -1;
+    }
+    InternDictionary<Chord> dictionary = this.corpus.getChordDictionary();
+    int score = 0;
+    for (int i = 0; i < query.length; i++) {
+      int degree = ChordDegree.pack(dictionary.get(chords.get(song, start + i)), key);
+      if ((degree & ChordDegree.CORE_MASK) != (query[i] & ChordDegree.CORE_MASK)) {
+        return -1;
+      }
+      if (degree == query[i]) {
+        score++;
+      }
+    }
+    return score;
+  }
+
+  private static int hash(int[] degrees, int offset, int length) {
+
+    long packed = 0;
+    for (int i = offset; i < offset + length; i++) {
+      packed = (packed << 8) | (degrees[i] & ChordDegree.CORE_MASK);
+    }
+    return NgramPostings.hash(packed);
+  }
+
+  /**
+   * The postings of the songs added by a single {@link ProgressionIndex#update(MusicCorpus) update}.
+   */
+  private static class Segment {
+
+    private final int end;
+
+    private final NgramPostings postings;
+
+    private Segment(int end, NgramPostings postings) {
+
+      super();
+      this.end = end;
+      this.postings = postings;
+    }
+  }
+
+  /**
+   * Extracts the {@link ChordDegree} n-grams of the songs.
+   */
+  private static class ProgressionExtractor implements NgramPostings.Extractor {
+
+    private final MusicCorpus corpus;
+
+    private final int ngramLength;
+
+    private int[] degrees;
+
+    private ProgressionExtractor(MusicCorpus corpus, int ngramLength) {
+
+      super();
+      this.corpus = corpus;
+      this.ngramLength = ngramLength;
+      this.degrees = new int[64];
+    }
+
+    @Override
+    public void extract(int song, NgramPostings.Sink sink) {
+
+      MusicalKey key = this.corpus.getKey(song);
+      if (key == null) {
+        return;
+      }
+      PackedSequences chords = this.corpus.getChordSequences();
+      InternDictionary<Chord> dictionary = this.corpus.getChordDictionary();
+      int length = chords.getLength(song);
+      if (length > this.degrees.length) {
+        this.degrees = new int[length];
+      }
+      for (int i = 0; i < length; i++) {
+        this.degrees[i] = ChordDegree.pack(dictionary.get(chords.get(song, i)), key);
+      }
+      for (int gram = 0; gram + this.ngramLength <= length; gram++) {
+        sink.add(hash(this.degrees, gram, this.ngramLength), gram);
+      }
+    }
+  }
+
+}
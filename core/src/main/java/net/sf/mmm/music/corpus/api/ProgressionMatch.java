@@ -0,0 +1,54 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+/**
+ * A {@link CorpusMatch} of a {@link ProgressionIndex} query with a {@link #getScore() score} for ranking.
+ *
+ * @author hohwille
+ */
+public class ProgressionMatch extends CorpusMatch {
+
+  private final int score;
+
+  /**
+   * The constructor.
+   *
+   * @param song - see {@link #getSong()}.
+   * @param position - see {@link #getPosition()}.
+   * @param score - see {@link #getScore()}.
+   */
+  public ProgressionMatch(int song, int position, int score) {
+
+    super(song, position);
+    this.score = score;
+  }
+
+  /**
+   * @return the number of chords that also match the queried {@link net.sf.mmm.music.datatype.api.ChordExtension
+   *         extensions} exactly. A higher score is a better match.
+   */
+  public int getScore() {
+
+    return this.score;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    return super.equals(obj) && (this.score == ((ProgressionMatch) obj).score);
+  }
+
+  @Override
+  public int hashCode() {
+
+    return 31 * super.hashCode() + this.score;
+  }
+
+  @Override
+  public String toString() {
+
+    return super.toString() + "(" + this.score + ")";
+  }
+
+}
@@ -60,6 +60,8 @@ public class Chord {
 
   private final TonalSystem tonalSystem;
 
+  private int pitchClassMask;
+
   /**
    * The constructor.
    *
@@ -196,7 +198,17 @@ public class Chord {
     this(fundamental, system, base, null, Collections.unmodifiableList(Arrays.asList(extensions)));
   }
 
-  private Chord(TonePitch fundamental, TonalSystem system, TonePitch base, String extensionsString,
+  /**
+   * The constructor.
+   *
+   * @param fundamental - see {@link #getFundamentalTone()}.
+   * @param system - see {@link #getTonalSystem()}.
+   * @param base - see {@link #getBaseTone()}.
+   * @param extensionsString - see {@link #getExtensionsString()}. May be {@code null} to build it from the given
+   *        {@code extensions}.
+   * @param extensions - see {@link #getExtensions()}.
+   */
+  public Chord(TonePitch fundamental, TonalSystem system, TonePitch base, String extensionsString,
       List<ChordExtension> extensions) {
 
     super();
@@ -293,6 +305,48 @@ public class Chord {
     return this.extensionsString;
   }
 
+  /**
+   * @return the bitmask of the pitch classes contained in this {@link Chord} with the bit {@code 1 << step} set for
+   *         the {@link TonePitch#getStep() step} of each tone. It includes the {@link #getFundamentalTone() fundamental
+   *         tone}, the third according to the {@link #getTonalSystem() tonal system}, the fifth, the
+   *         {@link ChordExtension#getIntervals() intervals} of the {@link #getExtensions() extensions} and the
+   *         {@link #getBaseTone() base tone}. E.g. for "C7" the bits of C, E, G and B&#9837; are set.
+   */
+  public int getPitchClassMask() {
+
+    if (this.pitchClassMask == 0) {
+      int intervals = 1;
+      boolean third = (this.tonalSystem != null);
+      boolean fifth = true;
+      for (ChordExtension extension : this.extensions) {
+        if (extension.isRemoveThird()) {
+          third = false;
+        }
+        if (extension.isRemoveFifth()) {
+          fifth = false;
+        }
+        for (ChromaticInterval interval : extension.getIntervals()) {
+          intervals = intervals | (1 << (interval.getChromaticSteps() % 12));
+        }
+      }
+      if (third) {
+        if (this.tonalSystem == TonalSystem.MINOR) {
+          intervals = intervals | (1 << ChromaticInterval.MINOR_THIRD.getChromaticSteps());
+        } else {
+          intervals = intervals | (1 << ChromaticInterval.MAJOR_THIRD.getChromaticSteps());
+        }
+      }
+      if (fifth) {
+        intervals = intervals | (1 << ChromaticInterval.PERFECT_FIFTH.getChromaticSteps());
+      }
+      // rotate intervals to the fundamental tone
+      int step = this.fundamentalTone.getStep();
+      int mask = ((intervals << step) | (intervals >>> (12 - step))) & 0xFFF;
+      this.pitchClassMask = mask | (1 << this.baseTone.getStep());
+    }
+    return this.pitchClassMask;
+  }
+
   /**
    * {@inheritDoc}
    */
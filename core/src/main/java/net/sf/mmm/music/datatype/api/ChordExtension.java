@@ -49,7 +49,7 @@ public enum ChordExtension {
   _5("5", true, false, null, null),
 
   /** {@link #isRemoveFifth() Removes the fifth} of the {@link Chord}. */
-  NO_5("no5", false, true, null, null, ChromaticInterval.PERFECT_FIFTH),
+  NO_5("no5", false, true, null, null),
 
   /** Adds a {@link ChromaticInterval#MAJOR_SIXT} to the {@link Chord}. */
   _6("6", false, false, null, "maj6", ChromaticInterval.MAJOR_SIXT),
@@ -58,7 +58,7 @@ public enum ChordExtension {
   _7("7", false, false, null, "7", ChromaticInterval.MINOR_SEVENTH),
 
   /** Adds a {@link ChromaticInterval#MAJOR_SEVENTH} to the {@link Chord}. */
-  MAJ_7("maj7", false, false, "Δ", "j7", ChromaticInterval.MINOR_SEVENTH),
+  MAJ_7("maj7", false, false, "Δ", "j7", ChromaticInterval.MAJOR_SEVENTH),
 
   /** Adds a {@link ChromaticInterval#MINOR_SEVENTH} and {@link ChromaticInterval#MAJOR_NINTH} to the {@link Chord}. */
   _9("9", false, false, null, null, ChromaticInterval.MINOR_SEVENTH, ChromaticInterval.MAJOR_NINTH),
@@ -101,7 +101,7 @@ public enum ChordExtension {
    * of the {@link Chord} and replaces them with a {@link ChromaticInterval#MAJOR_THIRD} and a
    * {@link ChromaticInterval#MAJOR_SIXT}.
    */
-  AUG("aug", true, false, null, "+", ChromaticInterval.MAJOR_THIRD, ChromaticInterval.MINOR_SIXT);
+  AUG("aug", true, true, null, "+", ChromaticInterval.MAJOR_THIRD, ChromaticInterval.MINOR_SIXT);
 
   private static final Map<String, ChordExtension> NAME2EXT_MAP = new HashMap<>();
 
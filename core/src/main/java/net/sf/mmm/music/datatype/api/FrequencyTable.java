@@ -0,0 +1,207 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FrequencyTable} maps {@link Tone}s to their frequency in Hertz for a given reference frequency of the
+ * concert A ({@link TonePitch#A A} in {@link Tone#getOctave() octave} {@code 0}) and a {@link Temperament}. The
+ * frequencies of the MIDI range (C in octave {@code -5} to G in octave {@code 5}) are precomputed so a lookup is a
+ * plain array access and tones beyond this range only need a binary exponent shift. The reverse lookup of the
+ * {@link #getNearestTone(double) nearest tone} for a frequency is a binary search on the precomputed boundaries
+ * between adjacent tones. No {@link Math#pow(double, double)} is needed after construction.
+ *
+ * @see Tone#getFrequency()
+ *
+ * @author hohwille
+ */
+public final class FrequencyTable {
+
+  /** The default reference frequency of the concert A. */
+  public static final double DEFAULT_REFERENCE = 440;
+
+  /** The {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the first precomputed frequency. */
+  private static final int MIN_NUMBER = -60;
+
+  /** The number of precomputed frequencies. */
+  private static final int SIZE = 128;
+
+  /** The {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the concert A. */
+  private static final int A_NUMBER = TonePitch.A.getStep();
+
+  private static final double CENTS_PER_LOG = 1200 / Math.log(2);
+
+  private static final Map<String, FrequencyTable> TABLES = new ConcurrentHashMap<>();
+
+  /** The default {@link FrequencyTable} for {@link Temperament#EQUAL equal temperament} and A at 440Hz. */
+  public static final FrequencyTable STANDARD = of(DEFAULT_REFERENCE, Temperament.EQUAL);
+
+  private final double reference;
+
+  private final Temperament temperament;
+
+  private final TonePitch tonic;
+
+  private final double[] frequencies;
+
+  /** The geometric mean of each two adjacent {@link #frequencies}. */
+  private final double[] boundaries;
+
+  private FrequencyTable(double reference, Temperament temperament, TonePitch tonic) {
+
+    super();
+    this.reference = reference;
+    this.temperament = temperament;
+    this.tonic = tonic;
+    int tonicStep = tonic.getStep();
+    int aSteps = A_NUMBER - tonicStep;
+    double aRatio = temperament.getRatio(Math.floorMod(aSteps, 12));
+    int aOctave = Math.floorDiv(aSteps, 12);
+    this.frequencies = new double[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      int steps = MIN_NUMBER + i - tonicStep;
+      // relative to the concert A so it gets the exact reference frequency
+      double ratio = temperament.getRatio(Math.floorMod(steps, 12)) / aRatio;
+      this.frequencies[i] = Math.scalb(reference * ratio, Math.floorDiv(steps, 12) - aOctave);
+    }
+    this.boundaries = new double[SIZE - 1];
+    for (int i = 0; i < this.boundaries.length; i++) {
+      this.boundaries[i] = Math.sqrt(this.frequencies[i] * this.frequencies[i + 1]);
+    }
+  }
+
+  /**
+   * @param reference the {@link #getReference() reference frequency}.
+   * @param temperament the {@link Temperament}.
+   * @return the {@link FrequencyTable} with {@link TonePitch#C C} as {@link #getTonic() tonic}.
+   */
+  public static FrequencyTable of(double reference, Temperament temperament) {
+
+    return of(reference, temperament, TonePitch.C);
+  }
+
+  /**
+   * @param reference the {@link #getReference() reference frequency}.
+   * @param temperament the {@link Temperament}.
+   * @param tonic the {@link #getTonic() tonic}.
+   * @return the shared {@link FrequencyTable} for the given parameters.
+   */
+  public static FrequencyTable of(double reference, Temperament temperament, TonePitch tonic) {
+
+    if (!(reference > 0)) {
+      throw new IllegalArgumentException(Double.toString(reference));
+    }
+    TonePitch normal = tonic.getNormal();
+    String key = reference + ":" + temperament + ":" + normal.getStep();
+    return TABLES.computeIfAbsent(key, k -> new FrequencyTable(reference, temperament, normal));
+  }
+
+  /**
+   * @return the frequency of the concert A ({@link TonePitch#A A} in {@link Tone#getOctave() octave} {@code 0}) in
+   *         Hertz. Typically {@link #DEFAULT_REFERENCE 440}.
+   */
+  public double getReference() {
+
+    return this.reference;
+  }
+
+  /**
+   * @return the {@link Temperament}.
+   */
+  public Temperament getTemperament() {
+
+    return this.temperament;
+  }
+
+  /**
+   * @return the {@link TonePitch} the {@link Temperament} is relative to. Irrelevant for {@link Temperament#EQUAL}.
+   */
+  public TonePitch getTonic() {
+
+    return this.tonic;
+  }
+
+  /**
+   * @param tone the {@link Tone}.
+   * @return the frequency of the given {@link Tone} in Hertz.
+   */
+  public double getFrequency(Tone tone) {
+
+    return getChromaticFrequency(PackedTone.getChromaticNumber(tone));
+  }
+
+  /**
+   * @param packedTone the {@link PackedTone#pack(Tone) packed tone}.
+   * @return the frequency of the given tone in Hertz.
+   */
+  public double getFrequency(int packedTone) {
+
+    return getChromaticFrequency(PackedTone.getChromaticNumber(packedTone));
+  }
+
+  /**
+   * @param chromaticNumber the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of a tone.
+   * @return the frequency of the given tone in Hertz.
+   */
+  public double getChromaticFrequency(int chromaticNumber) {
+
+    int index = chromaticNumber - MIN_NUMBER;
+    if (index < 0) {
+      int octaves = (11 - index) / 12;
+      return Math.scalb(this.frequencies[index + octaves * 12], -octaves);
+    } else if (index >= SIZE) {
+      int octaves = (index - SIZE + 12) / 12;
+      return Math.scalb(this.frequencies[index - octaves * 12], octaves);
+    }
+    return this.frequencies[index];
+  }
+
+  /**
+   * @param frequency the frequency in Hertz.
+   * @return the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the tone nearest to the given
+   *         frequency on a logarithmic scale. Limited to the MIDI range.
+   */
+  public int getNearestChromaticNumber(double frequency) {
+
+    int index = Arrays.binarySearch(this.boundaries, frequency);
+    if (index < 0) {
+      index = -index - 1;
+    } else {
+      index++;
+    }
+    return index + MIN_NUMBER;
+  }
+
+  /**
+   * @param frequency the frequency in Hertz.
+   * @return the {@link Tone} nearest to the given frequency in {@link EnharmonicStyle#NORMAL normal} form.
+   * @see #getNearestChromaticNumber(double)
+   */
+  public Tone getNearestTone(double frequency) {
+
+    int number = getNearestChromaticNumber(frequency);
+    return PackedTone.toTone(PackedTone.transposeChromatic(PackedTone.pack(TonePitch.C, 0), number,
+        EnharmonicStyle.NORMAL));
+  }
+
+  /**
+   * @param frequency the frequency in Hertz.
+   * @return the deviation of the given frequency from the {@link #getNearestTone(double) nearest tone} in cents
+   *         (1/100 of a semitone). Typically in the range from {@code -50} to {@code 50}.
+   */
+  public double getCents(double frequency) {
+
+    int number = getNearestChromaticNumber(frequency);
+    return Math.log(frequency / this.frequencies[number - MIN_NUMBER]) * CENTS_PER_LOG;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.temperament + "(A=" + this.reference + "Hz, " + this.tonic + ")";
+  }
+
+}
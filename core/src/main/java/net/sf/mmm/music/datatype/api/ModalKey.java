@@ -0,0 +1,209 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link ModalKey} is the combination of a {@link #getTonika() tonika} with any {@link TonalSystem} including the
+ * modes such as {@link TonalSystem#DORIAN dorian} or {@link TonalSystem#MIXOLYDIAN mixolydian}. Unlike
+ * {@link MusicalKey} it is not an enum to avoid a constant for every combination. Instead all instances are
+ * precomputed on first usage and {@link #of(TonePitch, TonalSystem) looked up} in constant time. The tones are taken
+ * from the {@link #getKeySignature() major key with the same signature} (e.g. {@link MusicalKey#C_MAJOR} for D dorian).
+ * If no such {@link MusicalKey} exists (e.g. for Gis lydian that would need nine sharps) the enharmonic equivalent
+ * with fewer signs is used so the {@link #getDiatonicScale() scale} is enharmonically changed.
+ *
+ * @author hohwille
+ */
+public final class ModalKey {
+
+  private static final TonalSystem[] SYSTEMS = TonalSystem.values();
+
+  private final TonePitch tonika;
+
+  private final TonalSystem tonalSystem;
+
+  private final MusicalKey keySignature;
+
+  private final MusicalKey musicalKey;
+
+  private final List<TonePitch> tonesDiatonic;
+
+  private final List<TonePitch> tonesChromatic;
+
+  private ModalKey(TonePitch tonika, TonalSystem tonalSystem) {
+
+    super();
+    this.tonika = tonika;
+    this.tonalSystem = tonalSystem;
+    int degree = tonalSystem.getModeDegree();
+    int offset = TonalSystem.MAJOR.getChromaticStep(degree);
+    int majorStep = Math.floorMod(tonika.getStep() - offset, 12);
+    MusicalKey signature = null;
+    MusicalKey match = null;
+    for (MusicalKey key : MusicalKey.values()) {
+      if (key.getTonalSystem() == TonalSystem.MAJOR) {
+        if (key.getTonika().getStep() == majorStep) {
+          if (key.getDiatonicScale().get(degree) == tonika) {
+            signature = key;
+          } else if ((signature == null) || ((signature.getDiatonicScale().get(degree) != tonika)
+              && (key.getChromaticSignTones().size() < signature.getChromaticSignTones().size()))) {
+            signature = key;
+          }
+        }
+      }
+      if ((key.getTonika() == tonika) && (key.getTonalSystem() == tonalSystem)) {
+        match = key;
+      }
+    }
+    assert (signature != null);
+    this.keySignature = signature;
+    this.musicalKey = match;
+    List<TonePitch> diatonic = new ArrayList<>(7);
+    for (int i = 0; i < 7; i++) {
+      diatonic.add(signature.getDiatonicScale().get((degree + i) % 7));
+    }
+    this.tonesDiatonic = Collections.unmodifiableList(diatonic);
+    List<TonePitch> chromatic = new ArrayList<>(12);
+    for (int i = 0; i < 12; i++) {
+      chromatic.add(signature.getChromaticScale().get((offset + i) % 12));
+    }
+    this.tonesChromatic = Collections.unmodifiableList(chromatic);
+  }
+
+  /**
+   * @return the {@link TonePitch} of the tonika (base-tone) for this key.
+   */
+  public TonePitch getTonika() {
+
+    return this.tonika;
+  }
+
+  /**
+   * @return the {@link TonalSystem} (mode) of this key.
+   */
+  public TonalSystem getTonalSystem() {
+
+    return this.tonalSystem;
+  }
+
+  /**
+   * @return the {@link TonalSystem#MAJOR major} {@link MusicalKey} with the same key signature (and tones). E.g.
+   *         {@link MusicalKey#C_MAJOR} for D {@link TonalSystem#DORIAN dorian} or A {@link TonalSystem#MINOR minor}.
+   */
+  public MusicalKey getKeySignature() {
+
+    return this.keySignature;
+  }
+
+  /**
+   * @return the according {@link MusicalKey} for a {@link TonalSystem#MAJOR major} or {@link TonalSystem#MINOR minor}
+   *         key or {@code null} for other modes or if no such {@link MusicalKey} exists.
+   */
+  public MusicalKey getMusicalKey() {
+
+    return this.musicalKey;
+  }
+
+  /**
+   * @return the {@link List} with the seven {@link TonePitch}es of the {@link TonalSystem} for this {@link ModalKey}.
+   * @see MusicalKey#getDiatonicScale()
+   */
+  public List<TonePitch> getDiatonicScale() {
+
+    return this.tonesDiatonic;
+  }
+
+  /**
+   * @return the {@link List} with twelve {@link TonePitch}es of the chromatic scale for this {@link ModalKey}.
+   * @see MusicalKey#getChromaticScale()
+   */
+  public List<TonePitch> getChromaticScale() {
+
+    return this.tonesChromatic;
+  }
+
+  /**
+   * @return the {@link MusicalKey#getChromaticSignTones() chromatic sign tones} of the {@link #getKeySignature() key
+   *         signature}.
+   */
+  public List<TonePitch> getChromaticSignTones() {
+
+    return this.keySignature.getChromaticSignTones();
+  }
+
+  /**
+   * @return the {@link MusicalKey#getEnharmonicStyle() enharmonic style} of the {@link #getKeySignature() key
+   *         signature}.
+   */
+  public EnharmonicStyle getEnharmonicStyle() {
+
+    return this.keySignature.getEnharmonicStyle();
+  }
+
+  /**
+   * @param pitch the {@link TonePitch} to check.
+   * @return {@code true} if the given {@link TonePitch} (or an enharmonic equivalent) is part of the
+   *         {@link #getDiatonicScale() diatonic scale}, {@code false} otherwise.
+   */
+  public boolean contains(TonePitch pitch) {
+
+    int step = Math.floorMod(pitch.getStep() - this.tonika.getStep(), 12);
+    return (this.tonalSystem.getPitchClassMask() & (1 << step)) != 0;
+  }
+
+  /**
+   * @param semitoneSteps the number of semitones to transpose.
+   * @return the transposed {@link ModalKey} with the same {@link #getTonalSystem() tonal system}.
+   */
+  public ModalKey transposeChromatic(int semitoneSteps) {
+
+    return of(this.tonika.transposeChromatic(semitoneSteps, getEnharmonicStyle()), this.tonalSystem);
+  }
+
+  @Override
+  public String toString() {
+
+    return this.tonika + "-" + this.tonalSystem;
+  }
+
+  /**
+   * @param tonika the {@link #getTonika() tonika}.
+   * @param tonalSystem the {@link #getTonalSystem() tonal system}.
+   * @return the according {@link ModalKey}.
+   */
+  public static ModalKey of(TonePitch tonika, TonalSystem tonalSystem) {
+
+    return Cache.KEYS[tonika.ordinal() * SYSTEMS.length + tonalSystem.ordinal()];
+  }
+
+  /**
+   * @param key the {@link MusicalKey}.
+   * @return the according {@link ModalKey}.
+   */
+  public static ModalKey of(MusicalKey key) {
+
+    return of(key.getTonika(), key.getTonalSystem());
+  }
+
+  /**
+   * Lazy holder of all {@link ModalKey}s so they are only computed when needed.
+   */
+  private static class Cache {
+
+    private static final ModalKey[] KEYS;
+
+    static {
+      TonePitch[] pitches = TonePitch.values();
+      KEYS = new ModalKey[pitches.length * SYSTEMS.length];
+      for (TonePitch pitch : pitches) {
+        for (TonalSystem system : SYSTEMS) {
+          KEYS[pitch.ordinal() * SYSTEMS.length + system.ordinal()] = new ModalKey(pitch, system);
+        }
+      }
+    }
+  }
+
+}
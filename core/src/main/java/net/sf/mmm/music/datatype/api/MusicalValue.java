@@ -121,6 +121,17 @@ public class MusicalValue implements Fraction {
     return this.variation == Variation.NONE;
   }
 
+  /**
+   * @return the duration of this {@link MusicalValue} as {@code double} including the {@link #getVariation()
+   *         variation}. E.g. {@code 0.25} for a {@link #QUARTER} or {@code 0.375} for a {@link Variation#PUNCTURED
+   *         punctured} {@link #QUARTER}. For a {@link #isRelative() relative} value this is relative to the
+   *         {@link Beat}.
+   */
+  public double getDuration() {
+
+    return ((double) this.beats * this.variation.beats) / ((double) this.fraction * this.variation.fraction);
+  }
+
   /**
    * @param beat the {@link Beat} used as base to make this {@link MusicalValue} absolute.
    * @return the {@link #isAbsolute() absolute} {@link MusicalValue} according to the given {@link Beat}. Will return
@@ -150,7 +161,7 @@ public class MusicalValue implements Fraction {
   @Override
   public int hashCode() {
 
-    return 31 * this.beats + this.fraction;
+    return 31 * (31 * this.beats + this.fraction) + this.variation.ordinal();
   }
 
   @Override
@@ -172,6 +183,9 @@ public class MusicalValue implements Fraction {
     if (this.fraction != other.fraction) {
       return false;
     }
+    if (this.variation != other.variation) {
+      return false;
+    }
     return true;
   }
 
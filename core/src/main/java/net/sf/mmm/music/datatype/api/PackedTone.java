@@ -0,0 +1,185 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+/**
+ * Helper to represent a {@link Tone} as a packed {@code int} value for compact storage in primitive arrays or buffers.
+ * The lowest {@value #PITCH_BITS} bits contain the {@link TonePitch#ordinal() ordinal} of the {@link Tone#getPitch()
+ * pitch} and the next {@value #OCTAVE_BITS} bits contain the {@link Tone#getOctave() octave} (offset by
+ * {@value #OCTAVE_OFFSET}). Hence a packed tone always fits into 16 bits.
+ *
+ * @author hohwille
+ */
+public final class PackedTone {
+
+  /** The number of bits used for the {@link TonePitch#ordinal() ordinal} of the {@link TonePitch}. */
+  public static final int PITCH_BITS = 6;
+
+  /** The number of bits used for the {@link Tone#getOctave() octave}. */
+  public static final int OCTAVE_BITS = 8;
+
+  /** The offset added to the {@link Tone#getOctave() octave} to make it non-negative. */
+  public static final int OCTAVE_OFFSET = 128;
+
+  private static final int PITCH_MASK = (1 << PITCH_BITS) - 1;
+
+  private static final int OCTAVE_MASK = (1 << OCTAVE_BITS) - 1;
+
+  /** The lowest {@link Tone#getOctave() octave} with {@link #toTone(int) cached} {@link Tone} instances. */
+  private static final int MIN_CACHED_OCTAVE = -10;
+
+  /** The highest {@link Tone#getOctave() octave} with {@link #toTone(int) cached} {@link Tone} instances. */
+  private static final int MAX_CACHED_OCTAVE = 10;
+
+  private static final TonePitch[] PITCHES = TonePitch.values();
+
+  private static final Tone[] TONES;
+
+  /** The {@link TonePitch} for each {@link EnharmonicStyle#ordinal() style} and {@link TonePitch#getStep() step}. */
+  private static final TonePitch[][] STYLE_PITCHES;
+
+  static {
+    EnharmonicStyle[] styles = EnharmonicStyle.values();
+    STYLE_PITCHES = new TonePitch[styles.length][12];
+    for (EnharmonicStyle style : styles) {
+      for (int step = 0; step < 12; step++) {
+        STYLE_PITCHES[style.ordinal()][step] = TonePitch.C.transposeChromatic(step, style);
+      }
+    }
+    int octaves = MAX_CACHED_OCTAVE - MIN_CACHED_OCTAVE + 1;
+    TONES = new Tone[octaves * PITCHES.length];
+    for (int octave = MIN_CACHED_OCTAVE; octave <= MAX_CACHED_OCTAVE; octave++) {
+      for (TonePitch pitch : PITCHES) {
+        TONES[(octave - MIN_CACHED_OCTAVE) * PITCHES.length + pitch.ordinal()] = new Tone(pitch, octave);
+      }
+    }
+  }
+
+  private PackedTone() {
+
+    super();
+  }
+
+  /**
+   * @param pitch the {@link Tone#getPitch() pitch}.
+   * @param octave the {@link Tone#getOctave() octave}.
+   * @return the packed {@code int} value.
+   */
+  public static int pack(TonePitch pitch, int octave) {
+
+    assert ((octave >= -OCTAVE_OFFSET) && (octave < OCTAVE_OFFSET));
+    return ((octave + OCTAVE_OFFSET) << PITCH_BITS) | pitch.ordinal();
+  }
+
+  /**
+   * @param tone the {@link Tone} to pack.
+   * @return the packed {@code int} value.
+   */
+  public static int pack(Tone tone) {
+
+    return pack(tone.getPitch(), tone.getOctave());
+  }
+
+  /**
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @return the {@link Tone#getPitch() pitch}.
+   */
+  public static TonePitch getPitch(int packedTone) {
+
+    return PITCHES[packedTone & PITCH_MASK];
+  }
+
+  /**
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @return the {@link Tone#getOctave() octave}.
+   */
+  public static int getOctave(int packedTone) {
+
+    return ((packedTone >>> PITCH_BITS) & OCTAVE_MASK) - OCTAVE_OFFSET;
+  }
+
+  /**
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @return the absolute number of semitone steps from {@link TonePitch#C C} in {@link Tone#getOctave() octave}
+   *         {@code 0} ({@code octave * 12 + step}). Enharmonic changes result in the same number.
+   */
+  public static int getChromaticNumber(int packedTone) {
+
+    return getOctave(packedTone) * 12 + getPitch(packedTone).getStep();
+  }
+
+  /**
+   * @param tone the {@link Tone}.
+   * @return the {@link #getChromaticNumber(int) chromatic number} of the given {@link Tone}.
+   */
+  public static int getChromaticNumber(Tone tone) {
+
+    return tone.getOctave() * 12 + tone.getPitch().getStep();
+  }
+
+  /**
+   * Like {@link Tone#transposeChromatic(int, EnharmonicStyle)} but on a {@link #pack(Tone) packed tone} and without
+   * allocation.
+   *
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @param semitoneSteps is the number of semitone steps to transpose.
+   * @param style the {@link EnharmonicStyle}.
+   * @return the transposed {@link #pack(Tone) packed tone}.
+   */
+  public static int transposeChromatic(int packedTone, int semitoneSteps, EnharmonicStyle style) {
+
+    TonePitch pitch = getPitch(packedTone);
+    int targetStep = (pitch.getStep() + semitoneSteps) % 12;
+    if (targetStep < 0) {
+      targetStep = targetStep + 12;
+    }
+    TonePitch resultPitch = STYLE_PITCHES[style.ordinal()][targetStep];
+    return transposeOctave(packedTone, pitch, resultPitch, semitoneSteps);
+  }
+
+  /**
+   * Like {@link Tone#transposeChromatic(int, MusicalKey)} but on a {@link #pack(Tone) packed tone} and without
+   * allocation.
+   *
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @param semitoneSteps is the number of semitone steps to transpose.
+   * @param targetKey is the target {@link MusicalKey key}.
+   * @return the transposed {@link #pack(Tone) packed tone}.
+   */
+  public static int transposeChromatic(int packedTone, int semitoneSteps, MusicalKey targetKey) {
+
+    TonePitch pitch = getPitch(packedTone);
+    TonePitch resultPitch = pitch.transposeChromatic(semitoneSteps, targetKey);
+    return transposeOctave(packedTone, pitch, resultPitch, semitoneSteps);
+  }
+
+  private static int transposeOctave(int packedTone, TonePitch pitch, TonePitch resultPitch, int semitoneSteps) {
+
+    int pitchSteps = resultPitch.getStep() - pitch.getStep();
+    int octaveSteps = semitoneSteps / 12;
+    if (semitoneSteps < 0) {
+      if (pitchSteps > 0) {
+        octaveSteps--;
+      }
+    } else if (pitchSteps < 0) {
+      octaveSteps++;
+    }
+    return pack(resultPitch, getOctave(packedTone) + octaveSteps);
+  }
+
+  /**
+   * @param packedTone the {@link #pack(Tone) packed tone}.
+   * @return the according {@link Tone}. For common octaves a shared instance is returned so this method does not
+   *         allocate.
+   */
+  public static Tone toTone(int packedTone) {
+
+    int octave = getOctave(packedTone);
+    int ordinal = packedTone & PITCH_MASK;
+    if ((octave >= MIN_CACHED_OCTAVE) && (octave <= MAX_CACHED_OCTAVE)) {
+      return TONES[(octave - MIN_CACHED_OCTAVE) * PITCHES.length + ordinal];
+    }
+    return new Tone(PITCHES[ordinal], octave);
+  }
+
+}
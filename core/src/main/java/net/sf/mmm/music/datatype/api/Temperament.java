@@ -0,0 +1,70 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+/**
+ * A {@link Temperament} defines the frequency ratios of the twelve {@link TonePitch#getStep() steps} of an octave
+ * relative to the tonic.
+ *
+ * @see FrequencyTable
+ *
+ * @author hohwille
+ */
+public enum Temperament {
+
+  /** The equal temperament where every semitone has the ratio {@code 2^(1/12)}. This is the common default. */
+  EQUAL(equal()),
+
+  /** The five-limit just intonation with pure thirds and fifths relative to the tonic. */
+  JUST(new double[] { 1, 16.0 / 15, 9.0 / 8, 6.0 / 5, 5.0 / 4, 4.0 / 3, 45.0 / 32, 3.0 / 2, 8.0 / 5, 5.0 / 3,
+  9.0 / 5, 15.0 / 8 }),
+
+  /** The Pythagorean tuning from pure fifths (circle of fifths from E flat to G sharp). */
+  PYTHAGOREAN(fifths(3.0 / 2)),
+
+  /** The quarter-comma meantone temperament with pure major thirds (fifths from E flat to G sharp). */
+  MEANTONE(fifths(Math.sqrt(Math.sqrt(5))));
+
+  private final double[] ratios;
+
+  private Temperament(double[] ratios) {
+
+    this.ratios = ratios;
+  }
+
+  private static double[] equal() {
+
+    double[] ratios = new double[12];
+    for (int step = 0; step < 12; step++) {
+      ratios[step] = Math.pow(2, step / 12.0);
+    }
+    return ratios;
+  }
+
+  private static double[] fifths(double fifth) {
+
+    double[] ratios = new double[12];
+    for (int fifths = -3; fifths <= 8; fifths++) {
+      double ratio = Math.pow(fifth, fifths);
+      while (ratio >= 2) {
+        ratio = ratio / 2;
+      }
+      while (ratio < 1) {
+        ratio = ratio * 2;
+      }
+      ratios[Math.floorMod(fifths * 7, 12)] = ratio;
+    }
+    return ratios;
+  }
+
+  /**
+   * @param step the number of semitones above the tonic from {@code 0} to {@code 11}.
+   * @return the frequency ratio of the given step relative to the tonic in the range from {@code 1} (inclusive) to
+   *         {@code 2} (exclusive).
+   */
+  public double getRatio(int step) {
+
+    return this.ratios[step];
+  }
+
+}
@@ -12,33 +12,55 @@ package net.sf.mmm.music.datatype.api;
  */
 public enum TonalSystem {
 
-  // DORIAN("dor", "dorian"),
-  //
   // HYPODORIAN("hdor", "hypodorian"),
   //
-  // PHRYGIAN("phr", "phrygian"),
-  //
   // HYPOPHRYGIAN("hphr", "hypophrygian"),
   //
-  // LYDIAN("lyd", "lydian"),
-  //
   // HYPOLYDIAN("hlyd", "hypolydian"),
   //
-  // MIXOLYDIAN("mix", "mixolydian"),
-  //
   // HYPOMIXOLYDIAN("hmix", "hypomixolydian"),
 
   /**
    * {@link TonalSystem} of a major {@link MusicalKey key}. Its scale sequence has semitone intervals from the 3. to the
    * 4. tone as well as from the 7. to the 8. tone (1-1-½-1-1-1-½).
    */
-  MAJOR("maj", "major"),
+  MAJOR("maj", "major", 0),
 
   /**
    * {@link TonalSystem} of a minor {@link MusicalKey key}. Its scale sequence has semitone intervals from the 2. to the
    * 3. tone as well as from the 5. to the 6. tone (1-½-1-1-½-1-1).
    */
-  MINOR("min", "minor");
+  MINOR("min", "minor", 5),
+
+  /**
+   * The dorian mode starting on the 2. tone of the {@link #MAJOR major} scale (1-½-1-1-1-½-1). Like
+   * {@link #MINOR} but with a major sixth.
+   */
+  DORIAN("dor", "dorian", 1),
+
+  /**
+   * The phrygian mode starting on the 3. tone of the {@link #MAJOR major} scale (½-1-1-1-½-1-1). Like
+   * {@link #MINOR} but with a minor second.
+   */
+  PHRYGIAN("phr", "phrygian", 2),
+
+  /**
+   * The lydian mode starting on the 4. tone of the {@link #MAJOR major} scale (1-1-1-½-1-1-½). Like
+   * {@link #MAJOR} but with an augmented fourth.
+   */
+  LYDIAN("lyd", "lydian", 3),
+
+  /**
+   * The mixolydian mode starting on the 5. tone of the {@link #MAJOR major} scale (1-1-½-1-1-½-1). Like
+   * {@link #MAJOR} but with a minor seventh.
+   */
+  MIXOLYDIAN("mix", "mixolydian", 4),
+
+  /**
+   * The locrian mode starting on the 7. tone of the {@link #MAJOR major} scale (½-1-1-½-1-1-1). Like
+   * {@link #PHRYGIAN} but with a diminished fifth.
+   */
+  LOCRIAN("loc", "locrian", 6);
 
   /** @see #getValue() */
   private final String value;
@@ -46,16 +68,62 @@ public enum TonalSystem {
   /** @see #toString() */
   private final String title;
 
+  /** @see #getModeDegree() */
+  private final int modeDegree;
+
+  /** @see #getChromaticStep(int) */
+  private final int[] steps;
+
+  /** @see #getPitchClassMask() */
+  private final int pitchClassMask;
+
+  /** @see #getFirstSemitone() */
+  private final int firstSemitone;
+
+  /** @see #getSecondSemitone() */
+  private final int secondSemitone;
+
   /**
    * The constructor.
    *
    * @param value - see {@link #getValue()}.
    * @param title - see {@link #toString()}.
+   * @param modeDegree - see {@link #getModeDegree()}.
    */
-  private TonalSystem(String value, String title) {
+  private TonalSystem(String value, String title, int modeDegree) {
 
     this.value = value;
     this.title = title;
+    this.modeDegree = modeDegree;
+    // the steps of the major scale (static fields can not be accessed from the enum constructor)
+    int[] majorSteps = { 0, 2, 4, 5, 7, 9, 11 };
+    this.steps = new int[7];
+    int mask = 0;
+    int first = -1;
+    int second = -1;
+    for (int degree = 0; degree < 7; degree++) {
+      int index = degree + modeDegree;
+      int step;
+      if (index < 7) {
+        step = majorSteps[index] - majorSteps[modeDegree];
+      } else {
+        step = majorSteps[index - 7] + 12 - majorSteps[modeDegree];
+      }
+      this.steps[degree] = step;
+      mask = mask | (1 << step);
+    }
+    for (int degree = 1; degree <= 7; degree++) {
+      if ((getChromaticStep(degree) - this.steps[degree - 1]) == 1) {
+        if (first < 0) {
+          first = degree;
+        } else {
+          second = degree;
+        }
+      }
+    }
+    this.pitchClassMask = mask;
+    this.firstSemitone = first;
+    this.secondSemitone = second;
   }
 
   /**
@@ -72,14 +140,7 @@ public enum TonalSystem {
    */
   public int getFirstSemitone() {
 
-    switch (this) {
-      case MAJOR:
-        return 3;
-      case MINOR:
-        return 2;
-      default:
-        throw new IllegalStateException(toString());
-    }
+    return this.firstSemitone;
   }
 
   /**
@@ -88,14 +149,38 @@ public enum TonalSystem {
    */
   public int getSecondSemitone() {
 
-    switch (this) {
-      case MAJOR:
-        return 7;
-      case MINOR:
-        return 5;
-      default:
-        throw new IllegalStateException(toString());
-    }
+    return this.secondSemitone;
+  }
+
+  /**
+   * @return the zero-based degree of the {@link #MAJOR major} scale this mode starts with (0 for {@link #MAJOR}, 1 for
+   *         {@link #DORIAN}, 5 for {@link #MINOR}, etc.). Hence all modes with the same key signature share the same
+   *         tones.
+   */
+  public int getModeDegree() {
+
+    return this.modeDegree;
+  }
+
+  /**
+   * @param degree the zero-based diatonic degree ({@code 0} for the tonika, {@code 4} for the fifth). May be negative
+   *        or greater than {@code 6} to address other octaves.
+   * @return the number of semitones from the tonika to the given degree (e.g. {@code 7} for degree {@code 4} in
+   *         {@link #MAJOR} or {@code 6} in {@link #LOCRIAN}).
+   */
+  public int getChromaticStep(int degree) {
+
+    int octave = Math.floorDiv(degree, 7);
+    return this.steps[degree - octave * 7] + octave * 12;
+  }
+
+  /**
+   * @return the bitmask of the scale with the bit {@code 1 << step} set for the {@link #getChromaticStep(int) step} of
+   *         each degree relative to the tonika (e.g. {@code 0b101010110101} for {@link #MAJOR}).
+   */
+  public int getPitchClassMask() {
+
+    return this.pitchClassMask;
   }
 
   /**
@@ -61,6 +61,25 @@ public class Tone implements Transposable<Tone> {
     return this.octave;
   }
 
+  /**
+   * @return the frequency of this {@link Tone} in Hertz for {@link Temperament#EQUAL equal temperament} with the
+   *         concert A ({@link TonePitch#A A} in octave {@code 0}) at 440Hz.
+   * @see FrequencyTable#STANDARD
+   */
+  public double getFrequency() {
+
+    return FrequencyTable.STANDARD.getFrequency(this);
+  }
+
+  /**
+   * @param table the {@link FrequencyTable} with the reference frequency and {@link Temperament}.
+   * @return the frequency of this {@link Tone} in Hertz.
+   */
+  public double getFrequency(FrequencyTable table) {
+
+    return table.getFrequency(this);
+  }
+
   /**
    * @see TonePitch#transposeChromatic(int, EnharmonicStyle)
    *
@@ -0,0 +1,159 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import net.sf.mmm.music.datatype.api.Chord;
+
+/**
+ * Suggests the easiest key or capo position to play a song with a fretted instrument. All 12
+ * {@link Chord#transposeChromatic(int) transpositions} of the chords are scored by the
+ * {@link ChordVoicing#getDifficulty() difficulty} of their easiest {@link ChordVoicing} (so open shapes win over barre
+ * chords) and returned as ranked {@link CapoOption}s. The difficulties are kept in a table per chord type (pitch
+ * classes and base tone relative to the root) with one entry for each of the 12 roots. Once a chord type is in the
+ * table (e.g. by {@link #precompute(Collection)} at startup) ranking a song only needs 12 additions per chord.
+ *
+ * This class is thread-safe.
+ *
+ * @author hohwille
+ */
+public class CapoAdvisor {
+
+  /** The {@link ChordVoicing#getDifficulty() difficulty} of a {@link Chord} that can not be played at all. */
+  public static final int UNPLAYABLE = 100;
+
+  private final VoicingGenerator generator;
+
+  /** The difficulty for each root step by the normalized {@link Chord#getPitchClassMask() mask} and base tone. */
+  private final Map<Integer, int[]> difficulties;
+
+  /**
+   * The constructor.
+   *
+   * @param tuning the {@link Tuning} of the instrument.
+   */
+  public CapoAdvisor(Tuning tuning) {
+
+    this(VoicingGenerator.of(tuning));
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param generator the {@link VoicingGenerator} for the {@link Tuning} of the instrument.
+   */
+  public CapoAdvisor(VoicingGenerator generator) {
+
+    super();
+    this.generator = generator;
+    this.difficulties = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return the {@link Tuning} of the instrument.
+   */
+  public Tuning getTuning() {
+
+    return this.generator.getTuning();
+  }
+
+  /**
+   * @param chord the {@link Chord}.
+   * @return the {@link ChordVoicing#getDifficulty() difficulty} of the easiest {@link ChordVoicing} or
+   *         {@link #UNPLAYABLE}.
+   */
+  public int getDifficulty(Chord chord) {
+
+    return getDifficulties(chord)[chord.getFundamentalTone().getStep()];
+  }
+
+  /**
+   * @param chord the {@link Chord}.
+   * @return the difficulties of the {@link Chord} type for each root step (see
+   *         {@link net.sf.mmm.music.datatype.api.TonePitch#getStep()}).
+   */
+  private int[] getDifficulties(Chord chord) {
+
+    int root = chord.getFundamentalTone().getStep();
+    int mask = chord.getPitchClassMask();
+    int normalized = ((mask >>> root) | (mask << (12 - root))) & 0xFFF;
+    int base = (chord.getBaseTone().getStep() - root + 12) % 12;
+    return this.difficulties.computeIfAbsent(Integer.valueOf((normalized << 4) | base), key -> {
+      int[] result = new int[12];
+      for (int step = 0; step < 12; step++) {
+        List<ChordVoicing> voicings = this.generator.getVoicings(chord.transposeChromatic(step - root));
+        if (voicings.isEmpty()) {
+          result[step] = UNPLAYABLE;
+        } else {
+          result[step] = voicings.get(0).getDifficulty();
+        }
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Computes the difficulties of the given {@link Chord}s in all 12 transpositions in parallel (e.g. at startup) so
+   * that {@link #rank(List)} only needs table lookups afterwards.
+   *
+   * @param vocabulary the {@link Chord}s to compute.
+   */
+  public void precompute(Collection<Chord> vocabulary) {
+
+    this.generator.precompute(vocabulary);
+    vocabulary.parallelStream().forEach(this::getDifficulties);
+  }
+
+  /**
+   * @param chords the {@link Chord}s of a song (e.g. from a chord sheet). Each occurrence is counted.
+   * @return all 12 {@link CapoOption}s ranked from easiest to hardest. On equal difficulty the lower
+   *         {@link CapoOption#getCapo() capo} wins.
+   */
+  public List<CapoOption> rank(List<Chord> chords) {
+
+    int[] totals = new int[12];
+    for (Chord chord : chords) {
+      int[] table = getDifficulties(chord);
+      int root = chord.getFundamentalTone().getStep();
+      for (int transposition = 0; transposition < 12; transposition++) {
+        totals[transposition] += table[(root + transposition) % 12];
+      }
+    }
+    CapoOption[] options = new CapoOption[12];
+    for (int transposition = 0; transposition < 12; transposition++) {
+      options[transposition] = new CapoOption(transposition, totals[transposition]);
+    }
+    Arrays.sort(options);
+    return Collections.unmodifiableList(Arrays.asList(options));
+  }
+
+  /**
+   * @param chords the {@link Chord}s of a song.
+   * @return the easiest {@link CapoOption}.
+   * @see #rank(List)
+   */
+  public CapoOption suggest(List<Chord> chords) {
+
+    return rank(chords).get(0);
+  }
+
+  /**
+   * {@link #rank(List) Ranks} the given songs in parallel (e.g. to re-rank a catalog).
+   *
+   * @param songs the {@link Chord}s of each song.
+   * @return the ranked {@link CapoOption}s for each song in the same order.
+   */
+  public List<List<CapoOption>> rankAll(List<? extends List<Chord>> songs) {
+
+    return songs.parallelStream().map(this::rank).collect(Collectors.toCollection(ArrayList::new));
+  }
+
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+/**
+ * A {@link CapoOption} is one of the 12 ways to play a song on a fretted instrument ranked by {@link CapoAdvisor}. The
+ * chord shapes are {@link #getTransposition() transposed}. The song can then either be played in the transposed key
+ * or with a {@link #getCapo() capo} in the original key.
+ *
+ * @see CapoAdvisor
+ *
+ * @author hohwille
+ */
+public final class CapoOption implements Comparable<CapoOption> {
+
+  private final int transposition;
+
+  private final int difficulty;
+
+  /**
+   * The constructor.
+   *
+   * @param transposition - see {@link #getTransposition()}.
+   * @param difficulty - see {@link #getDifficulty()}.
+   */
+  CapoOption(int transposition, int difficulty) {
+
+    super();
+    this.transposition = transposition;
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * @return the number of semitones (from {@code 0} to {@code 11}) the chords are
+   *         {@link net.sf.mmm.music.datatype.api.Chord#transposeChromatic(int) transposed} for the played shapes.
+   */
+  public int getTransposition() {
+
+    return this.transposition;
+  }
+
+  /**
+   * @return the fret for the capo so the {@link #getTransposition() transposed} shapes sound in the original key.
+   *         {@code 0} for no capo.
+   */
+  public int getCapo() {
+
+    return (12 - this.transposition) % 12;
+  }
+
+  /**
+   * @return the total difficulty of the easiest {@link ChordVoicing}s for all chords of the song. A lower value is
+   *         easier to play.
+   */
+  public int getDifficulty() {
+
+    return this.difficulty;
+  }
+
+  @Override
+  public int compareTo(CapoOption other) {
+
+    int delta = Integer.compare(this.difficulty, other.difficulty);
+    if (delta == 0) {
+      delta = Integer.compare(getCapo(), other.getCapo());
+    }
+    return delta;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return this.transposition * 31 + this.difficulty;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    CapoOption other = (CapoOption) obj;
+    return (this.transposition == other.transposition) && (this.difficulty == other.difficulty);
+  }
+
+  @Override
+  public String toString() {
+
+    return "+" + this.transposition + "/capo " + getCapo() + ":" + this.difficulty;
+  }
+
+}
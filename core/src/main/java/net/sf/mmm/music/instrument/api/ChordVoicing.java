@@ -0,0 +1,150 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.Arrays;
+
+import net.sf.mmm.music.datatype.api.Tone;
+
+/**
+ * A {@link ChordVoicing} is a way to play a {@link net.sf.mmm.music.datatype.api.Chord} on a fretted instrument. It
+ * defines the {@link #getFret(int) fret} for each string of the {@link Tuning} or {@link #MUTED} if the string is not
+ * played.
+ *
+ * @see VoicingGenerator
+ *
+ * @author hohwille
+ */
+public final class ChordVoicing implements Comparable<ChordVoicing> {
+
+  /** The {@link #getFret(int) fret} of a string that is not played. */
+  public static final int MUTED = -1;
+
+  private final Tuning tuning;
+
+  private final byte[] frets;
+
+  private final int difficulty;
+
+  /**
+   * The constructor.
+   *
+   * @param tuning - see {@link #getTuning()}.
+   * @param frets the {@link #getFret(int) frets} of all strings.
+   * @param difficulty - see {@link #getDifficulty()}.
+   */
+  ChordVoicing(Tuning tuning, byte[] frets, int difficulty) {
+
+    super();
+    this.tuning = tuning;
+    this.frets = frets;
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * @return the {@link Tuning} of the instrument.
+   */
+  public Tuning getTuning() {
+
+    return this.tuning;
+  }
+
+  /**
+   * @param string the index of the string from {@code 0} (lowest) to {@link Tuning#getStringCount()}{@code -1}.
+   * @return the fret to press on the given string, {@code 0} for an open string or {@link #MUTED}.
+   */
+  public int getFret(int string) {
+
+    return this.frets[string];
+  }
+
+  /**
+   * @param string the index of the string.
+   * @return the {@link Tone} played on the given string or {@code null} if {@link #MUTED}.
+   */
+  public Tone getTone(int string) {
+
+    return this.tuning.getTone(string, this.frets[string]);
+  }
+
+  /**
+   * @return the lowest fret that is pressed or {@code 0} if only open strings are played.
+   */
+  public int getPosition() {
+
+    int position = 0;
+    for (byte fret : this.frets) {
+      if ((fret > 0) && ((position == 0) || (fret < position))) {
+        position = fret;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * @return the difficulty to play this voicing. Lower values are easier. Used to rank the voicings.
+   */
+  public int getDifficulty() {
+
+    return this.difficulty;
+  }
+
+  @Override
+  public int compareTo(ChordVoicing other) {
+
+    int delta = Integer.compare(this.difficulty, other.difficulty);
+    if (delta == 0) {
+      delta = Integer.compare(getPosition(), other.getPosition());
+    }
+    for (int i = 0; (delta == 0) && (i < this.frets.length); i++) {
+      delta = Integer.compare(this.frets[i], other.frets[i]);
+    }
+    return delta;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Arrays.hashCode(this.frets);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    }
+    if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    ChordVoicing other = (ChordVoicing) obj;
+    return (this.tuning == other.tuning) && Arrays.equals(this.frets, other.frets);
+  }
+
+  /**
+   * @return the frets from the lowest to the highest string with "x" for {@link #MUTED muted} strings (e.g. "x32010"
+   *         for C major on a guitar). If a fret is greater than 9 the frets are separated by dashes (e.g.
+   *         "x-10-12-12-12-10").
+   */
+  @Override
+  public String toString() {
+
+    boolean separate = false;
+    for (byte fret : this.frets) {
+      separate = separate || (fret > 9);
+    }
+    StringBuilder sb = new StringBuilder(this.frets.length * 3);
+    for (int i = 0; i < this.frets.length; i++) {
+      if (separate && (i > 0)) {
+        sb.append('-');
+      }
+      if (this.frets[i] == MUTED) {
+        sb.append('x');
+      } else {
+        sb.append(this.frets[i]);
+      }
+    }
+    return sb.toString();
+  }
+
+}
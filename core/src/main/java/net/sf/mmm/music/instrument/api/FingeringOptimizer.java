@@ -0,0 +1,184 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Chooses where to play each tone of a melody on a fretted instrument and converts the {@link ToneItem}s to
+ * {@link TabItem}s. As most tones can be played on several strings, the combination of string and fret positions with
+ * minimal total cost is determined via dynamic programming (Viterbi) with one state per string and hand position (the
+ * last pressed fret). The cost of a position grows with the fret (higher positions are harder to play) and the cost of
+ * a transition with the movement of the hand along the neck, the stretch beyond the span of the hand and the number of
+ * strings crossed. Open strings do not require the hand to move, so the hand keeps its position until the next pressed
+ * fret. The optimization is linear in the number of tones and uses primitive arrays only.
+ * Independent phrases can be {@link #optimizePhrases(List) optimized in parallel}.
+ *
+ * @author hohwille
+ */
+public class FingeringOptimizer {
+
+  /** The number of frets the hand covers without stretching. */
+  private static final int HAND_SPAN = 4;
+
+  private static final int COST_FRET = 1;
+
+  private static final int COST_MOVE = 4;
+
+  private static final int COST_STRETCH = 12;
+
+  private static final int COST_STRING = 2;
+
+  private static final int COST_OPEN = 2;
+
+  private static final int INFINITE = Integer.MAX_VALUE / 2;
+
+  private final Tuning tuning;
+
+  /**
+   * The constructor.
+   *
+   * @param tuning the {@link Tuning} of the instrument.
+   */
+  public FingeringOptimizer(Tuning tuning) {
+
+    super();
+    this.tuning = tuning;
+  }
+
+  /**
+   * @return the {@link Tuning} of the instrument.
+   */
+  public Tuning getTuning() {
+
+    return this.tuning;
+  }
+
+  /**
+   * @param phrases the independent phrases (e.g. separated by rests) of a piece.
+   * @return the optimized {@link TabItem}s of each phrase computed in parallel.
+   * @see #optimize(List)
+   */
+  public List<List<TabItem>> optimizePhrases(List<? extends List<? extends ToneItem>> phrases) {
+
+    return phrases.parallelStream().map(this::optimize).collect(Collectors.toList());
+  }
+
+  /**
+   * @param items the {@link ToneItem}s of the melody.
+   * @return the {@link TabItem}s with the optimal string and fret for each given {@link ToneItem}.
+   * @throws IllegalArgumentException if a {@link ToneItem#getTone() tone} can not be played with the {@link Tuning}.
+   */
+  public List<TabItem> optimize(List<? extends ToneItem> items) {
+
+    int size = items.size();
+    List<TabItem> result = new ArrayList<>(size);
+    if (size == 0) {
+      return result;
+    }
+    int strings = this.tuning.getStringCount();
+    int[] frets = new int[size * strings];
+    for (int i = 0; i < size; i++) {
+      Tone tone = items.get(i).getTone();
+      int number = PackedTone.getChromaticNumber(tone);
+      boolean playable = false;
+      for (int string = 0; string < strings; string++) {
+        int fret = this.tuning.getFret(number, string);
+        frets[i * strings + string] = fret;
+        playable = playable || (fret >= 0);
+      }
+      if (!playable) {
+        throw new IllegalArgumentException("Tone " + tone + " at " + i + " not playable in " + this.tuning);
+      }
+    }
+    // state = string * hands + hand where hand is the last pressed fret (0 if none so far)
+    int hands = this.tuning.getFretCount() + 1;
+    int states = strings * hands;
+    int[] backPointers = new int[size * states];
+    int[] previous = new int[states];
+    int[] current = new int[states];
+    Arrays.fill(previous, INFINITE);
+    for (int string = 0; string < strings; string++) {
+      int fret = frets[string];
+      if (fret >= 0) {
+        previous[string * hands + fret] = getPositionCost(fret);
+      }
+    }
+    for (int i = 1; i < size; i++) {
+      int offset = i * strings;
+      Arrays.fill(current, INFINITE);
+      for (int from = 0; from < states; from++) {
+        int fromCost = previous[from];
+        if (fromCost >= INFINITE) {
+          continue;
+        }
+        int fromString = from / hands;
+        int hand = from % hands;
+        for (int string = 0; string < strings; string++) {
+          int fret = frets[offset + string];
+          if (fret >= 0) {
+            int state = string * hands + ((fret == 0) ? hand : fret);
+            int cost = fromCost + getTransitionCost(fromString, hand, string, fret) + getPositionCost(fret);
+            if (cost < current[state]) {
+              current[state] = cost;
+              backPointers[i * states + state] = from;
+            }
+          }
+        }
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    int state = 0;
+    for (int i = 1; i < states; i++) {
+      if (previous[i] < previous[state]) {
+        state = i;
+      }
+    }
+    int[] path = new int[size];
+    for (int i = size - 1; i >= 0; i--) {
+      path[i] = state / hands;
+      state = backPointers[i * states + state];
+    }
+    for (int i = 0; i < size; i++) {
+      ToneItem item = items.get(i);
+      int pathString = path[i];
+      result.add(new TabItem(item.getValue(), item.getTone(), frets[i * strings + pathString],
+          this.tuning.getString(pathString)));
+    }
+    return result;
+  }
+
+  private static int getPositionCost(int fret) {
+
+    if (fret < 0) {
+      return INFINITE;
+    } else if (fret == 0) {
+      return COST_OPEN;
+    }
+    return fret * COST_FRET;
+  }
+
+  private static int getTransitionCost(int fromString, int hand, int toString, int toFret) {
+
+    int cost = Math.abs(toString - fromString) * COST_STRING;
+    if ((hand > 0) && (toFret > 0)) {
+      int distance = Math.abs(toFret - hand);
+      cost = cost + distance * COST_MOVE;
+      if (distance >= HAND_SPAN) {
+        cost = cost + (distance - HAND_SPAN + 1) * COST_STRETCH;
+      }
+    }
+    return cost;
+  }
+
+}
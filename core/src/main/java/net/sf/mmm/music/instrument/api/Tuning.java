@@ -0,0 +1,347 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.EnharmonicStyle;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * The {@link Tuning} of a fretted instrument such as a guitar. It defines the {@link #getString(int) base tone} of each
+ * string and the {@link #getFretCount() number of frets}. The strings are indexed from {@code 0} for the lowest string
+ * (e.g. low E on a guitar in {@link #GUITAR_STANDARD standard tuning}) to the highest string. A {@link Tuning} is
+ * immutable and precomputes lookup tables so that the {@link #getTone(int, int) tone of a position} and the
+ * {@link #getPositionCount(int) positions of a tone} are available without any calculation or allocation.
+ *
+ * @author hohwille
+ */
+public final class Tuning {
+
+  /** The default {@link #getFretCount() number of frets}. */
+  public static final int DEFAULT_FRET_COUNT = 22;
+
+  /** Standard tuning of a six string guitar (E A D G B E). */
+  public static final Tuning GUITAR_STANDARD = new Tuning("Standard", DEFAULT_FRET_COUNT, //
+      new Tone(TonePitch.E, -2), new Tone(TonePitch.A, -2), new Tone(TonePitch.D, -1), new Tone(TonePitch.G, -1),
+      new Tone(TonePitch.H, -1), new Tone(TonePitch.E, 0));
+
+  /** Drop D tuning of a six string guitar (D A D G B E). */
+  public static final Tuning GUITAR_DROP_D = new Tuning("Drop D", DEFAULT_FRET_COUNT, //
+      new Tone(TonePitch.D, -2), new Tone(TonePitch.A, -2), new Tone(TonePitch.D, -1), new Tone(TonePitch.G, -1),
+      new Tone(TonePitch.H, -1), new Tone(TonePitch.E, 0));
+
+  /** Open G tuning of a six string guitar (D G D G B D). */
+  public static final Tuning GUITAR_OPEN_G = new Tuning("Open G", DEFAULT_FRET_COUNT, //
+      new Tone(TonePitch.D, -2), new Tone(TonePitch.G, -2), new Tone(TonePitch.D, -1), new Tone(TonePitch.G, -1),
+      new Tone(TonePitch.H, -1), new Tone(TonePitch.D, 0));
+
+  /** Standard tuning of a seven string guitar (B E A D G B E). */
+  public static final Tuning GUITAR_SEVEN_STRING = new Tuning("Seven String", 24, //
+      new Tone(TonePitch.H, -3), new Tone(TonePitch.E, -2), new Tone(TonePitch.A, -2), new Tone(TonePitch.D, -1),
+      new Tone(TonePitch.G, -1), new Tone(TonePitch.H, -1), new Tone(TonePitch.E, 0));
+
+  /** Standard tuning of a four string bass (E A D G). */
+  public static final Tuning BASS_STANDARD = new Tuning("Bass", 20, //
+      new Tone(TonePitch.E, -3), new Tone(TonePitch.A, -3), new Tone(TonePitch.D, -2), new Tone(TonePitch.G, -2));
+
+  /** Standard tuning of a five string bass (B E A D G). */
+  public static final Tuning BASS_FIVE_STRING = new Tuning("Five String Bass", 24, //
+      new Tone(TonePitch.H, -4), new Tone(TonePitch.E, -3), new Tone(TonePitch.A, -3), new Tone(TonePitch.D, -2),
+      new Tone(TonePitch.G, -2));
+
+  /** Standard re-entrant tuning of a soprano or concert ukulele (G C E A). */
+  public static final Tuning UKULELE_STANDARD = new Tuning("Ukulele", 15, //
+      new Tone(TonePitch.G, 0), new Tone(TonePitch.C, 0), new Tone(TonePitch.E, 0), new Tone(TonePitch.A, 0));
+
+  private final String name;
+
+  private final int fretCount;
+
+  private final Tone[] strings;
+
+  private final int[] stringNumbers;
+
+  /** The {@link Tone} of each position with the index {@code string * (fretCount + 1) + fret}. */
+  private final Tone[] tones;
+
+  /** The lowest {@link PackedTone#getChromaticNumber(Tone) chromatic number} playable with this {@link Tuning}. */
+  private final int lowestNumber;
+
+  /** The start index in {@link #positions} for each chromatic number relative to {@link #lowestNumber}. */
+  private final int[] positionOffsets;
+
+  /** The positions ({@code string * (fretCount + 1) + fret}) grouped by chromatic number from low to high string. */
+  private final int[] positions;
+
+  /**
+   * The constructor.
+   *
+   * @param name - see {@link #getName()}.
+   * @param fretCount - see {@link #getFretCount()}.
+   * @param strings - see {@link #getString(int)}.
+   */
+  public Tuning(String name, int fretCount, Tone... strings) {
+
+    super();
+    if ((fretCount < 0) || (strings.length == 0) || (strings.length > Byte.MAX_VALUE)) {
+      throw new IllegalArgumentException(name);
+    }
+    this.name = name;
+    this.fretCount = fretCount;
+    this.strings = strings.clone();
+    int stringCount = strings.length;
+    int frets = fretCount + 1;
+    this.stringNumbers = new int[stringCount];
+    this.tones = new Tone[stringCount * frets];
+    int lowest = Integer.MAX_VALUE;
+    int highest = Integer.MIN_VALUE;
+    for (int string = 0; string < stringCount; string++) {
+      int number = PackedTone.getChromaticNumber(strings[string]);
+      this.stringNumbers[string] = number;
+      lowest = Math.min(lowest, number);
+      highest = Math.max(highest, number + fretCount);
+      int packed = PackedTone.pack(strings[string]);
+      this.tones[string * frets] = strings[string];
+      for (int fret = 1; fret <= fretCount; fret++) {
+        this.tones[string * frets + fret] = PackedTone
+            .toTone(PackedTone.transposeChromatic(packed, fret, EnharmonicStyle.NORMAL));
+      }
+    }
+    this.lowestNumber = lowest;
+    // counting sort of all positions by chromatic number
+    this.positionOffsets = new int[highest - lowest + 2];
+    for (int number : this.stringNumbers) {
+      for (int fret = 0; fret <= fretCount; fret++) {
+        this.positionOffsets[number + fret - lowest + 1]++;
+      }
+    }
+    for (int i = 1; i < this.positionOffsets.length; i++) {
+      this.positionOffsets[i] += this.positionOffsets[i - 1];
+    }
+    this.positions = new int[stringCount * frets];
+    int[] next = this.positionOffsets.clone();
+    for (int string = 0; string < stringCount; string++) {
+      for (int fret = 0; fret <= fretCount; fret++) {
+        this.positions[next[this.stringNumbers[string] + fret - lowest]++] = string * frets + fret;
+      }
+    }
+  }
+
+  /**
+   * @return the name of this {@link Tuning} (e.g. "Standard" or "Drop D").
+   */
+  public String getName() {
+
+    return this.name;
+  }
+
+  /**
+   * @return the number of frets. The highest playable fret.
+   */
+  public int getFretCount() {
+
+    return this.fretCount;
+  }
+
+  /**
+   * @return the number of strings.
+   */
+  public int getStringCount() {
+
+    return this.strings.length;
+  }
+
+  /**
+   * @param string the index of the string from {@code 0} (lowest) to {@link #getStringCount()}{@code -1}.
+   * @return the base {@link Tone} of the given string (played open).
+   */
+  public Tone getString(int string) {
+
+    return this.strings[string];
+  }
+
+  /**
+   * @param string the index of the string.
+   * @return the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of the {@link #getString(int) string}.
+   */
+  public int getStringNumber(int string) {
+
+    return this.stringNumbers[string];
+  }
+
+  /**
+   * @param chromaticNumber the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of a tone.
+   * @param string the index of the string.
+   * @return the fret where the given tone is played on the given string or {@code -1} if not playable on that string.
+   */
+  public int getFret(int chromaticNumber, int string) {
+
+    int fret = chromaticNumber - this.stringNumbers[string];
+    if ((fret < 0) || (fret > this.fretCount)) {
+      return -1;
+    }
+    return fret;
+  }
+
+  /**
+   * @param string the index of the string.
+   * @param fret the fret or a negative value for a muted string.
+   * @return the {@link Tone} played on the given string and fret or {@code null} if the fret is negative. For fret
+   *         {@code 0} this is the {@link #getString(int) string} itself, otherwise the {@link EnharmonicStyle#NORMAL
+   *         normal} {@link TonePitch}.
+   */
+  public Tone getTone(int string, int fret) {
+
+    if (fret < 0) {
+      return null;
+    } else if (fret > this.fretCount) {
+      throw new IllegalArgumentException(Integer.toString(fret));
+    }
+    return this.tones[string * (this.fretCount + 1) + fret];
+  }
+
+  /**
+   * @param chromaticNumber the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of a tone.
+   * @return the number of positions (string and fret) where the given tone can be played. {@code 0} if not playable.
+   */
+  public int getPositionCount(int chromaticNumber) {
+
+    int index = chromaticNumber - this.lowestNumber;
+    if ((index < 0) || (index >= this.positionOffsets.length - 1)) {
+      return 0;
+    }
+    return this.positionOffsets[index + 1] - this.positionOffsets[index];
+  }
+
+  /**
+   * @param chromaticNumber the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of a tone.
+   * @param index the index of the position from {@code 0} to {@link #getPositionCount(int)}{@code -1}. The positions
+   *        are ordered from the lowest to the highest string.
+   * @return the string of the specified position.
+   */
+  public int getPositionString(int chromaticNumber, int index) {
+
+    return getPosition(chromaticNumber, index) / (this.fretCount + 1);
+  }
+
+  /**
+   * @param chromaticNumber the {@link PackedTone#getChromaticNumber(Tone) chromatic number} of a tone.
+   * @param index the index of the position from {@code 0} to {@link #getPositionCount(int)}{@code -1}.
+   * @return the fret of the specified position.
+   * @see #getPositionString(int, int)
+   */
+  public int getPositionFret(int chromaticNumber, int index) {
+
+    return getPosition(chromaticNumber, index) % (this.fretCount + 1);
+  }
+
+  private int getPosition(int chromaticNumber, int index) {
+
+    if ((index < 0) || (index >= getPositionCount(chromaticNumber))) {
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+    return this.positions[this.positionOffsets[chromaticNumber - this.lowestNumber] + index];
+  }
+
+  /**
+   * @param value the {@link MusicalValue}.
+   * @param string the index of the string.
+   * @param fret the fret.
+   * @return the {@link TabItem} for the given position using the precomputed {@link #getTone(int, int) tone}.
+   */
+  public TabItem toTabItem(MusicalValue value, int string, int fret) {
+
+    return new TabItem(value, getTone(string, fret), fret, this.strings[string]);
+  }
+
+  /**
+   * Moves the given {@link TabItem}s (e.g. from {@link #GUITAR_STANDARD standard tuning}) to this {@link Tuning}. The
+   * {@link TabItem#getTone() tones} remain unchanged. Each tone stays on the string with the closest
+   * {@link TabItem#getStringBaseTone() base tone} if playable there, otherwise the position with the closest fret is
+   * used. All items are processed in bulk passes over primitive arrays.
+   *
+   * @param items the {@link TabItem}s to retune.
+   * @return the {@link TabItem}s for this {@link Tuning}.
+   * @throws IllegalArgumentException if a tone can not be played in this {@link Tuning}.
+   */
+  public List<TabItem> retune(List<? extends TabItem> items) {
+
+    int size = items.size();
+    int[] numbers = new int[size];
+    int[] sourceStrings = new int[size];
+    int[] sourceFrets = new int[size];
+    for (int i = 0; i < size; i++) {
+      TabItem item = items.get(i);
+      numbers[i] = PackedTone.getChromaticNumber(item.getTone());
+      sourceStrings[i] = PackedTone.getChromaticNumber(item.getStringBaseTone());
+      sourceFrets[i] = item.getFret();
+    }
+    int[] targetStrings = new int[size];
+    int[] targetFrets = new int[size];
+    for (int i = 0; i < size; i++) {
+      int string = getClosestString(sourceStrings[i]);
+      int fret = getFret(numbers[i], string);
+      if (fret < 0) {
+        int count = getPositionCount(numbers[i]);
+        if (count == 0) {
+          throw new IllegalArgumentException(
+              "Tone " + items.get(i).getTone() + " at " + i + " not playable in " + this);
+        }
+        int best = Integer.MAX_VALUE;
+        for (int index = 0; index < count; index++) {
+          int candidate = getPositionFret(numbers[i], index);
+          if (Math.abs(candidate - sourceFrets[i]) < best) {
+            best = Math.abs(candidate - sourceFrets[i]);
+            fret = candidate;
+            string = getPositionString(numbers[i], index);
+          }
+        }
+      }
+      targetStrings[i] = string;
+      targetFrets[i] = fret;
+    }
+    List<TabItem> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      TabItem item = items.get(i);
+      // keep the original tone with its enharmonic spelling
+      result.add(new TabItem(item.getValue(), item.getTone(), targetFrets[i], this.strings[targetStrings[i]]));
+    }
+    return result;
+  }
+
+  private int getClosestString(int stringNumber) {
+
+    int closest = 0;
+    int distance = Integer.MAX_VALUE;
+    for (int string = 0; string < this.stringNumbers.length; string++) {
+      int delta = Math.abs(this.stringNumbers[string] - stringNumber);
+      if (delta < distance) {
+        distance = delta;
+        closest = string;
+      }
+    }
+    return closest;
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder(this.name);
+    sb.append(" (");
+    for (int i = 0; i < this.strings.length; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(this.strings[i].getPitch());
+    }
+    sb.append(')');
+    return sb.toString();
+  }
+
+}
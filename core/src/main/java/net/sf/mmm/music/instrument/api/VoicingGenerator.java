@@ -0,0 +1,318 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import net.sf.mmm.music.datatype.api.Chord;
+
+/**
+ * Generates all playable {@link ChordVoicing}s of a {@link Chord} for a {@link Tuning} (e.g. guitar, ukulele or bass).
+ * The frets of each string are searched with branch-and-bound: a voicing must contain all
+ * {@link Chord#getPitchClassMask() pitch classes} of the {@link Chord} (the fifth may be omitted if there are more
+ * pitch classes than strings), its lowest tone must be the {@link Chord#getBaseTone() base tone} (except for
+ * re-entrant tunings such as ukulele), the pressed frets must be within the span of the hand, at most four fingers
+ * may be needed (a barre on the lowest fret counts as one finger) and muted strings are only allowed below or above
+ * the played strings. Branches violating these constraints or that can not cover the missing pitch classes with the
+ * remaining strings are cut early. The results are ranked by {@link ChordVoicing#getDifficulty() difficulty} and
+ * cached per pitch class mask, base tone and omitted fifth, so equivalent chord names share the same result.
+ *
+ * This class is thread-safe.
+ *
+ * @author hohwille
+ */
+public class VoicingGenerator {
+
+  /** The maximum distance between the lowest and highest pressed fret. */
+  private static final int MAX_SPAN = 3;
+
+  /** The highest fret considered for the position of a voicing. */
+  private static final int MAX_FRET = 15;
+
+  private static final int MAX_FINGERS = 4;
+
+  private static final int COST_MUTED = 5;
+
+  private static final int COST_BARRE = 4;
+
+  /** The shared {@link VoicingGenerator}s of the predefined {@link Tuning}s. */
+  private static final Map<Tuning, VoicingGenerator> PRESETS = createPresets();
+
+  private final Tuning tuning;
+
+  private final int maxFret;
+
+  private final Map<Integer, List<ChordVoicing>> cache;
+
+  /**
+   * The constructor.
+   *
+   * @param tuning the {@link Tuning} of the instrument.
+   */
+  public VoicingGenerator(Tuning tuning) {
+
+    super();
+    this.tuning = tuning;
+    this.maxFret = Math.min(MAX_FRET, tuning.getFretCount());
+    this.cache = new ConcurrentHashMap<>();
+  }
+
+  private static Map<Tuning, VoicingGenerator> createPresets() {
+
+    Map<Tuning, VoicingGenerator> map = new IdentityHashMap<>();
+    for (Tuning tuning : new Tuning[] { Tuning.GUITAR_STANDARD, Tuning.GUITAR_DROP_D, Tuning.GUITAR_OPEN_G,
+        Tuning.GUITAR_SEVEN_STRING, Tuning.BASS_STANDARD, Tuning.BASS_FIVE_STRING, Tuning.UKULELE_STANDARD }) {
+      map.put(tuning, new VoicingGenerator(tuning));
+    }
+    return map;
+  }
+
+  /**
+   * @param tuning the {@link Tuning} of the instrument.
+   * @return the shared {@link VoicingGenerator} with its cache if the given {@link Tuning} is one of the predefined
+   *         constants (e.g. {@link Tuning#GUITAR_STANDARD}). Otherwise a new {@link VoicingGenerator} owned by the
+   *         caller, so the voicings of custom {@link Tuning}s are not retained forever.
+   */
+  public static VoicingGenerator of(Tuning tuning) {
+
+    VoicingGenerator generator = PRESETS.get(tuning);
+    if (generator == null) {
+      generator = new VoicingGenerator(tuning);
+    }
+    return generator;
+  }
+
+  /**
+   * @return the {@link Tuning} of the instrument.
+   */
+  public Tuning getTuning() {
+
+    return this.tuning;
+  }
+
+  /**
+   * @param chord the {@link Chord}.
+   * @return all playable {@link ChordVoicing}s of the given {@link Chord} ranked from easiest to hardest. May be
+   *         empty if the {@link Chord} can not be played with the {@link Tuning}.
+   */
+  public List<ChordVoicing> getVoicings(Chord chord) {
+
+    int mask = chord.getPitchClassMask();
+    int base = chord.getBaseTone().getStep();
+    int required = mask;
+    if (Integer.bitCount(mask) > this.tuning.getStringCount()) {
+      int fifth = (chord.getFundamentalTone().getStep() + 7) % 12;
+      if (fifth != base) {
+        required = required & ~(1 << fifth);
+      }
+    }
+    int searchMask = required;
+    // the omitted fifth depends on the fundamental tone and not only on mask and base
+    Integer key = Integer.valueOf((searchMask << 16) | (mask << 4) | base);
+    return this.cache.computeIfAbsent(key, k -> generate(mask, searchMask, base));
+  }
+
+  /**
+   * Computes the {@link #getVoicings(Chord) voicings} of the given {@link Chord}s in all 12 transpositions in parallel
+   * (e.g. at startup).
+   *
+   * @param vocabulary the {@link Chord}s to compute.
+   * @return the total number of {@link ChordVoicing}s.
+   */
+  public int precompute(Collection<Chord> vocabulary) {
+
+    List<Chord> chords = new ArrayList<>(vocabulary);
+    return IntStream.range(0, chords.size() * 12).parallel()
+        .map(i -> getVoicings(chords.get(i / 12).transposeChromatic(i % 12)).size()).sum();
+  }
+
+  private List<ChordVoicing> generate(int mask, int required, int base) {
+
+    Search search = new Search(mask, required, base);
+    search.next(0, 0);
+    List<ChordVoicing> voicings = search.voicings;
+    Collections.sort(voicings);
+    return Collections.unmodifiableList(voicings);
+  }
+
+  /**
+   * The state of the branch-and-bound search for a single chord.
+   */
+  private class Search {
+
+    private final int mask;
+
+    private final int required;
+
+    private final int base;
+
+    private final int stringCount;
+
+    /** {@code true} if the strings are tuned from low to high so the first played string has the lowest tone. */
+    private final boolean ascending;
+
+    private final byte[] frets;
+
+    private final List<ChordVoicing> voicings;
+
+    private Search(int mask, int required, int base) {
+
+      super();
+      this.mask = mask;
+      this.required = required;
+      this.base = base;
+      Tuning tuning = VoicingGenerator.this.tuning;
+      this.stringCount = tuning.getStringCount();
+      boolean isAscending = true;
+      for (int i = 1; i < this.stringCount; i++) {
+        isAscending = isAscending && (tuning.getStringNumber(i) > tuning.getStringNumber(i - 1));
+      }
+      this.ascending = isAscending;
+      this.frets = new byte[this.stringCount];
+      this.voicings = new ArrayList<>();
+    }
+
+    /**
+     * @param string the index of the current string.
+     * @param covered the mask of the pitch classes covered by the lower strings.
+     */
+    private void next(int string, int covered) {
+
+      if (string == this.stringCount) {
+        if ((covered & this.required) == this.required) {
+          add();
+        }
+        return;
+      }
+      int remaining = this.stringCount - string;
+      int missing = this.required & ~covered;
+      if (Integer.bitCount(missing) > remaining) {
+        return;
+      }
+      boolean started = (covered != 0);
+      if (started) {
+        // a muted string ends the played strings so all higher strings are muted as well
+        if (missing == 0) {
+          for (int i = string; i < this.stringCount; i++) {
+            this.frets[i] = ChordVoicing.MUTED;
+          }
+          add();
+        }
+      } else {
+        this.frets[string] = ChordVoicing.MUTED;
+        next(string + 1, 0);
+      }
+      Tuning tuning = VoicingGenerator.this.tuning;
+      int stringNumber = tuning.getStringNumber(string);
+      for (int fret = 0; fret <= VoicingGenerator.this.maxFret; fret++) {
+        int step = Math.floorMod(stringNumber + fret, 12);
+        if ((this.mask & (1 << step)) == 0) {
+          continue;
+        }
+        // the lowest string has the lowest tone unless the tuning is re-entrant (e.g. ukulele)
+        if (!started && this.ascending && (step != this.base)) {
+          continue;
+        }
+        this.frets[string] = (byte) fret;
+        if (isPlayable(string)) {
+          next(string + 1, covered | (1 << step));
+        }
+      }
+    }
+
+    /**
+     * @return {@code true} if the frets up to the given string can be played with one hand, {@code false} otherwise.
+     */
+    private boolean isPlayable(int string) {
+
+      int min = Integer.MAX_VALUE;
+      int max = 0;
+      for (int i = 0; i <= string; i++) {
+        int fret = this.frets[i];
+        if (fret > 0) {
+          min = Math.min(min, fret);
+          max = Math.max(max, fret);
+        }
+      }
+      if (max == 0) {
+        return true;
+      }
+      if (max - min > MAX_SPAN) {
+        return false;
+      }
+      return getFingers(string, min) <= MAX_FINGERS;
+    }
+
+    /**
+     * @return the number of fingers needed where all strings on the lowest fret are pressed by one finger (barre)
+     *         unless an open string lies above the first of them.
+     */
+    private int getFingers(int string, int min) {
+
+      int fingers = 0;
+      int pressedOnMin = 0;
+      boolean barre = true;
+      for (int i = 0; i <= string; i++) {
+        int fret = this.frets[i];
+        if (fret == min) {
+          pressedOnMin++;
+        } else if (fret > 0) {
+          fingers++;
+        } else if ((fret == 0) && (pressedOnMin > 0)) {
+          barre = false;
+        }
+      }
+      if (barre && (pressedOnMin > 0)) {
+        fingers++;
+      } else {
+        fingers = fingers + pressedOnMin;
+      }
+      return fingers;
+    }
+
+    private void add() {
+
+      int last = this.stringCount - 1;
+      int min = Integer.MAX_VALUE;
+      int max = 0;
+      int muted = 0;
+      int open = 0;
+      int pressedOnMin = 0;
+      for (int fret : this.frets) {
+        if (fret == ChordVoicing.MUTED) {
+          muted++;
+        } else if (fret == 0) {
+          open++;
+        } else {
+          min = Math.min(min, fret);
+          max = Math.max(max, fret);
+        }
+      }
+      int difficulty = muted * COST_MUTED;
+      if (max > 0) {
+        for (int fret : this.frets) {
+          if (fret == min) {
+            pressedOnMin++;
+          }
+        }
+        difficulty = difficulty + (min - 1) + (max - min) * 2 + getFingers(last, min) * 2;
+        if ((pressedOnMin > 1) && (open == 0)) {
+          difficulty = difficulty + COST_BARRE;
+        }
+        if ((open > 0) && (min > MAX_SPAN + 1)) {
+          // open strings combined with a high position
+          difficulty = difficulty + min;
+        }
+      }
+      this.voicings.add(new ChordVoicing(VoicingGenerator.this.tuning, this.frets.clone(), difficulty));
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.io.api;
+
+/**
+ * Constants of the compact binary score format written by {@link BinaryScoreWriter} and read by
+ * {@link BinaryScoreReader}. The layout (all fixed size numbers in big endian) is:
+ * <ol>
+ * <li>{@link #MAGIC} and {@link #VERSION} as {@code int}s.</li>
+ * <li>The dictionary of {@link net.sf.mmm.music.datatype.api.MusicalValue}s: {@link VarInt count} followed by
+ * {@link VarInt beats}, {@link VarInt fraction} and the ordinal of the
+ * {@link net.sf.mmm.music.datatype.api.MusicalValue.Variation} as single byte.</li>
+ * <li>The dictionary of {@link net.sf.mmm.music.datatype.api.Chord}s: {@link VarInt count} followed by the ordinals of
+ * fundamental tone, {@link net.sf.mmm.music.datatype.api.TonalSystem} (plus one, {@code 0} for {@code null}) and base
+ * tone as single bytes, the {@link VarInt number} of extension ordinals as single bytes and finally the
+ * {@link net.sf.mmm.music.datatype.api.Chord#getExtensionsString() extensions string} and the
+ * {@link net.sf.mmm.music.datatype.api.Chord#getName() name} each as {@link VarInt length} followed by its UTF-8
+ * bytes.</li>
+ * <li>The number of measures as {@code int} followed by the measure offset index with one {@code int} per measure plus
+ * a final end offset, all relative to the start of the measure data.</li>
+ * <li>The measure data. Each measure starts with the {@link VarInt number} of items. Each item starts with a
+ * {@link VarInt header} ({@code valueIndex << 2 | kind}) where {@code kind} is one of {@link #KIND_REST},
+ * {@link #KIND_TONE} or {@link #KIND_TAB}. A tone is encoded as a single {@link VarInt}
+ * ({@code zigZag(octaveDelta) << 6 | pitchOrdinal}) where the octave is delta encoded against the previous tone of the
+ * same measure. A tab additionally has the {@link VarInt fret} and the string base tone encoded like a tone with its
+ * octave relative to the played tone. The measure ends with the {@link VarInt number} of chords followed by their
+ * {@link VarInt dictionary indexes}.</li>
+ * </ol>
+ * As the delta encoding is reset for every measure, each measure can be decoded independently.
+ *
+ * @author hohwille
+ */
+public interface BinaryScoreFormat {
+
+  /** The magic number at the beginning of every binary score ("MMSC"). */
+  int MAGIC = 0x4D4D5343;
+
+  /** The current version of the format. */
+  int VERSION = 1;
+
+  /** Item kind of a {@link net.sf.mmm.music.datatype.api.RestItem}. */
+  int KIND_REST = 0;
+
+  /** Item kind of a {@link net.sf.mmm.music.datatype.api.ToneItem}. */
+  int KIND_TONE = 1;
+
+  /** Item kind of a {@link net.sf.mmm.music.datatype.api.TabItem}. */
+  int KIND_TAB = 2;
+
+  /** The number of bits used for the item kind in the item header. */
+  int KIND_BITS = 2;
+
+  /** The number of bits used for the pitch ordinal in an encoded tone. */
+  int PITCH_BITS = 6;
+
+}
@@ -0,0 +1,286 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.io.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.ChordExtension;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.MusicalValue.Variation;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+/**
+ * Reader for the compact {@link BinaryScoreFormat binary score format} written by {@link BinaryScoreWriter}. Only the
+ * dictionaries are decoded when the reader is created. The measures are decoded lazily on access via the measure
+ * offset index so a {@link #open(Path) memory mapped} score allows to jump to any measure without reading the
+ * measures before. Instances are immutable and therefore thread-safe.
+ *
+ * @author hohwille
+ */
+public class BinaryScoreReader implements BinaryScoreFormat {
+
+  private static final TonePitch[] PITCHES = TonePitch.values();
+
+  private static final TonalSystem[] TONAL_SYSTEMS = TonalSystem.values();
+
+  private static final ChordExtension[] EXTENSIONS = ChordExtension.values();
+
+  private static final Variation[] VARIATIONS = Variation.values();
+
+  private final ByteBuffer buffer;
+
+  private final MusicalValue[] values;
+
+  private final Chord[] chords;
+
+  private final int measureCount;
+
+  private final int indexPosition;
+
+  private final int dataPosition;
+
+  /**
+   * The constructor.
+   *
+   * @param buffer the {@link ByteBuffer} containing the binary score from its current {@link ByteBuffer#position()
+   *        position}. The buffer will not be modified.
+   */
+  public BinaryScoreReader(ByteBuffer buffer) {
+
+    super();
+    ByteBuffer in = buffer.slice();
+    this.buffer = in.duplicate();
+    int magic = in.getInt();
+    if (magic != MAGIC) {
+      throw new IllegalArgumentException("Not a binary score (magic " + Integer.toHexString(magic) + ")");
+    }
+    int version = in.getInt();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported binary score version " + version);
+    }
+    int valueCount = VarInt.read(in);
+    this.values = new MusicalValue[valueCount];
+    for (int i = 0; i < valueCount; i++) {
+      this.values[i] = readValue(in);
+    }
+    int chordCount = VarInt.read(in);
+    this.chords = new Chord[chordCount];
+    for (int i = 0; i < chordCount; i++) {
+      this.chords[i] = readChord(in);
+    }
+    this.measureCount = in.getInt();
+    this.indexPosition = in.position();
+    this.dataPosition = this.indexPosition + (this.measureCount + 1) * 4;
+  }
+
+  /**
+   * Reads a {@link MusicalValue} as specified by {@link BinaryScoreFormat}.
+   *
+   * @param in the {@link ByteBuffer} to read from at its current {@link ByteBuffer#position() position}.
+   * @return the decoded {@link MusicalValue}.
+   * @see BinaryScoreWriter#writeValue(java.io.DataOutput, MusicalValue)
+   */
+  public static MusicalValue readValue(ByteBuffer in) {
+
+    int beats = VarInt.read(in);
+    int fraction = VarInt.read(in);
+    Variation variation = VARIATIONS[in.get()];
+    return new MusicalValue(beats, fraction, variation);
+  }
+
+  /**
+   * Reads a {@link Chord} as specified by {@link BinaryScoreFormat}.
+   *
+   * @param in the {@link ByteBuffer} to read from at its current {@link ByteBuffer#position() position}.
+   * @return the decoded {@link Chord}.
+   * @see BinaryScoreWriter#writeChord(java.io.DataOutput, Chord)
+   */
+  public static Chord readChord(ByteBuffer in) {
+
+    TonePitch fundamental = PITCHES[in.get()];
+    int systemIndex = in.get();
+    TonalSystem system = null;
+    if (systemIndex > 0) {
+      system = TONAL_SYSTEMS[systemIndex - 1];
+    }
+    TonePitch base = PITCHES[in.get()];
+    int extensionCount = VarInt.read(in);
+    List<ChordExtension> extensions;
+    if (extensionCount == 0) {
+      extensions = Collections.emptyList();
+    } else {
+      ChordExtension[] extensionArray = new ChordExtension[extensionCount];
+      for (int i = 0; i < extensionCount; i++) {
+        extensionArray[i] = EXTENSIONS[in.get()];
+      }
+      extensions = Collections.unmodifiableList(Arrays.asList(extensionArray));
+    }
+    String extensionsString = readString(in);
+    String name = readString(in);
+    Chord chord = new Chord(fundamental, system, base, extensionsString, extensions);
+    if (!chord.getName().equals(name)) {
+      // chord was parsed from a name in a different notation (e.g. "Cis7" instead of "C#7")
+      Chord parsed = new Chord(name);
+      if (parsed.equals(chord) && parsed.getExtensionsString().equals(extensionsString)) {
+        chord = parsed;
+      }
+    }
+    return chord;
+  }
+
+  private static String readString(ByteBuffer in) {
+
+    byte[] bytes = new byte[VarInt.read(in)];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param file the {@link Path} to the binary score file to {@link FileChannel#map(MapMode, long, long) map} into
+   *        memory.
+   * @return the {@link BinaryScoreReader} for the given file.
+   * @throws IOException if the file could not be mapped.
+   */
+  public static BinaryScoreReader open(Path file) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new BinaryScoreReader(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * @return the number of measures.
+   */
+  public int getMeasureCount() {
+
+    return this.measureCount;
+  }
+
+  /**
+   * @return the number of distinct {@link MusicalValue}s in the dictionary.
+   */
+  public int getValueCount() {
+
+    return this.values.length;
+  }
+
+  /**
+   * @return the number of distinct {@link Chord}s in the dictionary.
+   */
+  public int getChordCount() {
+
+    return this.chords.length;
+  }
+
+  /**
+   * @param chordIndex the index of the {@link Chord} in the dictionary.
+   * @return the according {@link Chord}.
+   */
+  public Chord getChord(int chordIndex) {
+
+    return this.chords[chordIndex];
+  }
+
+  private ByteBuffer seekMeasure(int measure) {
+
+    if ((measure < 0) || (measure >= this.measureCount)) {
+      throw new IndexOutOfBoundsException(Integer.toString(measure));
+    }
+    int offset = this.buffer.getInt(this.indexPosition + measure * 4);
+    ByteBuffer in = this.buffer.duplicate();
+    in.position(this.dataPosition + offset);
+    return in;
+  }
+
+  /**
+   * @param measure the index of the requested measure.
+   * @return the number of {@link MusicalItem}s in the given measure.
+   */
+  public int getItemCount(int measure) {
+
+    return VarInt.read(seekMeasure(measure));
+  }
+
+  /**
+   * @param measure the index of the requested measure.
+   * @return the decoded {@link MusicalItem}s of the given measure.
+   */
+  public List<MusicalItem> getItems(int measure) {
+
+    ByteBuffer in = seekMeasure(measure);
+    int itemCount = VarInt.read(in);
+    List<MusicalItem> items = new ArrayList<>(itemCount);
+    int octave = 0;
+    for (int i = 0; i < itemCount; i++) {
+      int header = VarInt.read(in);
+      MusicalValue value = this.values[header >>> KIND_BITS];
+      int kind = header & ((1 << KIND_BITS) - 1);
+      if (kind == KIND_REST) {
+        items.add(new RestItem(value));
+      } else {
+        Tone tone = readTone(in, octave);
+        octave = tone.getOctave();
+        if (kind == KIND_TAB) {
+          int fret = VarInt.read(in);
+          Tone stringBaseTone = readTone(in, octave);
+          items.add(new TabItem(value, tone, fret, stringBaseTone));
+        } else {
+          items.add(new ToneItem(value, tone));
+        }
+      }
+    }
+    return items;
+  }
+
+  private static Tone readTone(ByteBuffer in, int previousOctave) {
+
+    int encoded = VarInt.read(in);
+    TonePitch pitch = PITCHES[encoded & ((1 << PITCH_BITS) - 1)];
+    int octave = previousOctave + VarInt.decodeZigZag(encoded >>> PITCH_BITS);
+    return new Tone(pitch, octave);
+  }
+
+  /**
+   * @param measure the index of the requested measure.
+   * @return the {@link Chord}s of the given measure.
+   */
+  public List<Chord> getChords(int measure) {
+
+    ByteBuffer in = seekMeasure(measure);
+    int itemCount = VarInt.read(in);
+    for (int i = 0; i < itemCount; i++) {
+      int kind = VarInt.read(in) & ((1 << KIND_BITS) - 1);
+      if (kind != KIND_REST) {
+        VarInt.read(in);
+        if (kind == KIND_TAB) {
+          VarInt.read(in);
+          VarInt.read(in);
+        }
+      }
+    }
+    int chordCount = VarInt.read(in);
+    List<Chord> result = new ArrayList<>(chordCount);
+    for (int i = 0; i < chordCount; i++) {
+      result.add(this.chords[VarInt.read(in)]);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,245 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.io.api;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.ChordExtension;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+/**
+ * Writer for the compact {@link BinaryScoreFormat binary score format}. {@link #addMeasure(List, List) Add} the
+ * measures of a score and finally {@link #write(OutputStream) write} it. The result can be read with random access per
+ * measure via {@link BinaryScoreReader}.
+ *
+ * @author hohwille
+ */
+public class BinaryScoreWriter implements BinaryScoreFormat {
+
+  private final List<MusicalValue> values;
+
+  private final Map<MusicalValue, Integer> valueMap;
+
+  private final List<Chord> chords;
+
+  /** Keyed by {@link Chord} and its {@link Chord#getName() name} to stay lossless. */
+  private final Map<List<Object>, Integer> chordMap;
+
+  private final ByteArrayOutputStream measureBytes;
+
+  private final DataOutputStream measureData;
+
+  private int[] measureOffsets;
+
+  private int measureCount;
+
+  /**
+   * The constructor.
+   */
+  public BinaryScoreWriter() {
+
+    super();
+    this.values = new ArrayList<>();
+    this.valueMap = new HashMap<>();
+    this.chords = new ArrayList<>();
+    this.chordMap = new HashMap<>();
+    this.measureBytes = new ByteArrayOutputStream(4096);
+    this.measureData = new DataOutputStream(this.measureBytes);
+    this.measureOffsets = new int[64];
+  }
+
+  /**
+   * @return the number of measures {@link #addMeasure(List, List) added} so far.
+   */
+  public int getMeasureCount() {
+
+    return this.measureCount;
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s of the measure to add.
+   */
+  public void addMeasure(List<? extends MusicalItem> items) {
+
+    addMeasure(items, Collections.<Chord> emptyList());
+  }
+
+  /**
+   * @param items the {@link MusicalItem}s of the measure to add. Only {@link ToneItem}s, {@link TabItem}s and
+   *        {@link MusicalItem#isRest() rests} are supported.
+   * @param measureChords the {@link Chord}s of the measure to add.
+   */
+  public void addMeasure(List<? extends MusicalItem> items, List<Chord> measureChords) {
+
+    if (this.measureCount + 1 >= this.measureOffsets.length) {
+      this.measureOffsets = Arrays.copyOf(this.measureOffsets, this.measureOffsets.length * 2);
+    }
+    this.measureOffsets[this.measureCount] = this.measureData.size();
+    try {
+      VarInt.write(this.measureData, items.size());
+      int octave = 0;
+      for (MusicalItem item : items) {
+        int valueIndex = getValueIndex(item.getValue());
+        if (item.isRest()) {
+          VarInt.write(this.measureData, (valueIndex << KIND_BITS) | KIND_REST);
+        } else if (item instanceof TabItem) {
+          TabItem tab = (TabItem) item;
+          Tone tone = tab.getTone();
+          VarInt.write(this.measureData, (valueIndex << KIND_BITS) | KIND_TAB);
+          writeTone(tone, octave);
+          octave = tone.getOctave();
+          VarInt.write(this.measureData, tab.getFret());
+          writeTone(tab.getStringBaseTone(), octave);
+        } else if (item instanceof ToneItem) {
+          Tone tone = item.getTone();
+          VarInt.write(this.measureData, (valueIndex << KIND_BITS) | KIND_TONE);
+          writeTone(tone, octave);
+          octave = tone.getOctave();
+        } else {
+          throw new IllegalArgumentException(item.getClass().getName());
+        }
+      }
+      VarInt.write(this.measureData, measureChords.size());
+      for (Chord chord : measureChords) {
+        VarInt.write(this.measureData, getChordIndex(chord));
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    this.measureCount++;
+  }
+
+  private void writeTone(Tone tone, int previousOctave) throws IOException {
+
+    int octaveDelta = VarInt.encodeZigZag(tone.getOctave() - previousOctave);
+    VarInt.write(this.measureData, (octaveDelta << PITCH_BITS) | tone.getPitch().ordinal());
+  }
+
+  private int getValueIndex(MusicalValue value) {
+
+    Integer index = this.valueMap.get(value);
+    if (index == null) {
+      index = Integer.valueOf(this.values.size());
+      this.values.add(value);
+      this.valueMap.put(value, index);
+    }
+    return index.intValue();
+  }
+
+  private int getChordIndex(Chord chord) {
+
+    List<Object> key = Arrays.<Object> asList(chord, chord.getName(), chord.getExtensionsString());
+    Integer index = this.chordMap.get(key);
+    if (index == null) {
+      index = Integer.valueOf(this.chords.size());
+      this.chords.add(chord);
+      this.chordMap.put(key, index);
+    }
+    return index.intValue();
+  }
+
+  /**
+   * @param file the {@link Path} of the file to write.
+   * @throws IOException if writing failed.
+   */
+  public void write(Path file) throws IOException {
+
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+      write(out);
+    }
+  }
+
+  /**
+   * @param outStream the {@link OutputStream} to write the binary score to. Will not be closed.
+   * @throws IOException if writing failed.
+   */
+  public void write(OutputStream outStream) throws IOException {
+
+    DataOutputStream out = new DataOutputStream(outStream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    VarInt.write(out, this.values.size());
+    for (MusicalValue value : this.values) {
+      writeValue(out, value);
+    }
+    VarInt.write(out, this.chords.size());
+    for (Chord chord : this.chords) {
+      writeChord(out, chord);
+    }
+    out.writeInt(this.measureCount);
+    for (int i = 0; i < this.measureCount; i++) {
+      out.writeInt(this.measureOffsets[i]);
+    }
+    out.writeInt(this.measureData.size());
+    this.measureBytes.writeTo(out);
+    out.flush();
+  }
+
+  /**
+   * Writes a {@link MusicalValue} as specified by {@link BinaryScoreFormat}.
+   *
+   * @param out the {@link DataOutput} to write to.
+   * @param value the {@link MusicalValue} to write.
+   * @throws IOException if writing failed.
+   * @see BinaryScoreReader#readValue(java.nio.ByteBuffer)
+   */
+  public static void writeValue(DataOutput out, MusicalValue value) throws IOException {
+
+    VarInt.write(out, value.getBeats());
+    VarInt.write(out, value.getFaction());
+    out.writeByte(value.getVariation().ordinal());
+  }
+
+  /**
+   * Writes a {@link Chord} as specified by {@link BinaryScoreFormat}.
+   *
+   * @param out the {@link DataOutput} to write to.
+   * @param chord the {@link Chord} to write.
+   * @throws IOException if writing failed.
+   * @see BinaryScoreReader#readChord(java.nio.ByteBuffer)
+   */
+  public static void writeChord(DataOutput out, Chord chord) throws IOException {
+
+    out.writeByte(chord.getFundamentalTone().ordinal());
+    if (chord.getTonalSystem() == null) {
+      out.writeByte(0);
+    } else {
+      out.writeByte(chord.getTonalSystem().ordinal() + 1);
+    }
+    out.writeByte(chord.getBaseTone().ordinal());
+    List<ChordExtension> extensions = chord.getExtensions();
+    VarInt.write(out, extensions.size());
+    for (ChordExtension extension : extensions) {
+      out.writeByte(extension.ordinal());
+    }
+    writeString(out, chord.getExtensionsString());
+    writeString(out, chord.getName());
+  }
+
+  private static void writeString(DataOutput out, String string) throws IOException {
+
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    VarInt.write(out, bytes.length);
+    out.write(bytes);
+  }
+
+}
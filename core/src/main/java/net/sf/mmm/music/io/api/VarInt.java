@@ -0,0 +1,145 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.io.api;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Helper for variable length encoding of {@code int} values (7 bits per byte, the highest bit indicates that another
+ * byte follows). Small values such as dictionary indexes or deltas therefore only take a single byte. Signed values
+ * have to be {@link #encodeZigZag(int) zig-zag encoded} first.
+ *
+ * @author hohwille
+ */
+public final class VarInt {
+
+  /** The maximum number of bytes of an encoded {@code int}. */
+  public static final int MAX_SIZE = 5;
+
+  private VarInt() {
+
+    super();
+  }
+
+  /**
+   * @param value the signed value to encode.
+   * @return the given {@code value} mapped to a non-negative value so that small negative values stay small (0, -1, 1,
+   *         -2, 2, ... become 0, 1, 2, 3, 4, ...).
+   */
+  public static int encodeZigZag(int value) {
+
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * @param value the {@link #encodeZigZag(int) zig-zag encoded} value.
+   * @return the decoded signed value.
+   */
+  public static int decodeZigZag(int value) {
+
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * @param value the value to encode.
+   * @return the number of bytes required to encode the given {@code value}.
+   */
+  public static int size(int value) {
+
+    int size = 1;
+    int rest = value >>> 7;
+    while (rest != 0) {
+      size++;
+      rest = rest >>> 7;
+    }
+    return size;
+  }
+
+  /**
+   * @param buffer the byte array to write to. Has to have at least {@link #size(int)} bytes left from
+   *        {@code offset}.
+   * @param offset the index in {@code buffer} where to write the first byte.
+   * @param value the value to encode.
+   * @return the index in {@code buffer} after the last written byte.
+   */
+  public static int write(byte[] buffer, int offset, int value) {
+
+    int pos = offset;
+    int rest = value;
+    while ((rest & ~0x7F) != 0) {
+      buffer[pos++] = (byte) ((rest & 0x7F) | 0x80);
+      rest = rest >>> 7;
+    }
+    buffer[pos++] = (byte) rest;
+    return pos;
+  }
+
+  /**
+   * @param out the {@link DataOutput} to write to.
+   * @param value the value to encode.
+   * @throws IOException if the underlying output failed.
+   */
+  public static void write(DataOutput out, int value) throws IOException {
+
+    int rest = value;
+    while ((rest & ~0x7F) != 0) {
+      out.writeByte((rest & 0x7F) | 0x80);
+      rest = rest >>> 7;
+    }
+    out.writeByte(rest);
+  }
+
+  /**
+   * @param buffer the {@link ByteBuffer} to read from at its current {@link ByteBuffer#position() position}.
+   * @return the decoded value.
+   */
+  public static int read(ByteBuffer buffer) {
+
+    int b = buffer.get();
+    int value = b & 0x7F;
+    int shift = 7;
+    while (b < 0) {
+      b = buffer.get();
+      value = value | ((b & 0x7F) << shift);
+      shift = shift + 7;
+    }
+    return value;
+  }
+
+  /**
+   * @param buffer the byte array to read from.
+   * @param offset the index of the first byte to decode.
+   * @return the decoded value.
+   * @see #skip(byte[], int)
+   */
+  public static int read(byte[] buffer, int offset) {
+
+    int pos = offset;
+    int b = buffer[pos++];
+    int value = b & 0x7F;
+    int shift = 7;
+    while (b < 0) {
+      b = buffer[pos++];
+      value = value | ((b & 0x7F) << shift);
+      shift = shift + 7;
+    }
+    return value;
+  }
+
+  /**
+   * @param buffer the byte array containing encoded values.
+   * @param offset the index of the first byte of an encoded value.
+   * @return the index of the first byte after the encoded value.
+   */
+  public static int skip(byte[] buffer, int offset) {
+
+    int pos = offset;
+    while (buffer[pos++] < 0) {
+      // continuation bit set
+    }
+    return pos;
+  }
+
+}
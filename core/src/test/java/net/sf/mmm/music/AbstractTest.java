@@ -2,6 +2,14 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.music;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
 import org.assertj.core.api.Assertions;
 
 /**
@@ -11,6 +19,20 @@ import org.assertj.core.api.Assertions;
  */
 public class AbstractTest extends Assertions {
 
+  public static List<Chord> chords(String chords) {
+
+    List<Chord> result = new ArrayList<>();
+    for (String chord : chords.split(" ")) {
+      result.add(new Chord(chord));
+    }
+    return result;
+  }
+
+  public static ToneItem tone(MusicalValue value, String tone) {
+
+    return new ToneItem(value, new Tone(tone));
+  }
+
   public static void checkNegative(Runnable lambda, Class<? extends Throwable> error) {
 
     checkNegative(lambda, error, false, null, true);
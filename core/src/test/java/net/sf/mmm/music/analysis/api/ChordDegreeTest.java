@@ -0,0 +1,49 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.ChordExtension;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.TonalSystem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ChordDegree}.
+ *
+ * @author hohwille
+ */
+public class ChordDegreeTest extends AbstractTest {
+
+  /** Test of {@link ChordDegree#of(Chord, MusicalKey)}. */
+  @Test
+  public void testOf() {
+
+    ChordDegree degree = ChordDegree.of(new Chord("Dm7"), MusicalKey.C_MAJOR);
+    assertThat(degree).isEqualTo(ChordDegree.of(new Chord("Am7"), MusicalKey.G_MAJOR));
+    assertThat(degree.toString()).isEqualTo("ii7");
+    assertThat(ChordDegree.of(new Chord("Bb"), MusicalKey.C_MAJOR).toString()).isEqualTo("bVII");
+    assertThat(ChordDegree.of(new Chord("Hdim"), MusicalKey.C_MAJOR).toString()).isEqualTo("vii\u00B0");
+    assertThat(ChordDegree.of(new Chord("G7"), MusicalKey.C_MINOR).getStep()).isEqualTo(7);
+  }
+
+  /** Test of {@link ChordDegree#parse(String)} and {@link ChordDegree#toChord(MusicalKey)}. */
+  @Test
+  public void testParse() {
+
+    for (String numeral : new String[] { "I", "ii7", "V7", "bVII", "vii\u00B0", "IVmaj7", "III+", "Vsus4", "i" }) {
+      ChordDegree degree = ChordDegree.parse(numeral);
+      assertThat(degree.toString()).isEqualTo(numeral);
+      assertThat(ChordDegree.unpack(degree.getPacked())).isEqualTo(degree);
+    }
+    ChordDegree degree = ChordDegree.parse("V7");
+    assertThat(degree.getTonalSystem()).isSameAs(TonalSystem.MAJOR);
+    assertThat(degree.hasExtension(ChordExtension._7)).isTrue();
+    assertThat(degree.toChord(MusicalKey.D_MAJOR)).isEqualTo(new Chord("A7"));
+    assertThat(ChordDegree.parseProgression("ii\u2013V\u2013I")).containsExactly(ChordDegree.parse("ii"),
+        ChordDegree.parse("V"), ChordDegree.parse("I"));
+  }
+
+}
@@ -0,0 +1,54 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ChordFunctionAnalyzer}.
+ *
+ * @author hohwille
+ */
+public class ChordFunctionAnalyzerTest extends AbstractTest {
+
+  /** Test of {@link ChordFunctionAnalyzer#getLabels(List, ChordNotation)} in {@link MusicalKey#C_MAJOR}. */
+  @Test
+  public void testLabelsMajor() {
+
+    ChordFunctionAnalyzer analyzer = ChordFunctionAnalyzer.of(MusicalKey.C_MAJOR);
+    List<Chord> chords = chords("C Am Dm7 D7 G7 Bb Hdim E7 Am Cmaj7");
+    assertThat(analyzer.getLabels(chords, ChordNotation.ROMAN))
+        .isEqualTo("I vi ii7 V7/V V7 bVII vii\u00B0 V7/vi vi Imaj7");
+    assertThat(analyzer.getLabels(chords, ChordNotation.NASHVILLE)).isEqualTo("1 6m 2m7 27 57 b7 7\u00B0 37 6m 1maj7");
+  }
+
+  /** Test of {@link ChordFunctionAnalyzer#getLabels(List, ChordNotation)} in {@link MusicalKey#A_MINOR}. */
+  @Test
+  public void testLabelsMinor() {
+
+    ChordFunctionAnalyzer analyzer = ChordFunctionAnalyzer.of(MusicalKey.A_MINOR);
+    List<Chord> chords = chords("Am Dm E7 F G C H7 Em");
+    assertThat(analyzer.getLabels(chords, ChordNotation.ROMAN)).isEqualTo("i iv V7 bVI bVII bIII V7/V v");
+    assertThat(analyzer.getLabels(chords, ChordNotation.NASHVILLE)).isEqualTo("1m 4m 57 b6 b7 b3 27 5m");
+  }
+
+  /** Test of {@link ChordFunctionAnalyzer#parseLabels(String)}. */
+  @Test
+  public void testParse() {
+
+    ChordFunctionAnalyzer analyzer = ChordFunctionAnalyzer.of(MusicalKey.G_MAJOR);
+    assertThat(analyzer.parseLabels("I-vi-ii7-V7/V-V7")).isEqualTo(chords("G Em Am7 A7 D7"));
+    assertThat(analyzer.parseLabels("1 4 5m b7")).isEqualTo(chords("G C Dm F"));
+    analyzer = ChordFunctionAnalyzer.of(MusicalKey.C_MAJOR);
+    List<Chord> chords = chords("C F Dm7 A7 Dm G7 E7 Am Bb Csus4 Caug");
+    assertThat(analyzer.parseLabels(analyzer.getLabels(chords, ChordNotation.ROMAN))).isEqualTo(chords);
+    assertThat(analyzer.parseLabels(analyzer.getLabels(chords, ChordNotation.NASHVILLE))).isEqualTo(chords);
+  }
+
+}
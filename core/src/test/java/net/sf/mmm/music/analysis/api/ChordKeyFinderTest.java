@@ -0,0 +1,51 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ChordKeyFinder}.
+ *
+ * @author hohwille
+ */
+public class ChordKeyFinderTest extends AbstractTest {
+
+  private static MusicalKey findKey(String chords) {
+
+    return ChordKeyFinder.findKey(chords(chords));
+  }
+
+  /** Test of {@link ChordKeyFinder#findKey(List)}. */
+  @Test
+  public void testFindKey() {
+
+    assertThat(findKey("C Am F G C")).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(findKey("Am Dm E Am")).isSameAs(MusicalKey.A_MINOR);
+    assertThat(findKey("Dm G7 C")).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(findKey("Em Am H7 Em")).isSameAs(MusicalKey.E_MINOR);
+    assertThat(findKey("F C Dm Bb F")).isSameAs(MusicalKey.F_MAJOR);
+    assertThat(findKey("Cm Fm G7 Cm")).isSameAs(MusicalKey.C_MINOR);
+    assertThat(findKey("F#m D A E")).isSameAs(MusicalKey.A_MAJOR);
+    assertThat(ChordKeyFinder.findKey(Collections.<Chord> emptyList())).isNull();
+  }
+
+  /** Test of {@link ChordKeyFinder#getScore(MusicalKey)}. */
+  @Test
+  public void testScore() {
+
+    ChordKeyFinder finder = new ChordKeyFinder().add(new Chord("G")).add(new Chord("D7")).add(new Chord("G"));
+    assertThat(finder.getKey()).isSameAs(MusicalKey.G_MAJOR);
+    assertThat(finder.getScore(MusicalKey.G_MAJOR)).isGreaterThan(finder.getScore(MusicalKey.D_MAJOR));
+    finder.reset();
+    assertThat(finder.getKey()).isNull();
+  }
+
+}
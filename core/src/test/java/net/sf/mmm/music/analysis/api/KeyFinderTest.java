@@ -0,0 +1,68 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link KeyFinder}.
+ *
+ * @author hohwille
+ */
+public class KeyFinderTest extends AbstractTest {
+
+  private static List<MusicalItem> scale(MusicalKey key) {
+
+    List<MusicalItem> items = new ArrayList<>();
+    for (TonePitch pitch : key.getDiatonicScale()) {
+      items.add(new ToneItem(MusicalValue.QUARTER, new Tone(pitch, 0)));
+    }
+    items.add(new RestItem(MusicalValue.QUARTER));
+    items.add(new ToneItem(MusicalValue.MINIM, new Tone(key.getTonika(), 1)));
+    return items;
+  }
+
+  /** Test of {@link KeyFinder#findKey(List)}. */
+  @Test
+  public void testFindKey() {
+
+    assertThat(KeyFinder.findKey(scale(MusicalKey.C_MAJOR))).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(KeyFinder.findKey(scale(MusicalKey.A_MINOR))).isSameAs(MusicalKey.A_MINOR);
+    assertThat(KeyFinder.findKey(scale(MusicalKey.ES_MAJOR))).isSameAs(MusicalKey.ES_MAJOR);
+    assertThat(KeyFinder.findKey(scale(MusicalKey.FIS_MINOR))).isSameAs(MusicalKey.FIS_MINOR);
+    // enharmonic equivalent with fewer signs
+    assertThat(KeyFinder.findKey(scale(MusicalKey.CES_MAJOR))).isSameAs(MusicalKey.H_MAJOR);
+    assertThat(KeyFinder.findKey(new ArrayList<MusicalItem>())).isNull();
+  }
+
+  /** Test of {@link KeyFinder} in sliding window mode. */
+  @Test
+  public void testSlidingWindow() {
+
+    KeyFinder finder = new KeyFinder(KeyProfile.TEMPERLEY, 16);
+    for (int i = 0; i < 3; i++) {
+      scale(MusicalKey.D_MAJOR).forEach(finder::add);
+    }
+    assertThat(finder.getKey()).isSameAs(MusicalKey.D_MAJOR);
+    for (int i = 0; i < 3; i++) {
+      scale(MusicalKey.ES_MAJOR).forEach(finder::add);
+    }
+    assertThat(finder.getKey()).isSameAs(MusicalKey.ES_MAJOR);
+    assertThat(finder.getCorrelation(MusicalKey.ES_MAJOR)).isGreaterThan(0.8);
+    finder.reset();
+    assertThat(finder.getKey()).isNull();
+  }
+
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ModulationDetector}.
+ *
+ * @author hohwille
+ */
+public class ModulationDetectorTest extends AbstractTest {
+
+  /** Test of {@link ModulationDetector#detectChords(List)}. */
+  @Test
+  public void testDetectChords() {
+
+    ModulationDetector detector = new ModulationDetector();
+    assertThat(detector.detectChords(chords("C Am F G C F G7 C G D7 G Em C D7 G Am D G")))
+        .containsExactly(new KeyChange(0, MusicalKey.C_MAJOR), new KeyChange(8, MusicalKey.G_MAJOR));
+    assertThat(detector.detectChords(chords("C F G C Es As Bb Es As Bb7 Es Cm As Bb Es")))
+        .containsExactly(new KeyChange(0, MusicalKey.C_MAJOR), new KeyChange(4, MusicalKey.ES_MAJOR));
+    // a single secondary dominant is no modulation
+    assertThat(detector.detectChords(chords("C G7 C D7 G7 C F G7 C")))
+        .containsExactly(new KeyChange(0, MusicalKey.C_MAJOR));
+    assertThat(detector.detectChords(Collections.<Chord> emptyList())).isEmpty();
+  }
+
+  /** Test of {@link ModulationDetector#detectNotes(List)}. */
+  @Test
+  public void testDetectNotes() {
+
+    TonePitch[] cMajor = { TonePitch.C, TonePitch.D, TonePitch.E, TonePitch.F, TonePitch.G, TonePitch.A, TonePitch.H,
+        TonePitch.C };
+    TonePitch[] dMajor = { TonePitch.D, TonePitch.E, TonePitch.FIS, TonePitch.G, TonePitch.A, TonePitch.H,
+        TonePitch.CIS, TonePitch.D };
+    List<MusicalItem> items = new ArrayList<>();
+    for (int measure = 0; measure < 4; measure++) {
+      for (TonePitch pitch : cMajor) {
+        items.add(new ToneItem(MusicalValue.QUAVER, new Tone(pitch, 4)));
+      }
+    }
+    for (int measure = 0; measure < 4; measure++) {
+      for (TonePitch pitch : dMajor) {
+        items.add(new ToneItem(MusicalValue.QUAVER, new Tone(pitch, 4)));
+      }
+    }
+    assertThat(new ModulationDetector().detectNotes(items)).containsExactly(new KeyChange(0, MusicalKey.C_MAJOR),
+        new KeyChange(32, MusicalKey.D_MAJOR));
+  }
+
+  /** Test of {@link ModulationDetector#getDistance(MusicalKey, MusicalKey)}. */
+  @Test
+  public void testDistance() {
+
+    assertThat(ModulationDetector.getDistance(MusicalKey.C_MAJOR, MusicalKey.G_MAJOR)).isEqualTo(1);
+    assertThat(ModulationDetector.getDistance(MusicalKey.C_MAJOR, MusicalKey.A_MINOR)).isEqualTo(1);
+    assertThat(ModulationDetector.getDistance(MusicalKey.C_MAJOR, MusicalKey.C_MINOR)).isEqualTo(4);
+    assertThat(ModulationDetector.getDistance(MusicalKey.FIS_MAJOR, MusicalKey.GES_MAJOR)).isEqualTo(0);
+    assertThat(ModulationDetector.getDistance(MusicalKey.C_MAJOR, MusicalKey.FIS_MAJOR)).isEqualTo(6);
+  }
+
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Beat;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.MusicalValue.Variation;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link RhythmQuantizer}.
+ *
+ * @author hohwille
+ */
+public class RhythmQuantizerTest extends AbstractTest {
+
+  private static final MusicalValue PUNCTURED_QUARTER = new MusicalValue(1, 4, Variation.PUNCTURED);
+
+  private static final MusicalValue PUNCTURED_QUAVER = new MusicalValue(1, 8, Variation.PUNCTURED);
+
+  private static final MusicalValue TRIPLET_QUAVER = new MusicalValue(1, 8, Variation.TRIPLET);
+
+  /** @see #perform(List, double, RhythmQuantizer, List) */
+  private static List<MusicalItem> perform(List<MusicalItem> items, double tempo, RhythmQuantizer quantizer) {
+
+    return perform(items, tempo, quantizer, new ArrayList<>());
+  }
+
+  /**
+   * Performs the given items with random timing errors and quantizes them again.
+   *
+   * @param emitted the {@link List} where the number of items emitted after each note is added.
+   */
+  private static List<MusicalItem> perform(List<MusicalItem> items, double tempo, RhythmQuantizer quantizer,
+      List<Integer> emitted) {
+
+    Random random = new Random(42);
+    double time = 0;
+    List<MusicalItem> result = new ArrayList<>();
+    for (MusicalItem item : items) {
+      double duration = item.getValue().getDuration() * 240 / tempo;
+      if (item.getTone() != null) {
+        double onset = Math.max(0, time + (random.nextDouble() - 0.5) * 0.03);
+        // slightly detached
+        double performed = duration * (0.8 + random.nextDouble() * 0.15);
+        List<MusicalItem> added = quantizer.add(onset, performed, item.getTone());
+        result.addAll(added);
+        emitted.add(Integer.valueOf(added.size()));
+      }
+      time = time + duration;
+    }
+    result.addAll(quantizer.finish());
+    return result;
+  }
+
+  /** Test of {@link RhythmQuantizer#add(double, double, Tone)} in 4/4 with punctured values and triplets. */
+  @Test
+  public void testQuantize() {
+
+    List<MusicalItem> melody = Arrays.asList(tone(MusicalValue.QUARTER, "C0"), tone(PUNCTURED_QUAVER, "D0"),
+        tone(MusicalValue.SEMIQUAVER, "E0"), tone(TRIPLET_QUAVER, "F0"), tone(TRIPLET_QUAVER, "G0"),
+        tone(TRIPLET_QUAVER, "A0"), tone(MusicalValue.QUARTER, "G0"), new RestItem(MusicalValue.QUARTER),
+        tone(PUNCTURED_QUARTER, "E0"), tone(MusicalValue.QUAVER, "D0"), tone(MusicalValue.MINIM, "C0"));
+    RhythmQuantizer quantizer = new RhythmQuantizer(100, Beat._4_4);
+    assertThat(perform(melody, 100, quantizer)).isEqualTo(melody);
+  }
+
+  /** Test of {@link RhythmQuantizer#add(double, double, Tone)} in 6/8. */
+  @Test
+  public void testQuantizeCompound() {
+
+    List<MusicalItem> melody = Arrays.asList(tone(MusicalValue.QUAVER, "C0"), tone(MusicalValue.QUAVER, "E0"),
+        tone(MusicalValue.QUAVER, "G0"), tone(PUNCTURED_QUARTER, "C1"), tone(MusicalValue.QUARTER, "H0"),
+        tone(MusicalValue.QUAVER, "A0"), tone(PUNCTURED_QUAVER, "G0"), tone(MusicalValue.SEMIQUAVER, "F0"),
+        tone(MusicalValue.QUAVER, "E0"));
+    RhythmQuantizer quantizer = new RhythmQuantizer(150, Beat._6_8);
+    assertThat(perform(melody, 150, quantizer)).isEqualTo(melody);
+  }
+
+  /** Test of {@link RhythmQuantizer#add(double, double, Tone)} with a long stream. */
+  @Test
+  public void testIncremental() {
+
+    List<MusicalItem> melody = new ArrayList<>();
+    String[] tones = { "C0", "D0", "E0", "F0", "G0", "A0", "H0", "C1" };
+    MusicalValue[] values = { MusicalValue.QUARTER, PUNCTURED_QUAVER, MusicalValue.SEMIQUAVER, MusicalValue.QUAVER,
+        MusicalValue.QUAVER, MusicalValue.MINIM };
+    for (int i = 0; i < 3000; i++) {
+      melody.add(tone(values[i % values.length], tones[i % tones.length]));
+    }
+    List<Integer> emitted = new ArrayList<>();
+    RhythmQuantizer quantizer = new RhythmQuantizer(120, Beat._4_4);
+    assertThat(perform(melody, 120, quantizer, emitted)).isEqualTo(melody);
+    // the items are emitted while playing and lag only a few notes behind
+    int pending = 0;
+    int maxPending = 0;
+    for (Integer count : emitted) {
+      pending = pending + 1 - count.intValue();
+      maxPending = Math.max(maxPending, pending);
+    }
+    assertThat(maxPending).isBetween(1, 16);
+  }
+
+}
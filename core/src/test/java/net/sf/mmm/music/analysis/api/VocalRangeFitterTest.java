@@ -0,0 +1,92 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.analysis.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link VocalRangeFitter}.
+ *
+ * @author hohwille
+ */
+public class VocalRangeFitterTest extends AbstractTest {
+
+  private static List<MusicalItem> melody(String tones) {
+
+    List<MusicalItem> items = new ArrayList<>();
+    for (String tone : tones.split(" ")) {
+      if (tone.equals("-")) {
+        items.add(new RestItem(MusicalValue.QUARTER));
+      } else {
+        items.add(new ToneItem(MusicalValue.QUARTER, new Tone(tone)));
+      }
+    }
+    return items;
+  }
+
+  /** Test of {@link VocalRangeFitter#fit(List, MusicalKey)}. */
+  @Test
+  public void testFit() {
+
+    List<MusicalItem> melody = melody("D0 E0 F#0 G0 - A0 H0 C#1 D1 A0 D0");
+    VocalRangeFitter fitter = new VocalRangeFitter(new Tone("A-1"), new Tone("E1"));
+    // from -5 to +2 semitones fit, C major has the fewest signs
+    RangeFit fit = fitter.fit(melody, MusicalKey.D_MAJOR);
+    assertThat(fit.getTransposition()).isEqualTo(-2);
+    assertThat(fit.getKey()).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(fit.isFitting()).isTrue();
+    assertThat(fit.toString()).isEqualTo("-2:C-major");
+    // key detected from melody
+    assertThat(fitter.fit(melody, null)).isEqualTo(fit);
+    // transposition by octave
+    fit = new VocalRangeFitter(new Tone("C1"), new Tone("C2")).fit(melody("C0 G0 E0"), MusicalKey.C_MAJOR);
+    assertThat(fit).isEqualTo(new RangeFit(12, MusicalKey.C_MAJOR, true));
+    fit = new VocalRangeFitter(new Tone("F0"), new Tone("C2")).fit(melody("A-1 E0 C0"), MusicalKey.A_MINOR);
+    assertThat(fit).isEqualTo(new RangeFit(12, MusicalKey.A_MINOR, true));
+    assertThat(fitter.fit(melody("-"), null)).isNull();
+  }
+
+  /** Test of {@link VocalRangeFitter#fit(List, MusicalKey)} with a melody exceeding the range. */
+  @Test
+  public void testFitExceedingRange() {
+
+    VocalRangeFitter fitter = new VocalRangeFitter(new Tone("C0"), new Tone("C1"));
+    RangeFit fit = fitter.fit(melody("A-1 E1"), MusicalKey.C_MAJOR);
+    assertThat(fit.getTransposition()).isEqualTo(-1);
+    assertThat(fit.isFitting()).isFalse();
+  }
+
+  /** Test of {@link VocalRangeFitter#fit(int[], int, MusicalKey)} with packed notes. */
+  @Test
+  public void testFitPacked() {
+
+    List<MusicalItem> melody = melody("D0 E0 F#0 G0 - A0 H0 C#1 D1 A0 D0");
+    int[] packed = new int[melody.size()];
+    for (int i = 0; i < packed.length; i++) {
+      Tone tone = melody.get(i).getTone();
+      if (tone == null) {
+        packed[i] = (5 << 16) | 0xFFFF;
+      } else {
+        packed[i] = (3 << 16) | PackedTone.pack(tone);
+      }
+    }
+    VocalRangeFitter fitter = new VocalRangeFitter(new Tone("A-1"), new Tone("E1"));
+    assertThat(fitter.fit(packed, packed.length, MusicalKey.D_MAJOR)).isEqualTo(fitter.fit(melody, null));
+    // without key the smallest transposition wins
+    assertThat(fitter.fit(packed, packed.length, null)).isEqualTo(new RangeFit(0, null, true));
+    assertThat(fitter.fit(packed, 0, null)).isNull();
+  }
+
+}
@@ -0,0 +1,101 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Beat;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link BeatTracker}.
+ *
+ * @author hohwille
+ */
+public class BeatTrackerTest extends AbstractTest {
+
+  private static final int SAMPLE_RATE = 44100;
+
+  /**
+   * Writes a click track with the first beat of every bar accented.
+   */
+  private static Path clicks(double tempo, double start, int count, int beatsPerBar, int firstDownbeat)
+      throws IOException {
+
+    float[] samples = new float[(int) ((start + count * 60 / tempo) * SAMPLE_RATE)];
+    for (int beat = 0; beat < count; beat++) {
+      int position = (int) Math.round((start + beat * 60 / tempo) * SAMPLE_RATE);
+      double amplitude = 0.3;
+      if ((beat % beatsPerBar) == firstDownbeat) {
+        amplitude = 0.8;
+      }
+      for (int i = 0; i < 441; i++) {
+        samples[position + i] = (float) (amplitude * Math.sin(2 * Math.PI * 1000 * i / SAMPLE_RATE)
+            * Math.exp(-i / 100.0));
+      }
+    }
+    Path file = Files.createTempFile("clicks", ".wav");
+    try (WavWriter writer = new WavWriter(file, PcmFormat.CD)) {
+      writer.write(samples, 0, samples.length);
+    }
+    return file;
+  }
+
+  private static void check(BeatGrid grid, double tempo, double start, int count) {
+
+    assertThat(grid.getBeatCount()).isEqualTo(count);
+    assertThat(grid.getTempo()).isCloseTo(tempo, offset(0.5));
+    for (int i = 0; i < count; i++) {
+      assertThat(grid.getBeatTime(i)).isCloseTo(start + i * 60 / tempo, offset(0.015));
+    }
+  }
+
+  /** Test of {@link BeatTracker#track(Path)} in 4/4. */
+  @Test
+  public void testTrack() throws IOException {
+
+    Path file = clicks(100, 0.3, 50, 4, 0);
+    try {
+      BeatGrid grid = new BeatTracker().track(file);
+      check(grid, 100, 0.3, 50);
+      assertThat(grid.getBeat()).isEqualTo(Beat._4_4);
+      assertThat(grid.getFirstDownbeat()).isEqualTo(0);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link BeatTracker#track(Path)} in 3/4 with an upbeat and leading silence. */
+  @Test
+  public void testTrackUpbeat() throws IOException {
+
+    Path file = clicks(137, 1.1, 68, 3, 1);
+    try {
+      BeatGrid grid = new BeatTracker().track(file);
+      check(grid, 137, 1.1, 68);
+      assertThat(grid.getBeat()).isEqualTo(Beat._3_4);
+      assertThat(grid.getFirstDownbeat()).isEqualTo(1);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link BeatTracker#track(Path)} with a slow tempo. */
+  @Test
+  public void testTrackSlow() throws IOException {
+
+    Path file = clicks(72, 0.5, 36, 4, 3);
+    try {
+      BeatGrid grid = new BeatTracker().track(file);
+      check(grid, 72, 0.5, 36);
+      assertThat(grid.getFirstDownbeat()).isEqualTo(3);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ChordRecognizer}.
+ *
+ * @author hohwille
+ */
+public class ChordRecognizerTest extends AbstractTest {
+
+  /**
+   * Renders the given voicings as semibreves (2 seconds each at 120 BPM) with a triangle wave.
+   */
+  private static Path render(String... voicings) throws IOException {
+
+    List<List<? extends MusicalItem>> lines = new ArrayList<>();
+    for (int line = 0; line < 3; line++) {
+      List<MusicalItem> items = new ArrayList<>();
+      for (String voicing : voicings) {
+        String tone = voicing.split(" ")[line];
+        items.add(new ToneItem(MusicalValue.SEMIBREVE, new Tone(tone)));
+      }
+      lines.add(items);
+    }
+    AudioTrack track = new AudioTrack(Waveform.TRIANGLE, Envelope.DEFAULT, 0.2, lines);
+    Path file = Files.createTempFile("chords", ".wav");
+    new ScoreRenderer(PcmFormat.CD, 120).render(Arrays.asList(track), file);
+    return file;
+  }
+
+  private static void check(List<ChordChange> changes, String... chords) {
+
+    int size = changes.size();
+    // the release at the end may be recognized as no chord
+    if (changes.get(size - 1).getChord() == null) {
+      size--;
+    }
+    assertThat(size).isEqualTo(chords.length);
+    for (int i = 0; i < size; i++) {
+      ChordChange change = changes.get(i);
+      assertThat(change.getChord()).as(change.toString()).isEqualTo(new Chord(chords[i]));
+      assertThat(change.getTime()).as(change.toString()).isCloseTo(2 * i, offset(0.2));
+    }
+  }
+
+  /** Test of {@link ChordRecognizer#recognize(Path)}. */
+  @Test
+  public void testRecognize() throws IOException {
+
+    Path file = render("C0 E0 G0", "C0 E0 A0", "C0 F0 A0", "D0 G0 H0");
+    try {
+      List<ChordChange> changes = new ChordRecognizer().recognize(file);
+      assertThat(changes.get(0).getTime()).isEqualTo(0.0);
+      check(changes, "C", "Am", "F", "G");
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link ChordRecognizer#recognizeAll(java.util.Collection)}. */
+  @Test
+  public void testRecognizeAll() throws IOException {
+
+    Path first = render("D0 F0 A0", "D0 G0 H0", "C0 E0 G0");
+    Path second = render("E0 G0 H0", "C0 E0 A0");
+    try {
+      ChordRecognizer recognizer = new ChordRecognizer();
+      Map<Path, List<ChordChange>> result = recognizer.recognizeAll(Arrays.asList(first, second));
+      assertThat(result.keySet()).containsExactly(first, second);
+      check(result.get(first), "Dm", "G", "C");
+      check(result.get(second), "Em", "Am");
+      assertThat(result.get(first)).isEqualTo(recognizer.recognize(first));
+    } finally {
+      Files.delete(first);
+      Files.delete(second);
+    }
+  }
+
+}
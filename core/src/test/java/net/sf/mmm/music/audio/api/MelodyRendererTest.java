@@ -0,0 +1,114 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link MelodyRenderer} and {@link WavWriter}.
+ *
+ * @author hohwille
+ */
+public class MelodyRendererTest extends AbstractTest {
+
+  private static int getSample24(ByteBuffer buffer, int index) {
+
+    int position = WavWriter.HEADER_SIZE + index * 3;
+    return (buffer.get(position) & 0xFF) | ((buffer.get(position + 1) & 0xFF) << 8) | (buffer.get(position + 2) << 16);
+  }
+
+  /** Test of {@link MelodyRenderer#render(List, Path)} with a sine tone in 24 bit. */
+  @Test
+  public void testRenderSine() throws IOException {
+
+    Path file = Files.createTempFile("melody", ".wav");
+    try {
+      // given
+      MelodyRenderer renderer = new MelodyRenderer(PcmFormat.STUDIO, 60, Waveform.SINE, Envelope.DEFAULT,
+          FrequencyTable.STANDARD);
+      List<MusicalItem> items = Arrays.<MusicalItem> asList(new ToneItem(MusicalValue.QUARTER, new Tone("A0")),
+          new RestItem(MusicalValue.QUARTER));
+
+      // when
+      long samples = renderer.render(items, file);
+
+      // then
+      // one second tone, one second rest and the release
+      assertThat(samples).isEqualTo(96000 + 2400 + 1);
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+      assertThat((long) buffer.capacity()).isEqualTo(WavWriter.HEADER_SIZE + samples * 3);
+      assertThat(buffer.getInt(0)).isEqualTo(0x46464952); // RIFF
+      assertThat(buffer.getInt(4)).isEqualTo(buffer.capacity() - 8);
+      assertThat(buffer.getShort(22)).isEqualTo((short) 1);
+      assertThat(buffer.getInt(24)).isEqualTo(48000);
+      assertThat(buffer.getShort(34)).isEqualTo((short) 24);
+      assertThat(buffer.getInt(40)).isEqualTo((int) samples * 3);
+      int crossings = 0;
+      int previous = 0;
+      int peak = 0;
+      for (int i = 0; i < 48000; i++) {
+        int sample = getSample24(buffer, i);
+        if ((previous < 0) && (sample >= 0)) {
+          crossings++;
+        }
+        previous = sample;
+        peak = Math.max(peak, Math.abs(sample));
+      }
+      assertThat(crossings).isBetween(439, 440);
+      assertThat(peak).isBetween(0x3F0000, 0x400000);
+      // silence after the release
+      for (int i = 52000; i < samples; i++) {
+        assertThat(getSample24(buffer, i)).isEqualTo(0);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link MelodyRenderer#render(List, WavWriter)} with a long melody in 16 bit. */
+  @Test
+  public void testRenderMelody() throws IOException {
+
+    List<MusicalItem> items = new ArrayList<>();
+    String[] tones = { "C0", "D0", "E0", "F0", "G0", "A0", "H0", "C1" };
+    for (int i = 0; i < 720; i++) {
+      if ((i % 9) == 8) {
+        items.add(new RestItem(MusicalValue.QUAVER));
+      } else {
+        items.add(new ToneItem(MusicalValue.QUAVER, new Tone(tones[i % 8])));
+      }
+    }
+    Path file = Files.createTempFile("melody", ".wav");
+    try {
+      MelodyRenderer renderer = new MelodyRenderer(PcmFormat.CD, 120);
+      long samples;
+      try (WavWriter writer = new WavWriter(file, PcmFormat.CD)) {
+        samples = renderer.render(items, writer);
+        assertThat(writer.getSampleCount()).isEqualTo(samples);
+      }
+      // 720 quavers at 120 quarters per minute are three minutes
+      assertThat(samples).isEqualTo(180 * 44100 + 2205 + 1);
+      assertThat(Files.size(file)).isEqualTo(WavWriter.HEADER_SIZE + samples * 2);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.util.Random;
+
+import net.sf.mmm.music.AbstractTest;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link PitchDetector}.
+ *
+ * @author hohwille
+ */
+public class PitchDetectorTest extends AbstractTest {
+
+  private static final int SAMPLE_RATE = 44100;
+
+  private static float[] sawtooth(double frequency, int length) {
+
+    // band-limited by adding the harmonics below 20kHz
+    float[] samples = new float[length];
+    for (int harmonic = 1; harmonic * frequency < 20000; harmonic++) {
+      double omega = 2 * Math.PI * harmonic * frequency / SAMPLE_RATE;
+      for (int i = 0; i < length; i++) {
+        samples[i] = samples[i] + (float) (Math.sin(omega * i) * 0.4 / harmonic);
+      }
+    }
+    return samples;
+  }
+
+  /** Test of {@link PitchDetector#detect(float[], int)} with sine and sawtooth waves. */
+  @Test
+  public void testDetect() {
+
+    PitchDetector detector = new PitchDetector(SAMPLE_RATE, PitchDetector.getWindowSize(SAMPLE_RATE));
+    assertThat(detector.getWindowSize()).isEqualTo(2048);
+    assertThat(detector.getMinFrequency()).isCloseTo(43.07, offset(0.01));
+    for (double frequency : new double[] { 65.41, 82.41, 220, 440, 987.77, 2093 }) {
+      float[] sine = new float[3000];
+      for (int i = 0; i < sine.length; i++) {
+        sine[i] = (float) (Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * 0.5);
+      }
+      assertThat(detector.detect(sine, 100)).isCloseTo(frequency, offset(frequency / 1000));
+      assertThat(detector.getPeriodicity()).isGreaterThan(0.9);
+      // rich in harmonics but no octave error
+      assertThat(detector.detect(sawtooth(frequency, 3000), 952)).isCloseTo(frequency, offset(frequency / 1000));
+    }
+  }
+
+  /** Test of {@link PitchDetector#detect(float[], int)} with silence and noise. */
+  @Test
+  public void testDetectNoPitch() {
+
+    PitchDetector detector = new PitchDetector(SAMPLE_RATE, 2048);
+    float[] samples = new float[2048];
+    assertThat(detector.detect(samples, 0)).isEqualTo(0.0);
+    Random random = new Random(42);
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = random.nextFloat() - 0.5f;
+    }
+    assertThat(detector.detect(samples, 0)).isEqualTo(0.0);
+    assertThat(detector.getPeriodicity()).isEqualTo(0.0);
+  }
+
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link PitchTranscriber}.
+ *
+ * @author hohwille
+ */
+public class PitchTranscriberTest extends AbstractTest {
+
+  /** Test of {@link PitchTranscriber#transcribe(Path)} with a melody rendered by {@link MelodyRenderer}. */
+  @Test
+  public void testTranscribe() throws IOException {
+
+    List<MusicalItem> melody = Arrays.asList(tone(MusicalValue.QUARTER, "C0"), tone(MusicalValue.QUAVER, "E0"),
+        tone(MusicalValue.QUAVER, "G0"), new RestItem(MusicalValue.QUAVER), tone(MusicalValue.QUAVER, "A0"),
+        tone(MusicalValue.MINIM, "G0"), tone(MusicalValue.QUARTER, "D-1"), tone(new MusicalValue(3, 8), "H-1"),
+        tone(MusicalValue.QUAVER, "C0"));
+    Path file = Files.createTempFile("melody", ".wav");
+    try {
+      new MelodyRenderer(PcmFormat.CD, 100).render(melody, file);
+      assertThat(new PitchTranscriber(100).transcribe(file)).isEqualTo(melody);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link PitchTranscriber#transcribe(Path)} with a long recording split into many chunks. */
+  @Test
+  public void testTranscribeLong() throws IOException {
+
+    List<MusicalItem> melody = new ArrayList<>();
+    String[] tones = { "C0", "D0", "E0", "F0", "G0", "A0", "H0", "C1" };
+    for (int i = 0; i < 500; i++) {
+      if ((i % 9) == 8) {
+        melody.add(new RestItem(MusicalValue.QUARTER));
+      } else {
+        melody.add(tone(MusicalValue.QUARTER, tones[i % 8]));
+      }
+    }
+    Path file = Files.createTempFile("melody", ".wav");
+    try {
+      new MelodyRenderer(PcmFormat.STUDIO, 140).render(melody, file);
+      assertThat(new PitchTranscriber(140).transcribe(file)).isEqualTo(melody);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.AbstractTest;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link SampleRingBuffer}.
+ *
+ * @author hohwille
+ */
+public class SampleRingBufferTest extends AbstractTest {
+
+  /** Test of {@link SampleRingBuffer#write(float[], int, int)} and {@link SampleRingBuffer#read(float[], int, int)}. */
+  @Test
+  public void testWriteRead() {
+
+    SampleRingBuffer buffer = new SampleRingBuffer(8);
+    float[] samples = { 1, 2, 3, 4, 5, 6 };
+    float[] target = new float[8];
+    assertThat(buffer.write(samples, 0, 6)).isEqualTo(6);
+    assertThat(buffer.read(target, 0, 4)).isEqualTo(4);
+    assertThat(target[3]).isEqualTo(4f);
+    // wraps around and drops what does not fit
+    assertThat(buffer.write(samples, 0, 6)).isEqualTo(6);
+    assertThat(buffer.write(samples, 0, 6)).isEqualTo(0);
+    assertThat(buffer.available()).isEqualTo(8);
+    assertThat(buffer.skip(1)).isEqualTo(1);
+    assertThat(buffer.read(target, 0, 8)).isEqualTo(7);
+    assertThat(target).isEqualTo(new float[] { 6, 1, 2, 3, 4, 5, 6, 0 });
+    assertThat(buffer.read(target, 0, 8)).isEqualTo(0);
+  }
+
+  /** Test of {@link SampleRingBuffer} with a concurrent producer and consumer. */
+  @Test
+  public void testConcurrent() throws InterruptedException {
+
+    SampleRingBuffer buffer = new SampleRingBuffer(64);
+    int total = 100000;
+    Thread producer = new Thread(() -> {
+      float[] chunk = new float[37];
+      int next = 0;
+      while (next < total) {
+        int length = Math.min(chunk.length, total - next);
+        for (int i = 0; i < length; i++) {
+          chunk[i] = (next + i) % 4096;
+        }
+        int count = buffer.write(chunk, 0, length);
+        if (count == 0) {
+          Thread.yield();
+        }
+        next = next + count;
+      }
+    });
+    producer.start();
+    float[] target = new float[29];
+    int expected = 0;
+    boolean ordered = true;
+    while (expected < total) {
+      int count = buffer.read(target, 0, target.length);
+      if (count == 0) {
+        Thread.yield();
+      }
+      for (int i = 0; i < count; i++) {
+        ordered = ordered && (target[i] == (expected++ % 4096));
+      }
+    }
+    producer.join();
+    assertThat(ordered).isTrue();
+    assertThat(buffer.available()).isEqualTo(0);
+  }
+
+}
@@ -0,0 +1,103 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ScoreFollower}.
+ *
+ * @author hohwille
+ */
+public class ScoreFollowerTest extends AbstractTest {
+
+  private static List<MusicalItem> score(int repetitions) {
+
+    String[] tones = { "C0", "D0", "E0", "F0", "G0", "E0", "C0", "G0", "A0", "H0", "G0", "F0", "E0", "D0", "C0",
+        "H-1" };
+    MusicalValue[] values = { MusicalValue.QUARTER, MusicalValue.QUAVER, MusicalValue.QUAVER, MusicalValue.MINIM };
+    List<MusicalItem> score = new ArrayList<>();
+    for (int repetition = 0; repetition < repetitions; repetition++) {
+      for (int i = 0; i < tones.length; i++) {
+        score.add(new ToneItem(values[i % 4], new Tone(tones[i])));
+        if ((i % 5) == 4) {
+          score.add(new RestItem(MusicalValue.QUAVER));
+        }
+      }
+    }
+    return score;
+  }
+
+  /**
+   * Plays the score at the given tempo and checks the position in the middle of every tone.
+   */
+  private static void check(List<MusicalItem> score, double tempo) throws IOException {
+
+    Path file = Files.createTempFile("performance", ".wav");
+    try {
+      new MelodyRenderer(PcmFormat.CD, tempo).render(score, file);
+      ScoreFollower follower = new ScoreFollower(score, 120, 44100);
+      int size = score.size();
+      double[] starts = new double[size + 1];
+      for (int i = 0; i < size; i++) {
+        starts[i + 1] = starts[i] + score.get(i).getValue().getDuration() * 240 / tempo;
+      }
+      int next = 0;
+      long position = 0;
+      try (WavReader reader = new WavReader(file)) {
+        float[] samples = new float[512];
+        int length;
+        while ((length = reader.read(samples, 0, samples.length)) > 0) {
+          follower.write(samples, 0, length);
+          position = position + length;
+          double time = position / 44100.0;
+          while ((next < size) && (time >= (starts[next] + starts[next + 1]) / 2)) {
+            if (score.get(next).getTone() != null) {
+              assertThat(follower.getPosition()).as(tempo + "@" + time).isEqualTo(next);
+            }
+            next++;
+          }
+        }
+      }
+      assertThat(next).isEqualTo(size);
+      assertThat(follower.getFrameCount()).isEqualTo(position / follower.getHopSize());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link ScoreFollower#write(float[], int, int)} with a performance slower than the score. */
+  @Test
+  public void testSlower() throws IOException {
+
+    check(score(1), 90);
+  }
+
+  /** Test of {@link ScoreFollower#write(float[], int, int)} with a performance faster than the score. */
+  @Test
+  public void testFaster() throws IOException {
+
+    check(score(1), 160);
+  }
+
+  /** Test of {@link ScoreFollower#write(float[], int, int)} with a long performance moving the band. */
+  @Test
+  public void testLong() throws IOException {
+
+    check(score(20), 110);
+  }
+
+}
@@ -0,0 +1,116 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ScoreRenderer}.
+ *
+ * @author hohwille
+ */
+public class ScoreRendererTest extends AbstractTest {
+
+  private static List<MusicalItem> melody(int shift, int length) {
+
+    String[] tones = { "C0", "D0", "E0", "F0", "G0", "A0", "H0", "C1" };
+    List<MusicalItem> items = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      if ((i % 9) == 8) {
+        items.add(new RestItem(MusicalValue.QUAVER));
+      } else {
+        items.add(new ToneItem(MusicalValue.QUAVER, new Tone(tones[(i + shift) % 8])));
+      }
+    }
+    return items;
+  }
+
+  private static int getPeak(Path file) throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+    int peak = 0;
+    for (int i = WavWriter.HEADER_SIZE; i < buffer.capacity(); i = i + 2) {
+      peak = Math.max(peak, Math.abs(buffer.getShort(i)));
+    }
+    return peak;
+  }
+
+  /** Test of {@link ScoreRenderer#render(List, Path)} with a single track like {@link MelodyRenderer}. */
+  @Test
+  public void testSingleTrack() throws IOException {
+
+    List<MusicalItem> melody = melody(0, 100);
+    Path melodyFile = Files.createTempFile("melody", ".wav");
+    Path scoreFile = Files.createTempFile("score", ".wav");
+    try {
+      long samples = new MelodyRenderer(PcmFormat.CD, 120).render(melody, melodyFile);
+      AudioTrack track = new AudioTrack(Waveform.TRIANGLE, Envelope.DEFAULT, 0.5, Collections.singletonList(melody));
+      assertThat(new ScoreRenderer(PcmFormat.CD, 120).render(Arrays.asList(track), scoreFile)).isEqualTo(samples);
+      assertThat(Files.readAllBytes(scoreFile)).isEqualTo(Files.readAllBytes(melodyFile));
+    } finally {
+      Files.delete(melodyFile);
+      Files.delete(scoreFile);
+    }
+  }
+
+  /** Test of {@link ScoreRenderer#render(List, Path)} with multiple polyphonic tracks. */
+  @Test
+  public void testMultipleTracks() throws IOException {
+
+    List<AudioTrack> tracks = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      tracks.add(new AudioTrack(Waveform.values()[i % 4], Envelope.DEFAULT, 0.03,
+          Arrays.asList(melody(i, 200), melody(i + 2, 200), melody(i + 4, 100))));
+    }
+    Path file = Files.createTempFile("score", ".wav");
+    try {
+      long samples = new ScoreRenderer(PcmFormat.CD, 120).render(tracks, file);
+      // 200 quavers at 120 quarters per minute plus the release
+      assertThat(samples).isEqualTo(50 * 44100 + 2205 + 1);
+      assertThat(Files.size(file)).isEqualTo(WavWriter.HEADER_SIZE + samples * 2);
+      int peak = getPeak(file);
+      assertThat(peak).isGreaterThan(Short.MAX_VALUE / 4);
+      assertThat(peak).isLessThanOrEqualTo((int) (24 * 0.03 * Short.MAX_VALUE) + 1);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of the bounded voice pool of {@link ScoreRenderer}. */
+  @Test
+  public void testMaxVoices() throws IOException {
+
+    List<MusicalItem> line = Arrays.<MusicalItem> asList(new ToneItem(MusicalValue.WHOLE, new Tone("C0")));
+    AudioTrack chord = new AudioTrack(Waveform.SINE, Envelope.DEFAULT, 0.25, Arrays.asList(line, line, line));
+    Path file = Files.createTempFile("score", ".wav");
+    try {
+      new ScoreRenderer(PcmFormat.CD, 120, FrequencyTable.STANDARD, 3).render(Arrays.asList(chord), file);
+      // three voices in phase add up
+      assertThat(getPeak(file)).isGreaterThan((int) (0.7 * Short.MAX_VALUE));
+      new ScoreRenderer(PcmFormat.CD, 120, FrequencyTable.STANDARD, 1).render(Arrays.asList(chord), file);
+      // only one voice is sounding
+      assertThat(getPeak(file)).isLessThanOrEqualTo((int) (0.25 * Short.MAX_VALUE) + 1);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
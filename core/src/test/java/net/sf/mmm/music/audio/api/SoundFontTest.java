@@ -0,0 +1,266 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link SoundFont}, {@link SoundFontPreset} and {@link SoundFontZone}.
+ *
+ * @author hohwille
+ */
+public class SoundFontTest extends AbstractTest {
+
+  /** One period of the sine sample that sounds 440Hz at a sample rate of 44kHz. */
+  private static final int PERIOD = 100;
+
+  private static ByteBuffer chunk(String id, int size) {
+
+    ByteBuffer buffer = ByteBuffer.allocate(8 + size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(size);
+    return buffer;
+  }
+
+  private static ByteBuffer list(String type, ByteBuffer... chunks) {
+
+    int size = 4;
+    for (ByteBuffer chunk : chunks) {
+      size = size + chunk.capacity();
+    }
+    ByteBuffer buffer = chunk("LIST", size);
+    buffer.put(type.getBytes(StandardCharsets.US_ASCII));
+    for (ByteBuffer chunk : chunks) {
+      buffer.put(chunk.array());
+    }
+    return buffer;
+  }
+
+  private static void name(ByteBuffer buffer, String name) {
+
+    byte[] bytes = Arrays.copyOf(name.getBytes(StandardCharsets.US_ASCII), 20);
+    buffer.put(bytes);
+  }
+
+  private static ByteBuffer shorts(String id, int... values) {
+
+    ByteBuffer buffer = chunk(id, values.length * 2);
+    for (int value : values) {
+      buffer.putShort((short) value);
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer presets() {
+
+    ByteBuffer buffer = chunk("phdr", 3 * 38);
+    // preset 0:0 with a global zone and one zone, preset 0:1 with one zone and the EOP terminal
+    String[] names = { "Sine", "High", "EOP" };
+    int[] bags = { 0, 2, 3 };
+    for (int i = 0; i < 3; i++) {
+      name(buffer, names[i]);
+      buffer.putShort((short) (i % 2)).putShort((short) 0).putShort((short) bags[i]);
+      buffer.putInt(0).putInt(0).putInt(0);
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer instruments() {
+
+    ByteBuffer buffer = chunk("inst", 2 * 22);
+    name(buffer, "SineInstrument");
+    buffer.putShort((short) 0);
+    name(buffer, "EOI");
+    buffer.putShort((short) 2);
+    return buffer;
+  }
+
+  private static ByteBuffer samples() {
+
+    ByteBuffer buffer = chunk("shdr", 2 * 46);
+    name(buffer, "Sine");
+    buffer.putInt(0).putInt(PERIOD).putInt(0).putInt(PERIOD).putInt(44000);
+    buffer.put((byte) 69).put((byte) 0).putShort((short) 0).putShort((short) 1);
+    name(buffer, "EOS");
+    buffer.put(new byte[26]);
+    return buffer;
+  }
+
+  private static Path createSoundFont() throws IOException {
+
+    ByteBuffer smpl = chunk("smpl", (PERIOD + 46) * 2);
+    for (int i = 0; i < PERIOD; i++) {
+      smpl.putShort((short) Math.round(Math.sin(2 * Math.PI * i / PERIOD) * 16384));
+    }
+    ByteBuffer inam = chunk("INAM", 6).put("Test".getBytes(StandardCharsets.US_ASCII));
+    ByteBuffer info = list("INFO", shorts("ifil", 2, 1), inam);
+    ByteBuffer sdta = list("sdta", smpl);
+    // preset 0:0 with a global attenuation of 6dB, preset 0:1 only for the upper keys and one octave higher
+    ByteBuffer pdta = list("pdta", presets(), shorts("pbag", 0, 0, 1, 0, 2, 0, 5, 0), chunk("pmod", 10),
+        shorts("pgen", SoundFont.GEN_ATTENUATION, 60, SoundFont.GEN_INSTRUMENT, 0, SoundFont.GEN_KEY_RANGE, 0x7F3C,
+            SoundFont.GEN_COARSE_TUNE, 12, SoundFont.GEN_INSTRUMENT, 0, 0, 0),
+        instruments(), shorts("ibag", 0, 0, 1, 0, 3, 0), chunk("imod", 10),
+        shorts("igen", SoundFont.GEN_SAMPLE_MODES, 1, SoundFont.GEN_KEY_RANGE, 0x7F00, SoundFont.GEN_SAMPLE, 0, 0, 0),
+        samples());
+    ByteBuffer riff = chunk("RIFF", 4 + info.capacity() + sdta.capacity() + pdta.capacity());
+    riff.put("sfbk".getBytes(StandardCharsets.US_ASCII)).put(info.array()).put(sdta.array()).put(pdta.array());
+    Path file = Files.createTempFile("test", ".sf2");
+    Files.write(file, riff.array());
+    return file;
+  }
+
+  /**
+   * Opens a SoundFont with a single modified byte and expects an {@link IOException}.
+   *
+   * @param id the ID of the chunk to modify.
+   * @param offset the offset from the beginning of the chunk data.
+   * @param value the new value of the byte.
+   * @param message the expected part of the message.
+   */
+  private static void checkCorrupt(String id, int offset, int value, String message) throws IOException {
+
+    Path file = createSoundFont();
+    try {
+      byte[] data = Files.readAllBytes(file);
+      int position = new String(data, StandardCharsets.US_ASCII).indexOf(id) + 8 + offset;
+      data[position] = (byte) value;
+      Files.write(file, data);
+      try {
+        SoundFont.open(file);
+        fail("Expected IOException for " + id);
+      } catch (IOException e) {
+        assertThat(e).hasMessageContaining(message);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link SoundFont#open(Path)} with a missing chunk and invalid indexes. */
+  @Test
+  public void testCorrupt() throws IOException {
+
+    // renamed (missing) igen chunk
+    checkCorrupt("igen", -8, 'x', "igen");
+    // generator index beyond the pgen chunk in the terminal pbag record
+    checkCorrupt("pbag", 12, 6, "pbag");
+    // descending bag indexes in phdr
+    checkCorrupt("phdr", 24, 3, "phdr");
+  }
+
+  /** Test of {@link SoundFont#open(Path)} and {@link SoundFont#getPresets()}. */
+  @Test
+  public void testPresets() throws IOException {
+
+    Path file = createSoundFont();
+    try {
+      SoundFont soundFont = SoundFont.open(file);
+      assertThat(soundFont.getName()).isEqualTo("Test");
+      List<SoundFontPreset> presets = soundFont.getPresets();
+      assertThat(presets).hasSize(2);
+      assertThat(presets.get(0).getName()).isEqualTo("Sine");
+      assertThat(presets.get(1).toString()).isEqualTo("0:1 High");
+      assertThat(soundFont.getPreset(0, 1)).isSameAs(presets.get(1));
+      assertThat(soundFont.getPreset(1, 0)).isNull();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link SoundFontPreset#getZone(int, int)}. */
+  @Test
+  public void testZone() throws IOException {
+
+    Path file = createSoundFont();
+    try {
+      SoundFont soundFont = SoundFont.open(file);
+      SoundFontZone zone = soundFont.getPreset(0, 0).getZone(new Tone("A0"));
+      assertThat(zone.getRootKey()).isEqualTo(69);
+      assertThat(zone.getStart()).isEqualTo(0);
+      assertThat(zone.getEnd()).isEqualTo(PERIOD);
+      assertThat(zone.getLoopEnd()).isEqualTo(PERIOD);
+      // sample mode inherited from the global zone of the instrument
+      assertThat(zone.isLooping()).isTrue();
+      assertThat(zone.getSampleRate()).isEqualTo(44000);
+      assertThat(zone.getAttenuation()).isEqualTo(60);
+      assertThat(zone.getRootFrequency()).isCloseTo(440, offset(0.000001));
+      SoundFontPreset high = soundFont.getPreset(0, 1);
+      assertThat(high.getZone(59, 100)).isNull();
+      zone = high.getZone(69, 100);
+      assertThat(zone.getTuning()).isEqualTo(1200);
+      assertThat(zone.getAttenuation()).isEqualTo(0);
+      assertThat(zone.getRootFrequency()).isCloseTo(220, offset(0.000001));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link SampleVoice} with an increment larger than the loop. */
+  @Test
+  public void testLoopShorterThanIncrement() throws IOException {
+
+    Path file = createSoundFont();
+    try {
+      SoundFont soundFont = SoundFont.open(file);
+      SampleVoice voice = new SampleVoice(soundFont.getPreset(0, 0), Envelope.DEFAULT, 44000, 1);
+      // 2.5 periods of the loop per sample
+      assertThat(voice.startSound(new Tone("A0"), 440 * PERIOD * 2.5)).isTrue();
+      for (int i = 0; i < 10; i++) {
+        // positions alternate between the start and the middle of the sine period
+        assertThat(voice.nextSample()).isCloseTo(0, offset(0.001f));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link ScoreRenderer} with an {@link AudioTrack} playing a {@link SoundFontPreset}. */
+  @Test
+  public void testRender() throws IOException {
+
+    Path soundFontFile = createSoundFont();
+    Path file = Files.createTempFile("score", ".wav");
+    try {
+      SoundFont soundFont = SoundFont.open(soundFontFile);
+      List<MusicalItem> line = Arrays.<MusicalItem> asList(new ToneItem(MusicalValue.WHOLE, new Tone("A0")),
+          new ToneItem(MusicalValue.WHOLE, new Tone("A1")));
+      AudioTrack track = new AudioTrack(soundFont.getPreset(0, 1), Envelope.DEFAULT, 1, Arrays.asList(line));
+      long samples = new ScoreRenderer(PcmFormat.CD, 240).render(Arrays.asList(track), file);
+      assertThat(samples).isEqualTo(2 * 44100 + 2205 + 1);
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+      int[] crossings = new int[2];
+      for (int tone = 0; tone < 2; tone++) {
+        // skip the first 100ms where the release of the previous tone overlaps
+        int previous = 0;
+        for (int i = tone * 44100 + 4410; i < (tone + 1) * 44100; i++) {
+          int sample = buffer.getShort(WavWriter.HEADER_SIZE + i * 2);
+          if ((previous < 0) && (sample >= 0)) {
+            crossings[tone]++;
+          }
+          previous = sample;
+        }
+      }
+      // the preset plays the loop one octave higher
+      assertThat(crossings[0]).isBetween(791, 793);
+      assertThat(crossings[1]).isBetween(1583, 1585);
+    } finally {
+      Files.delete(file);
+      Files.delete(soundFontFile);
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.FrequencyTable;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link Tuner}.
+ *
+ * @author hohwille
+ */
+public class TunerTest extends AbstractTest {
+
+  private static final int SAMPLE_RATE = 44100;
+
+  /** The size of the chunks delivered by the simulated capture callback. */
+  private static final int CHUNK = 128;
+
+  /** Records the last reading of the {@link Tuner}. */
+  private static final class Reading implements TunerListener {
+
+    private volatile Tone tone;
+
+    private volatile double cents;
+
+    private int count;
+
+    @Override
+    public void onPitch(double frequency, Tone pitch, double deviation) {
+
+      this.tone = pitch;
+      this.cents = deviation;
+      this.count++;
+    }
+  }
+
+  /**
+   * Generates a sine wave in chunks like a capture callback.
+   */
+  private static final class Generator {
+
+    private final float[] chunk = new float[CHUNK];
+
+    private long position;
+
+    private float[] next(double frequency) {
+
+      for (int i = 0; i < CHUNK; i++) {
+        this.chunk[i] = (float) (Math.sin(2 * Math.PI * frequency * this.position++ / SAMPLE_RATE) * 0.5);
+      }
+      return this.chunk;
+    }
+  }
+
+  /** Test of {@link Tuner#process()} fed by a generator. */
+  @Test
+  public void testProcess() {
+
+    Reading reading = new Reading();
+    Tuner tuner = new Tuner(SAMPLE_RATE, reading);
+    assertThat(tuner.getWindowSize()).isEqualTo(2048);
+    assertThat(tuner.getHopSize()).isEqualTo(256);
+    Generator generator = new Generator();
+    // A0 10 cents too high
+    double frequency = 440 * Math.pow(2, 10.0 / 1200);
+    for (int i = 0; i < 32; i++) {
+      assertThat(tuner.write(generator.next(frequency), 0, CHUNK)).isEqualTo(CHUNK);
+      tuner.process();
+    }
+    // the first reading needs a full window, then every hop
+    assertThat(reading.count).isEqualTo(1 + (32 * CHUNK - 2048) / 256);
+    assertThat(reading.tone).isEqualTo(new Tone("A0"));
+    assertThat(reading.cents).isCloseTo(10, offset(1.0));
+    // D1 20 cents too low, the window has to be replaced completely
+    frequency = FrequencyTable.STANDARD.getFrequency(new Tone("D1")) * Math.pow(2, -20.0 / 1200);
+    for (int i = 0; i < 16; i++) {
+      tuner.write(generator.next(frequency), 0, CHUNK);
+      tuner.process();
+    }
+    assertThat(reading.tone.getPitch()).isEqualTo(TonePitch.D);
+    assertThat(reading.cents).isCloseTo(-20, offset(1.0));
+    for (int i = 0; i < 16; i++) {
+      tuner.write(new float[CHUNK], 0, CHUNK);
+      tuner.process();
+    }
+    assertThat(reading.tone).isNull();
+  }
+
+  /** Test of {@link Tuner#start()} with a detector thread. */
+  @Test
+  public void testStart() throws InterruptedException {
+
+    Reading reading = new Reading();
+    Generator generator = new Generator();
+    double frequency = FrequencyTable.STANDARD.getFrequency(new Tone("E-1"));
+    try (Tuner tuner = new Tuner(SAMPLE_RATE, reading)) {
+      tuner.start();
+      long end = System.currentTimeMillis() + 10000;
+      while ((reading.tone == null) && (System.currentTimeMillis() < end)) {
+        tuner.write(generator.next(frequency), 0, CHUNK);
+        // simulate the rate of the capture callback
+        Thread.sleep(1);
+      }
+    }
+    assertThat(reading.tone).isEqualTo(new Tone("E-1"));
+    assertThat(reading.cents).isCloseTo(0, offset(1.0));
+  }
+
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.audio.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.sf.mmm.music.AbstractTest;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link WavReader}.
+ *
+ * @author hohwille
+ */
+public class WavReaderTest extends AbstractTest {
+
+  private static void checkRoundTrip(PcmFormat format, double precision) throws IOException {
+
+    float[] samples = new float[20000];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = (float) Math.sin(i * 0.01) * 0.9f;
+    }
+    Path file = Files.createTempFile("reader", ".wav");
+    try {
+      try (WavWriter writer = new WavWriter(file, format)) {
+        writer.write(samples, 0, samples.length);
+      }
+      try (WavReader reader = new WavReader(file)) {
+        assertThat(reader.getFormat()).isEqualTo(format);
+        assertThat(reader.getChannels()).isEqualTo(1);
+        assertThat(reader.getSampleCount()).isEqualTo(samples.length);
+        float[] buffer = new float[samples.length + 10];
+        assertThat(reader.read(buffer, 10, buffer.length)).isEqualTo(samples.length);
+        for (int i = 0; i < samples.length; i++) {
+          assertThat((double) buffer[i + 10]).isCloseTo(samples[i], offset(precision));
+        }
+        assertThat(reader.read(buffer, 0, 1)).isEqualTo(-1);
+        reader.seek(12345);
+        assertThat(reader.read(buffer, 0, 2)).isEqualTo(2);
+        assertThat((double) buffer[1]).isCloseTo(samples[12346], offset(precision));
+        assertThat(reader.getPosition()).isEqualTo(12347);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link WavReader#read(float[], int, int)} with 16 bit samples written by {@link WavWriter}. */
+  @Test
+  public void testRead16() throws IOException {
+
+    checkRoundTrip(PcmFormat.CD, 1.0 / 16384);
+  }
+
+  /** Test of {@link WavReader#read(float[], int, int)} with 24 bit samples written by {@link WavWriter}. */
+  @Test
+  public void testRead24() throws IOException {
+
+    checkRoundTrip(PcmFormat.STUDIO, 1.0 / 4000000);
+  }
+
+}
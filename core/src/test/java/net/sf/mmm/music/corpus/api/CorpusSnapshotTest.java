@@ -0,0 +1,103 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.MusicalValue.Variation;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link CorpusSnapshot}.
+ *
+ * @author hohwille
+ */
+public class CorpusSnapshotTest extends AbstractTest {
+
+  private static final List<MusicalItem> NOTES = Arrays.<MusicalItem> asList(
+      new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.G, 0)), new RestItem(MusicalValue.QUAVER),
+      new ToneItem(new MusicalValue(1, 8, Variation.TRIPLET), new Tone(TonePitch.FIS, -1)));
+
+  private static final List<Chord> CHORDS = Arrays.asList(new Chord("G"), new Chord("D7"), new Chord("G"));
+
+  private static MusicCorpus createCorpus() {
+
+    MusicCorpusBuilder builder = new MusicCorpusBuilder();
+    builder.addSong(MusicalKey.G_MAJOR, NOTES, CHORDS);
+    builder.addSong(null, Collections.<MusicalItem> emptyList(), Arrays.asList(new Chord("Am")));
+    return builder.build();
+  }
+
+  /** Test of {@link CorpusSnapshot#save(MusicCorpus, Path, long)} and {@link CorpusSnapshot#load(Path, long)}. */
+  @Test
+  public void testSaveAndLoad() throws IOException {
+
+    Path file = Files.createTempFile("corpus", ".snapshot");
+    try {
+      // given
+      MusicCorpus corpus = createCorpus();
+      // when
+      CorpusSnapshot.save(corpus, file, 42);
+      MusicCorpus loaded = CorpusSnapshot.load(file, 42);
+      // then
+      assertThat(loaded).isNotNull();
+      assertThat(loaded.getNoteSequences()).isInstanceOf(BufferPackedSequences.class);
+      assertThat(loaded.getSongCount()).isEqualTo(2);
+      assertThat(loaded.getKey(0)).isSameAs(MusicalKey.G_MAJOR);
+      assertThat(loaded.getKey(1)).isNull();
+      assertThat(loaded.getNotes(0)).isEqualTo(NOTES);
+      assertThat(loaded.getNotes(1)).isEmpty();
+      assertThat(loaded.getChords(0)).isEqualTo(CHORDS);
+      assertThat(loaded.getChords(1)).containsExactly(new Chord("Am"));
+      assertThat(loaded.getChordDictionary().size()).isEqualTo(3);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link CorpusSnapshot#loadOrRebuild(Path, long, java.util.function.Supplier)} with stale snapshots. */
+  @Test
+  public void testStale() throws IOException {
+
+    Path file = Files.createTempFile("corpus", ".snapshot");
+    try {
+      MusicCorpus corpus = createCorpus();
+      CorpusSnapshot.save(corpus, file, 1);
+      // other source stamp
+      assertThat(CorpusSnapshot.load(file, 2)).isNull();
+      // corrupt data is only detected by the full verification
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[bytes.length - 1] ^= 1;
+      Files.write(file, bytes);
+      assertThat(CorpusSnapshot.load(file, 1)).isNotNull();
+      assertThat(CorpusSnapshot.load(file, 1, true)).isNull();
+      // corrupt dictionaries (directly after the header of 128 bytes)
+      bytes[bytes.length - 1] ^= 1;
+      bytes[128] ^= 1;
+      Files.write(file, bytes);
+      assertThat(CorpusSnapshot.load(file, 1)).isNull();
+      // rebuild
+      MusicCorpus rebuilt = CorpusSnapshot.loadOrRebuild(file, 1, () -> corpus);
+      assertThat(rebuilt).isSameAs(corpus);
+      assertThat(CorpusSnapshot.load(file, 1).getNotes(0)).isEqualTo(NOTES);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link MelodyIndex}.
+ *
+ * @author hohwille
+ */
+public class MelodyIndexTest extends AbstractTest {
+
+  private static final TonePitch[] PITCHES = { TonePitch.C, TonePitch.D, TonePitch.E, TonePitch.F, TonePitch.G,
+      TonePitch.A, TonePitch.H };
+
+  private static List<MusicalItem> melody(MusicalValue value, int octave, int... steps) {
+
+    List<MusicalItem> items = new ArrayList<>();
+    for (int step : steps) {
+      if (step < 0) {
+        items.add(new RestItem(value));
+      } else {
+        items.add(new ToneItem(value, new Tone(PITCHES[step % 7], octave + step / 7)));
+      }
+    }
+    return items;
+  }
+
+  private static MusicCorpus createCorpus() {
+
+    MusicCorpusBuilder builder = new MusicCorpusBuilder();
+    List<Chord> noChords = Collections.emptyList();
+    // "Alle meine Entchen" in C
+    builder.addSong(null, melody(MusicalValue.QUAVER, 0, 0, 1, 2, 3, 4, -1, 4), noChords);
+    // same melody in G with a leading tone
+    builder.addSong(null, melody(MusicalValue.QUARTER, 0, 6, 4, 5, 6, 7, 8), noChords);
+    // unrelated
+    builder.addSong(null, melody(MusicalValue.QUAVER, 0, 4, 2, 0, 4, 2, 0), noChords);
+    return builder.build();
+  }
+
+  /** Test of {@link MelodyIndex#findTones(List)} in any key. */
+  @Test
+  public void testFindTones() {
+
+    MusicCorpus corpus = createCorpus();
+    MelodyIndex index = MelodyIndex.build(corpus, 3, false);
+    List<Tone> melody = Arrays.asList(new Tone(TonePitch.D, 0), new Tone(TonePitch.E, 0), new Tone(TonePitch.FIS, 0),
+        new Tone(TonePitch.G, 0), new Tone(TonePitch.A, 0));
+    assertThat(index.findTones(melody)).containsExactly(new CorpusMatch(0, 0), new CorpusMatch(1, 1));
+    assertThat(index.findTones(melody)).isEqualTo(CorpusSearch.findMelody(corpus, melody, true));
+    // rest is skipped
+    assertThat(index.findTones(melody.subList(2, 5))).contains(new CorpusMatch(0, 2));
+    // shorter than n-gram
+    assertThat(index.findTones(melody.subList(0, 2))).isEqualTo(
+        CorpusSearch.findMelody(corpus, melody.subList(0, 2), true));
+    assertThat(index.findSongs(melody(MusicalValue.QUARTER, 1, 4, 2, 0, 4))).containsExactly(2);
+  }
+
+  /** Test of {@link MelodyIndex#find(List)} with {@link MelodyIndex#isWithDurations() durations}. */
+  @Test
+  public void testFindWithDurations() {
+
+    MelodyIndex index = MelodyIndex.build(createCorpus(), 2, true);
+    assertThat(index.isWithDurations()).isTrue();
+    // ratios of durations match in any tempo
+    assertThat(index.find(melody(MusicalValue.MINIM, 1, 0, 1, 2, 3))).containsExactly(new CorpusMatch(0, 0),
+        new CorpusMatch(1, 1));
+    List<MusicalItem> rhythm = melody(MusicalValue.QUAVER, 0, 0, 1, 2, 3);
+    rhythm.set(1, new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.D, 0)));
+    assertThat(index.find(rhythm)).isEmpty();
+  }
+
+}
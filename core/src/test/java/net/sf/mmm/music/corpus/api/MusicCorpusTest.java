@@ -0,0 +1,130 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link MusicCorpus} with on-heap and {@link MusicCorpus#toOffHeap() off-heap} storage.
+ *
+ * @author hohwille
+ */
+public class MusicCorpusTest extends AbstractTest {
+
+  private static final List<MusicalItem> NOTES = Arrays.<MusicalItem> asList(
+      new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.C, 0)),
+      new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.D, 0)), new RestItem(MusicalValue.QUAVER),
+      new ToneItem(MusicalValue.MINIM, new Tone(TonePitch.E, 0)),
+      new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.H, -1)));
+
+  private static MusicCorpus createCorpus(boolean offHeap) {
+
+    MusicCorpusBuilder builder = new MusicCorpusBuilder(offHeap);
+    builder.addSong(MusicalKey.C_MAJOR, NOTES, Arrays.asList(new Chord("C"), new Chord("F"), new Chord("G7")));
+    List<MusicalItem> transposed = Arrays.<MusicalItem> asList(
+        new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.G, 0)),
+        new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.A, 0)),
+        new ToneItem(MusicalValue.MINIM, new Tone(TonePitch.H, 0)));
+    builder.addSong(MusicalKey.G_MAJOR, transposed, Arrays.asList(new Chord("G"), new Chord("C"), new Chord("F")));
+    return builder.build();
+  }
+
+  /** Test of {@link MusicCorpus#toOffHeap()} and {@link MusicCorpusBuilder#MusicCorpusBuilder(boolean)}. */
+  @Test
+  public void testOffHeap() {
+
+    MusicCorpus heap = createCorpus(false);
+    assertThat(heap.isOffHeap()).isFalse();
+    for (MusicCorpus corpus : Arrays.asList(heap.toOffHeap(), createCorpus(true))) {
+      assertThat(corpus.isOffHeap()).isTrue();
+      assertThat(corpus.getNoteSequences()).isInstanceOf(OffHeapPackedSequences.class);
+      assertThat(corpus.getSongCount()).isEqualTo(2);
+      assertThat(corpus.getKey(1)).isSameAs(MusicalKey.G_MAJOR);
+      assertThat(corpus.getNotes(0)).isEqualTo(NOTES);
+      assertThat(corpus.getChords(1)).isEqualTo(heap.getChords(1));
+      assertThat(corpus.getNoteSequences().getTotalLength()).isEqualTo(8);
+    }
+  }
+
+  /** Test of {@link NoteCursor} and {@link ChordCursor}. */
+  @Test
+  public void testCursors() {
+
+    MusicCorpus corpus = createCorpus(true);
+    NoteCursor notes = corpus.newNoteCursor(0);
+    int count = 0;
+    while (notes.next()) {
+      MusicalItem item = NOTES.get(notes.getIndex());
+      assertThat(notes.isRest()).isEqualTo(item.isRest());
+      assertThat(notes.getTone()).isEqualTo(item.getTone());
+      assertThat(notes.getValue()).isEqualTo(item.getValue());
+      count++;
+    }
+    assertThat(count).isEqualTo(NOTES.size());
+    assertThat(notes.reset(1).next()).isTrue();
+    assertThat(notes.getTone()).isSameAs(notes.getTone()).isEqualTo(new Tone(TonePitch.G, 0));
+    ChordCursor chords = corpus.newChordCursor(0);
+    assertThat(chords.next()).isTrue();
+    assertThat(chords.getChord()).isEqualTo(new Chord("C")).isSameAs(corpus.getChordDictionary().get(0));
+  }
+
+  /** Test of {@link MusicCorpus#transposeNotes} and {@link MusicCorpus#transposeChords}. */
+  @Test
+  public void testTranspose() {
+
+    for (MusicCorpus corpus : Arrays.asList(createCorpus(false), createCorpus(true))) {
+      int[] notes = corpus.transposeNotes(0, 7, MusicalKey.G_MAJOR, null);
+      assertThat(PackedTone.toTone(PackedNote.getTone(notes[0]))).isEqualTo(new Tone(TonePitch.G, 0));
+      assertThat(PackedTone.toTone(PackedNote.getTone(notes[3]))).isEqualTo(new Tone(TonePitch.H, 0));
+      assertThat(PackedTone.toTone(PackedNote.getTone(notes[4]))).isEqualTo(new Tone(TonePitch.FIS, 0));
+      assertThat(PackedNote.isRest(notes[2])).isTrue();
+      assertThat(PackedNote.getValueIndex(notes[3])).isEqualTo(PackedNote.getValueIndex(corpus.getNoteSequences()
+          .get(0, 3)));
+      int dictionarySize = corpus.getChordDictionary().size();
+      InternDictionary<Chord> dictionary = new InternDictionary<>();
+      int[] chords = corpus.transposeChords(0, -5, null, dictionary, new int[8]);
+      assertThat(dictionary.get(chords[0])).isEqualTo(new Chord("G"));
+      assertThat(dictionary.get(chords[2])).isEqualTo(new Chord("D7"));
+      assertThat(corpus.getChordDictionary().size()).isEqualTo(dictionarySize);
+    }
+  }
+
+  /** Test of {@link CorpusStatistics} and {@link CorpusSearch}. */
+  @Test
+  public void testStatisticsAndSearch() {
+
+    for (MusicCorpus corpus : Arrays.asList(createCorpus(false), createCorpus(false).toOffHeap())) {
+      CorpusStatistics statistics = CorpusStatistics.of(corpus);
+      assertThat(statistics.getSongCount()).isEqualTo(2);
+      assertThat(statistics.getToneCount()).isEqualTo(7);
+      assertThat(statistics.getRestCount()).isEqualTo(1);
+      assertThat(statistics.getLowest()).isEqualTo(-1);
+      assertThat(statistics.getHighest()).isEqualTo(11);
+      assertThat(statistics.getPitchClassCount(11)).isEqualTo(2);
+      assertThat(statistics.getChordCount(corpus.getChordDictionary().indexOf(new Chord("C")))).isEqualTo(2);
+
+      List<Tone> melody = Arrays.asList(new Tone(TonePitch.C, 0), new Tone(TonePitch.D, 0), new Tone(TonePitch.E, 0));
+      assertThat(CorpusSearch.findMelody(corpus, melody, false)).containsExactly(new CorpusMatch(0, 0));
+      assertThat(CorpusSearch.findMelody(corpus, melody, true)).containsExactly(new CorpusMatch(0, 0),
+          new CorpusMatch(1, 0));
+      assertThat(CorpusSearch.findChords(corpus, Arrays.asList(new Chord("C"), new Chord("F"))))
+          .containsExactly(new CorpusMatch(0, 0), new CorpusMatch(1, 1));
+      assertThat(CorpusSearch.findChords(corpus, Arrays.asList(new Chord("Bbm")))).isEmpty();
+    }
+  }
+
+}
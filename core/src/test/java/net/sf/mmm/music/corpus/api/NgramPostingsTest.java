@@ -0,0 +1,59 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link NgramPostings}.
+ *
+ * @author hohwille
+ */
+public class NgramPostingsTest extends AbstractTest {
+
+  private static final int SONGS = 3000;
+
+  private static final int KEYS = 50;
+
+  private static NgramPostings build(int batchChunks) {
+
+    // every song has the n-grams (song * 7 + i) % KEYS at position i * 3 (some keys twice)
+    return NgramPostings.build(0, SONGS, () -> (song, sink) -> {
+      for (int i = 0; i < 60; i++) {
+        sink.add((song * 7 + i) % KEYS, i * 3);
+      }
+    }, batchChunks);
+  }
+
+  private static List<Long> getPostings(NgramPostings postings, int key) {
+
+    List<Long> result = new ArrayList<>();
+    postings.forEach(postings.indexOf(key),
+        (song, position) -> result.add(Long.valueOf(((long) song << 32) | position)));
+    return result;
+  }
+
+  /** Test of {@link NgramPostings#build(int, int, java.util.function.Supplier, int)} merging several batches. */
+  @Test
+  public void testBuildInBatches() {
+
+    NgramPostings single = build(Integer.MAX_VALUE);
+    NgramPostings batched = build(1);
+    assertThat(batched.getKeyCount()).isEqualTo(KEYS).isEqualTo(single.getKeyCount());
+    assertThat(batched.getPostingsSize()).isEqualTo(single.getPostingsSize());
+    for (int key = 0; key < KEYS; key++) {
+      List<Long> postings = getPostings(batched, key);
+      assertThat(postings).hasSize(batched.getCount(batched.indexOf(key))).isEqualTo(getPostings(single, key));
+      assertThat(postings).isSorted();
+    }
+    // song 2999 starts with key 2999 * 7 % 50 = 43, so key 0 is at i = 7 and 57 (positions 21 and 171)
+    List<Long> postings = getPostings(batched, 0);
+    assertThat(postings.get(postings.size() - 1)).isEqualTo(Long.valueOf((2999L << 32) | 171));
+  }
+
+}
@@ -0,0 +1,64 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.corpus.api;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.analysis.api.ChordDegree;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalKey;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link ProgressionIndex}.
+ *
+ * @author hohwille
+ */
+public class ProgressionIndexTest extends AbstractTest {
+
+  private static final List<MusicalItem> NO_NOTES = Collections.emptyList();
+
+  private static MusicCorpusBuilder createBuilder() {
+
+    MusicCorpusBuilder builder = new MusicCorpusBuilder();
+    builder.addSong(MusicalKey.C_MAJOR, NO_NOTES, chords("C Am Dm7 G7 C"));
+    builder.addSong(MusicalKey.G_MAJOR, NO_NOTES, chords("G Em Am D G"));
+    // no key
+    builder.addSong(null, NO_NOTES, chords("Dm G C"));
+    builder.addSong(MusicalKey.D_MAJOR, NO_NOTES, chords("D A Hm G"));
+    return builder;
+  }
+
+  /** Test of {@link ProgressionIndex#find(String)}. */
+  @Test
+  public void testFind() {
+
+    ProgressionIndex index = ProgressionIndex.build(createBuilder().build());
+    assertThat(index.find("ii-V-I")).containsExactly(new ProgressionMatch(1, 2, 3), new ProgressionMatch(0, 2, 1));
+    assertThat(index.find("ii7\u2013V7\u2013I")).containsExactly(new ProgressionMatch(0, 2, 3),
+        new ProgressionMatch(1, 2, 1));
+    assertThat(index.find("I V vi IV")).containsExactly(new ProgressionMatch(3, 0, 4));
+    // shorter than n-gram
+    assertThat(index.find("vi")).hasSize(3);
+    assertThat(index.find("I bVII")).isEmpty();
+  }
+
+  /** Test of {@link ProgressionIndex#update(MusicCorpus)}. */
+  @Test
+  public void testUpdate() {
+
+    MusicCorpusBuilder builder = createBuilder();
+    ProgressionIndex index = ProgressionIndex.build(builder.build());
+    builder.addSong(MusicalKey.E_MAJOR, NO_NOTES, chords("E C#m F#m H E"));
+    ProgressionIndex updated = index.update(builder.build());
+    assertThat(updated.getSegmentCount()).isEqualTo(2);
+    assertThat(updated.getSongCount()).isEqualTo(5);
+    assertThat(updated.find("ii-V-I")).containsExactly(new ProgressionMatch(1, 2, 3), new ProgressionMatch(4, 2, 3),
+        new ProgressionMatch(0, 2, 1));
+    assertThat(updated.find(ChordDegree.parseProgression("ii V I"), 1)).containsExactly(new ProgressionMatch(1, 2, 3));
+  }
+
+}
@@ -47,6 +47,26 @@ public class ChordTest extends AbstractTest {
     assertThat(new Chord(TonePitch.FIS, TonalSystem.MINOR, ChordExtension._7)).isEqualTo(new Chord("f\u266Fm7"));
   }
 
+  /** Test of {@link Chord#getPitchClassMask()}. */
+  @Test
+  public void testPitchClassMask() {
+
+    // C, E, G, Bb
+    assertThat(new Chord("C7").getPitchClassMask()).isEqualTo(0b010010010001);
+    // C, E, G, B
+    assertThat(new Chord("Cmaj7").getPitchClassMask()).isEqualTo(0b100010010001);
+    // A, C, E
+    assertThat(new Chord("Am").getPitchClassMask()).isEqualTo(0b001000010001);
+    // B, D, F
+    assertThat(new Chord("Hdim").getPitchClassMask()).isEqualTo(0b100000100100);
+    // C, E, G#
+    assertThat(new Chord("Caug").getPitchClassMask()).isEqualTo(0b000100010001);
+    // C, G
+    assertThat(new Chord("C5").getPitchClassMask()).isEqualTo(0b000010000001);
+    // D, G, A, F#
+    assertThat(new Chord("Dsus4/F#").getPitchClassMask()).isEqualTo(0b001011000100);
+  }
+
   /** Test of {@link Chord#transposeChromatic(int)}. */
   @Test
   public void testTransposeChromatic() {
@@ -0,0 +1,71 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link FrequencyTable}.
+ *
+ * @author hohwille
+ */
+public class FrequencyTableTest extends Assertions {
+
+  private static final double DELTA = 0.001;
+
+  /** Test of {@link Tone#getFrequency()} for {@link Temperament#EQUAL equal temperament}. */
+  @Test
+  public void testEqual() {
+
+    assertThat(new Tone("A0").getFrequency()).isEqualTo(440.0);
+    assertThat(new Tone("A1").getFrequency()).isEqualTo(880.0);
+    assertThat(new Tone("A-4").getFrequency()).isEqualTo(27.5);
+    assertThat(new Tone("C0").getFrequency()).isCloseTo(261.626, within(DELTA));
+    assertThat(new Tone("E-2").getFrequency()).isCloseTo(82.407, within(DELTA));
+    // beyond the precomputed MIDI range
+    assertThat(new Tone("A-6").getFrequency()).isEqualTo(6.875);
+    assertThat(new Tone("A6").getFrequency()).isEqualTo(28160.0);
+    FrequencyTable table = FrequencyTable.STANDARD;
+    assertThat(table.getFrequency(PackedTone.pack(TonePitch.CIS, 0))).isEqualTo(new Tone("Db0").getFrequency());
+    assertThat(FrequencyTable.of(440, Temperament.EQUAL)).isSameAs(table);
+    assertThat(new Tone("A0").getFrequency(FrequencyTable.of(415, Temperament.EQUAL))).isEqualTo(415.0);
+  }
+
+  /** Test of {@link FrequencyTable} with historic {@link Temperament}s. */
+  @Test
+  public void testTemperaments() {
+
+    FrequencyTable just = FrequencyTable.of(440, Temperament.JUST);
+    assertThat(just.getFrequency(new Tone("C0"))).isCloseTo(264.0, within(DELTA));
+    assertThat(just.getFrequency(new Tone("E0"))).isCloseTo(330.0, within(DELTA));
+    assertThat(just.getFrequency(new Tone("G0"))).isCloseTo(396.0, within(DELTA));
+    FrequencyTable pythagorean = FrequencyTable.of(440, Temperament.PYTHAGOREAN);
+    assertThat(pythagorean.getFrequency(new Tone("E0")) / pythagorean.getFrequency(new Tone("A-1")))
+        .isCloseTo(1.5, within(1e-12));
+    FrequencyTable meantone = FrequencyTable.of(440, Temperament.MEANTONE);
+    assertThat(meantone.getFrequency(new Tone("E0")) / meantone.getFrequency(new Tone("C0"))).isCloseTo(1.25,
+        within(1e-12));
+    FrequencyTable justA = FrequencyTable.of(440, Temperament.JUST, TonePitch.A);
+    assertThat(justA.getFrequency(new Tone("A0"))).isEqualTo(440.0);
+    assertThat(justA.getFrequency(new Tone("E1"))).isCloseTo(660.0, within(DELTA));
+    assertThat(justA.getFrequency(new Tone("C#1"))).isCloseTo(550.0, within(DELTA));
+  }
+
+  /** Test of {@link FrequencyTable#getNearestTone(double)} and {@link FrequencyTable#getCents(double)}. */
+  @Test
+  public void testNearestTone() {
+
+    FrequencyTable table = FrequencyTable.STANDARD;
+    assertThat(table.getNearestTone(440)).isEqualTo(new Tone("A0"));
+    assertThat(table.getCents(440)).isCloseTo(0, within(DELTA));
+    assertThat(table.getNearestTone(445)).isEqualTo(new Tone("A0"));
+    assertThat(table.getCents(445)).isCloseTo(19.562, within(DELTA));
+    assertThat(table.getNearestTone(82.41)).isEqualTo(new Tone("E-2"));
+    assertThat(table.getNearestTone(277.2)).isEqualTo(new Tone("C#0"));
+    assertThat(table.getCents(430)).isCloseTo(-39.8, within(0.1));
+    assertThat(table.getNearestChromaticNumber(1)).isEqualTo(-60);
+    assertThat(table.getNearestChromaticNumber(1000000)).isEqualTo(67);
+  }
+
+}
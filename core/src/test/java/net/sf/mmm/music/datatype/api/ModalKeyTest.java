@@ -0,0 +1,59 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link ModalKey}.
+ *
+ * @author hohwille
+ */
+public class ModalKeyTest extends Assertions {
+
+  /** Test of {@link ModalKey#of(TonePitch, TonalSystem)} with {@link TonalSystem#DORIAN}. */
+  @Test
+  public void testDorian() {
+
+    ModalKey key = ModalKey.of(TonePitch.D, TonalSystem.DORIAN);
+    assertThat(ModalKey.of(TonePitch.D, TonalSystem.DORIAN)).isSameAs(key);
+    assertThat(key.getTonika()).isSameAs(TonePitch.D);
+    assertThat(key.getTonalSystem()).isSameAs(TonalSystem.DORIAN);
+    assertThat(key.getKeySignature()).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(key.getMusicalKey()).isNull();
+    assertThat(key.getDiatonicScale()).containsExactly(TonePitch.D, TonePitch.E, TonePitch.F, TonePitch.G,
+        TonePitch.A, TonePitch.H, TonePitch.C);
+    assertThat(key.contains(TonePitch.H)).isTrue();
+    assertThat(key.contains(TonePitch.B_FLAT)).isFalse();
+    assertThat(key.transposeChromatic(2)).isSameAs(ModalKey.of(TonePitch.E, TonalSystem.DORIAN));
+    assertThat(key.toString()).isEqualTo("D-dorian");
+  }
+
+  /** Test of {@link ModalKey#of(TonePitch, TonalSystem)} with other modes. */
+  @Test
+  public void testModes() {
+
+    assertThat(ModalKey.of(TonePitch.G, TonalSystem.MIXOLYDIAN).getDiatonicScale()).containsExactly(TonePitch.G,
+        TonePitch.A, TonePitch.H, TonePitch.C, TonePitch.D, TonePitch.E, TonePitch.F);
+    assertThat(ModalKey.of(TonePitch.E, TonalSystem.PHRYGIAN).getKeySignature()).isSameAs(MusicalKey.C_MAJOR);
+    assertThat(ModalKey.of(TonePitch.D, TonalSystem.LYDIAN).getDiatonicScale()).containsExactly(TonePitch.D,
+        TonePitch.E, TonePitch.FIS, TonePitch.GIS, TonePitch.A, TonePitch.H, TonePitch.CIS);
+    assertThat(ModalKey.of(TonePitch.D, TonalSystem.LOCRIAN).getKeySignature()).isSameAs(MusicalKey.ES_MAJOR);
+    assertThat(ModalKey.of(TonePitch.D, TonalSystem.LOCRIAN).getEnharmonicStyle()).isSameAs(EnharmonicStyle.FLAT);
+  }
+
+  /** Test of {@link ModalKey#of(MusicalKey)}. */
+  @Test
+  public void testMusicalKey() {
+
+    for (MusicalKey key : MusicalKey.values()) {
+      ModalKey modalKey = ModalKey.of(key);
+      assertThat(modalKey.getMusicalKey()).isSameAs(key);
+      assertThat(modalKey.getDiatonicScale()).isEqualTo(key.getDiatonicScale());
+      assertThat(modalKey.getChromaticScale()).isEqualTo(key.getChromaticScale());
+      assertThat(modalKey.getChromaticSignTones()).isEqualTo(key.getChromaticSignTones());
+    }
+  }
+
+}
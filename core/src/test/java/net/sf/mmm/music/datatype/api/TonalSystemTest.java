@@ -0,0 +1,43 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.datatype.api;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link TonalSystem}.
+ *
+ * @author hohwille
+ */
+public class TonalSystemTest extends Assertions {
+
+  /** Test of {@link TonalSystem#getFirstSemitone()} and {@link TonalSystem#getSecondSemitone()}. */
+  @Test
+  public void testSemitones() {
+
+    assertThat(TonalSystem.MAJOR.getFirstSemitone()).isEqualTo(3);
+    assertThat(TonalSystem.MAJOR.getSecondSemitone()).isEqualTo(7);
+    assertThat(TonalSystem.MINOR.getFirstSemitone()).isEqualTo(2);
+    assertThat(TonalSystem.MINOR.getSecondSemitone()).isEqualTo(5);
+    assertThat(TonalSystem.DORIAN.getFirstSemitone()).isEqualTo(2);
+    assertThat(TonalSystem.DORIAN.getSecondSemitone()).isEqualTo(6);
+    assertThat(TonalSystem.LOCRIAN.getFirstSemitone()).isEqualTo(1);
+    assertThat(TonalSystem.LOCRIAN.getSecondSemitone()).isEqualTo(4);
+  }
+
+  /** Test of {@link TonalSystem#getChromaticStep(int)}. */
+  @Test
+  public void testChromaticStep() {
+
+    assertThat(TonalSystem.MAJOR.getChromaticStep(4)).isEqualTo(7);
+    assertThat(TonalSystem.LOCRIAN.getChromaticStep(4)).isEqualTo(6);
+    assertThat(TonalSystem.LYDIAN.getChromaticStep(3)).isEqualTo(6);
+    assertThat(TonalSystem.MIXOLYDIAN.getChromaticStep(6)).isEqualTo(10);
+    assertThat(TonalSystem.MINOR.getChromaticStep(7)).isEqualTo(12);
+    assertThat(TonalSystem.MINOR.getChromaticStep(-1)).isEqualTo(-2);
+    assertThat(TonalSystem.MAJOR.getPitchClassMask()).isEqualTo(0b101010110101);
+    assertThat(TonalSystem.fromValue("dor")).isSameAs(TonalSystem.DORIAN);
+  }
+
+}
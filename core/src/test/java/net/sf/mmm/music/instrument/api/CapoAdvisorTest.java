@@ -0,0 +1,65 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link CapoAdvisor}.
+ *
+ * @author hohwille
+ */
+public class CapoAdvisorTest extends AbstractTest {
+
+  /** Test of {@link CapoAdvisor#rank(List)}. */
+  @Test
+  public void testRank() {
+
+    CapoAdvisor advisor = new CapoAdvisor(Tuning.GUITAR_STANDARD);
+    List<CapoOption> options = advisor.rank(chords("G C D Em G C D G"));
+    assertThat(options).hasSize(12);
+    assertThat(options.get(0).getTransposition()).isEqualTo(0);
+    assertThat(options.get(0).getCapo()).isEqualTo(0);
+    for (int i = 1; i < options.size(); i++) {
+      assertThat(options.get(i).getDifficulty()).isGreaterThanOrEqualTo(options.get(i - 1).getDifficulty());
+    }
+    // A flat major is easiest with G shapes and capo on the first fret
+    CapoOption option = advisor.suggest(chords("G# C# D# Fm G# C# D# G#"));
+    assertThat(option.getTransposition()).isEqualTo(11);
+    assertThat(option.getCapo()).isEqualTo(1);
+    // B flat major with G shapes and capo on the third fret
+    assertThat(advisor.suggest(chords("Bb Eb F Gm")).getCapo()).isEqualTo(3);
+  }
+
+  /** Test of {@link CapoAdvisor#getDifficulty(Chord)} for open shapes and barre chords. */
+  @Test
+  public void testDifficulty() {
+
+    CapoAdvisor advisor = new CapoAdvisor(Tuning.GUITAR_STANDARD);
+    advisor.precompute(chords("C Cm C7"));
+    assertThat(advisor.getDifficulty(new Chord("Em"))).isLessThan(advisor.getDifficulty(new Chord("Fm")));
+    assertThat(advisor.getDifficulty(new Chord("G"))).isLessThan(advisor.getDifficulty(new Chord("F")));
+    assertThat(advisor.getDifficulty(new Chord("G"))).isEqualTo(
+        VoicingGenerator.of(Tuning.GUITAR_STANDARD).getVoicings(new Chord("G")).get(0).getDifficulty());
+  }
+
+  /** Test of {@link CapoAdvisor#rankAll(List)}. */
+  @Test
+  public void testRankAll() {
+
+    CapoAdvisor advisor = new CapoAdvisor(Tuning.GUITAR_STANDARD);
+    List<List<Chord>> songs = Arrays.asList(chords("G C D Em"), chords("G# C# D# Fm"), chords("Bb Eb F Gm"));
+    List<List<CapoOption>> ranked = advisor.rankAll(songs);
+    assertThat(ranked).hasSize(3);
+    for (int i = 0; i < songs.size(); i++) {
+      assertThat(ranked.get(i)).isEqualTo(advisor.rank(songs.get(i)));
+    }
+  }
+
+}
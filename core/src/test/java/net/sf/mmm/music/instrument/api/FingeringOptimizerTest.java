@@ -0,0 +1,86 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link FingeringOptimizer}.
+ *
+ * @author hohwille
+ */
+public class FingeringOptimizerTest extends AbstractTest {
+
+  private static List<ToneItem> melody(String tones) {
+
+    List<ToneItem> items = new ArrayList<>();
+    for (String tone : tones.split(" ")) {
+      items.add(new ToneItem(MusicalValue.QUAVER, new Tone(tone)));
+    }
+    return items;
+  }
+
+  private static String tab(List<TabItem> items) {
+
+    StringBuilder sb = new StringBuilder();
+    for (TabItem item : items) {
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append(item.getStringBaseTone().getPitch());
+      sb.append(item.getFret());
+    }
+    return sb.toString();
+  }
+
+  /** Test of {@link FingeringOptimizer#optimize(List)} with a scale in open position. */
+  @Test
+  public void testOpenPosition() {
+
+    FingeringOptimizer optimizer = new FingeringOptimizer(Tuning.GUITAR_STANDARD);
+    List<TabItem> tab = optimizer.optimize(melody("C-1 D-1 E-1 F-1 G-1 A-1 H-1 C0 D0 E0 F0 G0"));
+    assertThat(tab(tab)).isEqualTo("A3 D0 D2 D3 G0 G2 H0 H1 H3 E0 E1 E3");
+    assertThat(tab.get(0).getTone()).isEqualTo(new Tone("C-1"));
+    assertThat(tab.get(0).getValue()).isSameAs(MusicalValue.QUAVER);
+  }
+
+  /** Test of {@link FingeringOptimizer#optimize(List)} keeping the hand position across open strings. */
+  @Test
+  public void testOpenStringKeepsHandPosition() {
+
+    FingeringOptimizer optimizer = new FingeringOptimizer(Tuning.GUITAR_STANDARD);
+    // F0 on the first fret would require to jump from the 12th fret and back
+    assertThat(tab(optimizer.optimize(melody("E1 E0 F0 E0 E1")))).isEqualTo("E12 E0 G10 E0 E12");
+  }
+
+  /** Test of {@link FingeringOptimizer#optimizePhrases(List)}. */
+  @Test
+  public void testPhrases() {
+
+    FingeringOptimizer optimizer = new FingeringOptimizer(Tuning.GUITAR_STANDARD);
+    List<ToneItem> phrase1 = melody("E-2 G-2 A-2");
+    List<ToneItem> phrase2 = melody("E0 G0 A0");
+    List<List<TabItem>> tabs = optimizer.optimizePhrases(Arrays.asList(phrase1, phrase2));
+    assertThat(tabs).hasSize(2);
+    assertThat(tab(tabs.get(0))).isEqualTo("E0 E3 A0");
+    assertThat(tab(tabs.get(1))).isEqualTo("E0 E3 E5");
+  }
+
+  /** Test of {@link FingeringOptimizer#optimize(List)} with a tone below the lowest string. */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotPlayable() {
+
+    new FingeringOptimizer(Tuning.GUITAR_STANDARD).optimize(melody("C-3"));
+  }
+
+}
@@ -0,0 +1,101 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.PackedTone;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link Tuning}.
+ *
+ * @author hohwille
+ */
+public class TuningTest extends AbstractTest {
+
+  /** Test of the predefined {@link Tuning}s. */
+  @Test
+  public void testPresets() {
+
+    assertThat(Tuning.GUITAR_STANDARD.toString()).isEqualTo("Standard (E A D G H E)");
+    assertThat(Tuning.GUITAR_DROP_D.toString()).isEqualTo("Drop D (D A D G H E)");
+    assertThat(Tuning.GUITAR_OPEN_G.toString()).isEqualTo("Open G (D G D G H D)");
+    assertThat(Tuning.GUITAR_SEVEN_STRING.getStringCount()).isEqualTo(7);
+    assertThat(Tuning.BASS_STANDARD.getString(0)).isEqualTo(new Tone("E-3"));
+    assertThat(Tuning.BASS_FIVE_STRING.getStringCount()).isEqualTo(5);
+    assertThat(Tuning.UKULELE_STANDARD.getFretCount()).isEqualTo(15);
+  }
+
+  /** Test of {@link Tuning#getTone(int, int)}. */
+  @Test
+  public void testGetTone() {
+
+    Tuning tuning = Tuning.GUITAR_STANDARD;
+    assertThat(tuning.getTone(0, 0)).isSameAs(tuning.getString(0));
+    assertThat(tuning.getTone(0, 3)).isEqualTo(new Tone("G-2"));
+    assertThat(tuning.getTone(1, 12)).isEqualTo(new Tone("A-1"));
+    assertThat(tuning.getTone(5, 22)).isEqualTo(new Tone("D2"));
+    assertThat(tuning.getTone(2, -1)).isNull();
+    assertThat(tuning.getTone(2, 7)).isSameAs(tuning.getTone(2, 7));
+  }
+
+  /** Test of {@link Tuning#getPositionCount(int)} and the position accessors. */
+  @Test
+  public void testPositions() {
+
+    Tuning tuning = Tuning.GUITAR_STANDARD;
+    int e0 = PackedTone.getChromaticNumber(new Tone("E0"));
+    assertThat(tuning.getPositionCount(e0)).isEqualTo(5);
+    int[][] expected = { { 1, 19 }, { 2, 14 }, { 3, 9 }, { 4, 5 }, { 5, 0 } };
+    for (int i = 0; i < expected.length; i++) {
+      assertThat(tuning.getPositionString(e0, i)).isEqualTo(expected[i][0]);
+      assertThat(tuning.getPositionFret(e0, i)).isEqualTo(expected[i][1]);
+      assertThat(tuning.getTone(expected[i][0], expected[i][1])).isEqualTo(new Tone("E0"));
+    }
+    int lowE = PackedTone.getChromaticNumber(tuning.getString(0));
+    assertThat(tuning.getPositionCount(lowE)).isEqualTo(1);
+    assertThat(tuning.getPositionCount(lowE - 1)).isEqualTo(0);
+    assertThat(tuning.getPositionCount(PackedTone.getChromaticNumber(new Tone("D2")))).isEqualTo(1);
+    assertThat(tuning.getPositionCount(PackedTone.getChromaticNumber(new Tone("D2")) + 1)).isEqualTo(0);
+  }
+
+  /** Test of {@link Tuning#retune(List)} from standard tuning to drop D. */
+  @Test
+  public void testRetune() {
+
+    Tuning standard = Tuning.GUITAR_STANDARD;
+    List<TabItem> riff = Arrays.asList(standard.toTabItem(MusicalValue.QUAVER, 0, 0),
+        standard.toTabItem(MusicalValue.QUAVER, 0, 3), standard.toTabItem(MusicalValue.QUAVER, 1, 2),
+        standard.toTabItem(MusicalValue.QUAVER, 5, 0));
+    List<TabItem> retuned = Tuning.GUITAR_DROP_D.retune(riff);
+    assertThat(retuned).hasSize(4);
+    int[] frets = { 2, 5, 2, 0 };
+    for (int i = 0; i < frets.length; i++) {
+      assertThat(retuned.get(i).getTone()).isEqualTo(riff.get(i).getTone());
+      assertThat(retuned.get(i).getValue()).isEqualTo(MusicalValue.QUAVER);
+      assertThat(retuned.get(i).getFret()).isEqualTo(frets[i]);
+    }
+    assertThat(retuned.get(0).getStringBaseTone()).isEqualTo(new Tone("D-2"));
+    assertThat(retuned.get(2).getStringBaseTone()).isEqualTo(new Tone("A-2"));
+  }
+
+  /** Test of {@link Tuning#retune(List)} keeping the enharmonic spelling of the tones. */
+  @Test
+  public void testRetuneFlat() {
+
+    TabItem item = new TabItem(MusicalValue.QUAVER, new Tone("Db-1"), 4);
+    TabItem retuned = Tuning.GUITAR_DROP_D.retune(Arrays.asList(item)).get(0);
+    assertThat(retuned.getTone()).isEqualTo(item.getTone());
+    assertThat(retuned.getTone().toString()).isEqualTo("Des-1");
+    assertThat(retuned.getFret()).isEqualTo(4);
+    assertThat(retuned.getStringBaseTone()).isEqualTo(new Tone("A-2"));
+  }
+
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.instrument.api;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.Tone;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link VoicingGenerator}.
+ *
+ * @author hohwille
+ */
+public class VoicingGeneratorTest extends AbstractTest {
+
+  private static String first(VoicingGenerator generator, String chord) {
+
+    return generator.getVoicings(new Chord(chord)).get(0).toString();
+  }
+
+  /** Test of {@link VoicingGenerator#getVoicings(Chord)} for guitar. */
+  @Test
+  public void testGuitar() {
+
+    VoicingGenerator generator = VoicingGenerator.of(Tuning.GUITAR_STANDARD);
+    assertThat(first(generator, "C")).isEqualTo("x32010");
+    assertThat(first(generator, "G")).isEqualTo("320003");
+    assertThat(first(generator, "Am")).isEqualTo("x02210");
+    assertThat(first(generator, "E")).isEqualTo("022100");
+    assertThat(first(generator, "D/F#")).isEqualTo("200232");
+    List<ChordVoicing> voicings = generator.getVoicings(new Chord("C"));
+    assertThat(generator.getVoicings(new Chord("C"))).isSameAs(voicings);
+    for (ChordVoicing voicing : voicings) {
+      // lowest tone is the base tone C
+      for (int string = 0; string < 6; string++) {
+        Tone tone = voicing.getTone(string);
+        if (tone != null) {
+          assertThat(tone.getPitch().getStep()).isEqualTo(0);
+          break;
+        }
+      }
+    }
+  }
+
+  /** Test of {@link VoicingGenerator#getVoicings(Chord)} for a re-entrant ukulele tuning. */
+  @Test
+  public void testUkulele() {
+
+    Tuning ukulele = new Tuning("Ukulele", 12, new Tone("G0"), new Tone("C0"), new Tone("E0"), new Tone("A0"));
+    VoicingGenerator generator = new VoicingGenerator(ukulele);
+    assertThat(first(generator, "C")).isEqualTo("0003");
+    assertThat(first(generator, "G")).isEqualTo("0232");
+    assertThat(first(generator, "Am")).isEqualTo("2000");
+    assertThat(first(generator, "F")).isEqualTo("2010");
+  }
+
+  /** Test of {@link VoicingGenerator#getVoicings(Chord)} omitting the fifth of chords with the same pitch classes. */
+  @Test
+  public void testOmittedFifth() {
+
+    Tuning ukulele = new Tuning("Ukulele", 12, new Tone("G0"), new Tone("C0"), new Tone("E0"), new Tone("A0"));
+    VoicingGenerator generator = new VoicingGenerator(ukulele);
+    // C E G A D where C6add9 omits G and Am7add11/C omits E
+    assertThat(new Chord("C6add9").getPitchClassMask()).isEqualTo(new Chord("Am7add11/C").getPitchClassMask());
+    assertThat(getSteps(generator.getVoicings(new Chord("Am7add11/C")))).contains(Integer.valueOf(7))
+        .doesNotContain(Integer.valueOf(4));
+    assertThat(getSteps(generator.getVoicings(new Chord("C6add9")))).contains(Integer.valueOf(4))
+        .doesNotContain(Integer.valueOf(7));
+  }
+
+  private static Set<Integer> getSteps(List<ChordVoicing> voicings) {
+
+    Set<Integer> steps = new HashSet<>();
+    for (ChordVoicing voicing : voicings) {
+      for (int string = 0; string < voicing.getTuning().getStringCount(); string++) {
+        Tone tone = voicing.getTone(string);
+        if (tone != null) {
+          steps.add(Integer.valueOf(tone.getPitch().getStep()));
+        }
+      }
+    }
+    return steps;
+  }
+
+  /** Test of {@link VoicingGenerator#of(Tuning)} only sharing the generators of the predefined {@link Tuning}s. */
+  @Test
+  public void testOf() {
+
+    assertThat(VoicingGenerator.of(Tuning.GUITAR_STANDARD)).isSameAs(VoicingGenerator.of(Tuning.GUITAR_STANDARD));
+    Tuning custom = new Tuning("Custom", 12, new Tone("D0"), new Tone("G0"), new Tone("H0"));
+    VoicingGenerator generator = VoicingGenerator.of(custom);
+    assertThat(generator.getTuning()).isSameAs(custom);
+    assertThat(VoicingGenerator.of(custom)).isNotSameAs(generator);
+  }
+
+  /** Test of {@link VoicingGenerator#precompute(java.util.Collection)}. */
+  @Test
+  public void testPrecompute() {
+
+    VoicingGenerator generator = new VoicingGenerator(Tuning.GUITAR_STANDARD);
+    int count = generator.precompute(Arrays.asList(new Chord("C"), new Chord("Cm"), new Chord("C7")));
+    assertThat(count).isGreaterThan(36);
+    assertThat(generator.getVoicings(new Chord("F#7"))).isNotEmpty();
+  }
+
+}
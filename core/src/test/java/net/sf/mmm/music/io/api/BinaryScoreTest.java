@@ -0,0 +1,125 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.music.io.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.mmm.music.AbstractTest;
+import net.sf.mmm.music.datatype.api.Chord;
+import net.sf.mmm.music.datatype.api.MusicalItem;
+import net.sf.mmm.music.datatype.api.MusicalValue;
+import net.sf.mmm.music.datatype.api.MusicalValue.Variation;
+import net.sf.mmm.music.datatype.api.RestItem;
+import net.sf.mmm.music.datatype.api.TabItem;
+import net.sf.mmm.music.datatype.api.Tone;
+import net.sf.mmm.music.datatype.api.ToneItem;
+import net.sf.mmm.music.datatype.api.TonePitch;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link BinaryScoreWriter} and {@link BinaryScoreReader}.
+ *
+ * @author hohwille
+ */
+public class BinaryScoreTest extends AbstractTest {
+
+  private static final List<MusicalItem> MEASURE_1 = Arrays.<MusicalItem> asList(
+      new ToneItem(MusicalValue.QUARTER, new Tone(TonePitch.C, 0)),
+      new ToneItem(new MusicalValue(1, 4, Variation.PUNCTURED), new Tone(TonePitch.FIS, -2)),
+      new RestItem(MusicalValue.QUAVER), new ToneItem(MusicalValue.MINIM, new Tone(TonePitch.HIS, 1)));
+
+  private static final List<MusicalItem> MEASURE_2 = Arrays.<MusicalItem> asList(
+      new TabItem(MusicalValue.QUARTER, 3, new Tone(TonePitch.E, -2)),
+      new TabItem(MusicalValue.QUARTER, new Tone(TonePitch.DES, -1), 4, new Tone(TonePitch.A, -2)),
+      new RestItem(MusicalValue.WHOLE));
+
+  private static final List<Chord> CHORDS_1 = Arrays.asList(new Chord("C"), new Chord("Cis4_add9_no5/A"));
+
+  private static final List<Chord> CHORDS_2 = Arrays.asList(new Chord("a\u266Dsus4add9/f\uD834\uDD2B"),
+      new Chord("C"));
+
+  /** Test of a round-trip via {@link BinaryScoreWriter#write(java.io.OutputStream)}. */
+  @Test
+  public void testRoundTrip() throws IOException {
+
+    // given
+    BinaryScoreWriter writer = new BinaryScoreWriter();
+    writer.addMeasure(MEASURE_1, CHORDS_1);
+    writer.addMeasure(MEASURE_2, CHORDS_2);
+    writer.addMeasure(Collections.<MusicalItem> emptyList());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when
+    writer.write(out);
+    BinaryScoreReader reader = new BinaryScoreReader(ByteBuffer.wrap(out.toByteArray()));
+
+    // then
+    assertThat(reader.getMeasureCount()).isEqualTo(3);
+    assertThat(reader.getChordCount()).isEqualTo(3);
+    // random access in reverse order
+    assertThat(reader.getItems(2)).isEmpty();
+    assertThat(reader.getChords(2)).isEmpty();
+    checkMeasure(reader, 1, MEASURE_2, CHORDS_2);
+    checkMeasure(reader, 0, MEASURE_1, CHORDS_1);
+    assertThat(reader.getItemCount(0)).isEqualTo(MEASURE_1.size());
+    assertThat(reader.getChord(1).getName()).isEqualTo("Cis4_add9_no5/A");
+  }
+
+  /** Test of {@link BinaryScoreReader#open(Path)} with a memory mapped file. */
+  @Test
+  public void testMappedFile() throws IOException {
+
+    Path file = Files.createTempFile("score", ".bin");
+    try {
+      BinaryScoreWriter writer = new BinaryScoreWriter();
+      for (int i = 0; i < 100; i++) {
+        writer.addMeasure(MEASURE_1, CHORDS_1);
+        writer.addMeasure(MEASURE_2, CHORDS_2);
+      }
+      writer.write(file);
+      BinaryScoreReader reader = BinaryScoreReader.open(file);
+      assertThat(reader.getMeasureCount()).isEqualTo(200);
+      checkMeasure(reader, 199, MEASURE_2, CHORDS_2);
+      checkMeasure(reader, 100, MEASURE_1, CHORDS_1);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Test of {@link BinaryScoreReader} with invalid data. */
+  @Test
+  public void testInvalid() {
+
+    checkNegative(() -> new BinaryScoreReader(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 })),
+        IllegalArgumentException.class, true, "Not a binary score", true);
+  }
+
+  private void checkMeasure(BinaryScoreReader reader, int measure, List<MusicalItem> items, List<Chord> chords) {
+
+    List<MusicalItem> decoded = reader.getItems(measure);
+    assertThat(decoded).isEqualTo(items);
+    for (int i = 0; i < items.size(); i++) {
+      MusicalItem item = items.get(i);
+      assertThat(decoded.get(i).getValue().getVariation()).isSameAs(item.getValue().getVariation());
+      if (item instanceof TabItem) {
+        TabItem tab = (TabItem) decoded.get(i);
+        assertThat(tab.getFret()).isEqualTo(((TabItem) item).getFret());
+        assertThat(tab.getStringBaseTone()).isEqualTo(((TabItem) item).getStringBaseTone());
+      }
+    }
+    List<Chord> decodedChords = reader.getChords(measure);
+    assertThat(decodedChords).isEqualTo(chords);
+    for (int i = 0; i < chords.size(); i++) {
+      assertThat(decodedChords.get(i).getName()).isEqualTo(chords.get(i).getName());
+    }
+  }
+
+}